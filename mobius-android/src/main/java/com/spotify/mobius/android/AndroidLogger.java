@@ -25,6 +25,8 @@ import android.util.Log;
 import com.spotify.mobius.First;
 import com.spotify.mobius.MobiusLoop;
 import com.spotify.mobius.Next;
+import com.spotify.mobius.functions.Producer;
+import java.util.Set;
 
 public class AndroidLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
 
@@ -50,6 +52,8 @@ public class AndroidLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
     for (F effect : result.effects()) {
       Log.d(tag, "Effect dispatched: " + effect);
     }
+
+    logLazyEffects(result.lazyEffects());
   }
 
   @Override
@@ -72,6 +76,8 @@ public class AndroidLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
     for (F effect : result.effects()) {
       Log.d(tag, "Effect dispatched: " + effect);
     }
+
+    logLazyEffects(result.lazyEffects());
   }
 
   @Override
@@ -81,4 +87,12 @@ public class AndroidLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
         String.format("FATAL ERROR: exception updating model '%s' with event '%s'", model, event),
         exception);
   }
+
+  // lazy effects are logged as-is rather than produced, since producing them here would run them
+  // on the loop thread ahead of the effect runner.
+  private void logLazyEffects(Set<Producer<? extends F>> lazyEffects) {
+    for (Producer<? extends F> lazyEffect : lazyEffects) {
+      Log.d(tag, "Lazy effect dispatched: " + lazyEffect);
+    }
+  }
 }
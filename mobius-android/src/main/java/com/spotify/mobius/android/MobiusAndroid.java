@@ -32,4 +32,22 @@ public final class MobiusAndroid {
       MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel) {
     return Mobius.controller(loopFactory, defaultModel, MainThreadWorkRunner.create());
   }
+
+  /**
+   * Create a controller that renders on the main thread, and lets observers subscribe to slices of
+   * the model. See {@link Mobius#observableController}.
+   */
+  public static <M, E, F> MobiusLoop.ObservableController<M, E> observableController(
+      MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel) {
+    return Mobius.observableController(loopFactory, defaultModel, MainThreadWorkRunner.create());
+  }
+
+  /**
+   * Create a controller that renders on the main thread, coalescing view updates so that at most
+   * one is pending at any time. See {@link Mobius#coalescingController}.
+   */
+  public static <M, E, F> MobiusLoop.ObservableController<M, E> coalescingController(
+      MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel) {
+    return Mobius.coalescingController(loopFactory, defaultModel, MainThreadWorkRunner.create());
+  }
 }
@@ -0,0 +1,728 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.collections;
+
+import static com.spotify.mobius.collections.Preconditions.checkNotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map that is cheap to make modified copies of. Copies share structure with the map
+ * they were made from, so adding, replacing and removing entries take O(log<sub>32</sub> n) time
+ * and space rather than the O(n) of copying a map.
+ *
+ * <p>The map is a hash array mapped trie: a 32-way trie indexed by successive 5-bit parts of the
+ * keys' hash codes, where each node only stores the branches that are in use. Keys whose hash codes
+ * are fully equal are kept in a list at the bottom of the trie. The trie is kept in a canonical
+ * shape, so maps with equal entries have equal tries; comparing a map to a modified copy of it
+ * therefore only compares the parts of the tries that aren't shared between them.
+ *
+ * <p>Use a {@link Builder} to make many changes at once without copying the changed parts for each
+ * of them. Null keys and values aren't permitted.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final int HASH_BITS = 32;
+
+  // bitmap nodes at shifts 0, 5, ..., 30, and a collision node below them
+  private static final int MAX_DEPTH = 8;
+
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+  private final Node root;
+  private final int size;
+
+  // lazily computed, like String.hashCode(); 0 means not computed yet
+  private int cachedHashCode;
+
+  private PersistentHashMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof PersistentHashMap) {
+      @SuppressWarnings("unchecked")
+      PersistentHashMap<K, V> persistent = (PersistentHashMap<K, V>) map;
+      return persistent;
+    }
+    return PersistentHashMap.<K, V>builder().putAll(map).build();
+  }
+
+  public static <K, V> Builder<K, V> builder() {
+    return PersistentHashMap.<K, V>empty().toBuilder();
+  }
+
+  /** @return a builder starting out with the entries of this map */
+  public Builder<K, V> toBuilder() {
+    return new Builder<>(this);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (key == null) {
+      return null;
+    }
+    return (V) root.find(key, key.hashCode(), 0);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  /**
+   * @return a copy of this map with the entry added or replaced, or this map if it already maps the
+   *     key to the same value instance
+   */
+  public PersistentHashMap<K, V> plus(K key, V value) {
+    checkNotNull(key);
+    checkNotNull(value);
+
+    Change change = new Change();
+    Node newRoot = root.put(null, key, value, key.hashCode(), 0, change);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentHashMap<>(newRoot, change.added ? size + 1 : size);
+  }
+
+  /** @return a copy of this map with the entries added or replaced */
+  public PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> map) {
+    return toBuilder().putAll(map).build();
+  }
+
+  /** @return a copy of this map without the key, or this map if it doesn't contain the key */
+  public PersistentHashMap<K, V> minus(Object key) {
+    checkNotNull(key);
+
+    Change change = new Change();
+    Node newRoot = root.remove(null, key, key.hashCode(), 0, change);
+    if (newRoot == root) {
+      return this;
+    }
+    return size == 1
+        ? PersistentHashMap.<K, V>empty()
+        : new PersistentHashMap<K, V>(newRoot, size - 1);
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<Entry<K, V>>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof PersistentHashMap)) {
+      return super.equals(o);
+    }
+
+    PersistentHashMap<?, ?> other = (PersistentHashMap<?, ?>) o;
+    if (size != other.size
+        || (cachedHashCode != 0
+            && other.cachedHashCode != 0
+            && cachedHashCode != other.cachedHashCode)) {
+      return false;
+    }
+    return nodesEqual(root, other.root);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = cachedHashCode;
+    if (result == 0) {
+      result = super.hashCode();
+      cachedHashCode = result;
+    }
+    return result;
+  }
+
+  /**
+   * A builder of maps. Changes made through a builder are made in place in the parts of the trie
+   * that the builder has already copied, so a series of changes only copies each affected part
+   * once. Maps built by a builder are unaffected by later changes to it.
+   *
+   * <p>Builders aren't thread-safe.
+   */
+  public static final class Builder<K, V> {
+    // nodes owned by this object were created by this builder, and may be changed in place; it is
+    // replaced when a map is built, so that the built map's nodes are never changed.
+    private Object owner = new Object();
+
+    private Node root;
+    private int size;
+
+    private Builder(PersistentHashMap<K, V> map) {
+      root = map.root;
+      size = map.size;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+      if (key == null) {
+        return null;
+      }
+      return (V) root.find(key, key.hashCode(), 0);
+    }
+
+    public boolean containsKey(Object key) {
+      return get(key) != null;
+    }
+
+    public Builder<K, V> put(K key, V value) {
+      checkNotNull(key);
+      checkNotNull(value);
+
+      Change change = new Change();
+      root = root.put(owner, key, value, key.hashCode(), 0, change);
+      if (change.added) {
+        size++;
+      }
+      return this;
+    }
+
+    public Builder<K, V> putAll(Map<? extends K, ? extends V> map) {
+      for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+        put(entry.getKey(), entry.getValue());
+      }
+      return this;
+    }
+
+    public Builder<K, V> remove(Object key) {
+      checkNotNull(key);
+
+      Change change = new Change();
+      root = root.remove(owner, key, key.hashCode(), 0, change);
+      if (change.removed) {
+        size--;
+      }
+      return this;
+    }
+
+    public PersistentHashMap<K, V> build() {
+      if (size == 0) {
+        return empty();
+      }
+
+      owner = new Object();
+      return new PersistentHashMap<>(root, size);
+    }
+  }
+
+  /** Records how an operation on the trie changed it. */
+  private static final class Change {
+    boolean added;
+    boolean removed;
+  }
+
+  private abstract static class Node {
+    /** @return the value mapped to the key, or null if there is none */
+    abstract Object find(Object key, int hash, int shift);
+
+    abstract Node put(Object owner, Object key, Object value, int hash, int shift, Change change);
+
+    abstract Node remove(Object owner, Object key, int hash, int shift, Change change);
+
+    abstract int payloadArity();
+
+    abstract Object keyAt(int index);
+
+    abstract Object valueAt(int index);
+
+    abstract int nodeArity();
+
+    abstract Node nodeAt(int index);
+  }
+
+  /**
+   * A trie node, storing entries inline when they are the only ones in their branch and in child
+   * nodes otherwise. Entries are stored as key-value pairs at the start of the content array, and
+   * child nodes in reverse order at its end. A node other than the root never holds just a single
+   * entry, since that entry is then stored inline in its parent instead; this keeps the shape of
+   * the trie canonical.
+   */
+  private static final class BitmapNode extends Node {
+    static final BitmapNode EMPTY = new BitmapNode(null, 0, 0, new Object[0]);
+
+    private final Object owner;
+
+    // concurrency note: only changed by the builder owning the node, before it is shared
+    private int dataMap;
+    private int nodeMap;
+    private Object[] content;
+
+    BitmapNode(Object owner, int dataMap, int nodeMap, Object[] content) {
+      this.owner = owner;
+      this.dataMap = dataMap;
+      this.nodeMap = nodeMap;
+      this.content = content;
+    }
+
+    @Override
+    Object find(Object key, int hash, int shift) {
+      int bit = bitpos(hash, shift);
+
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        return key.equals(content[2 * index]) ? content[2 * index + 1] : null;
+      }
+      if ((nodeMap & bit) != 0) {
+        return nodeFor(bit).find(key, hash, shift + BITS);
+      }
+      return null;
+    }
+
+    @Override
+    Node put(Object owner, Object key, Object value, int hash, int shift, Change change) {
+      int bit = bitpos(hash, shift);
+
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        Object currentKey = content[2 * index];
+
+        if (key.equals(currentKey)) {
+          if (content[2 * index + 1] == value) {
+            return this;
+          }
+          BitmapNode result = editable(owner);
+          result.content[2 * index + 1] = value;
+          return result;
+        }
+
+        Object currentValue = content[2 * index + 1];
+        Node child =
+            mergeTwo(
+                owner,
+                currentKey,
+                currentValue,
+                currentKey.hashCode(),
+                key,
+                value,
+                hash,
+                shift + BITS);
+        change.added = true;
+        return copyAndMigrateToNode(owner, bit, child);
+      }
+
+      if ((nodeMap & bit) != 0) {
+        Node child = nodeFor(bit);
+        Node newChild = child.put(owner, key, value, hash, shift + BITS, change);
+        return newChild == child ? this : copyAndSetNode(owner, bit, newChild);
+      }
+
+      change.added = true;
+      return copyAndInsertValue(owner, bit, key, value);
+    }
+
+    @Override
+    Node remove(Object owner, Object key, int hash, int shift, Change change) {
+      int bit = bitpos(hash, shift);
+
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        if (!key.equals(content[2 * index])) {
+          return this;
+        }
+        change.removed = true;
+        return copyAndRemoveValue(owner, bit);
+      }
+
+      if ((nodeMap & bit) != 0) {
+        Node child = nodeFor(bit);
+        Node newChild = child.remove(owner, key, hash, shift + BITS, change);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild.nodeArity() == 0 && newChild.payloadArity() == 1) {
+          return copyAndMigrateToInline(owner, bit, newChild.keyAt(0), newChild.valueAt(0));
+        }
+        return copyAndSetNode(owner, bit, newChild);
+      }
+
+      return this;
+    }
+
+    @Override
+    int payloadArity() {
+      return Integer.bitCount(dataMap);
+    }
+
+    @Override
+    Object keyAt(int index) {
+      return content[2 * index];
+    }
+
+    @Override
+    Object valueAt(int index) {
+      return content[2 * index + 1];
+    }
+
+    @Override
+    int nodeArity() {
+      return Integer.bitCount(nodeMap);
+    }
+
+    @Override
+    Node nodeAt(int index) {
+      return (Node) content[content.length - 1 - index];
+    }
+
+    private int dataIndex(int bit) {
+      return Integer.bitCount(dataMap & (bit - 1));
+    }
+
+    private int nodeIndex(int bit) {
+      return Integer.bitCount(nodeMap & (bit - 1));
+    }
+
+    private Node nodeFor(int bit) {
+      return nodeAt(nodeIndex(bit));
+    }
+
+    /** Returns this node if it is owned by the owner, or else an owned copy of it. */
+    private BitmapNode editable(Object owner) {
+      if (owner != null && this.owner == owner) {
+        return this;
+      }
+      return new BitmapNode(owner, dataMap, nodeMap, content.clone());
+    }
+
+    private BitmapNode withContent(Object owner, int dataMap, int nodeMap, Object[] content) {
+      if (owner != null && this.owner == owner) {
+        this.dataMap = dataMap;
+        this.nodeMap = nodeMap;
+        this.content = content;
+        return this;
+      }
+      return new BitmapNode(owner, dataMap, nodeMap, content);
+    }
+
+    private Node copyAndSetNode(Object owner, int bit, Node node) {
+      BitmapNode result = editable(owner);
+      result.content[content.length - 1 - nodeIndex(bit)] = node;
+      return result;
+    }
+
+    private Node copyAndInsertValue(Object owner, int bit, Object key, Object value) {
+      int index = 2 * dataIndex(bit);
+      Object[] newContent = new Object[content.length + 2];
+      System.arraycopy(content, 0, newContent, 0, index);
+      newContent[index] = key;
+      newContent[index + 1] = value;
+      System.arraycopy(content, index, newContent, index + 2, content.length - index);
+      return withContent(owner, dataMap | bit, nodeMap, newContent);
+    }
+
+    private Node copyAndRemoveValue(Object owner, int bit) {
+      int index = 2 * dataIndex(bit);
+      Object[] newContent = new Object[content.length - 2];
+      System.arraycopy(content, 0, newContent, 0, index);
+      System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+      return withContent(owner, dataMap ^ bit, nodeMap, newContent);
+    }
+
+    private Node copyAndMigrateToNode(Object owner, int bit, Node node) {
+      int oldIndex = 2 * dataIndex(bit);
+      int newIndex = content.length - 2 - nodeIndex(bit);
+      Object[] newContent = new Object[content.length - 1];
+      System.arraycopy(content, 0, newContent, 0, oldIndex);
+      System.arraycopy(content, oldIndex + 2, newContent, oldIndex, newIndex - oldIndex);
+      newContent[newIndex] = node;
+      System.arraycopy(
+          content, newIndex + 2, newContent, newIndex + 1, content.length - newIndex - 2);
+      return withContent(owner, dataMap ^ bit, nodeMap | bit, newContent);
+    }
+
+    private Node copyAndMigrateToInline(Object owner, int bit, Object key, Object value) {
+      int oldIndex = content.length - 1 - nodeIndex(bit);
+      int newIndex = 2 * dataIndex(bit);
+      Object[] newContent = new Object[content.length + 1];
+      System.arraycopy(content, 0, newContent, 0, newIndex);
+      newContent[newIndex] = key;
+      newContent[newIndex + 1] = value;
+      System.arraycopy(content, newIndex, newContent, newIndex + 2, oldIndex - newIndex);
+      System.arraycopy(
+          content, oldIndex + 1, newContent, oldIndex + 2, content.length - oldIndex - 1);
+      return withContent(owner, dataMap | bit, nodeMap ^ bit, newContent);
+    }
+  }
+
+  /** A node holding entries whose keys have equal hash codes. */
+  private static final class CollisionNode extends Node {
+    private final int hash;
+    private final Object[] content;
+
+    CollisionNode(int hash, Object[] content) {
+      this.hash = hash;
+      this.content = content;
+    }
+
+    @Override
+    Object find(Object key, int hash, int shift) {
+      int index = indexOf(key);
+      return index < 0 ? null : content[index + 1];
+    }
+
+    @Override
+    Node put(Object owner, Object key, Object value, int hash, int shift, Change change) {
+      int index = indexOf(key);
+
+      if (index >= 0) {
+        if (content[index + 1] == value) {
+          return this;
+        }
+        Object[] newContent = content.clone();
+        newContent[index + 1] = value;
+        return new CollisionNode(this.hash, newContent);
+      }
+
+      Object[] newContent = new Object[content.length + 2];
+      System.arraycopy(content, 0, newContent, 0, content.length);
+      newContent[content.length] = key;
+      newContent[content.length + 1] = value;
+      change.added = true;
+      return new CollisionNode(this.hash, newContent);
+    }
+
+    @Override
+    Node remove(Object owner, Object key, int hash, int shift, Change change) {
+      int index = indexOf(key);
+      if (index < 0) {
+        return this;
+      }
+
+      Object[] newContent = new Object[content.length - 2];
+      System.arraycopy(content, 0, newContent, 0, index);
+      System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+      change.removed = true;
+      return new CollisionNode(this.hash, newContent);
+    }
+
+    @Override
+    int payloadArity() {
+      return content.length / 2;
+    }
+
+    @Override
+    Object keyAt(int index) {
+      return content[2 * index];
+    }
+
+    @Override
+    Object valueAt(int index) {
+      return content[2 * index + 1];
+    }
+
+    @Override
+    int nodeArity() {
+      return 0;
+    }
+
+    @Override
+    Node nodeAt(int index) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < content.length; i += 2) {
+        if (key.equals(content[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+    private final Node[] nodes = new Node[MAX_DEPTH];
+    private final int[] payloadPositions = new int[MAX_DEPTH];
+    private final int[] nodePositions = new int[MAX_DEPTH];
+    private int depth;
+    private Entry<K, V> next;
+
+    EntryIterator(Node root) {
+      nodes[0] = root;
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Entry<K, V> result = next;
+      advance();
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private void advance() {
+      next = null;
+
+      while (depth >= 0) {
+        Node node = nodes[depth];
+
+        if (payloadPositions[depth] < node.payloadArity()) {
+          int index = payloadPositions[depth]++;
+          @SuppressWarnings("unchecked")
+          K key = (K) node.keyAt(index);
+          @SuppressWarnings("unchecked")
+          V value = (V) node.valueAt(index);
+          next = new SimpleImmutableEntry<>(key, value);
+          return;
+        }
+
+        if (nodePositions[depth] < node.nodeArity()) {
+          Node child = node.nodeAt(nodePositions[depth]++);
+          depth++;
+          nodes[depth] = child;
+          payloadPositions[depth] = 0;
+          nodePositions[depth] = 0;
+          continue;
+        }
+
+        nodes[depth] = null;
+        depth--;
+      }
+    }
+  }
+
+  private static Node mergeTwo(
+      Object owner,
+      Object key0,
+      Object value0,
+      int hash0,
+      Object key1,
+      Object value1,
+      int hash1,
+      int shift) {
+
+    if (shift >= HASH_BITS) {
+      return new CollisionNode(hash0, new Object[] {key0, value0, key1, value1});
+    }
+
+    int mask0 = (hash0 >>> shift) & MASK;
+    int mask1 = (hash1 >>> shift) & MASK;
+
+    if (mask0 != mask1) {
+      int dataMap = (1 << mask0) | (1 << mask1);
+      Object[] content =
+          mask0 < mask1
+              ? new Object[] {key0, value0, key1, value1}
+              : new Object[] {key1, value1, key0, value0};
+      return new BitmapNode(owner, dataMap, 0, content);
+    }
+
+    Node child = mergeTwo(owner, key0, value0, hash0, key1, value1, hash1, shift + BITS);
+    return new BitmapNode(owner, 0, 1 << mask0, new Object[] {child});
+  }
+
+  private static boolean nodesEqual(Node a, Node b) {
+    if (a == b) {
+      return true;
+    }
+    if (a.getClass() != b.getClass()
+        || a.payloadArity() != b.payloadArity()
+        || a.nodeArity() != b.nodeArity()) {
+      return false;
+    }
+
+    if (a instanceof CollisionNode) {
+      // entries in collision nodes are in insertion order, so look each one up
+      for (int i = 0; i < a.payloadArity(); i++) {
+        Object key = a.keyAt(i);
+        Object value = b.find(key, key.hashCode(), HASH_BITS);
+        if (value == null || !value.equals(a.valueAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    BitmapNode bitmapA = (BitmapNode) a;
+    BitmapNode bitmapB = (BitmapNode) b;
+    if (bitmapA.dataMap != bitmapB.dataMap || bitmapA.nodeMap != bitmapB.nodeMap) {
+      return false;
+    }
+
+    for (int i = 0; i < a.payloadArity(); i++) {
+      if (!a.keyAt(i).equals(b.keyAt(i)) || !a.valueAt(i).equals(b.valueAt(i))) {
+        return false;
+      }
+    }
+    for (int i = 0; i < a.nodeArity(); i++) {
+      if (!nodesEqual(a.nodeAt(i), b.nodeAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int bitpos(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+}
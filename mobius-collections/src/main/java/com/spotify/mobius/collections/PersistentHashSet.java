@@ -0,0 +1,180 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.collections;
+
+import static com.spotify.mobius.collections.Preconditions.checkNotNull;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * An immutable set that is cheap to make modified copies of, backed by a {@link PersistentHashMap}.
+ * Adding and removing elements take O(log<sub>32</sub> n) time and space, and comparing a set to a
+ * modified copy of it only compares the parts that aren't shared between them.
+ *
+ * <p>Use a {@link Builder} to make many changes at once. Null elements aren't permitted.
+ *
+ * @param <E> the element type
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+
+  private static final PersistentHashSet<?> EMPTY =
+      new PersistentHashSet<>(PersistentHashMap.<Object, Boolean>empty());
+
+  private final PersistentHashMap<E, Boolean> map;
+
+  // lazily computed, like String.hashCode(); 0 means not computed yet
+  private int cachedHashCode;
+
+  private PersistentHashSet(PersistentHashMap<E, Boolean> map) {
+    this.map = map;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentHashSet<E> empty() {
+    return (PersistentHashSet<E>) EMPTY;
+  }
+
+  @SafeVarargs
+  public static <E> PersistentHashSet<E> of(E... elements) {
+    Builder<E> builder = builder();
+    for (E element : elements) {
+      builder.add(element);
+    }
+    return builder.build();
+  }
+
+  public static <E> PersistentHashSet<E> copyOf(Iterable<? extends E> elements) {
+    if (elements instanceof PersistentHashSet) {
+      @SuppressWarnings("unchecked")
+      PersistentHashSet<E> persistent = (PersistentHashSet<E>) elements;
+      return persistent;
+    }
+    return PersistentHashSet.<E>builder().addAll(elements).build();
+  }
+
+  public static <E> Builder<E> builder() {
+    return PersistentHashSet.<E>empty().toBuilder();
+  }
+
+  /** @return a builder starting out with the elements of this set */
+  public Builder<E> toBuilder() {
+    return new Builder<>(map.toBuilder());
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return map.containsKey(o);
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return map.keySet().iterator();
+  }
+
+  /** @return a copy of this set with the element added, or this set if it already contains it */
+  public PersistentHashSet<E> plus(E element) {
+    return wrap(map.plus(element, Boolean.TRUE));
+  }
+
+  /** @return a copy of this set with the elements added */
+  public PersistentHashSet<E> plusAll(Iterable<? extends E> elements) {
+    return toBuilder().addAll(elements).build();
+  }
+
+  /** @return a copy of this set without the element, or this set if it doesn't contain it */
+  public PersistentHashSet<E> minus(Object element) {
+    return wrap(map.minus(element));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof PersistentHashSet) {
+      return map.equals(((PersistentHashSet<?>) o).map);
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = cachedHashCode;
+    if (result == 0) {
+      result = super.hashCode();
+      cachedHashCode = result;
+    }
+    return result;
+  }
+
+  private PersistentHashSet<E> wrap(PersistentHashMap<E, Boolean> newMap) {
+    if (newMap == map) {
+      return this;
+    }
+    return newMap.isEmpty() ? PersistentHashSet.<E>empty() : new PersistentHashSet<>(newMap);
+  }
+
+  /**
+   * A builder of sets, which makes changes in place in the parts of the set that it has already
+   * copied. Sets built by a builder are unaffected by later changes to it.
+   *
+   * <p>Builders aren't thread-safe.
+   */
+  public static final class Builder<E> {
+    private final PersistentHashMap.Builder<E, Boolean> map;
+
+    private Builder(PersistentHashMap.Builder<E, Boolean> map) {
+      this.map = map;
+    }
+
+    public int size() {
+      return map.size();
+    }
+
+    public boolean contains(Object element) {
+      return map.containsKey(element);
+    }
+
+    public Builder<E> add(E element) {
+      map.put(checkNotNull(element), Boolean.TRUE);
+      return this;
+    }
+
+    public Builder<E> addAll(Iterable<? extends E> elements) {
+      for (E element : elements) {
+        add(element);
+      }
+      return this;
+    }
+
+    public Builder<E> remove(Object element) {
+      map.remove(element);
+      return this;
+    }
+
+    public PersistentHashSet<E> build() {
+      PersistentHashMap<E, Boolean> built = map.build();
+      return built.isEmpty() ? PersistentHashSet.<E>empty() : new PersistentHashSet<>(built);
+    }
+  }
+}
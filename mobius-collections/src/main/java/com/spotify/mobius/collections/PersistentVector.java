@@ -0,0 +1,506 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.collections;
+
+import static com.spotify.mobius.collections.Preconditions.checkElementIndex;
+import static com.spotify.mobius.collections.Preconditions.checkNotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list that is cheap to make modified copies of. Copies share structure with the list
+ * they were made from, so appending, replacing and removing the last element take
+ * O(log<sub>32</sub> n) time and space rather than the O(n) of copying a list. This makes it a good
+ * fit for collections in models, which an {@code Update} must copy to change.
+ *
+ * <p>The list is a 32-way trie of the elements, with the last, partially filled, chunk of up to 32
+ * elements kept outside the trie so that appending is usually just a small array copy.
+ *
+ * <p>Lists can be compared using {@link #equals(Object)} as usual, but comparing a vector to a
+ * modified copy of it only compares the elements in chunks that aren't shared between them. Use a
+ * {@link Builder} to make many changes at once without copying the changed parts for each of them.
+ * Null elements aren't permitted.
+ *
+ * @param <E> the element type
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final Node EMPTY_NODE = new Node(null, new Object[WIDTH]);
+  private static final PersistentVector<?> EMPTY =
+      new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+  private final int size;
+  private final int shift;
+  private final Node root;
+  private final Object[] tail;
+
+  // lazily computed, like String.hashCode(); 0 means not computed yet
+  private int cachedHashCode;
+
+  private PersistentVector(int size, int shift, Node root, Object[] tail) {
+    this.size = size;
+    this.shift = shift;
+    this.root = root;
+    this.tail = tail;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentVector<E> empty() {
+    return (PersistentVector<E>) EMPTY;
+  }
+
+  @SafeVarargs
+  public static <E> PersistentVector<E> of(E... elements) {
+    Builder<E> builder = builder();
+    for (E element : elements) {
+      builder.add(element);
+    }
+    return builder.build();
+  }
+
+  public static <E> PersistentVector<E> copyOf(Iterable<? extends E> elements) {
+    if (elements instanceof PersistentVector) {
+      @SuppressWarnings("unchecked")
+      PersistentVector<E> persistent = (PersistentVector<E>) elements;
+      return persistent;
+    }
+    return PersistentVector.<E>builder().addAll(elements).build();
+  }
+
+  public static <E> Builder<E> builder() {
+    return PersistentVector.<E>empty().toBuilder();
+  }
+
+  /** @return a builder starting out with the elements of this vector */
+  public Builder<E> toBuilder() {
+    return new Builder<>(this);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    checkElementIndex(index, size);
+    return (E) chunkFor(index)[index & MASK];
+  }
+
+  /** @return a copy of this vector with the element appended */
+  public PersistentVector<E> plus(E element) {
+    checkNotNull(element);
+
+    if (size - tailOffset(size) < WIDTH) {
+      Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+      newTail[tail.length] = element;
+      return new PersistentVector<>(size + 1, shift, root, newTail);
+    }
+
+    Node tailNode = new Node(null, tail);
+    int newShift = shift;
+    Node newRoot;
+    if ((size >>> BITS) > (1 << shift)) {
+      // the trie is full, so it needs another level
+      newRoot = new Node(null, new Object[WIDTH]);
+      newRoot.array[0] = root;
+      newRoot.array[1] = newPath(null, shift, tailNode);
+      newShift += BITS;
+    } else {
+      newRoot = pushTail(null, size, shift, root, tailNode);
+    }
+
+    return new PersistentVector<>(size + 1, newShift, newRoot, new Object[] {element});
+  }
+
+  /** @return a copy of this vector with the elements appended */
+  public PersistentVector<E> plusAll(Iterable<? extends E> elements) {
+    return toBuilder().addAll(elements).build();
+  }
+
+  /**
+   * Replace an element, or append one if the index is equal to the size of the vector.
+   *
+   * @return a copy of this vector with the element at the index replaced
+   * @throws IndexOutOfBoundsException if the index is negative or greater than the size
+   */
+  public PersistentVector<E> with(int index, E element) {
+    checkNotNull(element);
+    if (index == size) {
+      return plus(element);
+    }
+    checkElementIndex(index, size);
+
+    if (index >= tailOffset(size)) {
+      Object[] newTail = tail.clone();
+      newTail[index & MASK] = element;
+      return new PersistentVector<>(size, shift, root, newTail);
+    }
+
+    return new PersistentVector<>(size, shift, assoc(null, shift, root, index, element), tail);
+  }
+
+  /**
+   * @return a copy of this vector without its last element
+   * @throws IllegalStateException if the vector is empty
+   */
+  public PersistentVector<E> minusLast() {
+    if (size == 0) {
+      throw new IllegalStateException("can't remove from an empty vector");
+    }
+    if (size == 1) {
+      return empty();
+    }
+
+    if (size - tailOffset(size) > 1) {
+      return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+    }
+
+    Object[] newTail = chunkFor(size - 2);
+    Node newRoot = popTail(null, size, shift, root);
+    int newShift = shift;
+    if (newRoot == null) {
+      newRoot = EMPTY_NODE;
+    }
+    if (shift > BITS && newRoot.array[1] == null) {
+      newRoot = (Node) newRoot.array[0];
+      newShift -= BITS;
+    }
+    return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new Itr();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof PersistentVector)) {
+      return super.equals(o);
+    }
+
+    PersistentVector<?> other = (PersistentVector<?>) o;
+    if (size != other.size
+        || (cachedHashCode != 0
+            && other.cachedHashCode != 0
+            && cachedHashCode != other.cachedHashCode)) {
+      return false;
+    }
+    if (root == other.root && tail == other.tail) {
+      return true;
+    }
+
+    // chunks that are shared between the vectors are equal, so only compare the others
+    for (int start = 0; start < size; start += WIDTH) {
+      Object[] chunk = chunkFor(start);
+      Object[] otherChunk = other.chunkFor(start);
+      if (chunk == otherChunk) {
+        continue;
+      }
+
+      int end = Math.min(WIDTH, size - start);
+      for (int i = 0; i < end; i++) {
+        if (!chunk[i].equals(otherChunk[i])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = cachedHashCode;
+    if (result == 0) {
+      result = super.hashCode();
+      cachedHashCode = result;
+    }
+    return result;
+  }
+
+  private Object[] chunkFor(int index) {
+    if (index >= tailOffset(size)) {
+      return tail;
+    }
+
+    Node node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Node) node.array[(index >>> level) & MASK];
+    }
+    return node.array;
+  }
+
+  /**
+   * A builder of vectors. Changes made through a builder are made in place in the parts of the trie
+   * that the builder has already copied, so a series of changes only copies each affected part
+   * once. Vectors built by a builder are unaffected by later changes to it.
+   *
+   * <p>Builders aren't thread-safe.
+   */
+  public static final class Builder<E> {
+    // nodes owned by this object were created by this builder, and may be changed in place; it is
+    // replaced when a vector is built, so that the built vector's nodes are never changed.
+    private Object owner = new Object();
+
+    private int size;
+    private int shift;
+    private Node root;
+    private Object[] tail;
+
+    private Builder(PersistentVector<E> vector) {
+      size = vector.size;
+      shift = vector.shift;
+      root = vector.root;
+      tail = Arrays.copyOf(vector.tail, WIDTH);
+    }
+
+    public int size() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+      checkElementIndex(index, size);
+      return (E) chunkFor(index)[index & MASK];
+    }
+
+    public Builder<E> add(E element) {
+      checkNotNull(element);
+
+      if (size - tailOffset(size) < WIDTH) {
+        tail[size & MASK] = element;
+        size++;
+        return this;
+      }
+
+      Node tailNode = new Node(owner, tail);
+      tail = new Object[WIDTH];
+      tail[0] = element;
+
+      if ((size >>> BITS) > (1 << shift)) {
+        Node newRoot = new Node(owner, new Object[WIDTH]);
+        newRoot.array[0] = root;
+        newRoot.array[1] = newPath(owner, shift, tailNode);
+        root = newRoot;
+        shift += BITS;
+      } else {
+        root = pushTail(owner, size, shift, root, tailNode);
+      }
+
+      size++;
+      return this;
+    }
+
+    public Builder<E> addAll(Iterable<? extends E> elements) {
+      for (E element : elements) {
+        add(element);
+      }
+      return this;
+    }
+
+    /** Replace an element, or append one if the index is equal to the current size. */
+    public Builder<E> set(int index, E element) {
+      checkNotNull(element);
+      if (index == size) {
+        return add(element);
+      }
+      checkElementIndex(index, size);
+
+      if (index >= tailOffset(size)) {
+        tail[index & MASK] = element;
+      } else {
+        root = assoc(owner, shift, root, index, element);
+      }
+      return this;
+    }
+
+    public Builder<E> removeLast() {
+      if (size == 0) {
+        throw new IllegalStateException("can't remove from an empty builder");
+      }
+
+      if (size == 1 || ((size - 1) & MASK) > 0) {
+        size--;
+        tail[size & MASK] = null;
+        return this;
+      }
+
+      Object[] newTail = chunkFor(size - 2).clone();
+      Node newRoot = popTail(owner, size, shift, root);
+      if (newRoot == null) {
+        newRoot = new Node(owner, new Object[WIDTH]);
+      }
+      if (shift > BITS && newRoot.array[1] == null) {
+        newRoot = (Node) newRoot.array[0];
+        shift -= BITS;
+      }
+      root = newRoot;
+      tail = newTail;
+      size--;
+      return this;
+    }
+
+    public PersistentVector<E> build() {
+      if (size == 0) {
+        return empty();
+      }
+
+      owner = new Object();
+      return new PersistentVector<>(
+          size, shift, root, Arrays.copyOf(tail, size - tailOffset(size)));
+    }
+
+    private Object[] chunkFor(int index) {
+      if (index >= tailOffset(size)) {
+        return tail;
+      }
+
+      Node node = root;
+      for (int level = shift; level > 0; level -= BITS) {
+        node = (Node) node.array[(index >>> level) & MASK];
+      }
+      return node.array;
+    }
+  }
+
+  private class Itr implements Iterator<E> {
+    private int index;
+    private Object[] chunk = size > 0 ? chunkFor(0) : null;
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @Override
+    public E next() {
+      if (index >= size) {
+        throw new NoSuchElementException();
+      }
+      if (index > 0 && (index & MASK) == 0) {
+        chunk = chunkFor(index);
+      }
+      @SuppressWarnings("unchecked")
+      E element = (E) chunk[index++ & MASK];
+      return element;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static final class Node {
+    final Object owner;
+    final Object[] array;
+
+    Node(Object owner, Object[] array) {
+      this.owner = owner;
+      this.array = array;
+    }
+  }
+
+  /** Returns the node itself if it is owned by the owner, or else an owned copy of it. */
+  private static Node editable(Object owner, Node node) {
+    if (owner != null && node.owner == owner) {
+      return node;
+    }
+    return new Node(owner, node.array.clone());
+  }
+
+  private static int tailOffset(int size) {
+    return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+  }
+
+  private static Node newPath(Object owner, int level, Node node) {
+    if (level == 0) {
+      return node;
+    }
+    Node result = new Node(owner, new Object[WIDTH]);
+    result.array[0] = newPath(owner, level - BITS, node);
+    return result;
+  }
+
+  private static Node pushTail(Object owner, int size, int level, Node parent, Node tailNode) {
+    int index = ((size - 1) >>> level) & MASK;
+    Node result = editable(owner, parent);
+
+    Node toInsert;
+    if (level == BITS) {
+      toInsert = tailNode;
+    } else {
+      Node child = (Node) parent.array[index];
+      toInsert =
+          child != null
+              ? pushTail(owner, size, level - BITS, child, tailNode)
+              : newPath(owner, level - BITS, tailNode);
+    }
+
+    result.array[index] = toInsert;
+    return result;
+  }
+
+  /** Removes the last leaf of a trie holding size - 1 elements; returns null if none remain. */
+  private static Node popTail(Object owner, int size, int level, Node node) {
+    int index = ((size - 2) >>> level) & MASK;
+
+    if (level > BITS) {
+      Node newChild = popTail(owner, size, level - BITS, (Node) node.array[index]);
+      if (newChild == null && index == 0) {
+        return null;
+      }
+      Node result = editable(owner, node);
+      result.array[index] = newChild;
+      return result;
+    } else if (index == 0) {
+      return null;
+    } else {
+      Node result = editable(owner, node);
+      result.array[index] = null;
+      return result;
+    }
+  }
+
+  private static Node assoc(Object owner, int level, Node node, int index, Object element) {
+    Node result = editable(owner, node);
+    if (level == 0) {
+      result.array[index & MASK] = element;
+    } else {
+      int childIndex = (index >>> level) & MASK;
+      result.array[childIndex] =
+          assoc(owner, level - BITS, (Node) node.array[childIndex], index, element);
+    }
+    return result;
+  }
+}
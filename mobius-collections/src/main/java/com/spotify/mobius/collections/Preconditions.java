@@ -0,0 +1,42 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.collections;
+
+/**
+ * A copy of the parts of mobius-core's Preconditions that this module needs, since it must not
+ * depend on anything.
+ */
+final class Preconditions {
+  private Preconditions() {}
+
+  static <T> T checkNotNull(T input) {
+    if (input == null) {
+      throw new NullPointerException();
+    }
+
+    return input;
+  }
+
+  static void checkElementIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class PersistentHashMapTest {
+
+  @Test
+  public void emptyMapHasNoEntries() throws Exception {
+    assertThat(PersistentHashMap.empty()).isEmpty();
+    assertThat(PersistentHashMap.empty()).isEqualTo(new HashMap<>());
+  }
+
+  @Test
+  public void matchesHashMapForRandomOperations() throws Exception {
+    Random random = new Random(42);
+    Map<Key, Integer> expected = new HashMap<>();
+    PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+    PersistentHashMap.Builder<Key, Integer> builder = PersistentHashMap.builder();
+
+    for (int round = 0; round < 50_000; round++) {
+      // few enough keys that they are often replaced and removed, with some colliding hash codes
+      Key key = new Key(random.nextInt(2000), random.nextInt(3));
+      int value = random.nextInt(10);
+
+      if (random.nextInt(3) < 2) {
+        expected.put(key, value);
+        map = map.plus(key, value);
+        builder.put(key, value);
+      } else {
+        expected.remove(key);
+        map = map.minus(key);
+        builder.remove(key);
+      }
+
+      if (round % 5000 == 0) {
+        assertMatches(map, expected);
+        assertMatches(builder.build(), expected);
+      }
+    }
+
+    assertMatches(map, expected);
+    assertMatches(builder.build(), expected);
+  }
+
+  @Test
+  public void mapsWithEqualEntriesAreEqualRegardlessOfHistory() throws Exception {
+    Random random = new Random(4711);
+    PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+    Map<Key, Integer> expected = new HashMap<>();
+
+    for (int i = 0; i < 2000; i++) {
+      Key key = new Key(random.nextInt(), random.nextInt(2));
+      map = map.plus(key, i);
+      expected.put(key, i);
+      if (i % 3 == 0) {
+        map = map.minus(key);
+        expected.remove(key);
+      }
+    }
+
+    PersistentHashMap<Key, Integer> rebuilt = PersistentHashMap.copyOf(expected);
+    assertThat(map).isEqualTo(rebuilt);
+    assertThat(map.hashCode()).isEqualTo(rebuilt.hashCode());
+    assertThat(map.plus(new Key(1, 0), -1)).isNotEqualTo(rebuilt);
+  }
+
+  @Test
+  public void returnsSameMapForNoOpChanges() throws Exception {
+    Integer value = 1000;
+    PersistentHashMap<String, Integer> map =
+        PersistentHashMap.<String, Integer>empty().plus("a", value);
+
+    assertThat(map.plus("a", value)).isSameAs(map);
+    assertThat(map.minus("b")).isSameAs(map);
+  }
+
+  @Test
+  public void modifiedCopiesDoNotAffectOriginal() throws Exception {
+    PersistentHashMap<String, Integer> original =
+        PersistentHashMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+
+    original.plus("a", 3);
+    original.plus("c", 3);
+    original.minus("b");
+
+    assertThat(original).containsOnly(entry("a", 1), entry("b", 2));
+  }
+
+  @Test
+  public void builtMapsAreUnaffectedByLaterBuilderChanges() throws Exception {
+    PersistentHashMap.Builder<Integer, Integer> builder = PersistentHashMap.builder();
+    for (int i = 0; i < 100; i++) {
+      builder.put(i, i);
+    }
+    PersistentHashMap<Integer, Integer> built = builder.build();
+
+    builder.put(3, -1).put(1000, -1).remove(50);
+
+    assertThat(built).hasSize(100).containsEntry(3, 3).containsEntry(50, 50);
+  }
+
+  @Test
+  public void rejectsNullKeysAndValues() throws Exception {
+    assertThatThrownBy(() -> PersistentHashMap.empty().plus(null, 1))
+        .isInstanceOf(NullPointerException.class);
+    assertThatThrownBy(() -> PersistentHashMap.empty().plus(1, null))
+        .isInstanceOf(NullPointerException.class);
+  }
+
+  private static void assertMatches(
+      PersistentHashMap<Key, Integer> actual, Map<Key, Integer> expected) {
+    assertThat(actual).isEqualTo(expected);
+    assertThat(expected).isEqualTo(actual);
+    assertThat(actual.hashCode()).isEqualTo(expected.hashCode());
+    for (Key key : expected.keySet()) {
+      assertThat(actual.get(key)).isEqualTo(expected.get(key));
+    }
+  }
+
+  private static Map.Entry<String, Integer> entry(String key, Integer value) {
+    return new AbstractMap.SimpleImmutableEntry<>(key, value);
+  }
+
+  /** A key whose hash code only depends on its id, so that keys with different tags collide. */
+  private static final class Key {
+    private final int id;
+    private final int tag;
+
+    Key(int id, int tag) {
+      this.id = id;
+      this.tag = tag;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).id == id && ((Key) o).tag == tag;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return id + "/" + tag;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class PersistentHashSetTest {
+
+  @Test
+  public void matchesHashSetForRandomOperations() throws Exception {
+    Random random = new Random(42);
+    Set<Integer> expected = new HashSet<>();
+    PersistentHashSet<Integer> set = PersistentHashSet.empty();
+
+    for (int round = 0; round < 20_000; round++) {
+      int element = random.nextInt(1000);
+
+      if (random.nextBoolean()) {
+        expected.add(element);
+        set = set.plus(element);
+      } else {
+        expected.remove(element);
+        set = set.minus(element);
+      }
+    }
+
+    assertThat(set).isEqualTo(expected);
+    assertThat(expected).isEqualTo(set);
+    assertThat(set.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(set).isEqualTo(PersistentHashSet.copyOf(expected));
+  }
+
+  @Test
+  public void returnsSameSetForNoOpChanges() throws Exception {
+    PersistentHashSet<String> set = PersistentHashSet.of("a", "b");
+
+    assertThat(set.plus("a")).isSameAs(set);
+    assertThat(set.minus("c")).isSameAs(set);
+  }
+
+  @Test
+  public void builderSupportsBatchChanges() throws Exception {
+    PersistentHashSet<String> original = PersistentHashSet.of("a", "b");
+
+    PersistentHashSet<String> changed = original.toBuilder().add("c").remove("a").build();
+
+    assertThat(changed).containsOnly("b", "c");
+    assertThat(original).containsOnly("a", "b");
+  }
+}
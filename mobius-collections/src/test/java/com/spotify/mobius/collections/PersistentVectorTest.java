@@ -0,0 +1,161 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class PersistentVectorTest {
+
+  @Test
+  public void emptyVectorHasNoElements() throws Exception {
+    assertThat(PersistentVector.empty()).isEmpty();
+    assertThat(PersistentVector.empty()).isEqualTo(new ArrayList<>());
+  }
+
+  @Test
+  public void behavesLikeAListAcrossTrieLevels() throws Exception {
+    List<Integer> expected = new ArrayList<>();
+    PersistentVector<Integer> vector = PersistentVector.empty();
+
+    // enough elements for three levels of trie, so that the root has to grow twice
+    for (int i = 0; i < 40_000; i++) {
+      expected.add(i);
+      vector = vector.plus(i);
+    }
+
+    assertThat(vector).isEqualTo(expected);
+    assertThat(vector.hashCode()).isEqualTo(expected.hashCode());
+
+    while (!vector.isEmpty()) {
+      expected.remove(expected.size() - 1);
+      vector = vector.minusLast();
+      if (vector.size() % 997 == 0) {
+        assertThat(vector).isEqualTo(expected);
+      }
+    }
+    assertThat(vector).isEmpty();
+  }
+
+  @Test
+  public void matchesArrayListForRandomOperations() throws Exception {
+    Random random = new Random(42);
+    List<Integer> expected = new ArrayList<>();
+    PersistentVector<Integer> vector = PersistentVector.empty();
+    PersistentVector.Builder<Integer> builder = PersistentVector.builder();
+
+    for (int round = 0; round < 20_000; round++) {
+      int operation = random.nextInt(10);
+      int value = random.nextInt();
+
+      if (operation < 5 || expected.isEmpty()) {
+        expected.add(value);
+        vector = vector.plus(value);
+        builder.add(value);
+      } else if (operation < 8) {
+        int index = random.nextInt(expected.size());
+        expected.set(index, value);
+        vector = vector.with(index, value);
+        builder.set(index, value);
+      } else {
+        expected.remove(expected.size() - 1);
+        vector = vector.minusLast();
+        builder.removeLast();
+      }
+
+      if (round % 1000 == 0) {
+        assertThat(vector).isEqualTo(expected);
+        assertThat(builder.build()).isEqualTo(expected);
+      }
+    }
+
+    assertThat(vector).isEqualTo(expected);
+    assertThat(builder.build()).isEqualTo(expected);
+  }
+
+  @Test
+  public void modifiedCopiesDoNotAffectOriginal() throws Exception {
+    PersistentVector<Integer> original = PersistentVector.copyOf(range(100));
+
+    original.plus(100);
+    original.with(3, -1);
+    original.minusLast();
+
+    assertThat(original).isEqualTo(range(100));
+  }
+
+  @Test
+  public void builtVectorsAreUnaffectedByLaterBuilderChanges() throws Exception {
+    PersistentVector.Builder<Integer> builder =
+        PersistentVector.<Integer>builder().addAll(range(100));
+    PersistentVector<Integer> built = builder.build();
+
+    builder.set(3, -1).set(99, -1).removeLast().add(7);
+
+    assertThat(built).isEqualTo(range(100));
+  }
+
+  @Test
+  public void equalsComparesModifiedCopies() throws Exception {
+    PersistentVector<Integer> vector = PersistentVector.copyOf(range(1000));
+
+    assertThat(vector.with(500, 500)).isEqualTo(vector);
+    assertThat(vector.with(500, -1)).isNotEqualTo(vector);
+    assertThat(vector.minusLast().plus(999)).isEqualTo(vector);
+    assertThat(vector).isEqualTo(new ArrayList<>(range(1000)));
+  }
+
+  @Test
+  public void rejectsNullElements() throws Exception {
+    assertThatThrownBy(() -> PersistentVector.empty().plus(null))
+        .isInstanceOf(NullPointerException.class);
+  }
+
+  @Test
+  public void rejectsOutOfBoundsIndices() throws Exception {
+    PersistentVector<String> vector = PersistentVector.of("a");
+
+    assertThatThrownBy(() -> vector.get(1)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> vector.with(2, "b")).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void isNotModifiableThroughListInterface() throws Exception {
+    List<String> vector = PersistentVector.of("a");
+
+    assertThatThrownBy(() -> vector.add("b")).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> vector.iterator().remove())
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  private static List<Integer> range(int size) {
+    Integer[] values = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = i;
+    }
+    return Arrays.asList(values);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import java.util.List;
+
+/**
+ * A {@link Connection} that can accept several values at once.
+ *
+ * <p>When effect batching is enabled for a {@link MobiusLoop} (see {@link
+ * MobiusLoop.TunableBuilder#batchEffects(boolean)}), an effect handler connection implementing this
+ * interface will receive all effects from a single {@link Next} or {@link First} in one call to
+ * {@link #acceptAll(List)}, instead of one call to {@link #accept(Object)} per effect. This lets
+ * the handler submit them to its own machinery in one go.
+ *
+ * <p>An exception thrown from {@link #acceptAll(List)} is attributed to the whole batch, so
+ * implementations should make sure that a failure to handle one value doesn't prevent the other
+ * values from being handled.
+ */
+public interface BatchConnection<I> extends Connection<I> {
+
+  /**
+   * Send several values to this connection, in order. Implementations may receive values from
+   * different threads and are thus expected to be thread-safe.
+   *
+   * @param values the values that should be sent to the connection
+   */
+  void acceptAll(List<I> values);
+}
@@ -0,0 +1,39 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.List;
+
+/**
+ * A {@link Consumer} that can also accept several values in one call, allowing producers that emit
+ * values in groups to hand them over in one go.
+ *
+ * @param <T> the type of values accepted
+ */
+interface BatchConsumer<T> extends Consumer<T> {
+
+  /**
+   * Accept several values, in order.
+   *
+   * @param values the values to accept
+   */
+  void acceptAll(List<T> values);
+}
@@ -0,0 +1,312 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.functions.Producer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A variant of {@link MobiusLoop} for loops that live entirely on one thread, such as an Android
+ * main thread or a server event-loop thread. It offers the same API, but does all its work
+ * synchronously on the thread that started it, using plain fields and collections rather than
+ * runners, locks and concurrent collections. Slice observers added with {@link #observe(Function,
+ * Consumer)} share their implementation with {@link MobiusLoop}, and take uncontended locks.
+ *
+ * <p>Events are processed in the order they are dispatched. Effects are handed to the effect
+ * handler right after the update that produced them, and the resulting model has been published.
+ * Events that are dispatched while another event is being processed, for instance by an effect
+ * handler or a model observer, are queued and processed once the current one is done.
+ *
+ * <p>All methods, including the effect handler's and event source's event consumers, must be
+ * invoked on the thread that started the loop. Effect handlers that do work in the background must
+ * post their events back to that thread. Thread ownership is verified using Java assertions, so
+ * violations are reported in builds where assertions are enabled, and cost nothing otherwise.
+ *
+ * <p>Errors are handled like in {@link MobiusLoop}: an exception thrown by the update function, a
+ * model observer or the event source while processing an event is logged, and the rest of the work
+ * for that event is skipped, but queued and future events are processed as usual. An exception
+ * thrown by the effect handler, or by a lazy effect, is logged as a {@link ConnectionException},
+ * and the remaining effects are still handed to the effect handler. No exceptions are thrown back
+ * to the caller of {@link #dispatchEvent(Object)}, including effect handlers that emit events
+ * synchronously. The one difference is that an exception thrown by the {@link Init} function
+ * propagates out of {@link MobiusLoop.TunableBuilder#startConfined(Object)}, since the loop can't
+ * do anything useful without a model, and failing synchronously is the clearest way of saying so.
+ *
+ * <p>Create one using {@link MobiusLoop.TunableBuilder#startConfined(Object)}.
+ */
+public final class ConfinedMobiusLoop<M, E, F> implements Disposable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConfinedMobiusLoop.class);
+
+  private final Thread owner;
+  private final Update<M, E, F> update;
+  private final Connection<F> effectConsumer;
+  private final Connection<M> eventSourceModelConsumer;
+
+  private final Queue<E> eventQueue = new ArrayDeque<>();
+
+  // replaced rather than modified when observers are added or removed, so that it can be iterated
+  // over without copying while observers are being notified.
+  private List<Consumer<M>> modelObservers = new ArrayList<>();
+  private final ModelSelectors<M> modelSelectors = new ModelSelectors<>();
+
+  @Nullable private M mostRecentModel;
+  private boolean processing;
+  private boolean disposed;
+
+  static <M, E, F> ConfinedMobiusLoop<M, E, F> create(
+      Init<M, F> init,
+      Update<M, E, F> update,
+      Connectable<F, E> effectHandler,
+      Connectable<M, E> eventSource,
+      M startModel) {
+    return new ConfinedMobiusLoop<>(
+        checkNotNull(init),
+        checkNotNull(update),
+        checkNotNull(effectHandler),
+        checkNotNull(eventSource),
+        checkNotNull(startModel));
+  }
+
+  private ConfinedMobiusLoop(
+      Init<M, F> init,
+      Update<M, E, F> update,
+      Connectable<F, E> effectHandler,
+      Connectable<M, E> eventSource,
+      M startModel) {
+    this.owner = Thread.currentThread();
+    this.update = update;
+
+    Consumer<E> eventConsumer =
+        new Consumer<E>() {
+          @Override
+          public void accept(E event) {
+            dispatchEvent(event);
+          }
+        };
+
+    this.effectConsumer = effectHandler.connect(eventConsumer);
+    try {
+      this.eventSourceModelConsumer = eventSource.connect(eventConsumer);
+    } catch (Throwable t) {
+      effectConsumer.dispose();
+      throw t;
+    }
+
+    // events dispatched synchronously while initialising are queued until init is done, just like
+    // events that arrive before init in a MobiusLoop.
+    processing = true;
+    try {
+      First<M, F> first = init.init(startModel);
+      onModelChanged(first.model());
+      dispatchEffects(first.effects(), first.lazyEffects());
+    } catch (Throwable t) {
+      // the loop is never returned to the caller, so nobody else can disconnect the effect handler
+      // and the event source.
+      dispose();
+      throw t;
+    } finally {
+      processing = false;
+    }
+
+    drainEvents();
+  }
+
+  public void dispatchEvent(E event) {
+    assert isOwnerThread() : "dispatchEvent must be called on the thread that started the loop";
+
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot dispatch events after disposal");
+
+    eventQueue.add(checkNotNull(event));
+
+    if (!processing) {
+      drainEvents();
+    }
+  }
+
+  @Nullable
+  public M getMostRecentModel() {
+    assert isOwnerThread()
+        : "getMostRecentModel must be called on the thread that started the loop";
+    return mostRecentModel;
+  }
+
+  /**
+   * Add an observer of model changes to this loop. If {@link #getMostRecentModel()} is non-null,
+   * the observer will immediately be notified of the most recent model. The observer will be
+   * notified of future changes to the model until the loop or the returned {@link Disposable} is
+   * disposed.
+   *
+   * @param observer a non-null observer of model changes
+   * @return a {@link Disposable} that can be used to stop further notifications to the observer
+   * @throws NullPointerException if the observer is null
+   * @throws IllegalStateException if the loop has been disposed
+   */
+  public Disposable observe(final Consumer<M> observer) {
+    assert isOwnerThread() : "observe must be called on the thread that started the loop";
+
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
+
+    List<Consumer<M>> observers = new ArrayList<>(modelObservers);
+    observers.add(checkNotNull(observer));
+    modelObservers = observers;
+
+    if (mostRecentModel != null) {
+      // Start by emitting the most recently received model.
+      observer.accept(mostRecentModel);
+    }
+
+    return new Disposable() {
+      @Override
+      public void dispose() {
+        assert isOwnerThread() : "observers must be disposed on the thread that started the loop";
+        List<Consumer<M>> observers = new ArrayList<>(modelObservers);
+        observers.remove(observer);
+        modelObservers = observers;
+      }
+    };
+  }
+
+  /**
+   * Add an observer of a slice of the model. The selector is applied once for each model change,
+   * and the observer is only notified when the selected value differs from the previous one
+   * according to {@link Object#equals(Object)}. If {@link #getMostRecentModel()} is non-null, the
+   * observer will immediately be notified of its slice of the most recent model.
+   *
+   * <p>Observers registered with the same selector instance share its computation, so keep a
+   * reference to selectors that several observers use rather than creating one per observer.
+   *
+   * @param selector a non-null function picking the part of the model to observe
+   * @param observer a non-null observer of changes to the selected value
+   * @return a {@link Disposable} that can be used to stop further notifications to the observer
+   * @throws NullPointerException if the selector or observer is null
+   * @throws IllegalStateException if the loop has been disposed
+   */
+  public <T> Disposable observe(Function<M, T> selector, Consumer<T> observer) {
+    assert isOwnerThread() : "observe must be called on the thread that started the loop";
+
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
+
+    return modelSelectors.add(selector, observer, mostRecentModel);
+  }
+
+  @Override
+  public void dispose() {
+    assert isOwnerThread() : "dispose must be called on the thread that started the loop";
+
+    if (disposed) {
+      return;
+    }
+
+    disposed = true;
+    modelObservers = new ArrayList<>();
+    modelSelectors.clear();
+    eventQueue.clear();
+
+    eventSourceModelConsumer.dispose();
+    effectConsumer.dispose();
+  }
+
+  private void drainEvents() {
+    processing = true;
+    try {
+      E event;
+      while (!disposed && (event = eventQueue.poll()) != null) {
+        try {
+          processEvent(event);
+        } catch (Throwable t) {
+          LOGGER.error("Exception when processing event: {}", event, t);
+        }
+      }
+    } finally {
+      processing = false;
+    }
+  }
+
+  private void processEvent(E event) {
+    Next<M, F> next = update.update(checkNotNull(mostRecentModel), event);
+
+    if (next.hasModel()) {
+      onModelChanged(next.modelUnsafe());
+    }
+    dispatchEffects(next.effects(), next.lazyEffects());
+  }
+
+  private void onModelChanged(M model) {
+    mostRecentModel = model;
+    eventSourceModelConsumer.accept(model);
+    for (Consumer<M> observer : modelObservers) {
+      observer.accept(model);
+    }
+    modelSelectors.onModelChanged(model);
+  }
+
+  private void dispatchEffects(Iterable<F> effects, Iterable<Producer<? extends F>> lazyEffects) {
+    for (F effect : effects) {
+      onEffectReceived(effect);
+    }
+    for (Producer<? extends F> lazyEffect : lazyEffects) {
+      F effect;
+      try {
+        effect = lazyEffect.get();
+      } catch (Throwable t) {
+        LOGGER.error("Exception when evaluating lazy effect: {}", lazyEffect, t);
+        continue;
+      }
+      onEffectReceived(effect);
+    }
+  }
+
+  private void onEffectReceived(F effect) {
+    if (disposed) {
+      return;
+    }
+
+    try {
+      effectConsumer.accept(effect);
+    } catch (Throwable t) {
+      LOGGER.error(
+          "Effect handler threw an exception when accepting effect: {}",
+          effect,
+          new ConnectionException(effect, t));
+    }
+  }
+
+  private boolean isOwnerThread() {
+    return Thread.currentThread() == owner;
+  }
+}
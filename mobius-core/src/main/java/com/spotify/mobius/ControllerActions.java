@@ -25,6 +25,8 @@ interface ControllerActions<M, E> {
 
   void postUpdateView(M model);
 
+  void onViewUpdated(M model);
+
   void goToStateInit(M nextModelToStartFrom);
 
   void goToStateCreated(Connection<M> renderer, @Nullable M nextModelToStartFrom);
@@ -27,6 +27,10 @@ import org.slf4j.LoggerFactory;
  * Note: synchronization has to be provided externally, states do not protect themselves from issues
  * related state switching. Use ControllerActions to interact with MobiusControllerActions for any
  * asynchronous action and never call one on-method from another directly.
+ *
+ * <p>The exceptions are {@link #onDispatchEvent(Object)} and {@link #onUpdateView(Object)}, which
+ * are called without any external synchronization, possibly concurrently with a state transition,
+ * and must therefore be safe to call at any time.
  */
 abstract class ControllerStateBase<M, E> {
 
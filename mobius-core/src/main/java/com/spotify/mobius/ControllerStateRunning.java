@@ -28,6 +28,13 @@ class ControllerStateRunning<M, E, F> extends ControllerStateBase<M, E> {
   @Nonnull private final MobiusLoop<M, E, F> loop;
   @Nonnull private final M startModel;
 
+  // concurrency note: rendering a model and setting the stopped flag both happen while holding the
+  // render lock, so that no model is rendered once onStop has returned. Nothing else is done while
+  // holding it, and in particular the loop isn't disposed, since the loop may be rendering a model
+  // on a thread that holds its own locks.
+  private final Object renderLock = new Object();
+  private volatile boolean stopped;
+
   ControllerStateRunning(
       ControllerActions<M, E> actions,
       Connection<M> renderer,
@@ -62,16 +69,41 @@ class ControllerStateRunning<M, E, F> extends ControllerStateBase<M, E> {
 
   @Override
   public void onDispatchEvent(E event) {
-    loop.dispatchEvent(event);
+    if (stopped) {
+      super.onDispatchEvent(event);
+      return;
+    }
+
+    try {
+      loop.dispatchEvent(event);
+    } catch (IllegalStateException e) {
+      // events aren't dispatched under the controller lock, so the loop may have been disposed by a
+      // concurrent call to stop() since the check above. Drop the event, like in any other state.
+      if (!stopped) {
+        throw e;
+      }
+      super.onDispatchEvent(event);
+    }
   }
 
   @Override
   public void onUpdateView(M model) {
-    renderer.accept(model);
+    synchronized (renderLock) {
+      if (stopped) {
+        super.onUpdateView(model);
+        return;
+      }
+
+      renderer.accept(model);
+      actions.onViewUpdated(model);
+    }
   }
 
   @Override
   public void onStop() {
+    synchronized (renderLock) {
+      stopped = true;
+    }
     loop.dispose();
     M mostRecentModel = loop.getMostRecentModel();
     actions.goToStateCreated(renderer, mostRecentModel);
@@ -0,0 +1,76 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decides whether a model should be published, suppressing models that are the same as the previous
+ * one, and reports suppressions to the loop's logger if it is a {@link
+ * MobiusLoop.ModelSuppressionLogger}.
+ *
+ * <p>Not thread-safe; the loop only calls it while processing events, which never happens
+ * concurrently.
+ */
+class DistinctModelFilter<M> {
+
+  private final MobiusLoop.ModelComparison comparison;
+  @Nullable private final MobiusLoop.ModelSuppressionLogger<M> logger;
+
+  private long suppressedCount;
+
+  DistinctModelFilter(MobiusLoop.ModelComparison comparison, MobiusLoop.Logger<M, ?, ?> logger) {
+    this.comparison = checkNotNull(comparison);
+
+    if (logger instanceof MobiusLoop.ModelSuppressionLogger) {
+      @SuppressWarnings("unchecked")
+      MobiusLoop.ModelSuppressionLogger<M> suppressionLogger =
+          (MobiusLoop.ModelSuppressionLogger<M>) logger;
+      this.logger = suppressionLogger;
+    } else {
+      this.logger = null;
+    }
+  }
+
+  boolean isDistinct(@Nullable M previousModel, M model) {
+    if (previousModel == null || !isSame(previousModel, model)) {
+      return true;
+    }
+
+    suppressedCount++;
+    if (logger != null) {
+      logger.modelSuppressed(model, suppressedCount);
+    }
+    return false;
+  }
+
+  private boolean isSame(M previousModel, M model) {
+    switch (comparison) {
+      case IDENTITY:
+        return previousModel == model;
+      case EQUALITY:
+        return previousModel == model || previousModel.equals(model);
+      default:
+        throw new AssertionError("unknown comparison: " + comparison);
+    }
+  }
+}
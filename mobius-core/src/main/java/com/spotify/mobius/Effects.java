@@ -19,6 +19,7 @@
  */
 package com.spotify.mobius;
 
+import com.spotify.mobius.functions.Producer;
 import com.spotify.mobius.internal_util.Preconditions;
 import java.util.Collections;
 import java.util.HashSet;
@@ -49,4 +50,22 @@ public final class Effects {
 
     return result;
   }
+
+  /**
+   * Convenience method for instantiating a set of lazy effects, to be used with {@link
+   * Next#next(Object, Set, Set)} and similar. Like {@link #effects(Object[])}, this returns a
+   * mutable set.
+   *
+   * @return a *mutable* set of lazy effects
+   */
+  @SafeVarargs
+  @Nonnull
+  public static <F> Set<Producer<? extends F>> lazyEffects(Producer<? extends F>... lazyEffects) {
+    Set<Producer<? extends F>> result = new HashSet<>(lazyEffects.length);
+    for (Producer<? extends F> lazyEffect : lazyEffects) {
+      result.add(Preconditions.checkNotNull(lazyEffect));
+    }
+
+    return result;
+  }
 }
@@ -22,6 +22,7 @@ package com.spotify.mobius;
 import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Producer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,6 +37,7 @@ class EventProcessor<M, E, F> {
 
   private final MobiusStore<M, E, F> store;
   private final Consumer<F> effectConsumer;
+  private final Consumer<Producer<? extends F>> lazyEffectConsumer;
   private final Consumer<M> modelConsumer;
 
   // concurrency note: the two below fields are only read and written in synchronized sections,
@@ -44,9 +46,27 @@ class EventProcessor<M, E, F> {
   private boolean initialised = false;
 
   EventProcessor(
-      MobiusStore<M, E, F> store, Consumer<F> effectConsumer, Consumer<M> modelConsumer) {
+      MobiusStore<M, E, F> store, final Consumer<F> effectConsumer, Consumer<M> modelConsumer) {
+    this(
+        store,
+        effectConsumer,
+        new Consumer<Producer<? extends F>>() {
+          @Override
+          public void accept(Producer<? extends F> lazyEffect) {
+            effectConsumer.accept(lazyEffect.get());
+          }
+        },
+        modelConsumer);
+  }
+
+  EventProcessor(
+      MobiusStore<M, E, F> store,
+      Consumer<F> effectConsumer,
+      Consumer<Producer<? extends F>> lazyEffectConsumer,
+      Consumer<M> modelConsumer) {
     this.store = checkNotNull(store);
     this.effectConsumer = checkNotNull(effectConsumer);
+    this.lazyEffectConsumer = checkNotNull(lazyEffectConsumer);
     this.modelConsumer = checkNotNull(modelConsumer);
   }
 
@@ -58,7 +78,7 @@ class EventProcessor<M, E, F> {
     First<M, F> first = store.init();
 
     dispatchModel(first.model());
-    dispatchEffects(first.effects());
+    dispatchEffects(first.effects(), first.lazyEffects());
 
     initialised = true;
     for (E event : eventsReceivedBeforeInit) {
@@ -81,14 +101,36 @@ class EventProcessor<M, E, F> {
             dispatchModel(model);
           }
         });
-    dispatchEffects(next.effects());
+    dispatchEffects(next.effects(), next.lazyEffects());
   }
 
   private void dispatchModel(M model) {
     modelConsumer.accept(model);
   }
 
+  private void dispatchEffects(Iterable<F> effects, Iterable<Producer<? extends F>> lazyEffects) {
+    dispatchEffects(effects);
+
+    // lazy effects are always dispatched one by one, since they need to be evaluated before it's
+    // known how they should be handled.
+    for (Producer<? extends F> lazyEffect : lazyEffects) {
+      lazyEffectConsumer.accept(lazyEffect);
+    }
+  }
+
   private void dispatchEffects(Iterable<F> effects) {
+    if (effectConsumer instanceof BatchConsumer) {
+      List<F> batch = new ArrayList<>();
+      for (F effect : effects) {
+        batch.add(effect);
+      }
+
+      if (!batch.isEmpty()) {
+        ((BatchConsumer<F>) effectConsumer).acceptAll(batch);
+      }
+      return;
+    }
+
     for (F effect : effects) {
       effectConsumer.accept(effect);
     }
@@ -112,5 +154,16 @@ class EventProcessor<M, E, F> {
     public EventProcessor<M, E, F> create(Consumer<F> effectConsumer, Consumer<M> modelConsumer) {
       return new EventProcessor<>(store, checkNotNull(effectConsumer), checkNotNull(modelConsumer));
     }
+
+    public EventProcessor<M, E, F> create(
+        Consumer<F> effectConsumer,
+        Consumer<Producer<? extends F>> lazyEffectConsumer,
+        Consumer<M> modelConsumer) {
+      return new EventProcessor<>(
+          store,
+          checkNotNull(effectConsumer),
+          checkNotNull(lazyEffectConsumer),
+          checkNotNull(modelConsumer));
+    }
   }
 }
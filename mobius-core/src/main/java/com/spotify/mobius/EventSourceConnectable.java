@@ -21,6 +21,7 @@ package com.spotify.mobius;
 
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 
 class EventSourceConnectable<M, E> implements Connectable<M, E> {
@@ -39,13 +40,17 @@ class EventSourceConnectable<M, E> implements Connectable<M, E> {
   @Override
   public Connection<M> connect(final Consumer<E> output) throws ConnectionLimitExceededException {
     final Disposable disposable = eventSource.subscribe(output);
+    final AtomicBoolean disposed = new AtomicBoolean();
+
     return new Connection<M>() {
       @Override
-      public synchronized void accept(M value) {}
+      public void accept(M value) {}
 
       @Override
-      public synchronized void dispose() {
-        disposable.dispose();
+      public void dispose() {
+        if (disposed.compareAndSet(false, true)) {
+          disposable.dispose();
+        }
       }
     };
   }
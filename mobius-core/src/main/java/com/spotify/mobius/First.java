@@ -19,7 +19,10 @@
  */
 package com.spotify.mobius;
 
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
 import com.google.auto.value.AutoValue;
+import com.spotify.mobius.functions.Producer;
 import com.spotify.mobius.internal_util.ImmutableUtil;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -36,9 +39,55 @@ public abstract class First<M, F> {
   @Nonnull
   public abstract Set<F> effects();
 
-  /** Check if this First contains effects */
+  /**
+   * @return the possibly empty set of lazy effects to initially dispatch; these are evaluated on
+   *     the effect runner, and are not included in {@link #effects()}
+   */
+  @Nonnull
+  public Set<Producer<? extends F>> lazyEffects() {
+    return ImmutableUtil.emptySet();
+  }
+
+  /** Check if this First contains effects, including lazy effects */
   public final boolean hasEffects() {
-    return !effects().isEmpty();
+    return !effects().isEmpty() || !lazyEffects().isEmpty();
+  }
+
+  // equals and hashCode are written out, rather than generated, so that they include lazyEffects(),
+  // which isn't an AutoValue property.
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof First)) {
+      return false;
+    }
+
+    First<?, ?> that = (First<?, ?>) o;
+    return model().equals(that.model())
+        && effects().equals(that.effects())
+        && lazyEffects().equals(that.lazyEffects());
+  }
+
+  @Override
+  public int hashCode() {
+    int h = model().hashCode();
+    h = h * 31 + effects().hashCode();
+    h = h * 31 + lazyEffects().hashCode();
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    // lazy effects are only included when present, to keep the output unchanged for code that
+    // doesn't use them.
+    return "First{model="
+        + model()
+        + ", effects="
+        + effects()
+        + (lazyEffects().isEmpty() ? "" : ", lazyEffects=" + lazyEffects())
+        + "}";
   }
 
   /**
@@ -62,4 +111,54 @@ public abstract class First<M, F> {
   public static <M, F> First<M, F> first(M model, Set<F> effects) {
     return new AutoValue_First<>(model, effects);
   }
+
+  /**
+   * Create a {@link First} with the provided model, and the supplied initial effects and lazy
+   * effects. The lazy effects are evaluated on the effect runner.
+   *
+   * @param model the model to initialize the loop with
+   * @param <M> the model type
+   * @param <F> the effect type
+   */
+  public static <M, F> First<M, F> first(
+      M model, Set<F> effects, Set<? extends Producer<? extends F>> lazyEffects) {
+    return new WithLazyEffects<>(
+        checkNotNull(model),
+        checkNotNull(effects),
+        ImmutableUtil.<Producer<? extends F>>immutableSet(lazyEffects));
+  }
+
+  /**
+   * A First with lazy effects. These are kept in a subclass rather than in an AutoValue property,
+   * so that {@link #lazyEffects()} doesn't have to be abstract.
+   */
+  private static final class WithLazyEffects<M, F> extends First<M, F> {
+    private final M model;
+    private final Set<F> effects;
+    private final Set<Producer<? extends F>> lazyEffects;
+
+    private WithLazyEffects(M model, Set<F> effects, Set<Producer<? extends F>> lazyEffects) {
+      this.model = model;
+      this.effects = effects;
+      this.lazyEffects = lazyEffects;
+    }
+
+    @Nonnull
+    @Override
+    public M model() {
+      return model;
+    }
+
+    @Nonnull
+    @Override
+    public Set<F> effects() {
+      return effects;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Producer<? extends F>> lazyEffects() {
+      return lazyEffects;
+    }
+  }
 }
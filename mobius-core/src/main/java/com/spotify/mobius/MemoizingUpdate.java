@@ -0,0 +1,255 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkArgument;
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link Update} that memoizes the results of a pure but expensive update function, so that
+ * repeated (model, event) pairs are answered from a cache instead of calling the update function
+ * again.
+ *
+ * <p>The cache is a bounded LRU cache, shared between all loops using the same instance. Events are
+ * always compared using {@link Object#equals(Object)}, since they are usually created anew for each
+ * dispatch. Models are compared according to the configured {@link MobiusLoop.ModelComparison}:
+ * {@link MobiusLoop.ModelComparison#EQUALITY} finds more hits, while {@link
+ * MobiusLoop.ModelComparison#IDENTITY} avoids calling {@code equals} and {@code hashCode} on large
+ * models, and works well together with loops that reuse model instances.
+ *
+ * <p>When a result is served from the cache, its effects are by default dispatched again, just as
+ * if the update function had been called; {@link EffectPolicy#SKIP} can be used when effects should
+ * only be dispatched the first time a transition is computed.
+ *
+ * <p>Concurrent misses for the same key will each call the update function.
+ *
+ * @param <M> the model type
+ * @param <E> the event type
+ * @param <F> the effect type
+ */
+public final class MemoizingUpdate<M, E, F> implements Update<M, E, F> {
+
+  /** Defines what happens to the effects of a cached {@link Next} when it is reused. */
+  public enum EffectPolicy {
+    /** Effects and lazy effects are dispatched every time the cached result is returned. */
+    REPLAY,
+    /** Effects and lazy effects are only dispatched when the result is first computed. */
+    SKIP
+  }
+
+  private final Update<M, E, F> actualUpdate;
+  private final MobiusLoop.ModelComparison modelComparison;
+  private final EffectPolicy effectPolicy;
+  private final int maximumSize;
+
+  // concurrency note: the cache and the counters are only accessed while holding the cache lock.
+  private final LinkedHashMap<Key, Next<M, F>> cache;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * Create a {@link Builder} for a memoizing wrapper around the supplied update function.
+   *
+   * @param update the update function to memoize; it must be pure, meaning that it must return
+   *     equal results for equal models and events
+   * @param <M> the model type
+   * @param <E> the event type
+   * @param <F> the effect type
+   */
+  public static <M, E, F> Builder<M, E, F> builder(Update<M, E, F> update) {
+    return new Builder<>(checkNotNull(update));
+  }
+
+  private MemoizingUpdate(Builder<M, E, F> builder) {
+    this.actualUpdate = builder.update;
+    this.modelComparison = builder.modelComparison;
+    this.effectPolicy = builder.effectPolicy;
+    this.maximumSize = builder.maximumSize;
+
+    this.cache =
+        new LinkedHashMap<Key, Next<M, F>>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Next<M, F>> eldest) {
+            if (size() > maximumSize) {
+              evictionCount++;
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  @Nonnull
+  @Override
+  public Next<M, F> update(M model, E event) {
+    Key key = new Key(model, event, modelComparison == MobiusLoop.ModelComparison.IDENTITY);
+
+    synchronized (cache) {
+      Next<M, F> cached = cache.get(key);
+
+      if (cached != null) {
+        hitCount++;
+        return effectPolicy == EffectPolicy.REPLAY ? cached : withoutEffects(cached);
+      }
+
+      missCount++;
+    }
+
+    Next<M, F> next = checkNotNull(actualUpdate.update(model, event));
+
+    synchronized (cache) {
+      cache.put(key, next);
+    }
+
+    return next;
+  }
+
+  /** Remove all entries from the cache. */
+  public void invalidateAll() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  /** @return a snapshot of the hit, miss and eviction counts of this cache */
+  @Nonnull
+  public Stats stats() {
+    synchronized (cache) {
+      return Stats.create(hitCount, missCount, evictionCount);
+    }
+  }
+
+  private static <M, F> Next<M, F> withoutEffects(Next<M, F> next) {
+    return next.hasModel() ? Next.<M, F>next(next.modelUnsafe()) : Next.<M, F>noChange();
+  }
+
+  private static final class Key {
+    private final Object model;
+    private final Object event;
+    private final boolean compareModelIdentity;
+    private final int hash;
+
+    private Key(Object model, Object event, boolean compareModelIdentity) {
+      this.model = checkNotNull(model);
+      this.event = checkNotNull(event);
+      this.compareModelIdentity = compareModelIdentity;
+
+      int modelHash = compareModelIdentity ? System.identityHashCode(model) : model.hashCode();
+      this.hash = 31 * modelHash + event.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      Key other = (Key) o;
+      if (hash != other.hash || !event.equals(other.event)) {
+        return false;
+      }
+
+      return compareModelIdentity ? model == other.model : model.equals(other.model);
+    }
+  }
+
+  /** Statistics about the performance of a {@link MemoizingUpdate}. */
+  @AutoValue
+  public abstract static class Stats {
+
+    /** @return the number of updates that were served from the cache */
+    public abstract long hitCount();
+
+    /** @return the number of updates that had to call the update function */
+    public abstract long missCount();
+
+    /** @return the number of entries that were removed because the cache was full */
+    public abstract long evictionCount();
+
+    /** @return the ratio of updates served from the cache, or 1.0 if there have been no updates */
+    public double hitRate() {
+      long requestCount = hitCount() + missCount();
+      return requestCount == 0 ? 1.0 : (double) hitCount() / requestCount;
+    }
+
+    static Stats create(long hitCount, long missCount, long evictionCount) {
+      return new AutoValue_MemoizingUpdate_Stats(hitCount, missCount, evictionCount);
+    }
+  }
+
+  /**
+   * Builder for {@link MemoizingUpdate} instances. Note that instances of the builder are mutable
+   * and not thread-safe.
+   *
+   * @param <M> the model type
+   * @param <E> the event type
+   * @param <F> the effect type
+   */
+  public static final class Builder<M, E, F> {
+    private final Update<M, E, F> update;
+    private MobiusLoop.ModelComparison modelComparison = MobiusLoop.ModelComparison.EQUALITY;
+    private EffectPolicy effectPolicy = EffectPolicy.REPLAY;
+    private int maximumSize = 128;
+
+    private Builder(Update<M, E, F> update) {
+      this.update = update;
+    }
+
+    /** Set how models are compared when looking up results. The default is equality. */
+    public Builder<M, E, F> modelComparison(MobiusLoop.ModelComparison modelComparison) {
+      this.modelComparison = checkNotNull(modelComparison);
+      return this;
+    }
+
+    /** Set what happens to the effects of reused results. The default is to replay them. */
+    public Builder<M, E, F> effectPolicy(EffectPolicy effectPolicy) {
+      this.effectPolicy = checkNotNull(effectPolicy);
+      return this;
+    }
+
+    /**
+     * Limit the number of entries; the least recently used entry is evicted when it is full. The
+     * default is 128 entries.
+     */
+    public Builder<M, E, F> maximumSize(int maximumSize) {
+      checkArgument(maximumSize > 0);
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    public MemoizingUpdate<M, E, F> build() {
+      return new MemoizingUpdate<>(this);
+    }
+  }
+}
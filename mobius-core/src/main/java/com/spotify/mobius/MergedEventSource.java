@@ -25,7 +25,9 @@ import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * An {@link EventSource} that merges multiple sources into one
@@ -34,6 +36,7 @@ import javax.annotation.Nonnull;
  */
 public class MergedEventSource<E> implements EventSource<E> {
   private final List<EventSource<E>> eventSources;
+  @Nullable private final Executor subscribeExecutor;
 
   @SafeVarargs
   public static <E> EventSource<E> from(
@@ -43,16 +46,41 @@ public class MergedEventSource<E> implements EventSource<E> {
     for (EventSource<E> es : eventSources) {
       allSources.add(checkNotNull(es));
     }
-    return new MergedEventSource<>(allSources);
+    return new MergedEventSource<>(allSources, null);
   }
 
-  private MergedEventSource(List<EventSource<E>> sources) {
+  /**
+   * Create an event source that subscribes to each of the given sources in parallel, by running the
+   * subscriptions on the supplied {@link Executor}. Use this when some sources are slow to
+   * subscribe to and you don't want that to hold up starting a loop.
+   *
+   * <p>{@link #subscribe(Consumer)} returns without waiting for the subscriptions to complete. If
+   * the returned {@link Disposable} is disposed before a source has finished subscribing, that
+   * source will be disposed as soon as it has. Events may be emitted on any thread.
+   */
+  @SafeVarargs
+  public static <E> EventSource<E> fromParallel(
+      Executor subscribeExecutor, EventSource<E> eventSource, EventSource<E>... eventSources) {
+    List<EventSource<E>> allSources = new ArrayList<>();
+    allSources.add(checkNotNull(eventSource));
+    for (EventSource<E> es : eventSources) {
+      allSources.add(checkNotNull(es));
+    }
+    return new MergedEventSource<>(allSources, checkNotNull(subscribeExecutor));
+  }
+
+  private MergedEventSource(List<EventSource<E>> sources, @Nullable Executor subscribeExecutor) {
     eventSources = sources;
+    this.subscribeExecutor = subscribeExecutor;
   }
 
   @Nonnull
   @Override
   public Disposable subscribe(Consumer<E> eventConsumer) {
+    if (subscribeExecutor != null) {
+      return subscribeInParallel(subscribeExecutor, eventConsumer);
+    }
+
     final List<Disposable> disposables = new ArrayList<>(eventSources.size());
     for (EventSource<E> eventSource : eventSources) {
       disposables.add(eventSource.subscribe(eventConsumer));
@@ -67,4 +95,55 @@ public class MergedEventSource<E> implements EventSource<E> {
       }
     };
   }
+
+  private Disposable subscribeInParallel(Executor executor, final Consumer<E> eventConsumer) {
+    final ParallelSubscription subscription = new ParallelSubscription();
+
+    for (final EventSource<E> eventSource : eventSources) {
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              subscription.add(eventSource.subscribe(eventConsumer));
+            }
+          });
+    }
+
+    return subscription;
+  }
+
+  private static class ParallelSubscription implements Disposable {
+    // concurrency note: guarded by 'this'
+    private final List<Disposable> disposables = new ArrayList<>();
+    private boolean disposed;
+
+    void add(Disposable disposable) {
+      synchronized (this) {
+        if (!disposed) {
+          disposables.add(disposable);
+          return;
+        }
+      }
+
+      disposable.dispose();
+    }
+
+    @Override
+    public void dispose() {
+      final List<Disposable> toDispose;
+
+      synchronized (this) {
+        if (disposed) {
+          return;
+        }
+        disposed = true;
+        toDispose = new ArrayList<>(disposables);
+        disposables.clear();
+      }
+
+      for (Disposable disposable : toDispose) {
+        disposable.dispose();
+      }
+    }
+  }
 }
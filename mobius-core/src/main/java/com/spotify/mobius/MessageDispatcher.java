@@ -24,6 +24,7 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.runners.WorkRunner;
+import java.util.List;
 import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,22 +54,42 @@ class MessageDispatcher<M> implements Consumer<M>, Disposable {
         new Runnable() {
           @Override
           public void run() {
-            if (disabled) {
-              LOGGER.warn("Message ignored because the dispatcher is disabled: {}", message);
-
-            } else {
-              try {
-                consumer.accept(message);
+            deliver(message);
+          }
+        });
+  }
 
-              } catch (Throwable throwable) {
-                LOGGER.error(
-                    "Consumer threw an exception when accepting message: {}", message, throwable);
-              }
+  /**
+   * Dispatch several messages as a single task on the runner. The messages are delivered to the
+   * consumer one by one, in order, and an exception thrown when delivering one message doesn't
+   * prevent delivery of the following ones.
+   */
+  void acceptAll(final List<M> messages) {
+    runner.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            for (M message : messages) {
+              deliver(message);
             }
           }
         });
   }
 
+  private void deliver(M message) {
+    if (disabled) {
+      LOGGER.warn("Message ignored because the dispatcher is disabled: {}", message);
+
+    } else {
+      try {
+        consumer.accept(message);
+
+      } catch (Throwable throwable) {
+        LOGGER.error("Consumer threw an exception when accepting message: {}", message, throwable);
+      }
+    }
+  }
+
   @Override
   public void dispose() {
     runner.dispose();
@@ -25,11 +25,15 @@ import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.functions.Producer;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.runners.WorkRunners;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public final class Mobius {
   private Mobius() {
@@ -111,6 +115,78 @@ public final class Mobius {
    */
   public static <M, E, F> MobiusLoop.Builder<M, E, F> loop(
       Update<M, E, F> update, Connectable<F, E> effectHandler) {
+    return tunableLoop(update, effectHandler);
+  }
+
+  /**
+   * Create a {@link MobiusLoop.TunableBuilder}, which has the same options as the {@link
+   * MobiusLoop.Builder} returned by {@link #loop(Update, Connectable)}, as well as options for
+   * tuning how the loop runs, such as effect batching and inline effects.
+   *
+   * @param update the {@link Update} function of the loop
+   * @param effectHandler the {@link Connectable} effect handler of the loop
+   * @return a {@link MobiusLoop.TunableBuilder} instance that you can further configure before
+   *     starting the loop
+   */
+  public static <M, E, F> MobiusLoop.TunableBuilder<M, E, F> tunableLoop(
+      final Update<M, E, F> update, Connectable<F, E> effectHandler) {
+    checkNotNull(update);
+
+    return loop(
+        new Producer<Update<M, E, F>>() {
+          @Nonnull
+          @Override
+          public Update<M, E, F> get() {
+            return update;
+          }
+        },
+        effectHandler);
+  }
+
+  /**
+   * Create a {@link MobiusLoop.TunableBuilder} for a loop whose update function changes a mutable
+   * working model in place, rather than returning a new immutable model. This avoids copying large
+   * models, or even parts of them, for every event.
+   *
+   * <p>Each loop owns a working model, which it creates from the model it is started from, or that
+   * {@link Init} returns, using {@link MutableModel#toWorkingModel(Object)}. The update function
+   * may change the working model it is given in place, and must return a {@link Next} with the
+   * working model if it did; a Next without a model means that nothing changed. Only then is a
+   * read-only snapshot taken using {@link MutableModel#toSnapshot(Object)}, and published to
+   * observers, event sources and {@link MobiusLoop#getMostRecentModel()}. Everything outside the
+   * update function, including init and loggers, only sees snapshots.
+   *
+   * <p>If the update function throws, the working model is discarded, and the next event is applied
+   * to a new working model created from the most recent snapshot.
+   *
+   * @param update the update function of the loop, which may change the working model in place
+   * @param effectHandler the {@link Connectable} effect handler of the loop
+   * @param mutableModel converts between snapshots and working models
+   * @param <M> the type of the published, read-only, model snapshots
+   * @param <W> the type of the mutable working model
+   * @return a {@link MobiusLoop.TunableBuilder} instance that you can further configure before
+   *     starting the loop
+   */
+  public static <M, W, E, F> MobiusLoop.TunableBuilder<M, E, F> mutableModelLoop(
+      final Update<W, E, F> update,
+      Connectable<F, E> effectHandler,
+      final MutableModel<M, W> mutableModel) {
+    checkNotNull(update);
+    checkNotNull(mutableModel);
+
+    return loop(
+        new Producer<Update<M, E, F>>() {
+          @Nonnull
+          @Override
+          public Update<M, E, F> get() {
+            return new MutableModelUpdate<>(update, mutableModel);
+          }
+        },
+        effectHandler);
+  }
+
+  private static <M, E, F> MobiusLoop.TunableBuilder<M, E, F> loop(
+      Producer<Update<M, E, F>> update, Connectable<F, E> effectHandler) {
 
     //noinspection unchecked
     return new Builder<>(
@@ -132,7 +208,31 @@ public final class Mobius {
           public WorkRunner get() {
             return WorkRunners.from(Executors.newCachedThreadPool(Builder.THREAD_FACTORY));
           }
-        });
+        },
+        Collections.<Class<?>>emptySet(),
+        false,
+        null);
+  }
+
+  /**
+   * Create a {@link SynchronousLoop.Builder} to help you configure a threadless loop that runs to
+   * completion on the calling thread.
+   *
+   * <p>By default, no effects are handled; they are all returned from {@link
+   * SynchronousLoop#run(Object, Iterable)}.
+   *
+   * @param update the {@link Update} function of the loop
+   * @return a {@link SynchronousLoop.Builder} instance that you can further configure before
+   *     building the loop
+   */
+  public static <M, E, F> SynchronousLoop.Builder<M, E, F> synchronousLoop(Update<M, E, F> update) {
+    @SuppressWarnings("unchecked")
+    Init<M, F> init = (Init<M, F>) NOOP_INIT;
+    @SuppressWarnings("unchecked")
+    MobiusLoop.Logger<M, E, F> logger = (MobiusLoop.Logger<M, E, F>) NOOP_LOGGER;
+
+    return new SynchronousLoop.Builder<>(
+        update, init, logger, new NoopEffectHandler<F, E>(), Collections.<Class<?>>emptySet());
   }
 
   /**
@@ -160,26 +260,101 @@ public final class Mobius {
     return new MobiusLoopController<>(loopFactory, defaultModel, modelRunner);
   }
 
-  private static final class Builder<M, E, F> implements MobiusLoop.Builder<M, E, F> {
+  /**
+   * Create a {@link MobiusLoop.ObservableController}, which works like the controller returned by
+   * {@link #controller(MobiusLoop.Factory, Object)}, and also lets observers subscribe to slices of
+   * the model.
+   *
+   * @param loopFactory a factory for creating loops
+   * @param defaultModel the model the controller should start from
+   * @return a new controller
+   */
+  public static <M, E, F> MobiusLoop.ObservableController<M, E> observableController(
+      MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel) {
+    return new MobiusLoopController<>(loopFactory, defaultModel, WorkRunners.immediate());
+  }
+
+  /**
+   * Create a {@link MobiusLoop.ObservableController}, which works like the controller returned by
+   * {@link #controller(MobiusLoop.Factory, Object, WorkRunner)}, and also lets observers subscribe
+   * to slices of the model.
+   *
+   * @param loopFactory a factory for creating loops
+   * @param defaultModel the model the controller should start from
+   * @param modelRunner the WorkRunner to use when observing model changes
+   * @return a new controller
+   */
+  public static <M, E, F> MobiusLoop.ObservableController<M, E> observableController(
+      MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel, WorkRunner modelRunner) {
+    return new MobiusLoopController<>(loopFactory, defaultModel, modelRunner);
+  }
+
+  /**
+   * Create a {@link MobiusLoop.ObservableController} that coalesces view updates. Rather than
+   * posting every model to the {@code modelRunner}, at most one view update is pending at any time,
+   * and it renders the most recent model when it runs. A burst of model changes thus results in a
+   * single render, which keeps fast event streams, such as scroll or drag events, from flooding the
+   * main thread with renders of models that are already out of date.
+   *
+   * <p>Views must therefore not depend on seeing every intermediate model. To also move the work of
+   * turning models into view state off the main thread, see {@code RenderPipeline} in
+   * mobius-extras.
+   *
+   * @param loopFactory a factory for creating loops
+   * @param defaultModel the model the controller should start from
+   * @param modelRunner the WorkRunner to use when observing model changes
+   * @return a new controller
+   */
+  public static <M, E, F> MobiusLoop.ObservableController<M, E> coalescingController(
+      MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel, WorkRunner modelRunner) {
+    return new MobiusLoopController<>(loopFactory, defaultModel, modelRunner, true);
+  }
+
+  /**
+   * Effect handler for synchronous loops that haven't been given one. No effect classes are
+   * registered along with it, so it never receives any effects.
+   */
+  private static final class NoopEffectHandler<F, E> implements Connectable<F, E> {
+    @Nonnull
+    @Override
+    public Connection<F> connect(Consumer<E> output) {
+      return new Connection<F>() {
+        @Override
+        public void accept(F value) {}
+
+        @Override
+        public void dispose() {}
+      };
+    }
+  }
+
+  private static final class Builder<M, E, F> implements MobiusLoop.TunableBuilder<M, E, F> {
 
     private static final MyThreadFactory THREAD_FACTORY = new MyThreadFactory();
 
-    private final Update<M, E, F> update;
+    // produces an update function for each loop, since mutable-model loops need their own
+    private final Producer<Update<M, E, F>> update;
     private final Connectable<F, E> effectHandler;
     private final Init<M, F> init;
     private final Connectable<M, E> eventSource;
     private final Producer<WorkRunner> eventRunner;
     private final Producer<WorkRunner> effectRunner;
     private final MobiusLoop.Logger<M, E, F> logger;
+    private final Set<Class<?>> inlineEffectClasses;
+    private final boolean batchEffects;
+    @Nullable private final MobiusLoop.ModelComparison distinctModels;
 
     private Builder(
-        Update<M, E, F> update,
+        Producer<Update<M, E, F>> update,
         Connectable<F, E> effectHandler,
         Init<M, F> init,
         Connectable<M, E> eventSource,
         MobiusLoop.Logger<M, E, F> logger,
         Producer<WorkRunner> eventRunner,
-        Producer<WorkRunner> effectRunner) {
+        Producer<WorkRunner> effectRunner,
+        Set<Class<?>> inlineEffectClasses,
+        boolean batchEffects,
+        @Nullable MobiusLoop.ModelComparison distinctModels) {
       this.update = checkNotNull(update);
       this.effectHandler = checkNotNull(effectHandler);
       this.init = checkNotNull(init);
@@ -187,25 +362,46 @@ public final class Mobius {
       this.eventRunner = checkNotNull(eventRunner);
       this.effectRunner = checkNotNull(effectRunner);
       this.logger = checkNotNull(logger);
+      this.inlineEffectClasses = checkNotNull(inlineEffectClasses);
+      this.batchEffects = batchEffects;
+      this.distinctModels = distinctModels;
     }
 
     @Override
     @Nonnull
-    public MobiusLoop.Builder<M, E, F> init(Init<M, F> init) {
+    public MobiusLoop.TunableBuilder<M, E, F> init(Init<M, F> init) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          distinctModels);
     }
 
     @Override
     @Nonnull
-    public MobiusLoop.Builder<M, E, F> eventSource(Connectable<M, E> eventSource) {
+    public MobiusLoop.TunableBuilder<M, E, F> eventSource(Connectable<M, E> eventSource) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          distinctModels);
     }
 
     @Override
     @Nonnull
-    public MobiusLoop.Builder<M, E, F> eventSource(EventSource<E> eventSource) {
+    public MobiusLoop.TunableBuilder<M, E, F> eventSource(EventSource<E> eventSource) {
       return new Builder<>(
           update,
           effectHandler,
@@ -213,12 +409,15 @@ public final class Mobius {
           EventSourceConnectable.<M, E>create(eventSource),
           logger,
           eventRunner,
-          effectRunner);
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          distinctModels);
     }
 
     @Nonnull
     @Override
-    public MobiusLoop.Builder<M, E, F> eventSources(
+    public MobiusLoop.TunableBuilder<M, E, F> eventSources(
         EventSource<E> eventSource, EventSource<E>... eventSources) {
       EventSource<E> mergedSource = MergedEventSource.from(eventSource, eventSources);
       return new Builder<>(
@@ -228,42 +427,143 @@ public final class Mobius {
           EventSourceConnectable.<M, E>create(mergedSource),
           logger,
           eventRunner,
-          effectRunner);
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          distinctModels);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.TunableBuilder<M, E, F> logger(MobiusLoop.Logger<M, E, F> logger) {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          distinctModels);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.TunableBuilder<M, E, F> eventRunner(Producer<WorkRunner> eventRunner) {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          distinctModels);
     }
 
     @Override
     @Nonnull
-    public MobiusLoop.Builder<M, E, F> logger(MobiusLoop.Logger<M, E, F> logger) {
+    public MobiusLoop.TunableBuilder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          distinctModels);
     }
 
     @Override
     @Nonnull
-    public MobiusLoop.Builder<M, E, F> eventRunner(Producer<WorkRunner> eventRunner) {
+    public MobiusLoop.TunableBuilder<M, E, F> inlineEffects(Set<Class<? extends F>> effectClasses) {
+      Set<Class<?>> inlineEffectClasses = new LinkedHashSet<>();
+      for (Class<? extends F> effectClass : checkNotNull(effectClasses)) {
+        inlineEffectClasses.add(checkNotNull(effectClass));
+      }
+
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          Collections.unmodifiableSet(inlineEffectClasses),
+          batchEffects,
+          distinctModels);
     }
 
     @Override
     @Nonnull
-    public MobiusLoop.Builder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner) {
+    public MobiusLoop.TunableBuilder<M, E, F> batchEffects(boolean enabled) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          inlineEffectClasses,
+          enabled,
+          distinctModels);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.TunableBuilder<M, E, F> distinctUntilChanged(
+        MobiusLoop.ModelComparison comparison) {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventRunner,
+          effectRunner,
+          inlineEffectClasses,
+          batchEffects,
+          checkNotNull(comparison));
+    }
+
+    @Override
+    @Nonnull
+    public ConfinedMobiusLoop<M, E, F> startConfined(M startModel) {
+      return ConfinedMobiusLoop.create(
+          new LoggingInit<>(init, logger),
+          new LoggingUpdate<>(checkNotNull(update.get()), logger),
+          effectHandler,
+          eventSource,
+          checkNotNull(startModel));
     }
 
     @Override
     @Nonnull
     public MobiusLoop<M, E, F> startFrom(M startModel) {
       LoggingInit<M, F> loggingInit = new LoggingInit<>(init, logger);
-      LoggingUpdate<M, E, F> loggingUpdate = new LoggingUpdate<>(update, logger);
+      LoggingUpdate<M, E, F> loggingUpdate =
+          new LoggingUpdate<>(checkNotNull(update.get()), logger);
+      DistinctModelFilter<M> distinctModelFilter =
+          distinctModels != null ? new DistinctModelFilter<>(distinctModels, logger) : null;
 
       return MobiusLoop.create(
           MobiusStore.create(loggingInit, loggingUpdate, checkNotNull(startModel)),
           effectHandler,
           eventSource,
           checkNotNull(eventRunner.get()),
-          checkNotNull(effectRunner.get()));
+          checkNotNull(effectRunner.get()),
+          inlineEffectClasses,
+          batchEffects,
+          distinctModelFilter);
     }
 
     private static class MyThreadFactory implements ThreadFactory {
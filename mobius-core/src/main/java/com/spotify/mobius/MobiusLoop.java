@@ -23,9 +23,14 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
 import com.spotify.mobius.functions.Producer;
 import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -40,12 +45,16 @@ public class MobiusLoop<M, E, F> implements Disposable {
 
   @Nonnull private final MessageDispatcher<E> eventDispatcher;
   @Nonnull private final MessageDispatcher<F> effectDispatcher;
+  @Nonnull private final MessageDispatcher<F> inlineEffectDispatcher;
+  @Nonnull private final MessageDispatcher<List<F>> effectBatchDispatcher;
+  @Nonnull private final MessageDispatcher<Producer<? extends F>> lazyEffectDispatcher;
 
   @Nonnull private final EventProcessor<M, E, F> eventProcessor;
   @Nonnull private final Connection<F> effectConsumer;
   @Nonnull private final Connection<M> eventSourceModelConsumer;
 
   @Nonnull private final List<Consumer<M>> modelObservers = new CopyOnWriteArrayList<>();
+  @Nonnull private final ModelSelectors<M> modelSelectors = new ModelSelectors<>();
 
   @Nullable private volatile M mostRecentModel;
 
@@ -58,12 +67,55 @@ public class MobiusLoop<M, E, F> implements Disposable {
       WorkRunner eventRunner,
       WorkRunner effectRunner) {
 
+    return create(
+        store,
+        effectHandler,
+        eventSource,
+        eventRunner,
+        effectRunner,
+        Collections.<Class<?>>emptySet(),
+        false);
+  }
+
+  static <M, E, F> MobiusLoop<M, E, F> create(
+      MobiusStore<M, E, F> store,
+      Connectable<F, E> effectHandler,
+      Connectable<M, E> eventSource,
+      WorkRunner eventRunner,
+      WorkRunner effectRunner,
+      Set<Class<?>> inlineEffectClasses,
+      boolean batchEffects) {
+
+    return create(
+        store,
+        effectHandler,
+        eventSource,
+        eventRunner,
+        effectRunner,
+        inlineEffectClasses,
+        batchEffects,
+        null);
+  }
+
+  static <M, E, F> MobiusLoop<M, E, F> create(
+      MobiusStore<M, E, F> store,
+      Connectable<F, E> effectHandler,
+      Connectable<M, E> eventSource,
+      WorkRunner eventRunner,
+      WorkRunner effectRunner,
+      Set<Class<?>> inlineEffectClasses,
+      boolean batchEffects,
+      @Nullable DistinctModelFilter<M> distinctModelFilter) {
+
     return new MobiusLoop<>(
         new EventProcessor.Factory<>(checkNotNull(store)),
         checkNotNull(effectHandler),
         checkNotNull(eventSource),
         checkNotNull(eventRunner),
-        checkNotNull(effectRunner));
+        checkNotNull(effectRunner),
+        checkNotNull(inlineEffectClasses),
+        batchEffects,
+        distinctModelFilter);
   }
 
   private MobiusLoop(
@@ -71,7 +123,10 @@ public class MobiusLoop<M, E, F> implements Disposable {
       Connectable<F, E> effectHandler,
       Connectable<M, E> eventSource,
       WorkRunner eventRunner,
-      WorkRunner effectRunner) {
+      WorkRunner effectRunner,
+      final Set<Class<?>> inlineEffectClasses,
+      boolean batchEffects,
+      @Nullable final DistinctModelFilter<M> distinctModelFilter) {
 
     Consumer<E> onEventReceived =
         new Consumer<E>() {
@@ -81,7 +136,7 @@ public class MobiusLoop<M, E, F> implements Disposable {
           }
         };
 
-    Consumer<F> onEffectReceived =
+    final Consumer<F> onEffectReceived =
         new Consumer<F>() {
           @Override
           public void accept(F effect) {
@@ -97,18 +152,61 @@ public class MobiusLoop<M, E, F> implements Disposable {
         new Consumer<M>() {
           @Override
           public void accept(M model) {
+            if (distinctModelFilter != null
+                && !distinctModelFilter.isDistinct(mostRecentModel, model)) {
+              return;
+            }
+
             mostRecentModel = model;
             eventSourceModelConsumer.accept(model);
             for (Consumer<M> observer : modelObservers) {
               observer.accept(model);
             }
+            modelSelectors.onModelChanged(model);
           }
         };
 
     this.eventDispatcher = new MessageDispatcher<>(eventRunner, onEventReceived);
     this.effectDispatcher = new MessageDispatcher<>(effectRunner, onEffectReceived);
+    this.inlineEffectDispatcher =
+        new MessageDispatcher<>(WorkRunners.immediate(), onEffectReceived);
 
-    this.eventProcessor = eventProcessorFactory.create(effectDispatcher, onModelChanged);
+    Consumer<List<F>> onEffectBatchReceived =
+        new Consumer<List<F>>() {
+          @Override
+          public void accept(List<F> effects) {
+            try {
+              ((BatchConnection<F>) effectConsumer).acceptAll(effects);
+            } catch (Throwable t) {
+              throw new ConnectionException(effects, t);
+            }
+          }
+        };
+
+    Consumer<Producer<? extends F>> onLazyEffectReceived =
+        new Consumer<Producer<? extends F>>() {
+          @Override
+          public void accept(Producer<? extends F> lazyEffect) {
+            onEffectReceived.accept(lazyEffect.get());
+          }
+        };
+
+    // the batch and lazy effect dispatchers share the effect runner, so only the effect dispatcher
+    // disposes of it.
+    this.effectBatchDispatcher = new MessageDispatcher<>(effectRunner, onEffectBatchReceived);
+    this.lazyEffectDispatcher = new MessageDispatcher<>(effectRunner, onLazyEffectReceived);
+
+    Consumer<F> effectRouter;
+    if (batchEffects) {
+      effectRouter = new BatchingEffectRouter(inlineEffectClasses);
+    } else if (!inlineEffectClasses.isEmpty()) {
+      effectRouter = new EffectRouter(inlineEffectClasses);
+    } else {
+      effectRouter = effectDispatcher;
+    }
+
+    this.eventProcessor =
+        eventProcessorFactory.create(effectRouter, lazyEffectDispatcher, onModelChanged);
 
     Consumer<E> eventConsumer =
         new Consumer<E>() {
@@ -174,15 +272,42 @@ public class MobiusLoop<M, E, F> implements Disposable {
     };
   }
 
+  /**
+   * Add an observer of a slice of the model. The selector is applied once for each model change,
+   * and the observer is only notified when the selected value differs from the previous one
+   * according to {@link Object#equals(Object)}. If {@link #getMostRecentModel()} is non-null, the
+   * observer will immediately be notified of its slice of the most recent model.
+   *
+   * <p>Observers registered with the same selector instance share its computation, so keep a
+   * reference to selectors that several observers use rather than creating one per observer.
+   *
+   * @param selector a non-null function picking the part of the model to observe
+   * @param observer a non-null observer of changes to the selected value
+   * @return a {@link Disposable} that can be used to stop further notifications to the observer
+   * @throws NullPointerException if the selector or observer is null
+   * @throws IllegalStateException if the loop has been disposed
+   */
+  public <T> Disposable observe(Function<M, T> selector, Consumer<T> observer) {
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
+
+    return modelSelectors.add(selector, observer, mostRecentModel);
+  }
+
   @Override
   public synchronized void dispose() {
     // Remove model observers so that they receive no further model changes.
     modelObservers.clear();
+    modelSelectors.clear();
 
     // Disable the event and effect dispatchers. This will cause any further
     // events or effects posted to the dispatchers to be ignored and logged.
     eventDispatcher.disable();
     effectDispatcher.disable();
+    inlineEffectDispatcher.disable();
+    effectBatchDispatcher.disable();
+    lazyEffectDispatcher.disable();
 
     // Stop the event source and effect handler.
     eventSourceModelConsumer.dispose();
@@ -191,10 +316,77 @@ public class MobiusLoop<M, E, F> implements Disposable {
     // Finally clean up the dispatchers that now no longer are needed.
     eventDispatcher.dispose();
     effectDispatcher.dispose();
+    inlineEffectDispatcher.dispose();
 
     disposed = true;
   }
 
+  /**
+   * Routes effects of inline classes to the inline effect dispatcher, so that they are handled
+   * directly on the thread that runs update, right after it returns; the events they produce are
+   * posted to the event runner like any other event. All other effects go to the effect runner.
+   */
+  private class EffectRouter implements Consumer<F> {
+    private final Set<Class<?>> inlineEffectClasses;
+
+    private EffectRouter(Set<Class<?>> inlineEffectClasses) {
+      this.inlineEffectClasses = inlineEffectClasses;
+    }
+
+    @Override
+    public void accept(F effect) {
+      if (isInline(effect)) {
+        inlineEffectDispatcher.accept(effect);
+      } else {
+        effectDispatcher.accept(effect);
+      }
+    }
+
+    boolean isInline(F effect) {
+      for (Class<?> inlineEffectClass : inlineEffectClasses) {
+        if (inlineEffectClass.isInstance(effect)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * An {@link EffectRouter} that posts all the non-inline effects of an update to the effect runner
+   * as a single task. If the effect handler connection is a {@link BatchConnection}, it receives
+   * them in a single call; otherwise they are delivered one by one.
+   */
+  private class BatchingEffectRouter extends EffectRouter implements BatchConsumer<F> {
+
+    private BatchingEffectRouter(Set<Class<?>> inlineEffectClasses) {
+      super(inlineEffectClasses);
+    }
+
+    @Override
+    public void acceptAll(List<F> effects) {
+      List<F> batch = new ArrayList<>(effects.size());
+
+      for (F effect : effects) {
+        if (isInline(effect)) {
+          inlineEffectDispatcher.accept(effect);
+        } else {
+          batch.add(effect);
+        }
+      }
+
+      if (batch.isEmpty()) {
+        return;
+      }
+
+      if (effectConsumer instanceof BatchConnection) {
+        effectBatchDispatcher.accept(batch);
+      } else {
+        effectDispatcher.acceptAll(batch);
+      }
+    }
+  }
+
   /**
    * Defines a fluent API for configuring a {@link MobiusLoop}. Implementations must be immutable,
    * making them safe to share between threads.
@@ -263,6 +455,109 @@ public class MobiusLoop<M, E, F> implements Disposable {
     Builder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner);
   }
 
+  /**
+   * A {@link Builder} with additional options for tuning how a {@link MobiusLoop} runs. Create one
+   * using {@link Mobius#tunableLoop(Update, Connectable)} or {@link Mobius#mutableModelLoop(Update,
+   * Connectable, MutableModel)}. Like {@link Builder}, implementations must be immutable.
+   *
+   * @param <M> the model type
+   * @param <E> the event type
+   * @param <F> the effect type
+   */
+  public interface TunableBuilder<M, E, F> extends Builder<M, E, F> {
+
+    @Nonnull
+    @Override
+    TunableBuilder<M, E, F> init(Init<M, F> init);
+
+    @Nonnull
+    @Override
+    TunableBuilder<M, E, F> eventSource(EventSource<E> eventSource);
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    @Override
+    TunableBuilder<M, E, F> eventSources(
+        EventSource<E> eventSource, EventSource<E>... eventSources);
+
+    @Nonnull
+    @Override
+    TunableBuilder<M, E, F> eventSource(Connectable<M, E> eventSource);
+
+    @Nonnull
+    @Override
+    TunableBuilder<M, E, F> logger(Logger<M, E, F> logger);
+
+    @Nonnull
+    @Override
+    TunableBuilder<M, E, F> eventRunner(Producer<WorkRunner> eventRunner);
+
+    @Nonnull
+    @Override
+    TunableBuilder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner);
+
+    /**
+     * Enable or disable effect batching. When enabled, all effects produced by a single call to
+     * {@link Init} or {@link Update} are posted to the effect runner as one task, rather than one
+     * task per effect. The effects are still delivered to the effect handler one by one, in order,
+     * and an exception thrown when handling one of them doesn't prevent the others from being
+     * handled. If the effect handler connection is a {@link BatchConnection}, it instead receives
+     * all the effects in a single call to {@link BatchConnection#acceptAll(List)}.
+     *
+     * <p>Note that this means that effects from the same update are never handled in parallel, even
+     * if the effect runner has several threads. It is disabled by default.
+     *
+     * @return a new {@link TunableBuilder} with effect batching enabled or disabled, and the same
+     *     values as the current one for the other fields.
+     */
+    @Nonnull
+    TunableBuilder<M, E, F> batchEffects(boolean enabled);
+
+    /**
+     * Mark effect classes as inline. Effects that are instances of an inline class are handled
+     * synchronously on the event thread, right after the {@link Update} function that produced them
+     * returns, instead of being posted to the effect runner. Events emitted by the effect handler
+     * in response are dispatched to the event runner like any other event.
+     *
+     * <p>This is only suitable for effects that are cheap and never block, such as writes to an
+     * in-memory cache, since handling them holds up the processing of further events. All other
+     * effects keep using the effect runner.
+     *
+     * @param effectClasses the classes of the effects to handle inline; replaces any classes set
+     *     previously
+     * @return a new {@link TunableBuilder} with the supplied inline effect classes, and the same
+     *     values as the current one for the other fields.
+     */
+    @Nonnull
+    TunableBuilder<M, E, F> inlineEffects(Set<Class<? extends F>> effectClasses);
+
+    /**
+     * Only publish models that differ from the previous one. When an {@link Update} returns a model
+     * that is the same as the current one according to the supplied comparison, model observers and
+     * model-driven event sources aren't notified. Effects are dispatched as usual.
+     *
+     * <p>If the loop's {@link Logger} implements {@link ModelSuppressionLogger}, it is told about
+     * each suppressed model.
+     *
+     * @param comparison how to decide whether a model is the same as the previous one
+     * @return a new {@link TunableBuilder} that suppresses unchanged models, and the same values as
+     *     the current one for the other fields.
+     */
+    @Nonnull
+    TunableBuilder<M, E, F> distinctUntilChanged(ModelComparison comparison);
+
+    /**
+     * Start a {@link ConfinedMobiusLoop}, which runs entirely on the calling thread without any
+     * locks or runners. The configured event and effect runners, inline effect classes, effect
+     * batching and {@link #distinctUntilChanged(ModelComparison)} are ignored.
+     *
+     * @param startModel the model that the loop should start from
+     * @return the started {@link ConfinedMobiusLoop}
+     */
+    @Nonnull
+    ConfinedMobiusLoop<M, E, F> startConfined(M startModel);
+  }
+
   public interface Factory<M, E, F> {
     /**
      * Start a {@link MobiusLoop} using this factory.
@@ -346,6 +641,55 @@ public class MobiusLoop<M, E, F> implements Disposable {
     M getModel();
   }
 
+  /**
+   * A {@link Controller} that also lets observers subscribe to slices of the model. Create one
+   * using {@link Mobius#observableController(Factory, Object, WorkRunner)}.
+   *
+   * @param <M> the model type
+   * @param <E> the event type
+   */
+  public interface ObservableController<M, E> extends Controller<M, E> {
+    /**
+     * Add an observer of a slice of the model. The observer is notified on the same thread as the
+     * view, only when the value picked by the selector changes according to {@link
+     * Object#equals(Object)}, and is immediately notified of its slice of {@link #getModel()}.
+     *
+     * <p>Unlike the view, observers can be added at any time and stay registered across {@link
+     * #stop()} and {@link #start()} until the returned {@link Disposable} is disposed. Observers
+     * registered with the same selector instance share its computation.
+     *
+     * @param selector a non-null function picking the part of the model to observe
+     * @param observer a non-null observer of changes to the selected value
+     * @return a {@link Disposable} that can be used to stop further notifications to the observer
+     */
+    <T> Disposable observe(Function<M, T> selector, Consumer<T> observer);
+  }
+
+  /** Defines how {@link TunableBuilder#distinctUntilChanged(ModelComparison)} compares models. */
+  public enum ModelComparison {
+    /** Models are the same if they are the same instance. */
+    IDENTITY,
+    /** Models are the same if they are equal according to {@link Object#equals(Object)}. */
+    EQUALITY
+  }
+
+  /**
+   * Optional interface for {@link Logger}s that want to be told when models are suppressed because
+   * of {@link TunableBuilder#distinctUntilChanged(ModelComparison)}.
+   */
+  public interface ModelSuppressionLogger<M> {
+    /**
+     * Called when a model isn't published because it is the same as the previous one.
+     *
+     * <p>This method mustn't block, as it'll hinder the loop from running. It will be called on the
+     * same thread as the update function.
+     *
+     * @param model the suppressed model
+     * @param suppressedCount the total number of models suppressed by the loop so far
+     */
+    void modelSuppressed(M model, long suppressedCount);
+  }
+
   /** Interface for logging init and update calls. */
   public interface Logger<M, E, F> {
     /**
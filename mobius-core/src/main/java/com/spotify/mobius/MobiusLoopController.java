@@ -21,26 +21,50 @@ package com.spotify.mobius;
 
 import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
+import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
 import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 class MobiusLoopController<M, E, F>
-    implements MobiusLoop.Controller<M, E>, ControllerActions<M, E> {
+    implements MobiusLoop.ObservableController<M, E>, ControllerActions<M, E> {
 
   private final MobiusLoop.Factory<M, E, F> loopFactory;
   private final M defaultModel;
   private final WorkRunner mainThreadRunner;
+  private final boolean coalesceViewUpdates;
 
-  private ControllerStateBase<M, E> currentState;
+  // the model waiting to be rendered when coalescing view updates; non-null exactly when an update
+  // has been posted to the main thread runner and hasn't yet run.
+  private final AtomicReference<M> pendingViewUpdate = new AtomicReference<>();
+
+  private final ModelSelectors<M> modelSelectors = new ModelSelectors<>();
+
+  // concurrency note: only replaced while holding the lock on 'this', so that lifecycle transitions
+  // are serialized, but read without it by dispatchEvent and updateView, which are called far more
+  // often and must not contend with each other or with lifecycle changes. Models are rendered on
+  // the thread that owns the loop's event runner, so taking the lock on 'this' there would also
+  // deadlock with stop(), which disposes the loop while holding it.
+  private volatile ControllerStateBase<M, E> currentState;
 
   MobiusLoopController(
       MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel, WorkRunner mainThreadRunner) {
+    this(loopFactory, defaultModel, mainThreadRunner, false);
+  }
+
+  MobiusLoopController(
+      MobiusLoop.Factory<M, E, F> loopFactory,
+      M defaultModel,
+      WorkRunner mainThreadRunner,
+      boolean coalesceViewUpdates) {
 
     this.loopFactory = checkNotNull(loopFactory);
     this.defaultModel = checkNotNull(defaultModel);
     this.mainThreadRunner = checkNotNull(mainThreadRunner);
+    this.coalesceViewUpdates = coalesceViewUpdates;
     goToStateInit(defaultModel);
   }
 
@@ -49,11 +73,11 @@ class MobiusLoopController<M, E, F>
     return currentState.isRunning();
   }
 
-  private synchronized void dispatchEvent(E event) {
+  private void dispatchEvent(E event) {
     currentState.onDispatchEvent(event);
   }
 
-  private synchronized void updateView(M model) {
+  private void updateView(M model) {
     currentState.onUpdateView(model);
   }
 
@@ -89,7 +113,17 @@ class MobiusLoopController<M, E, F>
     return currentState.onGetModel();
   }
 
+  @Override
+  public <T> Disposable observe(Function<M, T> selector, Consumer<T> observer) {
+    return modelSelectors.add(selector, observer, getModel());
+  }
+
   public void postUpdateView(final M model) {
+    if (coalesceViewUpdates) {
+      postCoalescedUpdateView(model);
+      return;
+    }
+
     mainThreadRunner.post(
         new Runnable() {
           @Override
@@ -99,6 +133,27 @@ class MobiusLoopController<M, E, F>
         });
   }
 
+  private void postCoalescedUpdateView(M model) {
+    if (pendingViewUpdate.getAndSet(model) != null) {
+      // an update is already pending, and will render this model instead of the one it was posted
+      // for.
+      return;
+    }
+
+    mainThreadRunner.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            updateView(pendingViewUpdate.getAndSet(null));
+          }
+        });
+  }
+
+  @Override
+  public void onViewUpdated(M model) {
+    modelSelectors.onModelChanged(model);
+  }
+
   @Override
   public synchronized void goToStateInit(M nextModelToStartFrom) {
     currentState = new ControllerStateInit<>(this, nextModelToStartFrom);
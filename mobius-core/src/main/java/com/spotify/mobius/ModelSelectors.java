@@ -0,0 +1,146 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps track of observers of slices of a model, as selected by a {@link Function}. Each selector
+ * is applied once per model, no matter how many observers share it, and its observers are only
+ * notified when the selected value changes according to {@link Object#equals(Object)}.
+ *
+ * <p>Selectors are shared by instance, so observers that should share a computation must be
+ * registered with the same selector object.
+ */
+class ModelSelectors<M> {
+
+  // concurrency note: selections are only added or removed while holding the lock on 'this', so
+  // that an observer is never added to a selection that is being removed; iteration is lock-free.
+  private final Map<Function<M, ?>, Selection<M, ?>> selections = new ConcurrentHashMap<>();
+
+  /**
+   * Add an observer of the slice of the model picked by the selector. If a model is supplied, the
+   * observer is immediately notified of its slice.
+   */
+  <T> Disposable add(
+      final Function<M, T> selector, final Consumer<T> observer, @Nullable M currentModel) {
+    checkNotNull(selector);
+    checkNotNull(observer);
+
+    final Selection<M, T> selection;
+    synchronized (this) {
+      Selection<M, T> existing = getSelection(selector);
+      if (existing == null) {
+        selection = new Selection<>(selector);
+        selections.put(selector, selection);
+      } else {
+        selection = existing;
+      }
+      selection.observers.add(observer);
+    }
+
+    if (currentModel != null) {
+      observer.accept(selection.select(currentModel));
+    }
+
+    return new Disposable() {
+      @Override
+      public void dispose() {
+        remove(selection, observer);
+      }
+    };
+  }
+
+  /** Apply each selector to the model and notify the observers of any slices that changed. */
+  void onModelChanged(M model) {
+    for (Selection<M, ?> selection : selections.values()) {
+      selection.onModelChanged(model);
+    }
+  }
+
+  synchronized void clear() {
+    selections.clear();
+  }
+
+  private synchronized <T> void remove(Selection<M, T> selection, Consumer<T> observer) {
+    selection.observers.remove(observer);
+
+    if (selection.observers.isEmpty()) {
+      selections.remove(selection.selector);
+    }
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private <T> Selection<M, T> getSelection(Function<M, T> selector) {
+    return (Selection<M, T>) selections.get(selector);
+  }
+
+  private static class Selection<M, T> {
+    private final Function<M, T> selector;
+    private final List<Consumer<T>> observers = new CopyOnWriteArrayList<>();
+
+    // concurrency note: guarded by 'this'
+    private boolean hasValue;
+    @Nullable private T value;
+
+    Selection(Function<M, T> selector) {
+      this.selector = selector;
+    }
+
+    /** Returns the current slice, computing it from the model if nothing has been selected yet. */
+    synchronized T select(M model) {
+      if (!hasValue) {
+        value = selector.apply(model);
+        hasValue = true;
+      }
+      return value;
+    }
+
+    void onModelChanged(M model) {
+      T selected = selector.apply(model);
+
+      synchronized (this) {
+        if (hasValue && equal(value, selected)) {
+          return;
+        }
+        value = selected;
+        hasValue = true;
+      }
+
+      for (Consumer<T> observer : observers) {
+        observer.accept(selected);
+      }
+    }
+
+    private static boolean equal(@Nullable Object a, @Nullable Object b) {
+      return a == b || (a != null && a.equals(b));
+    }
+  }
+}
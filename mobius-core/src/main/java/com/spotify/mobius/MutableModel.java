@@ -0,0 +1,46 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Converts between the read-only model snapshots that a mutable-model loop publishes, and the
+ * mutable working model that its update function changes in place. See {@link
+ * Mobius#mutableModelLoop(Update, Connectable, MutableModel)}.
+ *
+ * <p>Snapshots must not change when the working model does, so {@link #toSnapshot(Object)} should
+ * return a copy, or a view that shares only parts that the update function never changes in place;
+ * for instance the unchanged parts of a copy-on-write structure. It is only called after events
+ * that changed the working model.
+ *
+ * @param <M> the type of the model snapshots
+ * @param <W> the type of the working model
+ */
+public interface MutableModel<M, W> {
+
+  /** Create a new working model with the same state as a snapshot. */
+  @Nonnull
+  W toWorkingModel(M snapshot);
+
+  /** Create a read-only snapshot of the current state of a working model. */
+  @Nonnull
+  M toSnapshot(W workingModel);
+}
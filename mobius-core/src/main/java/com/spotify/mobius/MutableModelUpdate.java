@@ -0,0 +1,73 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Adapts an update function that changes a mutable working model in place to one that returns model
+ * snapshots, so that the rest of the loop can treat it like any other update function.
+ *
+ * <p>Each instance owns a working model, so a new one must be created for each loop.
+ */
+class MutableModelUpdate<M, W, E, F> implements Update<M, E, F> {
+
+  private final Update<W, E, F> update;
+  private final MutableModel<M, W> mutableModel;
+
+  // concurrency note: only accessed by update(), which the loop's store never calls concurrently
+  @Nullable private W workingModel;
+  @Nullable private M snapshot;
+
+  MutableModelUpdate(Update<W, E, F> update, MutableModel<M, W> mutableModel) {
+    this.update = checkNotNull(update);
+    this.mutableModel = checkNotNull(mutableModel);
+  }
+
+  @Nonnull
+  @Override
+  public Next<M, F> update(M model, E event) {
+    if (workingModel == null || model != snapshot) {
+      // the model isn't the last one taken from the working model, for instance because it's the
+      // first event, or init returned it.
+      workingModel = checkNotNull(mutableModel.toWorkingModel(model));
+    }
+
+    Next<W, F> next;
+    try {
+      next = update.update(workingModel, event);
+    } catch (RuntimeException | Error e) {
+      // the working model may have been left half-changed, so start over from the snapshot
+      workingModel = null;
+      throw e;
+    }
+
+    if (!next.hasModel()) {
+      return Next.dispatch(next.effects(), next.lazyEffects());
+    }
+
+    workingModel = next.modelUnsafe();
+    snapshot = checkNotNull(mutableModel.toSnapshot(workingModel));
+    return Next.next(snapshot, next.effects(), next.lazyEffects());
+  }
+}
@@ -23,6 +23,7 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.google.auto.value.AutoValue;
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Producer;
 import com.spotify.mobius.internal_util.ImmutableUtil;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -58,9 +59,21 @@ public abstract class Next<M, F> {
   @Nonnull
   public abstract Set<F> effects();
 
-  /** Check if this Next contains effects. */
+  /**
+   * Get the lazy effects of this Next. These are suppliers of effects that will be evaluated on the
+   * effect runner when the effects are about to be handled, rather than on the thread that ran the
+   * {@link Update} function. They are not included in {@link #effects()}.
+   *
+   * <p>Will return an empty set if there are no lazy effects.
+   */
+  @Nonnull
+  public Set<Producer<? extends F>> lazyEffects() {
+    return ImmutableUtil.emptySet();
+  }
+
+  /** Check if this Next contains effects, including lazy effects. */
   public final boolean hasEffects() {
-    return !effects().isEmpty();
+    return !effects().isEmpty() || !lazyEffects().isEmpty();
   }
 
   /**
@@ -105,6 +118,43 @@ public abstract class Next<M, F> {
     }
   }
 
+  // equals and hashCode are written out, rather than generated, so that they include lazyEffects(),
+  // which isn't an AutoValue property.
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof Next)) {
+      return false;
+    }
+
+    Next<?, ?> that = (Next<?, ?>) o;
+    return (model() == null ? that.model() == null : model().equals(that.model()))
+        && effects().equals(that.effects())
+        && lazyEffects().equals(that.lazyEffects());
+  }
+
+  @Override
+  public int hashCode() {
+    int h = model() == null ? 0 : model().hashCode();
+    h = h * 31 + effects().hashCode();
+    h = h * 31 + lazyEffects().hashCode();
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    // lazy effects are only included when present, to keep the output unchanged for code that
+    // doesn't use them.
+    return "Next{model="
+        + model()
+        + ", effects="
+        + effects()
+        + (lazyEffects().isEmpty() ? "" : ", lazyEffects=" + lazyEffects())
+        + "}";
+  }
+
   ////////////////////////////////////////////////////////////////////////////////////////////////
 
   /** Create a Next that updates the model and dispatches the supplied set of effects. */
@@ -125,9 +175,71 @@ public abstract class Next<M, F> {
     return new AutoValue_Next<>(null, ImmutableUtil.immutableSet(effects));
   }
 
+  /**
+   * Create a Next that updates the model and dispatches the supplied sets of effects and lazy
+   * effects. The lazy effects are evaluated on the effect runner, which makes it possible to move
+   * expensive effect construction off the thread that runs the update function.
+   */
+  @Nonnull
+  public static <M, F> Next<M, F> next(
+      M model, Set<? extends F> effects, Set<? extends Producer<? extends F>> lazyEffects) {
+    return new WithLazyEffects<>(
+        model,
+        ImmutableUtil.immutableSet(effects),
+        ImmutableUtil.<Producer<? extends F>>immutableSet(lazyEffects));
+  }
+
+  /**
+   * Create a Next that doesn't update the model but dispatches the supplied effects and lazy
+   * effects.
+   */
+  @Nonnull
+  public static <M, F> Next<M, F> dispatch(
+      Set<? extends F> effects, Set<? extends Producer<? extends F>> lazyEffects) {
+    return new WithLazyEffects<>(
+        null,
+        ImmutableUtil.immutableSet(effects),
+        ImmutableUtil.<Producer<? extends F>>immutableSet(lazyEffects));
+  }
+
   /** Create an empty Next that doesn't update the model or dispatch effects. */
   @Nonnull
   public static <M, F> Next<M, F> noChange() {
     return new AutoValue_Next<>(null, ImmutableUtil.<F>emptySet());
   }
+
+  /**
+   * A Next with lazy effects. These are kept in a subclass rather than in an AutoValue property, so
+   * that {@link #lazyEffects()} doesn't have to be abstract.
+   */
+  private static final class WithLazyEffects<M, F> extends Next<M, F> {
+    @Nullable private final M model;
+    private final Set<F> effects;
+    private final Set<Producer<? extends F>> lazyEffects;
+
+    private WithLazyEffects(
+        @Nullable M model, Set<F> effects, Set<Producer<? extends F>> lazyEffects) {
+      this.model = model;
+      this.effects = checkNotNull(effects);
+      this.lazyEffects = checkNotNull(lazyEffects);
+    }
+
+    @Nullable
+    @Override
+    protected M model() {
+      return model;
+    }
+
+    @Nonnull
+    @Override
+    public Set<F> effects() {
+      return effects;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Producer<? extends F>> lazyEffects() {
+      return lazyEffects;
+    }
+  }
 }
@@ -21,15 +21,30 @@ package com.spotify.mobius;
 
 import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
-import com.spotify.mobius.disposables.CompositeDisposable;
-import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nonnull;
 
 /**
  * A {@link Connectable} that ensures that an inner {@link Connection} doesn't emit or receive any
  * values after being disposed.
  *
+ * <p>Values being passed on are tracked using an in-flight counter rather than a lock, so that
+ * publishers never wait for each other or for a concurrent {@link Connection#dispose()}. A value is
+ * counted before the disposed flag is checked, so once the flag has been set, the counter can only
+ * go down. {@code dispose()} sets the flag, which makes the connection drop any further values, and
+ * then waits for the values that are being passed on to drain before the inner connection is
+ * disposed. Once {@code dispose()} has returned, nothing reaches the inner connection or the output
+ * any more.
+ *
+ * <p>If {@code dispose()} is called while a value is being passed on on the same thread, for
+ * instance by an observer reacting to an event, it can't wait for that value without deadlocking.
+ * It then only sets the disposed flag, and the last value to drain disposes the inner connection.
+ *
  * <p>This only acts as a safeguard, you still need to make sure that the Connectable disposes of
  * resources correctly.
  */
@@ -44,65 +59,122 @@ class SafeConnectable<F, E> implements Connectable<F, E> {
   @Nonnull
   @Override
   public Connection<F> connect(Consumer<E> output) {
-    final SafeConsumer<E> safeEventConsumer = new SafeConsumer<>(checkNotNull(output));
-    final Connection<F> effectConsumer =
-        new SafeEffectConsumer<>(checkNotNull(actual.connect(safeEventConsumer)));
-    final Disposable disposable = CompositeDisposable.from(safeEventConsumer, effectConsumer);
-    return new Connection<F>() {
-      @Override
-      public synchronized void accept(F effect) {
-        effectConsumer.accept(effect);
-      }
-
-      @Override
-      public synchronized void dispose() {
-        disposable.dispose();
-      }
-    };
+    return new SafeConnection<>(actual, checkNotNull(output));
   }
 
-  private static class SafeEffectConsumer<F> implements Connection<F> {
+  private static class SafeConnection<F, E> implements Connection<F> {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ThreadLocal<int[]> inFlightOnThisThread =
+        new ThreadLocal<int[]>() {
+          @Override
+          protected int[] initialValue() {
+            return new int[1];
+          }
+        };
+    private final Queue<Thread> disposingThreads = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean actualDisposed = new AtomicBoolean();
     private final Connection<F> actual;
-    private boolean disposed;
 
-    private SafeEffectConsumer(Connection<F> actual) {
-      this.actual = actual;
+    private volatile boolean disposed;
+    private volatile boolean disposeDeferred;
+
+    private SafeConnection(Connectable<F, E> connectable, final Consumer<E> output) {
+      this.actual =
+          checkNotNull(
+              connectable.connect(
+                  new Consumer<E>() {
+                    @Override
+                    public void accept(E value) {
+                      if (!enter()) {
+                        return;
+                      }
+                      try {
+                        output.accept(value);
+                      } finally {
+                        exit();
+                      }
+                    }
+                  }));
     }
 
     @Override
-    public synchronized void accept(F effect) {
-      if (disposed) {
+    public void accept(F effect) {
+      if (!enter()) {
         return;
       }
-      actual.accept(effect);
+      try {
+        actual.accept(effect);
+      } finally {
+        exit();
+      }
     }
 
     @Override
-    public synchronized void dispose() {
+    public void dispose() {
+      if (inFlightOnThisThread.get()[0] > 0) {
+        // a value is being passed on on this thread; the last value to drain disposes actual.
+        disposeDeferred = true;
+        disposed = true;
+        return;
+      }
+
+      Thread current = Thread.currentThread();
+      boolean interrupted = false;
+
+      disposingThreads.add(current);
       disposed = true;
-      actual.dispose();
+      try {
+        while (inFlight.get() > 0) {
+          LockSupport.park(this);
+          // park returns immediately while the interrupt flag is set, so clear it until we're done
+          interrupted |= Thread.interrupted();
+        }
+      } finally {
+        disposingThreads.remove(current);
+        if (interrupted) {
+          current.interrupt();
+        }
+      }
+
+      disposeActual();
     }
-  }
 
-  private static class SafeConsumer<E> implements Connection<E> {
-    private final Consumer<E> actual;
-    private boolean disposed;
+    private boolean enter() {
+      if (disposed) {
+        return false;
+      }
 
-    private SafeConsumer(Consumer<E> actual) {
-      this.actual = actual;
+      inFlight.incrementAndGet();
+      if (disposed) {
+        leave();
+        return false;
+      }
+
+      inFlightOnThisThread.get()[0]++;
+      return true;
     }
 
-    @Override
-    public synchronized void accept(E value) {
-      if (disposed) {
-        return;
+    private void exit() {
+      inFlightOnThisThread.get()[0]--;
+      leave();
+    }
+
+    private void leave() {
+      if (inFlight.decrementAndGet() == 0 && disposed) {
+        if (disposeDeferred) {
+          disposeActual();
+        }
+
+        for (Thread thread : disposingThreads) {
+          LockSupport.unpark(thread);
+        }
       }
-      actual.accept(value);
     }
 
-    @Override
-    public synchronized void dispose() {
-      disposed = true;
+    private void disposeActual() {
+      if (actualDisposed.compareAndSet(false, true)) {
+        actual.dispose();
+      }
     }
   }
 }
@@ -0,0 +1,295 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Producer;
+import com.spotify.mobius.internal_util.ImmutableUtil;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A threadless loop that runs init and update logic synchronously on the calling thread until there
+ * is nothing left to do, and then returns the final model along with any effects that it didn't
+ * handle. It is intended for cases like handling a request on a server, where the overhead of
+ * starting a {@link MobiusLoop} with its own threads and observing it would be wasteful.
+ *
+ * <p>Effects of the classes passed to {@link Builder#effectHandler(Connectable, Class, Class[])}
+ * are handed to the effect handler as soon as they are produced, and any events it emits while
+ * handling them are processed as part of the same run. The effect handler must emit those events
+ * synchronously, on the calling thread; emitting events at any other time is an error. All other
+ * effects are collected and returned in the {@link Result}.
+ *
+ * <p>Instances don't create or use any threads, and can be reused for any number of consecutive
+ * runs, which makes them suitable for pooling. They are not thread-safe though: each instance can
+ * only run on one thread at a time. Call {@link #dispose()} when done with an instance to
+ * disconnect its effect handler.
+ *
+ * @param <M> the model type
+ * @param <E> the event type
+ * @param <F> the effect type
+ */
+public final class SynchronousLoop<M, E, F> implements Disposable {
+
+  private final Init<M, F> init;
+  private final Update<M, E, F> update;
+  private final Set<Class<?>> handledEffectClasses;
+  private final Connection<F> effectConnection;
+
+  private final Queue<E> events = new ArrayDeque<>();
+  @Nullable private Thread runningThread;
+  private boolean disposed;
+
+  private SynchronousLoop(
+      Init<M, F> init,
+      Update<M, E, F> update,
+      Set<Class<?>> handledEffectClasses,
+      Connectable<F, E> effectHandler) {
+    this.init = init;
+    this.update = update;
+    this.handledEffectClasses = handledEffectClasses;
+    this.effectConnection =
+        checkNotNull(
+            effectHandler.connect(
+                new Consumer<E>() {
+                  @Override
+                  public void accept(E event) {
+                    onEventReceived(checkNotNull(event));
+                  }
+                }));
+  }
+
+  /**
+   * Run the loop from the given model: the model is first passed to the init function, and then the
+   * given events and any events emitted by the effect handler are processed until no events remain.
+   *
+   * @param startModel the model to start from
+   * @param events the events to process after init
+   * @return the final model and the effects that weren't handled by the effect handler, in the
+   *     order they were produced
+   * @throws IllegalStateException if the loop is already running or has been disposed
+   */
+  @Nonnull
+  public Result<M, F> run(M startModel, Iterable<? extends E> events) {
+    checkNotNull(startModel);
+    checkNotNull(events);
+
+    if (disposed) {
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot run a disposed loop");
+    }
+    if (runningThread != null) {
+      throw new IllegalStateException("This loop is already running");
+    }
+
+    runningThread = Thread.currentThread();
+
+    try {
+      final List<F> unhandledEffects = new ArrayList<>();
+
+      First<M, F> first = init.init(startModel);
+      M model = first.model();
+      dispatchEffects(first.effects(), first.lazyEffects(), unhandledEffects);
+
+      for (E event : events) {
+        this.events.add(checkNotNull(event));
+      }
+
+      E event;
+      while ((event = this.events.poll()) != null) {
+        Next<M, F> next = update.update(model, event);
+        model = next.modelOrElse(model);
+        dispatchEffects(next.effects(), next.lazyEffects(), unhandledEffects);
+      }
+
+      return Result.create(model, unhandledEffects);
+    } finally {
+      this.events.clear();
+      runningThread = null;
+    }
+  }
+
+  /**
+   * Convenience overload of {@link #run(Object, Iterable)}.
+   *
+   * @param startModel the model to start from
+   * @param events the events to process after init
+   * @return the final model and the effects that weren't handled by the effect handler
+   */
+  @SafeVarargs
+  @Nonnull
+  public final Result<M, F> run(M startModel, E... events) {
+    List<E> eventList = new ArrayList<>(events.length);
+    for (E event : events) {
+      eventList.add(event);
+    }
+    return run(startModel, eventList);
+  }
+
+  @Override
+  public void dispose() {
+    if (disposed) {
+      return;
+    }
+
+    disposed = true;
+    effectConnection.dispose();
+  }
+
+  private void dispatchEffects(
+      Set<F> effects, Set<Producer<? extends F>> lazyEffects, List<F> unhandledEffects) {
+    for (F effect : effects) {
+      dispatchEffect(effect, unhandledEffects);
+    }
+    for (Producer<? extends F> lazyEffect : lazyEffects) {
+      dispatchEffect(checkNotNull(lazyEffect.get()), unhandledEffects);
+    }
+  }
+
+  private void dispatchEffect(F effect, List<F> unhandledEffects) {
+    if (isHandled(effect)) {
+      effectConnection.accept(effect);
+    } else {
+      unhandledEffects.add(effect);
+    }
+  }
+
+  private boolean isHandled(F effect) {
+    for (Class<?> handledClass : handledEffectClasses) {
+      if (handledClass.isInstance(effect)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void onEventReceived(E event) {
+    if (runningThread != Thread.currentThread()) {
+      throw new IllegalStateException(
+          "Events can only be emitted synchronously while handling an effect: " + event);
+    }
+
+    events.add(event);
+  }
+
+  /** The outcome of running a {@link SynchronousLoop}. */
+  @AutoValue
+  public abstract static class Result<M, F> {
+
+    /** @return the model after all events have been processed */
+    @Nonnull
+    public abstract M model();
+
+    /** @return the effects that weren't handled by the effect handler, in the order produced */
+    @Nonnull
+    public abstract List<F> effects();
+
+    static <M, F> Result<M, F> create(M model, List<F> effects) {
+      return new AutoValue_SynchronousLoop_Result<>(
+          model, Collections.unmodifiableList(new ArrayList<>(effects)));
+    }
+  }
+
+  /**
+   * Builder for {@link SynchronousLoop}s; create one using {@link Mobius#synchronousLoop(Update)}.
+   * Builders are immutable; each method returns a new builder.
+   */
+  public static final class Builder<M, E, F> {
+
+    private final Update<M, E, F> update;
+    private final Init<M, F> init;
+    private final MobiusLoop.Logger<M, E, F> logger;
+    private final Connectable<F, E> effectHandler;
+    private final Set<Class<?>> handledEffectClasses;
+
+    Builder(
+        Update<M, E, F> update,
+        Init<M, F> init,
+        MobiusLoop.Logger<M, E, F> logger,
+        Connectable<F, E> effectHandler,
+        Set<Class<?>> handledEffectClasses) {
+      this.update = checkNotNull(update);
+      this.init = checkNotNull(init);
+      this.logger = checkNotNull(logger);
+      this.effectHandler = checkNotNull(effectHandler);
+      this.handledEffectClasses = checkNotNull(handledEffectClasses);
+    }
+
+    /** @return a new builder with the supplied {@link Init} */
+    @Nonnull
+    public Builder<M, E, F> init(Init<M, F> init) {
+      return new Builder<>(update, init, logger, effectHandler, handledEffectClasses);
+    }
+
+    /** @return a new builder with the supplied {@link MobiusLoop.Logger} */
+    @Nonnull
+    public Builder<M, E, F> logger(MobiusLoop.Logger<M, E, F> logger) {
+      return new Builder<>(update, init, logger, effectHandler, handledEffectClasses);
+    }
+
+    /**
+     * @param effectHandler the effect handler to synchronously handle effects of the given classes
+     *     with; effects of other classes are returned from {@link SynchronousLoop#run(Object,
+     *     Iterable)} instead
+     * @param handledClass an effect class to handle
+     * @param handledClasses more effect classes to handle
+     * @return a new builder with the supplied effect handler
+     */
+    @SafeVarargs
+    @Nonnull
+    public final Builder<M, E, F> effectHandler(
+        Connectable<F, E> effectHandler,
+        Class<? extends F> handledClass,
+        Class<? extends F>... handledClasses) {
+      Set<Class<?>> classes = new HashSet<>();
+      classes.add(checkNotNull(handledClass));
+      for (Class<? extends F> cls : handledClasses) {
+        classes.add(checkNotNull(cls));
+      }
+
+      return new Builder<>(
+          update, init, logger, effectHandler, ImmutableUtil.<Class<?>>immutableSet(classes));
+    }
+
+    /**
+     * Create a {@link SynchronousLoop}. This connects the effect handler; each loop should be
+     * disposed when no longer needed.
+     */
+    @Nonnull
+    public SynchronousLoop<M, E, F> build() {
+      return new SynchronousLoop<>(
+          new LoggingInit<>(init, logger),
+          new LoggingUpdate<>(update, logger),
+          handledEffectClasses,
+          effectHandler);
+    }
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeTrue;
+
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.test.RecordingConsumer;
+import com.spotify.mobius.test.RecordingModelObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfinedMobiusLoopTest {
+
+  private static final Update<String, String, String> UPDATE =
+      new Update<String, String, String>() {
+        @Nonnull
+        @Override
+        public Next<String, String> update(String model, String event) {
+          if (event.startsWith("fx:")) {
+            return Next.next(model + "," + event, effects(event.substring(3)));
+          }
+          return Next.next(model + "," + event);
+        }
+      };
+
+  private List<String> handledEffects;
+  private RecordingConsumer<String> eventSourceModels;
+  private boolean effectHandlerDisposed;
+  private boolean eventSourceDisposed;
+  private Connectable<String, String> effectHandler;
+  private Connectable<String, String> eventSource;
+
+  @Before
+  public void setUp() throws Exception {
+    handledEffects = new ArrayList<>();
+    eventSourceModels = new RecordingConsumer<>();
+
+    effectHandler =
+        new Connectable<String, String>() {
+          @Nonnull
+          @Override
+          public Connection<String> connect(Consumer<String> output) {
+            return new Connection<String>() {
+              @Override
+              public void accept(String effect) {
+                handledEffects.add(effect);
+                output.accept("done-" + effect);
+              }
+
+              @Override
+              public void dispose() {
+                effectHandlerDisposed = true;
+              }
+            };
+          }
+        };
+
+    eventSource =
+        new Connectable<String, String>() {
+          @Nonnull
+          @Override
+          public Connection<String> connect(Consumer<String> output) {
+            return new Connection<String>() {
+              @Override
+              public void accept(String model) {
+                eventSourceModels.accept(model);
+              }
+
+              @Override
+              public void dispose() {
+                eventSourceDisposed = true;
+              }
+            };
+          }
+        };
+  }
+
+  @Test
+  public void processesEventsSynchronously() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler).startConfined("init");
+
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("b");
+
+    assertThat(loop.getMostRecentModel()).isEqualTo("init,a,b");
+  }
+
+  @Test
+  public void notifiesObserversAndEventSourceOfModelChanges() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler).eventSource(eventSource).startConfined("init");
+    RecordingModelObserver<String> observer = new RecordingModelObserver<>();
+
+    loop.observe(observer);
+    loop.dispatchEvent("a");
+
+    observer.assertStates("init", "init,a");
+    eventSourceModels.assertValues("init", "init,a");
+  }
+
+  @Test
+  public void handlesEffectsFromInitAndUpdate() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler)
+            .init(model -> First.first(model, effects("start")))
+            .startConfined("init");
+
+    loop.dispatchEvent("fx:x");
+
+    assertThat(handledEffects).containsExactly("start", "x");
+    assertThat(loop.getMostRecentModel()).isEqualTo("init,done-start,fx:x,done-x");
+  }
+
+  @Test
+  public void queuesEventsDispatchedWhileProcessingAnEvent() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler).startConfined("init");
+    List<String> observedModels = new ArrayList<>();
+
+    loop.observe(
+        model -> {
+          observedModels.add(model);
+          if (model.endsWith(",a")) {
+            loop.dispatchEvent("b");
+          }
+        });
+    loop.dispatchEvent("a");
+
+    assertThat(observedModels).containsExactly("init", "init,a", "init,a,b");
+  }
+
+  @Test
+  public void stopsNotifyingObserversOnceDisposed() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler).startConfined("init");
+    RecordingModelObserver<String> observer = new RecordingModelObserver<>();
+
+    loop.observe(observer).dispose();
+    loop.dispatchEvent("a");
+
+    observer.assertStates("init");
+  }
+
+  @Test
+  public void disposeDisconnectsEffectHandlerAndRejectsEvents() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler).startConfined("init");
+
+    loop.dispose();
+
+    assertThat(effectHandlerDisposed).isTrue();
+    assertThatThrownBy(() -> loop.dispatchEvent("a")).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> loop.observe(model -> {})).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void failingInitDisconnectsEffectHandlerAndEventSource() throws Exception {
+    MobiusLoop.TunableBuilder<String, String, String> builder =
+        Mobius.tunableLoop(UPDATE, effectHandler)
+            .eventSource(eventSource)
+            .init(
+                model -> {
+                  throw new IllegalArgumentException("bad model");
+                });
+
+    assertThatThrownBy(() -> builder.startConfined("init"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("bad model");
+    assertThat(effectHandlerDisposed).isTrue();
+    assertThat(eventSourceDisposed).isTrue();
+  }
+
+  @Test
+  public void failingEventSourceConnectionDisconnectsEffectHandler() throws Exception {
+    MobiusLoop.TunableBuilder<String, String, String> builder =
+        Mobius.tunableLoop(UPDATE, effectHandler)
+            .eventSource(
+                (Connectable<String, String>)
+                    output -> {
+                      throw new IllegalStateException("no events today");
+                    });
+
+    assertThatThrownBy(() -> builder.startConfined("init"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("no events today");
+    assertThat(effectHandlerDisposed).isTrue();
+  }
+
+  @Test
+  public void logsEffectHandlerExceptionsAndHandlesRemainingEffects() throws Exception {
+    List<String> effects = new ArrayList<>();
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.<String, String, String>tunableLoop(
+                (model, event) -> Next.next(model + "," + event, effects("boom", "ok")),
+                output ->
+                    new Connection<String>() {
+                      @Override
+                      public void accept(String value) {
+                        if (value.equals("boom")) {
+                          throw new RuntimeException("expected");
+                        }
+                        effects.add(value);
+                      }
+
+                      @Override
+                      public void dispose() {}
+                    })
+            .startConfined("init");
+
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("b");
+
+    assertThat(effects).containsExactly("ok", "ok");
+    assertThat(loop.getMostRecentModel()).isEqualTo("init,a,b");
+  }
+
+  @Test
+  public void logsUpdateExceptionsAndProcessesQueuedEvents() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.<String, String, String>tunableLoop(
+                (model, event) -> {
+                  if (event.equals("bad")) {
+                    throw new RuntimeException("expected");
+                  }
+                  return Next.next(model + "," + event);
+                },
+                effectHandler)
+            .startConfined("init");
+    loop.observe(
+        model -> {
+          if (model.equals("init,a")) {
+            loop.dispatchEvent("bad");
+            loop.dispatchEvent("b");
+          }
+        });
+
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("c");
+
+    assertThat(loop.getMostRecentModel()).isEqualTo("init,a,b,c");
+  }
+
+  @Test
+  public void doesNotThrowIntoEffectHandlersThatEmitEvents() throws Exception {
+    AtomicReference<Consumer<String>> handlerOutput = new AtomicReference<>();
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.<String, String, String>tunableLoop(
+                (model, event) -> {
+                  if (event.equals("bad")) {
+                    throw new RuntimeException("expected");
+                  }
+                  return Next.next(model + "," + event);
+                },
+                output -> {
+                  handlerOutput.set(output);
+                  return new Connection<String>() {
+                    @Override
+                    public void accept(String value) {}
+
+                    @Override
+                    public void dispose() {}
+                  };
+                })
+            .startConfined("init");
+
+    // as a handler would when its background work posts its result back to the loop thread
+    handlerOutput.get().accept("bad");
+    handlerOutput.get().accept("a");
+
+    assertThat(loop.getMostRecentModel()).isEqualTo("init,a");
+  }
+
+  @Test
+  public void notifiesSliceObserversOfChanges() throws Exception {
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler).startConfined("init");
+    List<Integer> lengths = new ArrayList<>();
+
+    loop.observe(String::length, lengths::add);
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("b");
+
+    assertThat(lengths).containsExactly(4, 6, 8);
+  }
+
+  @Test
+  public void assertsThreadOwnershipWhenAssertionsAreEnabled() throws Exception {
+    boolean assertionsEnabled = false;
+    //noinspection AssertWithSideEffects,ConstantConditions
+    assert assertionsEnabled = true;
+    assumeTrue(assertionsEnabled);
+
+    ConfinedMobiusLoop<String, String, String> loop =
+        Mobius.tunableLoop(UPDATE, effectHandler).startConfined("init");
+    AtomicReference<Throwable> error = new AtomicReference<>();
+
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                loop.dispatchEvent("a");
+              } catch (Throwable t) {
+                error.set(t);
+              }
+            });
+    thread.start();
+    thread.join();
+
+    assertThat(error.get()).isInstanceOf(AssertionError.class);
+    assertThat(loop.getMostRecentModel()).isEqualTo("init");
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DistinctModelFilterTest {
+
+  private SuppressionRecordingLogger logger;
+
+  @Before
+  public void setUp() throws Exception {
+    logger = new SuppressionRecordingLogger();
+  }
+
+  @Test
+  public void firstModelIsAlwaysDistinct() throws Exception {
+    DistinctModelFilter<String> filter =
+        new DistinctModelFilter<>(MobiusLoop.ModelComparison.IDENTITY, logger);
+
+    assertThat(filter.isDistinct(null, "first")).isTrue();
+  }
+
+  @Test
+  public void identityComparisonSuppressesSameInstance() throws Exception {
+    DistinctModelFilter<String> filter =
+        new DistinctModelFilter<>(MobiusLoop.ModelComparison.IDENTITY, logger);
+    String model = "model";
+
+    assertThat(filter.isDistinct(model, model)).isFalse();
+  }
+
+  @Test
+  public void identityComparisonPublishesEqualInstances() throws Exception {
+    DistinctModelFilter<String> filter =
+        new DistinctModelFilter<>(MobiusLoop.ModelComparison.IDENTITY, logger);
+
+    assertThat(filter.isDistinct("model", new String("model"))).isTrue();
+    assertThat(logger.suppressions).isEmpty();
+  }
+
+  @Test
+  public void equalityComparisonSuppressesEqualInstances() throws Exception {
+    DistinctModelFilter<String> filter =
+        new DistinctModelFilter<>(MobiusLoop.ModelComparison.EQUALITY, logger);
+
+    assertThat(filter.isDistinct("model", new String("model"))).isFalse();
+    assertThat(filter.isDistinct("model", "other")).isTrue();
+  }
+
+  @Test
+  public void reportsRunningSuppressionCount() throws Exception {
+    DistinctModelFilter<String> filter =
+        new DistinctModelFilter<>(MobiusLoop.ModelComparison.EQUALITY, logger);
+
+    filter.isDistinct("a", "a");
+    filter.isDistinct("a", "b");
+    filter.isDistinct("b", "b");
+
+    assertThat(logger.suppressions).containsExactly("a: 1", "b: 2");
+  }
+
+  @Test
+  public void ignoresLoggersThatDoNotTrackSuppressions() throws Exception {
+    DistinctModelFilter<String> filter =
+        new DistinctModelFilter<>(MobiusLoop.ModelComparison.EQUALITY, new IgnoringLogger());
+
+    assertThat(filter.isDistinct("a", "a")).isFalse();
+  }
+
+  private static class IgnoringLogger implements MobiusLoop.Logger<String, Object, Object> {
+
+    @Override
+    public void beforeInit(String model) {}
+
+    @Override
+    public void afterInit(String model, First<String, Object> result) {}
+
+    @Override
+    public void exceptionDuringInit(String model, Throwable exception) {}
+
+    @Override
+    public void beforeUpdate(String model, Object event) {}
+
+    @Override
+    public void afterUpdate(String model, Object event, Next<String, Object> result) {}
+
+    @Override
+    public void exceptionDuringUpdate(String model, Object event, Throwable exception) {}
+  }
+
+  private static class SuppressionRecordingLogger extends IgnoringLogger
+      implements MobiusLoop.ModelSuppressionLogger<String> {
+
+    final List<String> suppressions = new ArrayList<>();
+
+    @Override
+    public void modelSuppressed(String model, long suppressedCount) {
+      suppressions.add(model + ": " + suppressedCount);
+    }
+  }
+}
@@ -19,11 +19,16 @@
  */
 package com.spotify.mobius;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.google.common.collect.Sets;
+import com.spotify.mobius.functions.Producer;
 import com.spotify.mobius.internal_util.ImmutableUtil;
 import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import org.junit.Before;
@@ -72,6 +77,43 @@ public class EventProcessorTest {
     effectConsumer.assertValuesInAnyOrder(10L, 20L, 30L);
   }
 
+  @Test
+  public void shouldEmitEffectsAsOneBatchToBatchConsumer() throws Exception {
+    RecordingBatchConsumer<Long> batchConsumer = new RecordingBatchConsumer<>();
+    underTest = new EventProcessor<>(createStore(), batchConsumer, stateConsumer);
+    underTest.init();
+
+    underTest.update(3);
+    underTest.update(0);
+
+    assertThat(batchConsumer.batches).hasSize(2);
+    assertThat(batchConsumer.batches.get(0)).containsExactlyInAnyOrder(15L, 25L, 35L);
+    assertThat(batchConsumer.batches.get(1)).containsExactlyInAnyOrder(10L, 20L, 30L);
+  }
+
+  @Test
+  public void shouldPassLazyEffectsToLazyEffectConsumer() throws Exception {
+    RecordingConsumer<Producer<? extends Long>> lazyEffectConsumer = new RecordingConsumer<>();
+    underTest =
+        new EventProcessor<>(createStore(), effectConsumer, lazyEffectConsumer, stateConsumer);
+    underTest.init();
+    effectConsumer.clearValues();
+
+    underTest.update(-1);
+
+    effectConsumer.assertValues();
+    assertThat(lazyEffectConsumer.valueCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldEvaluateLazyEffectsWithoutLazyEffectConsumer() throws Exception {
+    effectConsumer.clearValues();
+
+    underTest.update(-1);
+
+    effectConsumer.assertValues(99L);
+  }
+
   @Test
   public void shouldEmitStateDuringInit() throws Exception {
     stateConsumer.assertValues("init!");
@@ -118,6 +160,11 @@ public class EventProcessorTest {
               return Next.noChange();
             }
 
+            if (event < 0) {
+              return Next.dispatch(
+                  Collections.<Long>emptySet(), Effects.<Long>lazyEffects(() -> 99L));
+            }
+
             Set<Long> effects = Sets.newHashSet();
             for (int i = 0; i < event; i++) {
               effects.add(10L * (i + 1));
@@ -128,4 +175,18 @@ public class EventProcessorTest {
         },
         "init");
   }
+
+  private static class RecordingBatchConsumer<T> implements BatchConsumer<T> {
+    private final List<List<T>> batches = new ArrayList<>();
+
+    @Override
+    public void acceptAll(List<T> values) {
+      batches.add(values);
+    }
+
+    @Override
+    public void accept(T value) {
+      throw new AssertionError("unexpected call to accept");
+    }
+  }
 }
@@ -25,7 +25,15 @@ import static org.junit.Assert.assertThat;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import org.junit.Before;
 import org.junit.Test;
@@ -80,6 +88,43 @@ public class EventSourceConnectableTest {
       connection.dispose();
       assertThat(source.subscriberCount(), is(0));
     }
+
+    @Test
+    public void concurrentDisposalsOnlyDisposeSubscriptionOnce() throws Exception {
+      final int threads = 4;
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+      try {
+        for (int round = 0; round < 100; round++) {
+          AtomicInteger disposals = new AtomicInteger();
+          Connection<Integer> connection =
+              EventSourceConnectable.<Integer, String>create(
+                      eventConsumer -> disposals::incrementAndGet)
+                  .connect(events);
+
+          CountDownLatch start = new CountDownLatch(1);
+          List<Future<?>> futures = new ArrayList<>();
+          for (int i = 0; i < threads; i++) {
+            futures.add(
+                executor.submit(
+                    () -> {
+                      start.await();
+                      connection.dispose();
+                      return null;
+                    }));
+          }
+
+          start.countDown();
+          for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+          }
+
+          assertThat(disposals.get(), is(1));
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
   }
 
   public static class EmissionsBehavior extends EventSourceConnectableTest {
@@ -29,6 +29,8 @@ import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.testing.EqualsTester;
+import com.spotify.mobius.functions.Producer;
+import java.util.Collections;
 import org.junit.Test;
 
 public class FirstTest {
@@ -50,6 +52,30 @@ public class FirstTest {
     assertThat(f.effects(), contains("ho", "there"));
   }
 
+  @Test
+  public void supportsCreatingWithLazyEffects() throws Exception {
+    First<String, String> f =
+        First.first("hi", effects("eager"), Effects.<String>lazyEffects(() -> "lazy"));
+
+    assertTrue(f.hasEffects());
+    assertThat(f.effects(), contains("eager"));
+    assertThat(f.lazyEffects().size(), is(1));
+  }
+
+  @Test
+  public void lazyEffectsAreIncludedInEquality() throws Exception {
+    Producer<String> lazyEffect = () -> "lazy";
+
+    new EqualsTester()
+        .addEqualityGroup(
+            First.first("hi", effects("a"), Collections.singleton(lazyEffect)),
+            First.first("hi", effects("a"), Collections.singleton(lazyEffect)))
+        .addEqualityGroup(
+            First.first("hi", effects("a")),
+            First.first("hi", effects("a"), Collections.<Producer<String>>emptySet()))
+        .testEquals();
+  }
+
   @Test
   public void reportsNoEffectsIfThereAreNoEffects() throws Exception {
     First<String, String> f = First.first("hi");
@@ -0,0 +1,112 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoizingUpdateTest {
+
+  private AtomicInteger updateCount;
+  private Update<String, Integer, Boolean> update;
+
+  @Before
+  public void setUp() throws Exception {
+    updateCount = new AtomicInteger();
+    update =
+        (model, event) -> {
+          updateCount.incrementAndGet();
+          return Next.next(model + event, effects(event % 2 == 0));
+        };
+  }
+
+  @Test
+  public void shouldReuseResultsForEqualModelsAndEvents() throws Exception {
+    MemoizingUpdate<String, Integer, Boolean> underTest = MemoizingUpdate.builder(update).build();
+
+    Next<String, Boolean> first = underTest.update("model", 2);
+    Next<String, Boolean> second = underTest.update(new String("model"), 2);
+
+    assertThat(second).isEqualTo(first);
+    assertThat(second.effects()).containsExactly(true);
+    assertThat(updateCount.get()).isEqualTo(1);
+    assertThat(underTest.stats().hitCount()).isEqualTo(1);
+    assertThat(underTest.stats().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCompareModelsByIdentityIfConfigured() throws Exception {
+    MemoizingUpdate<String, Integer, Boolean> underTest =
+        MemoizingUpdate.builder(update)
+            .modelComparison(MobiusLoop.ModelComparison.IDENTITY)
+            .build();
+    String model = "model";
+
+    underTest.update(model, 1);
+    underTest.update(new String(model), 1);
+    underTest.update(model, 1);
+
+    assertThat(updateCount.get()).isEqualTo(2);
+    assertThat(underTest.stats().hitRate()).isEqualTo(1.0 / 3);
+  }
+
+  @Test
+  public void shouldSkipEffectsOfReusedResultsIfConfigured() throws Exception {
+    MemoizingUpdate<String, Integer, Boolean> underTest =
+        MemoizingUpdate.builder(update).effectPolicy(MemoizingUpdate.EffectPolicy.SKIP).build();
+
+    Next<String, Boolean> first = underTest.update("model", 2);
+    Next<String, Boolean> second = underTest.update("model", 2);
+
+    assertThat(first.effects()).containsExactly(true);
+    assertThat(second).isEqualTo(Next.next("model2"));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedEntries() throws Exception {
+    MemoizingUpdate<String, Integer, Boolean> underTest =
+        MemoizingUpdate.builder(update).maximumSize(2).build();
+
+    underTest.update("model", 1);
+    underTest.update("model", 2);
+    underTest.update("model", 1);
+    underTest.update("model", 3);
+    underTest.update("model", 1);
+    underTest.update("model", 2);
+
+    assertThat(updateCount.get()).isEqualTo(4);
+    assertThat(underTest.stats().evictionCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldForgetEverythingWhenInvalidated() throws Exception {
+    MemoizingUpdate<String, Integer, Boolean> underTest = MemoizingUpdate.builder(update).build();
+
+    underTest.update("model", 1);
+    underTest.invalidateAll();
+    underTest.update("model", 1);
+
+    assertThat(updateCount.get()).isEqualTo(2);
+  }
+}
@@ -25,6 +25,8 @@ import static org.junit.Assert.*;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nonnull;
 import org.junit.Test;
 
@@ -58,6 +60,47 @@ public class MergedEventSourceTest {
     assertThat(s4.disposed, is(true));
   }
 
+  @Test
+  public void parallelSourceSubscribesToEachSourceOnExecutor() {
+    List<Runnable> tasks = new ArrayList<>();
+    TestEventSource<String> s1 = new TestEventSource<>();
+    TestEventSource<String> s2 = new TestEventSource<>();
+
+    EventSource<String> mergedSource = MergedEventSource.fromParallel(tasks::add, s1, s2);
+    RecordingConsumer<String> consumer = new RecordingConsumer<>();
+    Disposable disposable = mergedSource.subscribe(consumer);
+
+    assertThat(tasks.size(), is(2));
+    assertThat(s1.eventConsumer == null, is(true));
+
+    tasks.forEach(Runnable::run);
+    s2.send("Hello");
+    s1.send("World!");
+
+    consumer.assertValues("Hello", "World!");
+    disposable.dispose();
+    assertThat(s1.disposed, is(true));
+    assertThat(s2.disposed, is(true));
+  }
+
+  @Test
+  public void parallelSourceDisposesSourcesThatSubscribeAfterDisposal() {
+    List<Runnable> tasks = new ArrayList<>();
+    TestEventSource<String> s1 = new TestEventSource<>();
+    TestEventSource<String> s2 = new TestEventSource<>();
+
+    Disposable disposable =
+        MergedEventSource.fromParallel(tasks::add, s1, s2).subscribe(new RecordingConsumer<>());
+
+    tasks.get(0).run();
+    disposable.dispose();
+    assertThat(s1.disposed, is(true));
+    assertThat(s2.disposed, is(false));
+
+    tasks.get(1).run();
+    assertThat(s2.disposed, is(true));
+  }
+
   private static class TestEventSource<T> implements EventSource<T> {
 
     private Consumer<T> eventConsumer;
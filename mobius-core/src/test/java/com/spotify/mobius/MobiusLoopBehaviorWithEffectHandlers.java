@@ -20,19 +20,28 @@
 package com.spotify.mobius;
 
 import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 
 import com.google.common.util.concurrent.SettableFuture;
 import com.spotify.mobius.runners.ExecutorServiceWorkRunner;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.test.RecordingModelObserver;
 import com.spotify.mobius.test.SimpleConnection;
 import com.spotify.mobius.test.TestWorkRunner;
+import com.spotify.mobius.testdomain.Crash;
 import com.spotify.mobius.testdomain.EventWithCrashingEffect;
 import com.spotify.mobius.testdomain.EventWithSafeEffect;
 import com.spotify.mobius.testdomain.SafeEffect;
 import com.spotify.mobius.testdomain.TestEffect;
 import com.spotify.mobius.testdomain.TestEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import org.awaitility.Duration;
 import org.junit.Test;
@@ -181,4 +190,208 @@ public class MobiusLoopBehaviorWithEffectHandlers extends MobiusLoopTest {
 
     observer.assertStates("init", "init->effectfrominit");
   }
+
+  @Test
+  public void shouldHandleInlineEffectsWithoutUsingEffectRunner() throws Exception {
+    TestWorkRunner testWorkRunner = new TestWorkRunner();
+    setupWithInlineEffects(
+        eventConsumer ->
+            new SimpleConnection<TestEffect>() {
+              @Override
+              public void accept(TestEffect effect) {
+                eventConsumer.accept(new TestEvent(effect.toString()));
+              }
+            },
+        testWorkRunner,
+        SafeEffect.class);
+
+    mobiusLoop.dispatchEvent(new EventWithSafeEffect("hi"));
+
+    observer.assertStates("init", "init->hi", "init->hi->effecthi");
+  }
+
+  @Test
+  public void shouldUseEffectRunnerForEffectsThatAreNotInline() throws Exception {
+    TestWorkRunner testWorkRunner = new TestWorkRunner();
+    setupWithInlineEffects(
+        eventConsumer ->
+            new SimpleConnection<TestEffect>() {
+              @Override
+              public void accept(TestEffect effect) {
+                eventConsumer.accept(new TestEvent(effect.toString()));
+              }
+            },
+        testWorkRunner,
+        Crash.class);
+
+    mobiusLoop.dispatchEvent(new EventWithSafeEffect("hi"));
+
+    observer.assertStates("init", "init->hi");
+
+    testWorkRunner.runAll();
+
+    observer.assertStates("init", "init->hi", "init->hi->effecthi");
+  }
+
+  @Test
+  public void shouldSurviveInlineEffectPerformerThrowing() throws Exception {
+    setupWithInlineEffects(effectHandler, new TestWorkRunner(), Crash.class);
+
+    mobiusLoop.dispatchEvent(new EventWithCrashingEffect());
+    mobiusLoop.dispatchEvent(new TestEvent("should happen"));
+
+    observer.assertStates("init", "will crash", "will crash->should happen");
+  }
+
+  @Test
+  public void shouldPostAllEffectsFromOneUpdateAsOneTaskWhenBatching() throws Exception {
+    useUpdateWithEffects(new Crash(), new SafeEffect("1"));
+    CountingWorkRunner countingWorkRunner = new CountingWorkRunner();
+    setupWithBatchedEffects(
+        eventConsumer ->
+            new SimpleConnection<TestEffect>() {
+              @Override
+              public void accept(TestEffect effect) {
+                if (effect instanceof Crash) {
+                  throw new RuntimeException("Crashing!");
+                }
+                eventConsumer.accept(new TestEvent(effect.toString()));
+              }
+            },
+        countingWorkRunner);
+
+    mobiusLoop.dispatchEvent(new TestEvent("hi"));
+
+    assertThat(countingWorkRunner.posted).isEqualTo(1);
+
+    countingWorkRunner.runAll();
+
+    observer.assertStates("init", "init->hi", "init->hi->effect1");
+  }
+
+  @Test
+  public void shouldPassAllEffectsFromOneUpdateToBatchConnection() throws Exception {
+    SafeEffect effect1 = new SafeEffect("1");
+    SafeEffect effect2 = new SafeEffect("2");
+    useUpdateWithEffects(effect1, effect2);
+    TestWorkRunner testWorkRunner = new TestWorkRunner();
+    final List<List<TestEffect>> batches = new ArrayList<>();
+    setupWithBatchedEffects(
+        eventConsumer ->
+            new BatchConnection<TestEffect>() {
+              @Override
+              public void acceptAll(List<TestEffect> values) {
+                batches.add(values);
+              }
+
+              @Override
+              public void accept(TestEffect value) {
+                throw new AssertionError("unexpected call to accept");
+              }
+
+              @Override
+              public void dispose() {}
+            },
+        testWorkRunner);
+
+    mobiusLoop.dispatchEvent(new TestEvent("hi"));
+    testWorkRunner.runAll();
+
+    assertThat(batches).hasSize(1);
+    assertThat(batches.get(0)).containsExactlyInAnyOrder(effect1, effect2);
+  }
+
+  @Test
+  public void shouldEvaluateLazyEffectsOnEffectRunner() throws Exception {
+    final AtomicBoolean evaluated = new AtomicBoolean();
+    Update<String, TestEvent, TestEffect> update =
+        (model, event) -> {
+          if (event.toString().startsWith("effect")) {
+            return Next.next(model + "->" + event);
+          }
+
+          return Next.next(
+              model + "->" + event,
+              Collections.<TestEffect>emptySet(),
+              Effects.<TestEffect>lazyEffects(
+                  () -> {
+                    evaluated.set(true);
+                    return new SafeEffect("lazy");
+                  }));
+        };
+    mobiusStore = MobiusStore.create(First::first, update, "init");
+    TestWorkRunner testWorkRunner = new TestWorkRunner();
+    setupWithEffects(
+        eventConsumer ->
+            new SimpleConnection<TestEffect>() {
+              @Override
+              public void accept(TestEffect effect) {
+                eventConsumer.accept(new TestEvent(effect.toString()));
+              }
+            },
+        testWorkRunner);
+
+    mobiusLoop.dispatchEvent(new TestEvent("hi"));
+
+    assertThat(evaluated.get()).isFalse();
+
+    testWorkRunner.runAll();
+
+    assertThat(evaluated.get()).isTrue();
+    observer.assertStates("init", "init->hi", "init->hi->effectlazy");
+  }
+
+  private void useUpdateWithEffects(TestEffect... effects) {
+    mobiusStore =
+        MobiusStore.create(
+            model -> First.first(model),
+            (model, event) ->
+                event.toString().startsWith("effect")
+                    ? Next.next(model + "->" + event)
+                    : Next.next(model + "->" + event, effects(effects)),
+            "init");
+  }
+
+  private void setupWithInlineEffects(
+      Connectable<TestEffect, TestEvent> effectHandler,
+      WorkRunner effectRunner,
+      Class<? extends TestEffect> inlineEffectClass) {
+    setupLoop(
+        effectHandler, effectRunner, Collections.<Class<?>>singleton(inlineEffectClass), false);
+  }
+
+  private void setupWithBatchedEffects(
+      Connectable<TestEffect, TestEvent> effectHandler, WorkRunner effectRunner) {
+    setupLoop(effectHandler, effectRunner, Collections.<Class<?>>emptySet(), true);
+  }
+
+  private void setupLoop(
+      Connectable<TestEffect, TestEvent> effectHandler,
+      WorkRunner effectRunner,
+      Set<Class<?>> inlineEffectClasses,
+      boolean batchEffects) {
+    observer = new RecordingModelObserver<>();
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            immediateRunner,
+            effectRunner,
+            inlineEffectClasses,
+            batchEffects);
+
+    mobiusLoop.observe(observer);
+  }
+
+  private static class CountingWorkRunner extends TestWorkRunner {
+    private int posted;
+
+    @Override
+    public void post(Runnable runnable) {
+      posted++;
+      super.post(runnable);
+    }
+  }
 }
@@ -36,8 +36,16 @@ import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.runners.ImmediateWorkRunner;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.runners.WorkRunners;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -448,6 +456,27 @@ public class MobiusLoopControllerTest {
       verify(renderer).accept("init!");
     }
 
+    @Test
+    public void selectorObserversReceiveChangedSlicesAcrossRestarts() throws Exception {
+      RecordingConsumer<Boolean> sliceObserver = new RecordingConsumer<>();
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest.observe(model -> model.length() > 5, sliceObserver);
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return mock(Connection.class);
+          });
+
+      underTest.start();
+      consumer.get().accept("!");
+      underTest.stop();
+      underTest.start();
+      consumer.get().accept("!");
+
+      sliceObserver.assertValues(false, true);
+    }
+
     @Test
     public void updaterReceivesViewUpdatesOnMainThread() throws Exception {
       KnownThreadWorkRunner mainThreadRunner = new KnownThreadWorkRunner();
@@ -500,6 +529,188 @@ public class MobiusLoopControllerTest {
 
       verify(renderer, never()).accept("init!");
     }
+
+    @Test
+    public void coalescingControllerRendersOnlyLatestModel() throws Exception {
+      Queue<Runnable> mainThreadTasks = new ArrayDeque<>();
+      List<String> rendered = new ArrayList<>();
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest =
+          new MobiusLoopController<>(
+              Mobius.<String, String, String>loop(
+                      (model, event) -> Next.next(model + event), effectHandler)
+                  .eventRunner(WorkRunners::immediate)
+                  .effectRunner(WorkRunners::immediate),
+              "init",
+              new WorkRunner() {
+                @Override
+                public void post(Runnable runnable) {
+                  mainThreadTasks.add(runnable);
+                }
+
+                @Override
+                public void dispose() {}
+              },
+              true);
+
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                rendered.add(value);
+              }
+
+              @Override
+              public void dispose() {}
+            };
+          });
+      underTest.start();
+
+      consumer.get().accept("a");
+      consumer.get().accept("b");
+
+      assertThat(mainThreadTasks.size(), is(1));
+      mainThreadTasks.remove().run();
+
+      consumer.get().accept("c");
+      mainThreadTasks.remove().run();
+
+      assertThat(mainThreadTasks.isEmpty(), is(true));
+      assertThat(rendered, is(Arrays.asList("initab", "initabc")));
+    }
+
+    @Test
+    public void dispatchingEventsDoesNotTakeControllerLock() throws Exception {
+      @SuppressWarnings("unchecked")
+      Connection<String> renderer = mock(Connection.class);
+
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return renderer;
+          });
+      underTest.start();
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        synchronized (underTest) {
+          executor.submit(() -> consumer.get().accept("!")).get(5, TimeUnit.SECONDS);
+        }
+      } finally {
+        executor.shutdown();
+      }
+
+      verify(renderer).accept("init!");
+    }
+
+    @Test
+    public void dispatchingEventsConcurrentlyWithRestartsDoesNotThrow() throws Exception {
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return new Connection<String>() {
+              @Override
+              public void accept(String value) {}
+
+              @Override
+              public void dispose() {}
+            };
+          });
+
+      AtomicBoolean done = new AtomicBoolean();
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        underTest.start();
+
+        Future<?> dispatching =
+            executor.submit(
+                () -> {
+                  while (!done.get()) {
+                    consumer.get().accept(".");
+                  }
+                });
+
+        for (int i = 0; i < 200; i++) {
+          underTest.stop();
+          underTest.replaceModel("init");
+          underTest.start();
+        }
+
+        done.set(true);
+        // rethrows any exception thrown when dispatching an event
+        dispatching.get(5, TimeUnit.SECONDS);
+      } finally {
+        done.set(true);
+        executor.shutdown();
+      }
+    }
+
+    @Test
+    public void stoppingWaitsForInProgressRenderAndNoModelIsRenderedAfterwards() throws Exception {
+      KnownThreadWorkRunner mainThreadRunner = new KnownThreadWorkRunner();
+      CountDownLatch renderStarted = new CountDownLatch(1);
+      CountDownLatch releaseRender = new CountDownLatch(1);
+      AtomicBoolean stopReturned = new AtomicBoolean();
+      AtomicBoolean renderedAfterStop = new AtomicBoolean();
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest = createWithWorkRunner(mainThreadRunner);
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                if (stopReturned.get()) {
+                  renderedAfterStop.set(true);
+                }
+                if (value.equals("init!")) {
+                  renderStarted.countDown();
+                  try {
+                    releaseRender.await();
+                  } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                  }
+                }
+              }
+
+              @Override
+              public void dispose() {}
+            };
+          });
+      underTest.start();
+      consumer.get().accept("!");
+      assertTrue(renderStarted.await(5, TimeUnit.SECONDS));
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        Future<?> stopping =
+            executor.submit(
+                () -> {
+                  underTest.stop();
+                  stopReturned.set(true);
+                });
+
+        Thread.sleep(100);
+        assertFalse(stopping.isDone());
+
+        releaseRender.countDown();
+        stopping.get(5, TimeUnit.SECONDS);
+      } finally {
+        releaseRender.countDown();
+        executor.shutdown();
+        mainThreadRunner.dispose();
+      }
+
+      assertFalse(renderedAfterStop.get());
+    }
   }
 
   private static class KnownThreadWorkRunner implements WorkRunner {
@@ -19,9 +19,14 @@
  */
 package com.spotify.mobius;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.test.RecordingConsumer;
 import com.spotify.mobius.test.RecordingModelObserver;
 import com.spotify.mobius.testdomain.TestEvent;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 public class MobiusLoopObservabilityBehavior extends MobiusLoopTest {
@@ -49,4 +54,52 @@ public class MobiusLoopObservabilityBehavior extends MobiusLoopTest {
 
     observer.assertStates("init", "init->active observer");
   }
+
+  @Test
+  public void shouldNotifySelectorObserversOnlyWhenSliceChanges() throws Exception {
+    RecordingConsumer<Boolean> sliceObserver = new RecordingConsumer<>();
+
+    mobiusLoop.observe(model -> model.contains("important"), sliceObserver);
+
+    mobiusLoop.dispatchEvent(new TestEvent("first"));
+    mobiusLoop.dispatchEvent(new TestEvent("important"));
+    mobiusLoop.dispatchEvent(new TestEvent("second"));
+
+    sliceObserver.assertValues(false, true);
+  }
+
+  @Test
+  public void shouldShareSelectorComputationBetweenObservers() throws Exception {
+    AtomicInteger selections = new AtomicInteger();
+    Function<String, Integer> selector =
+        model -> {
+          selections.incrementAndGet();
+          return model.length();
+        };
+    RecordingConsumer<Integer> observer1 = new RecordingConsumer<>();
+    RecordingConsumer<Integer> observer2 = new RecordingConsumer<>();
+
+    mobiusLoop.observe(selector, observer1);
+    mobiusLoop.observe(selector, observer2);
+    selections.set(0);
+
+    mobiusLoop.dispatchEvent(new TestEvent("first"));
+
+    assertThat(selections.get()).isEqualTo(1);
+    observer1.assertValues(4, 11);
+    observer2.assertValues(4, 11);
+  }
+
+  @Test
+  public void shouldSupportUnregisteringSelectorObserver() throws Exception {
+    RecordingConsumer<String> sliceObserver = new RecordingConsumer<>();
+
+    Disposable unregister = mobiusLoop.observe(model -> model, sliceObserver);
+
+    mobiusLoop.dispatchEvent(new TestEvent("active observer"));
+    unregister.dispose();
+    mobiusLoop.dispatchEvent(new TestEvent("shouldn't be seen"));
+
+    sliceObserver.assertValues("init", "init->active observer");
+  }
 }
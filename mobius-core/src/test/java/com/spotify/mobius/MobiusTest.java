@@ -32,6 +32,7 @@ import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.runners.WorkRunners;
 import com.spotify.mobius.test.SimpleConnection;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -108,6 +109,35 @@ public class MobiusTest {
     await().atMost(Duration.ONE_SECOND).until(() -> runner.runCounter.get() == 1);
   }
 
+  @Test
+  public void shouldPermitMarkingEffectsAsInline() throws Exception {
+    TestableWorkRunner runner = new TestableWorkRunner();
+    loop =
+        Mobius.tunableLoop(UPDATE, HANDLER)
+            .effectRunner(() -> runner)
+            .inlineEffects(Collections.singleton(Boolean.class))
+            .startFrom(MY_MODEL);
+
+    loop.dispatchEvent(8);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> loop.getMostRecentModel(), is("start83"));
+    assertThat(runner.runCounter.get(), is(0));
+  }
+
+  @Test
+  public void shouldPermitBatchingEffects() throws Exception {
+    TestableWorkRunner runner = new TestableWorkRunner();
+    loop =
+        Mobius.tunableLoop(UPDATE, HANDLER)
+            .effectRunner(() -> runner)
+            .batchEffects(true)
+            .startFrom(MY_MODEL);
+
+    loop.dispatchEvent(8);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> loop.getMostRecentModel(), is("start83"));
+  }
+
   @Test
   public void shouldPermitUsingCustomEventRunner() throws Exception {
     TestableWorkRunner runner = new TestableWorkRunner();
@@ -198,6 +228,65 @@ public class MobiusTest {
     await().atMost(Duration.ONE_SECOND).until(() -> loop.getMostRecentModel(), is("second97"));
   }
 
+  @Test
+  public void shouldPermitSuppressingEqualModels() throws Exception {
+    Update<String, Integer, Boolean> update =
+        (model, event) -> Next.next(event == 0 ? new String(model) : model + event);
+    List<String> observed = new ArrayList<>();
+
+    loop =
+        Mobius.tunableLoop(update, HANDLER)
+            .eventRunner(ImmediateWorkRunner::new)
+            .effectRunner(ImmediateWorkRunner::new)
+            .distinctUntilChanged(MobiusLoop.ModelComparison.EQUALITY)
+            .startFrom(MY_MODEL);
+    loop.observe(observed::add);
+
+    loop.dispatchEvent(0);
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(0);
+
+    assertThat(observed, contains("start", "start1"));
+  }
+
+  @Test
+  public void shouldSupportMutableModels() throws Exception {
+    MutableModel<String, StringBuilder> mutableModel =
+        new MutableModel<String, StringBuilder>() {
+          @Nonnull
+          @Override
+          public StringBuilder toWorkingModel(String snapshot) {
+            return new StringBuilder(snapshot);
+          }
+
+          @Nonnull
+          @Override
+          public String toSnapshot(StringBuilder workingModel) {
+            return workingModel.toString();
+          }
+        };
+    List<String> observed = new ArrayList<>();
+
+    MobiusLoop.Factory<String, Integer, Boolean> factory =
+        Mobius.mutableModelLoop(
+                (StringBuilder model, Integer event) -> Next.next(model.append(event)),
+                HANDLER,
+                mutableModel)
+            .eventRunner(ImmediateWorkRunner::new)
+            .effectRunner(ImmediateWorkRunner::new);
+
+    loop = factory.startFrom(MY_MODEL);
+    loop.observe(observed::add);
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(2);
+
+    MobiusLoop<String, Integer, Boolean> otherLoop = factory.startFrom("other");
+    otherLoop.dispatchEvent(3);
+
+    assertThat(observed, contains("start", "start1", "start12"));
+    assertThat(otherLoop.getMostRecentModel(), is("other3"));
+  }
+
   private static class TestableWorkRunner implements WorkRunner {
 
     private final AtomicInteger runCounter = new AtomicInteger();
@@ -0,0 +1,117 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MutableModelUpdateTest {
+
+  private List<StringBuilder> workingModels;
+  private int snapshotCount;
+  private MutableModelUpdate<String, StringBuilder, String, String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    workingModels = new ArrayList<>();
+    snapshotCount = 0;
+
+    MutableModel<String, StringBuilder> mutableModel =
+        new MutableModel<String, StringBuilder>() {
+          @Nonnull
+          @Override
+          public StringBuilder toWorkingModel(String snapshot) {
+            StringBuilder workingModel = new StringBuilder(snapshot);
+            workingModels.add(workingModel);
+            return workingModel;
+          }
+
+          @Nonnull
+          @Override
+          public String toSnapshot(StringBuilder workingModel) {
+            snapshotCount++;
+            return workingModel.toString();
+          }
+        };
+
+    underTest =
+        new MutableModelUpdate<>(
+            (StringBuilder model, String event) -> {
+              if (event.isEmpty()) {
+                return Next.dispatch(effects("nothing changed"));
+              }
+              model.append(event);
+              if (event.equals("!")) {
+                throw new IllegalArgumentException("half-way through");
+              }
+              return Next.next(model, effects("appended " + event));
+            },
+            mutableModel);
+  }
+
+  @Test
+  public void changesWorkingModelInPlaceAndPublishesSnapshots() throws Exception {
+    Next<String, String> first = underTest.update("init", "a");
+    Next<String, String> second = underTest.update(first.modelUnsafe(), "b");
+
+    assertThat(first.modelUnsafe()).isEqualTo("inita");
+    assertThat(second.modelUnsafe()).isEqualTo("initab");
+    assertThat(second.effects()).containsExactly("appended b");
+    assertThat(workingModels).hasSize(1);
+  }
+
+  @Test
+  public void takesNoSnapshotWhenNothingChanged() throws Exception {
+    Next<String, String> first = underTest.update("init", "a");
+    Next<String, String> second = underTest.update(first.modelUnsafe(), "");
+
+    assertThat(second.hasModel()).isFalse();
+    assertThat(second.effects()).containsExactly("nothing changed");
+    assertThat(snapshotCount).isEqualTo(1);
+  }
+
+  @Test
+  public void startsFromModelThatWasNotPublishedByIt() throws Exception {
+    underTest.update("init", "a");
+
+    Next<String, String> next = underTest.update("replaced", "b");
+
+    assertThat(next.modelUnsafe()).isEqualTo("replacedb");
+    assertThat(workingModels).hasSize(2);
+  }
+
+  @Test
+  public void discardsWorkingModelWhenUpdateThrows() throws Exception {
+    String model = underTest.update("init", "a").modelUnsafe();
+
+    assertThatThrownBy(() -> underTest.update(model, "!"))
+        .isInstanceOf(IllegalArgumentException.class);
+    Next<String, String> next = underTest.update(model, "b");
+
+    assertThat(next.modelUnsafe()).isEqualTo("initab");
+  }
+}
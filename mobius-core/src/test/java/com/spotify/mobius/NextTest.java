@@ -32,6 +32,7 @@ import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.Sets;
 import com.google.common.testing.EqualsTester;
+import com.spotify.mobius.functions.Producer;
 import com.spotify.mobius.internal_util.ImmutableUtil;
 import java.util.Collections;
 import java.util.HashSet;
@@ -92,6 +93,44 @@ public class NextTest {
     assertTrue(next.hasEffects());
   }
 
+  @Test
+  public void nextWithLazyEffectsHasEffects() throws Exception {
+    Producer<String> lazyEffect = () -> "lazy";
+    Next<String, String> next = Next.next("m", effects("eager"), Effects.lazyEffects(lazyEffect));
+
+    assertTrue(next.hasEffects());
+    assertEquals(setOf("eager"), next.effects());
+    assertEquals(Collections.singleton(lazyEffect), next.lazyEffects());
+  }
+
+  @Test
+  public void dispatchWithOnlyLazyEffectsHasEffectsButNoEagerEffects() throws Exception {
+    Next<String, String> next =
+        dispatch(Collections.<String>emptySet(), Effects.<String>lazyEffects(() -> "lazy"));
+
+    assertFalse(next.hasModel());
+    assertTrue(next.hasEffects());
+    assertTrue(next.effects().isEmpty());
+    assertEquals(1, next.lazyEffects().size());
+  }
+
+  @Test
+  public void lazyEffectsAreIncludedInEquality() throws Exception {
+    Producer<String> lazyEffect = () -> "lazy";
+
+    new EqualsTester()
+        .addEqualityGroup(
+            Next.next("hi", effects("a"), Collections.singleton(lazyEffect)),
+            Next.next("hi", effects("a"), Collections.singleton(lazyEffect)))
+        .addEqualityGroup(
+            Next.next("hi", effects("a")),
+            Next.next("hi", effects("a"), Collections.<Producer<String>>emptySet()))
+        .addEqualityGroup(
+            dispatch(effects("a"), Collections.singleton(lazyEffect)),
+            dispatch(effects("a"), Collections.singleton(lazyEffect)))
+        .testEquals();
+  }
+
   @Test
   public void andEffectsFactoriesAreEquivalent() throws Exception {
     Next<?, String> a = Next.next("m", effects("f1", "f2", "f3"));
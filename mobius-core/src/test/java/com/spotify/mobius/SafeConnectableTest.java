@@ -29,11 +29,15 @@ import com.spotify.mobius.test.RecordingConsumer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,19 +48,22 @@ public class SafeConnectableTest {
   private Connection<Integer> safeConsumer;
   private Semaphore blockEffectPerformer;
   private Semaphore signalEffectHasBeenPerformed;
+  private Semaphore effectPerformerBlocked;
   private BlockableConnection blockableConnection;
 
   private SafeConnectable<Integer, String> underTest;
 
   private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+  private final ExecutorService disposeExecutor = Executors.newSingleThreadExecutor();
 
   @Before
   public void setUp() throws Exception {
     blockEffectPerformer = new Semaphore(0);
     signalEffectHasBeenPerformed = new Semaphore(0);
 
+    effectPerformerBlocked = new Semaphore(0);
+
     recordingConsumer = new RecordingConsumer<>();
-    blockableConnection = new BlockableConnection(recordingConsumer);
 
     underTest =
         new SafeConnectable<>(
@@ -64,6 +71,7 @@ public class SafeConnectableTest {
               @Nonnull
               @Override
               public Connection<Integer> connect(Consumer<String> output) {
+                blockableConnection = new BlockableConnection(output);
                 return blockableConnection;
               }
             });
@@ -128,20 +136,146 @@ public class SafeConnectableTest {
               }
             });
 
-    // and the sink is disposed
-    safeConsumer.dispose();
+    // and the sink is disposed while the effect is being performed
+    assertThat(effectPerformerBlocked.tryAcquire(10, TimeUnit.SECONDS), is(true));
+    Future<?> disposeFuture = disposeExecutor.submit(() -> safeConsumer.dispose());
+
+    // then dispose waits for the effect to be performed
+    Thread.sleep(50);
+    assertThat(disposeFuture.isDone(), is(false));
+    assertThat(blockableConnection.disposed, is(false));
 
-    // before the effect gets performed
     // (needs permitting the blocked effect performer to proceed)
     blockEffectPerformer.release();
 
-    // (get the result of the future to ensure the effect has been performed, also propagating
+    // (get the result of the futures to ensure the effect has been performed, also propagating
     // exceptions if any - result should happen quickly, but it's good to have a timeout in case
     // something is messed up)
     effectPerformedFuture.get(10, TimeUnit.SECONDS);
+    disposeFuture.get(10, TimeUnit.SECONDS);
 
-    // then no events are emitted
+    // and no events are emitted, since the event arrived after dispose was called
     recordingConsumer.assertValues();
+    assertThat(blockableConnection.disposed, is(true));
+  }
+
+  @Test
+  public void valuesDoNotWaitForPendingDisposal() throws Exception {
+    safeConsumer = underTest.connect(recordingConsumer);
+    ExecutorService publisher = Executors.newSingleThreadExecutor();
+
+    try {
+      // given an effect is being performed
+      blockableConnection.block = true;
+      Future<?> effectPerformedFuture = executorService.submit(() -> safeConsumer.accept(1));
+      assertThat(effectPerformerBlocked.tryAcquire(10, TimeUnit.SECONDS), is(true));
+
+      // and dispose is waiting for it
+      Future<?> disposeFuture = disposeExecutor.submit(() -> safeConsumer.dispose());
+      Thread.sleep(50);
+      assertThat(disposeFuture.isDone(), is(false));
+
+      // then another value is dropped without waiting for the disposal to complete
+      publisher.submit(() -> safeConsumer.accept(2)).get(1, TimeUnit.SECONDS);
+
+      blockEffectPerformer.release();
+      effectPerformedFuture.get(10, TimeUnit.SECONDS);
+      disposeFuture.get(10, TimeUnit.SECONDS);
+
+      blockableConnection.assertEffects(1);
+      assertThat(blockableConnection.disposed, is(true));
+    } finally {
+      blockEffectPerformer.release();
+      publisher.shutdown();
+    }
+  }
+
+  @Test
+  public void supportsDisposalFromWithinOutput() throws Exception {
+    AtomicReference<Connection<Integer>> connection = new AtomicReference<>();
+    connection.set(
+        underTest.connect(
+            value -> {
+              recordingConsumer.accept(value);
+              connection.get().dispose();
+            }));
+
+    connection.get().accept(1);
+    connection.get().accept(2);
+
+    recordingConsumer.assertValues("Value is: 1");
+    assertThat(blockableConnection.disposed, is(true));
+    blockableConnection.assertEffects(1);
+  }
+
+  @Test
+  public void nothingArrivesAfterDisposeHasReturned() throws Exception {
+    final int threads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      for (int round = 0; round < 100; round++) {
+        AtomicBoolean disposeReturned = new AtomicBoolean();
+        AtomicInteger lateArrivals = new AtomicInteger();
+        AtomicReference<Consumer<Integer>> output = new AtomicReference<>();
+
+        Connection<Integer> connection =
+            new SafeConnectable<Integer, Integer>(
+                    eventConsumer -> {
+                      output.set(eventConsumer);
+                      return new Connection<Integer>() {
+                        @Override
+                        public void accept(Integer value) {
+                          // widen the window between the disposed check and the delivery
+                          Thread.yield();
+                          if (disposeReturned.get()) {
+                            lateArrivals.incrementAndGet();
+                          }
+                        }
+
+                        @Override
+                        public void dispose() {
+                          if (disposeReturned.get()) {
+                            lateArrivals.incrementAndGet();
+                          }
+                        }
+                      };
+                    })
+                .connect(
+                    value -> {
+                      Thread.yield();
+                      if (disposeReturned.get()) {
+                        lateArrivals.incrementAndGet();
+                      }
+                    });
+
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    started.countDown();
+                    for (int j = 0; j < 2000; j++) {
+                      connection.accept(j);
+                      output.get().accept(j);
+                    }
+                  }));
+        }
+
+        started.await();
+        connection.dispose();
+        disposeReturned.set(true);
+
+        for (Future<?> future : futures) {
+          future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(lateArrivals.get(), is(0));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
   }
 
   @Test
@@ -158,10 +292,75 @@ public class SafeConnectableTest {
     recordingConsumer.assertValues();
   }
 
+  @Test
+  public void neverForwardsValuesReceivedAfterDisposeHasReturned() throws Exception {
+    final int threads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      for (int round = 0; round < 100; round++) {
+        AtomicBoolean disposeReturned = new AtomicBoolean();
+        AtomicInteger lateEffects = new AtomicInteger();
+        AtomicInteger lateEvents = new AtomicInteger();
+        AtomicReference<Consumer<Boolean>> output = new AtomicReference<>();
+
+        Connection<Boolean> connection =
+            new SafeConnectable<Boolean, Boolean>(
+                    eventConsumer -> {
+                      output.set(eventConsumer);
+                      return new Connection<Boolean>() {
+                        @Override
+                        public void accept(Boolean late) {
+                          if (late) {
+                            lateEffects.incrementAndGet();
+                          }
+                        }
+
+                        @Override
+                        public void dispose() {}
+                      };
+                    })
+                .connect(
+                    late -> {
+                      if (late) {
+                        lateEvents.incrementAndGet();
+                      }
+                    });
+
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    started.countDown();
+                    for (int j = 0; j < 2000; j++) {
+                      connection.accept(disposeReturned.get());
+                      output.get().accept(disposeReturned.get());
+                    }
+                  }));
+        }
+
+        started.await();
+        connection.dispose();
+        disposeReturned.set(true);
+
+        for (Future<?> future : futures) {
+          future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(lateEffects.get(), is(0));
+        assertThat(lateEvents.get(), is(0));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private class BlockableConnection implements Connection<Integer> {
 
     private final List<Integer> recordedEffects = new ArrayList<>();
-    private boolean disposed;
+    private volatile boolean disposed;
     private final Consumer<String> eventConsumer;
     private volatile boolean block = false;
 
@@ -176,6 +375,7 @@ public class SafeConnectableTest {
     @Override
     public void accept(final Integer effect) {
       if (block) {
+        effectPerformerBlocked.release();
         try {
           if (!blockEffectPerformer.tryAcquire(5, TimeUnit.SECONDS)) {
             throw new IllegalStateException("timed out waiting for effect performer unblock");
@@ -0,0 +1,156 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SynchronousLoopTest {
+
+  private static final Update<String, Integer, Object> UPDATE =
+      new Update<String, Integer, Object>() {
+        @Nonnull
+        @Override
+        public Next<String, Object> update(String model, Integer event) {
+          if (event < 0) {
+            throw new IllegalArgumentException("negative: " + event);
+          }
+
+          if (event % 2 == 0) {
+            return Next.next(model + "-" + event, effects((long) event / 2, "saw " + event));
+          }
+
+          return Next.next(model + "-" + event, effects("saw " + event));
+        }
+      };
+
+  private AtomicReference<Consumer<Integer>> handlerOutput;
+  private AtomicBoolean handlerDisposed;
+  private Connectable<Object, Integer> halvingHandler;
+
+  @Before
+  public void setUp() throws Exception {
+    handlerOutput = new AtomicReference<>();
+    handlerDisposed = new AtomicBoolean();
+    halvingHandler =
+        new Connectable<Object, Integer>() {
+          @Nonnull
+          @Override
+          public Connection<Object> connect(Consumer<Integer> output) {
+            handlerOutput.set(output);
+            return new Connection<Object>() {
+              @Override
+              public void accept(Object effect) {
+                output.accept(((Long) effect).intValue());
+              }
+
+              @Override
+              public void dispose() {
+                handlerDisposed.set(true);
+              }
+            };
+          }
+        };
+  }
+
+  @Test
+  public void returnsAllEffectsWhenNoneAreHandled() throws Exception {
+    SynchronousLoop<String, Integer, Object> loop = Mobius.synchronousLoop(UPDATE).build();
+
+    SynchronousLoop.Result<String, Object> result = loop.run("start", 1, 3);
+
+    assertThat(result.model()).isEqualTo("start-1-3");
+    assertThat(result.effects()).containsExactly("saw 1", "saw 3");
+  }
+
+  @Test
+  public void processesEventsFromHandledEffectsUntilQuiescent() throws Exception {
+    SynchronousLoop<String, Integer, Object> loop =
+        Mobius.synchronousLoop(UPDATE).effectHandler(halvingHandler, Long.class).build();
+
+    SynchronousLoop.Result<String, Object> result = loop.run("start", 4);
+
+    assertThat(result.model()).isEqualTo("start-4-2-1");
+    assertThat(result.effects()).containsExactlyInAnyOrder("saw 4", "saw 2", "saw 1");
+  }
+
+  @Test
+  public void appliesInitBeforeEvents() throws Exception {
+    SynchronousLoop<String, Integer, Object> loop =
+        Mobius.synchronousLoop(UPDATE)
+            .init(model -> First.first(model + "-init", effects(1L)))
+            .effectHandler(halvingHandler, Long.class)
+            .build();
+
+    SynchronousLoop.Result<String, Object> result = loop.run("start", 3);
+
+    assertThat(result.model()).isEqualTo("start-init-1-3");
+    assertThat(result.effects()).containsExactly("saw 1", "saw 3");
+  }
+
+  @Test
+  public void canBeReusedForConsecutiveRuns() throws Exception {
+    SynchronousLoop<String, Integer, Object> loop =
+        Mobius.synchronousLoop(UPDATE).effectHandler(halvingHandler, Long.class).build();
+
+    assertThat(loop.run("a", 2).model()).isEqualTo("a-2-1");
+    assertThat(loop.run("b", Collections.singletonList(3)).model()).isEqualTo("b-3");
+  }
+
+  @Test
+  public void canBeReusedAfterUpdateThrows() throws Exception {
+    SynchronousLoop<String, Integer, Object> loop = Mobius.synchronousLoop(UPDATE).build();
+
+    assertThatThrownBy(() -> loop.run("a", 1, -1, 3)).isInstanceOf(IllegalArgumentException.class);
+
+    assertThat(loop.run("b", 5).model()).isEqualTo("b-5");
+  }
+
+  @Test
+  public void rejectsEventsEmittedOutsideOfRun() throws Exception {
+    SynchronousLoop<String, Integer, Object> loop =
+        Mobius.synchronousLoop(UPDATE).effectHandler(halvingHandler, Long.class).build();
+    loop.run("start", 2);
+
+    assertThatThrownBy(() -> handlerOutput.get().accept(7))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(loop.run("start").model()).isEqualTo("start");
+  }
+
+  @Test
+  public void disposeDisconnectsEffectHandlerAndPreventsFurtherRuns() throws Exception {
+    SynchronousLoop<String, Integer, Object> loop =
+        Mobius.synchronousLoop(UPDATE).effectHandler(halvingHandler, Long.class).build();
+
+    loop.dispose();
+
+    assertThat(handlerDisposed.get()).isTrue();
+    assertThatThrownBy(() -> loop.run("start", 1)).isInstanceOf(IllegalStateException.class);
+  }
+}
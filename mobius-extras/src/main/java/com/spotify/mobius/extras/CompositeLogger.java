@@ -23,6 +23,7 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.spotify.mobius.First;
 import com.spotify.mobius.MobiusLoop.Logger;
+import com.spotify.mobius.MobiusLoop.ModelSuppressionLogger;
 import com.spotify.mobius.Next;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -38,7 +39,7 @@ import java.util.List;
  * @param <E> The loop's Event type
  * @param <F> The loop's Effect type
  */
-public class CompositeLogger<M, E, F> implements Logger<M, E, F> {
+public class CompositeLogger<M, E, F> implements Logger<M, E, F>, ModelSuppressionLogger<M> {
 
   @SafeVarargs
   public static <M, E, F> Logger<M, E, F> from(Logger<M, E, F> logger, Logger<M, E, F>... loggers) {
@@ -100,4 +101,15 @@ public class CompositeLogger<M, E, F> implements Logger<M, E, F> {
       logger.exceptionDuringUpdate(model, event, exception);
     }
   }
+
+  @Override
+  public void modelSuppressed(M model, long suppressedCount) {
+    for (Logger<M, E, F> logger : loggersReversed) {
+      if (logger instanceof ModelSuppressionLogger) {
+        @SuppressWarnings("unchecked")
+        ModelSuppressionLogger<M> suppressionLogger = (ModelSuppressionLogger<M>) logger;
+        suppressionLogger.modelSuppressed(model, suppressedCount);
+      }
+    }
+  }
 }
@@ -0,0 +1,188 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that turns models into view state on a background {@link WorkRunner}, and
+ * renders it on a render runner, typically the main thread. Both steps are coalesced: only the
+ * latest model is mapped, and only the latest view state is rendered, with at most one render
+ * pending at any time. A fast stream of model changes therefore costs one render per frame rather
+ * than one per model.
+ *
+ * <p>Since the pipeline takes care of getting view state to the render thread, it should be used
+ * with a controller that delivers models right away:
+ *
+ * <pre>
+ * controller = Mobius.controller(loopFactory, defaultModel, WorkRunners.immediate());
+ * controller.connect(
+ *     RenderPipeline.create(ViewState::fromModel, view, backgroundRunner, mainThreadRunner));
+ * </pre>
+ *
+ * <p>If no mapping is needed, use a controller created with {@link
+ * com.spotify.mobius.Mobius#coalescingController} instead.
+ *
+ * <p>Views must not depend on seeing every intermediate view state. Nothing is rendered after the
+ * connection has been disposed. The runners are not disposed by the pipeline.
+ *
+ * @param <M> the model type
+ * @param <V> the view state type
+ * @param <E> the event type
+ */
+public final class RenderPipeline<M, V, E> implements Connectable<M, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RenderPipeline.class);
+
+  private final Function<M, V> viewStateMapper;
+  private final Connectable<V, E> view;
+  private final WorkRunner mappingRunner;
+  private final WorkRunner renderRunner;
+
+  /**
+   * Create a render pipeline.
+   *
+   * @param viewStateMapper the function turning models into view state; it is called on the mapping
+   *     runner, never concurrently with itself
+   * @param view the view rendering view state
+   * @param mappingRunner the runner to map models on
+   * @param renderRunner the runner to render view state on, typically the main thread
+   * @param <M> the model type
+   * @param <V> the view state type
+   * @param <E> the event type
+   */
+  public static <M, V, E> Connectable<M, E> create(
+      Function<M, V> viewStateMapper,
+      Connectable<V, E> view,
+      WorkRunner mappingRunner,
+      WorkRunner renderRunner) {
+    return new RenderPipeline<>(
+        checkNotNull(viewStateMapper),
+        checkNotNull(view),
+        checkNotNull(mappingRunner),
+        checkNotNull(renderRunner));
+  }
+
+  private RenderPipeline(
+      Function<M, V> viewStateMapper,
+      Connectable<V, E> view,
+      WorkRunner mappingRunner,
+      WorkRunner renderRunner) {
+    this.viewStateMapper = viewStateMapper;
+    this.view = view;
+    this.mappingRunner = mappingRunner;
+    this.renderRunner = renderRunner;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<M> connect(Consumer<E> output) {
+    return new PipelineConnection(view.connect(checkNotNull(output)));
+  }
+
+  private class PipelineConnection implements Connection<M> {
+    private final Connection<V> viewConnection;
+
+    private final AtomicReference<M> pendingModel = new AtomicReference<>();
+    private final AtomicReference<V> pendingViewState = new AtomicReference<>();
+
+    // the number of times mapping has been requested since the mapping task last checked for work;
+    // a mapping task is running or posted exactly when it is non-zero, which ensures that models
+    // are mapped one at a time and in order.
+    private final AtomicInteger mappingRequests = new AtomicInteger();
+
+    private volatile boolean disposed;
+
+    private final Runnable mapLatest =
+        new Runnable() {
+          @Override
+          public void run() {
+            int requests = 1;
+            do {
+              M model = pendingModel.getAndSet(null);
+              if (model != null && !disposed) {
+                map(model);
+              }
+              requests = mappingRequests.addAndGet(-requests);
+            } while (requests != 0);
+          }
+        };
+
+    private final Runnable renderLatest =
+        new Runnable() {
+          @Override
+          public void run() {
+            V viewState = pendingViewState.getAndSet(null);
+            if (viewState != null && !disposed) {
+              viewConnection.accept(viewState);
+            }
+          }
+        };
+
+    private PipelineConnection(Connection<V> viewConnection) {
+      this.viewConnection = viewConnection;
+    }
+
+    @Override
+    public void accept(M model) {
+      if (disposed) {
+        return;
+      }
+
+      pendingModel.set(checkNotNull(model));
+      if (mappingRequests.getAndIncrement() == 0) {
+        mappingRunner.post(mapLatest);
+      }
+    }
+
+    @Override
+    public void dispose() {
+      disposed = true;
+      viewConnection.dispose();
+    }
+
+    private void map(M model) {
+      V viewState;
+      try {
+        viewState = checkNotNull(viewStateMapper.apply(model));
+      } catch (Throwable t) {
+        // exceptions would otherwise be silently swallowed by the runner, and would stop later
+        // models from being rendered
+        LOGGER.error("error mapping model to view state: {}", model, t);
+        return;
+      }
+
+      if (pendingViewState.getAndSet(viewState) == null) {
+        renderRunner.post(renderLatest);
+      }
+    }
+  }
+}
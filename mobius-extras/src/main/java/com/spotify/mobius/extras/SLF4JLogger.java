@@ -22,10 +22,13 @@ package com.spotify.mobius.extras;
 import com.spotify.mobius.First;
 import com.spotify.mobius.MobiusLoop;
 import com.spotify.mobius.Next;
+import com.spotify.mobius.functions.Producer;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SLF4JLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
+public class SLF4JLogger<M, E, F>
+    implements MobiusLoop.Logger<M, E, F>, MobiusLoop.ModelSuppressionLogger<M> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SLF4JLogger.class);
   private static final String LOGGING_PREFIX = "Mobius ({}) - ";
@@ -53,6 +56,8 @@ public class SLF4JLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
     for (F effect : result.effects()) {
       LOGGER.debug(LOGGING_PREFIX + "Effect dispatched: {}", loggingTag, effect);
     }
+
+    logLazyEffects(result.lazyEffects());
   }
 
   @Override
@@ -74,6 +79,8 @@ public class SLF4JLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
     for (F effect : result.effects()) {
       LOGGER.debug(LOGGING_PREFIX + "Effect dispatched: {}", loggingTag, effect);
     }
+
+    logLazyEffects(result.lazyEffects());
   }
 
   @Override
@@ -81,4 +88,21 @@ public class SLF4JLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
     LOGGER.error(
         "FATAL ERROR: exception updating model '{}' with event '{}'", model, event, exception);
   }
+
+  // lazy effects are logged as-is rather than produced, since producing them here would run them
+  // on the loop thread ahead of the effect runner.
+  private void logLazyEffects(Set<Producer<? extends F>> lazyEffects) {
+    for (Producer<? extends F> lazyEffect : lazyEffects) {
+      LOGGER.debug(LOGGING_PREFIX + "Lazy effect dispatched: {}", loggingTag, lazyEffect);
+    }
+  }
+
+  @Override
+  public void modelSuppressed(M model, long suppressedCount) {
+    LOGGER.debug(
+        LOGGING_PREFIX + "Unchanged model not published ({} so far): {}",
+        loggingTag,
+        suppressedCount,
+        model);
+  }
 }
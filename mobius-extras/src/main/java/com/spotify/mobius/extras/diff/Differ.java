@@ -0,0 +1,42 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import javax.annotation.Nullable;
+
+/**
+ * Computes a compact description of what changed between two versions of a part of a model.
+ *
+ * @param <S> the type of the part of the model being compared, for instance a list
+ * @param <D> the type of the computed differences
+ */
+public interface Differ<S, D> {
+
+  /**
+   * Compute the differences between two versions of a value.
+   *
+   * @param previous the previous version, or null if there isn't one, in which case everything in
+   *     the current version should be reported as new
+   * @param current the current version
+   * @return the differences, or null if there are none
+   */
+  @Nullable
+  D diff(@Nullable S previous, S current);
+}
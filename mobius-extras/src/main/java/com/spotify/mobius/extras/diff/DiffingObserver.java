@@ -0,0 +1,186 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A model observer that, rather than passing on each model, passes on what changed in a part of it
+ * since the previous model. This lets renderers and other consumers of large collections in a model
+ * do work proportional to the size of the change instead of the size of the collection.
+ *
+ * <p>The part of the model to diff is picked by a lens function, and is diffed against the previous
+ * part by a {@link Differ}, such as a {@link ListDiffer} or {@link MapDiffer}, on a background
+ * runner. Diffing is coalesced: if models arrive faster than they can be diffed, intermediate
+ * models are skipped, and the next diff covers all changes since the last one. Diffs are then
+ * posted to the consumer on a render runner, in order and without being dropped, since each diff
+ * builds on the previous one. The first diff is computed against nothing, so it contains the whole
+ * part.
+ *
+ * <pre>
+ * loop.observe(
+ *     DiffingObserver.create(
+ *         Model::items, ListDiffer.create(Item::id), adapter::apply, backgroundRunner, mainRunner));
+ * </pre>
+ *
+ * <p>Diffs are only computed when the part of the model is a different instance than the previous
+ * one, so lenses should return parts of the model rather than copying them. No diffs are posted
+ * after the observer has been disposed. The runners are not disposed by the observer.
+ *
+ * @param <M> the model type
+ * @param <S> the type of the diffed part of the model
+ * @param <D> the type of the diffs
+ */
+public final class DiffingObserver<M, S, D> implements Consumer<M>, Disposable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiffingObserver.class);
+
+  private final Function<M, S> lens;
+  private final Differ<S, D> differ;
+  private final Consumer<D> consumer;
+  private final WorkRunner diffRunner;
+  private final WorkRunner renderRunner;
+
+  private final AtomicReference<M> pendingModel = new AtomicReference<>();
+
+  // the number of times diffing has been requested since the diffing task last checked for work;
+  // a diffing task is running or posted exactly when it is non-zero, which ensures that models are
+  // diffed one at a time and in order.
+  private final AtomicInteger diffRequests = new AtomicInteger();
+
+  // concurrency note: only accessed by the diffing task, which never runs concurrently with itself
+  @Nullable private S previous;
+
+  private volatile boolean disposed;
+
+  private final Runnable diffLatest =
+      new Runnable() {
+        @Override
+        public void run() {
+          int requests = 1;
+          do {
+            M model = pendingModel.getAndSet(null);
+            if (model != null && !disposed) {
+              diff(model);
+            }
+            requests = diffRequests.addAndGet(-requests);
+          } while (requests != 0);
+        }
+      };
+
+  private DiffingObserver(
+      Function<M, S> lens,
+      Differ<S, D> differ,
+      Consumer<D> consumer,
+      WorkRunner diffRunner,
+      WorkRunner renderRunner) {
+    this.lens = lens;
+    this.differ = differ;
+    this.consumer = consumer;
+    this.diffRunner = diffRunner;
+    this.renderRunner = renderRunner;
+  }
+
+  /**
+   * Create a diffing observer.
+   *
+   * @param lens the function picking the part of the model to diff; it is called on the diff runner
+   * @param differ the differ to compute diffs with; it is called on the diff runner, never
+   *     concurrently with itself
+   * @param consumer the consumer of diffs, called on the render runner
+   * @param diffRunner the runner to diff on
+   * @param renderRunner the runner to pass diffs to the consumer on, typically the main thread
+   * @param <M> the model type
+   * @param <S> the type of the diffed part of the model
+   * @param <D> the type of the diffs
+   */
+  public static <M, S, D> DiffingObserver<M, S, D> create(
+      Function<M, S> lens,
+      Differ<S, D> differ,
+      Consumer<D> consumer,
+      WorkRunner diffRunner,
+      WorkRunner renderRunner) {
+    return new DiffingObserver<>(
+        checkNotNull(lens),
+        checkNotNull(differ),
+        checkNotNull(consumer),
+        checkNotNull(diffRunner),
+        checkNotNull(renderRunner));
+  }
+
+  @Override
+  public void accept(M model) {
+    if (disposed) {
+      return;
+    }
+
+    pendingModel.set(checkNotNull(model));
+    if (diffRequests.getAndIncrement() == 0) {
+      diffRunner.post(diffLatest);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+  }
+
+  private void diff(M model) {
+    final D diff;
+    try {
+      S current = checkNotNull(lens.apply(model));
+      if (current == previous) {
+        return;
+      }
+
+      diff = differ.diff(previous, current);
+      previous = current;
+    } catch (Throwable t) {
+      // exceptions would otherwise be silently swallowed by the runner, and would stop later
+      // models from being diffed
+      LOGGER.error("error diffing model: {}", model, t);
+      return;
+    }
+
+    if (diff == null) {
+      return;
+    }
+
+    renderRunner.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (!disposed) {
+              consumer.accept(diff);
+            }
+          }
+        });
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * A single change between two versions of a list, as part of a {@link ListDiff}. Indices refer to
+ * positions in the previous and current lists, not to positions in a list that earlier changes have
+ * been applied to.
+ *
+ * @param <T> the type of items in the list
+ */
+@AutoValue
+public abstract class ListChange<T> {
+
+  public enum Type {
+    /** An item that wasn't in the previous list was added. */
+    INSERT,
+    /** An item was removed from the list. */
+    REMOVE,
+    /** An item was moved to a different position relative to the items around it. */
+    MOVE,
+    /** An item stayed in place, but is no longer equal to what it was. */
+    CHANGE
+  }
+
+  public abstract Type type();
+
+  /** @return the index of the item in the previous list, or -1 for inserts */
+  public abstract int previousIndex();
+
+  /** @return the index of the item in the current list, or -1 for removes */
+  public abstract int currentIndex();
+
+  /** @return the removed item for removes, and the item in the current list otherwise */
+  public abstract T item();
+
+  static <T> ListChange<T> insert(int currentIndex, T item) {
+    return new AutoValue_ListChange<>(Type.INSERT, -1, currentIndex, item);
+  }
+
+  static <T> ListChange<T> remove(int previousIndex, T item) {
+    return new AutoValue_ListChange<>(Type.REMOVE, previousIndex, -1, item);
+  }
+
+  static <T> ListChange<T> move(int previousIndex, int currentIndex, T item) {
+    return new AutoValue_ListChange<>(Type.MOVE, previousIndex, currentIndex, item);
+  }
+
+  static <T> ListChange<T> change(int previousIndex, int currentIndex, T item) {
+    return new AutoValue_ListChange<>(Type.CHANGE, previousIndex, currentIndex, item);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The changes between two versions of a list, as computed by a {@link ListDiffer}.
+ *
+ * <p>Changes are ordered so that they can be applied one by one to a copy of the previous list:
+ * first all removes in descending order of previous index, then all inserts and moves in ascending
+ * order of current index, and last all in-place changes. Since a move both removes and inserts an
+ * item, applying it takes two steps; {@link #applyTo(List)} shows how.
+ *
+ * @param <T> the type of items in the list
+ */
+@AutoValue
+public abstract class ListDiff<T> {
+
+  public abstract List<ListChange<T>> changes();
+
+  public boolean isEmpty() {
+    return changes().isEmpty();
+  }
+
+  /**
+   * Apply the changes to a list.
+   *
+   * @param previous the list that the diff was computed from
+   * @return a new list equal to the one the diff was computed to
+   */
+  public List<T> applyTo(List<T> previous) {
+    List<T> result = new ArrayList<>(checkNotNull(previous));
+
+    int[] removedIndices = new int[changes().size()];
+    int removedCount = 0;
+    for (ListChange<T> change : changes()) {
+      if (change.type() == ListChange.Type.REMOVE || change.type() == ListChange.Type.MOVE) {
+        removedIndices[removedCount++] = change.previousIndex();
+      }
+    }
+
+    Arrays.sort(removedIndices, 0, removedCount);
+    for (int i = removedCount - 1; i >= 0; i--) {
+      result.remove(removedIndices[i]);
+    }
+
+    for (ListChange<T> change : changes()) {
+      if (change.type() == ListChange.Type.INSERT || change.type() == ListChange.Type.MOVE) {
+        result.add(change.currentIndex(), change.item());
+      }
+    }
+
+    for (ListChange<T> change : changes()) {
+      if (change.type() == ListChange.Type.CHANGE) {
+        result.set(change.currentIndex(), change.item());
+      }
+    }
+
+    return result;
+  }
+
+  static <T> ListDiff<T> create(List<ListChange<T>> changes) {
+    return new AutoValue_ListDiff<>(Collections.unmodifiableList(changes));
+  }
+}
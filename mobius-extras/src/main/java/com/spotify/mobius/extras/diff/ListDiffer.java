@@ -0,0 +1,263 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Differ} for lists of items that can be identified by a key, such as an id.
+ *
+ * <p>Items are matched by key using Myers' O((N+M)D) difference algorithm, in its linear space
+ * variant, where N and M are the lengths of the lists and D is the number of inserted and removed
+ * items. Lists that differ by a few edits are therefore diffed in close to linear time. Items that
+ * are removed and inserted with the same key are reported as moves, and items whose keys match but
+ * that are no longer equal are reported as changes.
+ *
+ * <p>Keys should be unique within a list; if they aren't, duplicates are still diffed correctly,
+ * but which of them are reported as moved is unspecified.
+ *
+ * @param <T> the type of items in the lists
+ */
+public final class ListDiffer<T> implements Differ<List<T>, ListDiff<T>> {
+
+  private final Function<? super T, ?> keyExtractor;
+
+  private ListDiffer(Function<? super T, ?> keyExtractor) {
+    this.keyExtractor = keyExtractor;
+  }
+
+  /**
+   * Create a differ for lists whose items are identified by keys.
+   *
+   * @param keyExtractor a function returning the non-null key of an item; keys are compared using
+   *     {@link Object#equals(Object)}
+   * @param <T> the type of items in the lists
+   */
+  public static <T> ListDiffer<T> create(Function<? super T, ?> keyExtractor) {
+    return new ListDiffer<>(checkNotNull(keyExtractor));
+  }
+
+  @Nullable
+  @Override
+  public ListDiff<T> diff(@Nullable List<T> previous, List<T> current) {
+    if (previous == null) {
+      previous = Collections.emptyList();
+    }
+
+    Object[] previousKeys = keys(previous);
+    Object[] currentKeys = keys(checkNotNull(current));
+
+    int[] previousToCurrent = new int[previousKeys.length];
+    Arrays.fill(previousToCurrent, -1);
+    match(
+        previousKeys,
+        0,
+        previousKeys.length,
+        currentKeys,
+        0,
+        currentKeys.length,
+        previousToCurrent);
+
+    boolean[] kept = new boolean[currentKeys.length];
+    for (int index : previousToCurrent) {
+      if (index >= 0) {
+        kept[index] = true;
+      }
+    }
+
+    Map<Object, ArrayDeque<Integer>> removedByKey = new HashMap<>();
+    for (int i = 0; i < previousKeys.length; i++) {
+      if (previousToCurrent[i] < 0) {
+        ArrayDeque<Integer> indices = removedByKey.get(previousKeys[i]);
+        if (indices == null) {
+          indices = new ArrayDeque<>();
+          removedByKey.put(previousKeys[i], indices);
+        }
+        indices.add(i);
+      }
+    }
+
+    // inserts that match a removed item by key are moves; the items they were moved from are then
+    // no longer removed.
+    boolean[] moved = new boolean[previousKeys.length];
+    List<ListChange<T>> insertsAndMoves = new ArrayList<>();
+    for (int j = 0; j < currentKeys.length; j++) {
+      if (kept[j]) {
+        continue;
+      }
+
+      ArrayDeque<Integer> indices = removedByKey.get(currentKeys[j]);
+      if (indices != null && !indices.isEmpty()) {
+        int i = indices.poll();
+        moved[i] = true;
+        insertsAndMoves.add(ListChange.move(i, j, current.get(j)));
+      } else {
+        insertsAndMoves.add(ListChange.insert(j, current.get(j)));
+      }
+    }
+
+    List<ListChange<T>> changes = new ArrayList<>();
+    for (int i = previousKeys.length - 1; i >= 0; i--) {
+      if (previousToCurrent[i] < 0 && !moved[i]) {
+        changes.add(ListChange.remove(i, previous.get(i)));
+      }
+    }
+
+    changes.addAll(insertsAndMoves);
+
+    for (int i = 0; i < previousKeys.length; i++) {
+      int j = previousToCurrent[i];
+      if (j >= 0 && !equal(previous.get(i), current.get(j))) {
+        changes.add(ListChange.change(i, j, current.get(j)));
+      }
+    }
+
+    return changes.isEmpty() ? null : ListDiff.create(changes);
+  }
+
+  private Object[] keys(List<T> items) {
+    Object[] keys = new Object[items.size()];
+    int i = 0;
+    for (T item : items) {
+      keys[i++] = checkNotNull(keyExtractor.apply(checkNotNull(item)));
+    }
+    return keys;
+  }
+
+  /**
+   * Find a longest common subsequence of a[aLo, aHi) and b[bLo, bHi), and record it by setting
+   * aToB[i] = j for each pair of matched indices.
+   *
+   * <p>This is the divide and conquer variant of Myers' algorithm: a 'middle snake' - a run of
+   * matches halfway along an optimal edit path - is found by searching from both ends of the
+   * sequences at once, and the sequences before and after it are matched recursively. Each level of
+   * recursion halves the number of edits, so it is at most logarithmically deep.
+   */
+  private static void match(
+      Object[] a, int aLo, int aHi, Object[] b, int bLo, int bHi, int[] aToB) {
+
+    // matching common prefixes and suffixes directly is cheap, and leaves at least two edits when
+    // both ranges are non-empty, which the middle snake search relies on to make progress.
+    while (aLo < aHi && bLo < bHi && a[aLo].equals(b[bLo])) {
+      aToB[aLo++] = bLo++;
+    }
+    while (aLo < aHi && bLo < bHi && a[aHi - 1].equals(b[bHi - 1])) {
+      aToB[--aHi] = --bHi;
+    }
+    if (aLo == aHi || bLo == bHi) {
+      return;
+    }
+
+    int n = aHi - aLo;
+    int m = bHi - bLo;
+    int total = n + m;
+    int delta = n - m;
+    int size = 2 * Math.min(n, m) + 2;
+
+    // furthest reaching x for each diagonal k = x - y, searching forwards and backwards; both are
+    // indexed modulo size, since only diagonals of one parity within a bounded window are live.
+    int[] forward = new int[size];
+    int[] backward = new int[size];
+
+    for (int d = 0; d <= total / 2 + total % 2; d++) {
+      for (int direction = 0; direction < 2; direction++) {
+        boolean isForward = direction == 0;
+        int[] current = isForward ? forward : backward;
+        int[] other = isForward ? backward : forward;
+
+        int kMin = -(d - 2 * Math.max(0, d - m));
+        int kMax = d - 2 * Math.max(0, d - n);
+        for (int k = kMin; k <= kMax; k += 2) {
+          int x;
+          if (k == -d || (k != d && current[mod(k - 1, size)] < current[mod(k + 1, size)])) {
+            x = current[mod(k + 1, size)];
+          } else {
+            x = current[mod(k - 1, size)] + 1;
+          }
+          int y = x - k;
+          int snakeStartX = x;
+          int snakeStartY = y;
+
+          while (x < n
+              && y < m
+              && keyAt(a, aLo, n, x, isForward).equals(keyAt(b, bLo, m, y, isForward))) {
+            x++;
+            y++;
+          }
+          current[mod(k, size)] = x;
+
+          int otherK = delta - k;
+          boolean overlapPossible = isForward ? total % 2 == 1 : total % 2 == 0;
+          int reach = isForward ? d - 1 : d;
+          if (overlapPossible
+              && otherK >= -reach
+              && otherK <= reach
+              && x + other[mod(otherK, size)] >= n) {
+
+            int fromX, fromY, toX, toY;
+            if (isForward) {
+              fromX = snakeStartX;
+              fromY = snakeStartY;
+              toX = x;
+              toY = y;
+            } else {
+              fromX = n - x;
+              fromY = m - y;
+              toX = n - snakeStartX;
+              toY = m - snakeStartY;
+            }
+
+            for (int i = 0; i < toX - fromX; i++) {
+              aToB[aLo + fromX + i] = bLo + fromY + i;
+            }
+            match(a, aLo, aLo + fromX, b, bLo, bLo + fromY, aToB);
+            match(a, aLo + toX, aHi, b, bLo + toY, bHi, aToB);
+            return;
+          }
+        }
+      }
+    }
+
+    throw new AssertionError("no middle snake found");
+  }
+
+  private static Object keyAt(Object[] keys, int lo, int length, int offset, boolean fromStart) {
+    return fromStart ? keys[lo + offset] : keys[lo + length - 1 - offset];
+  }
+
+  private static int mod(int value, int modulus) {
+    int result = value % modulus;
+    return result < 0 ? result + modulus : result;
+  }
+
+  private static boolean equal(Object a, Object b) {
+    return a == b || a.equals(b);
+  }
+}
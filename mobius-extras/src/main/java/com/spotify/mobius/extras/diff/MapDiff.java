@@ -0,0 +1,54 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import com.google.auto.value.AutoValue;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The changes between two versions of a map, as computed by a {@link MapDiffer}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@AutoValue
+public abstract class MapDiff<K, V> {
+
+  /** @return the entries whose keys weren't in the previous map */
+  public abstract Map<K, V> added();
+
+  /** @return the entries whose keys aren't in the current map, with their previous values */
+  public abstract Map<K, V> removed();
+
+  /** @return the entries whose values are no longer equal to the previous ones, with new values */
+  public abstract Map<K, V> changed();
+
+  public boolean isEmpty() {
+    return added().isEmpty() && removed().isEmpty() && changed().isEmpty();
+  }
+
+  static <K, V> MapDiff<K, V> create(Map<K, V> added, Map<K, V> removed, Map<K, V> changed) {
+    return new AutoValue_MapDiff<>(
+        Collections.unmodifiableMap(added),
+        Collections.unmodifiableMap(removed),
+        Collections.unmodifiableMap(changed));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Differ} for maps, reporting added, removed and changed entries. Values are compared
+ * using {@link Object#equals(Object)}, and null values aren't supported.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class MapDiffer<K, V> implements Differ<Map<K, V>, MapDiff<K, V>> {
+
+  private MapDiffer() {}
+
+  public static <K, V> MapDiffer<K, V> create() {
+    return new MapDiffer<>();
+  }
+
+  @Nullable
+  @Override
+  public MapDiff<K, V> diff(@Nullable Map<K, V> previous, Map<K, V> current) {
+    checkNotNull(current);
+    if (previous == null) {
+      previous = Collections.emptyMap();
+    }
+
+    Map<K, V> added = new LinkedHashMap<>();
+    Map<K, V> removed = new LinkedHashMap<>();
+    Map<K, V> changed = new LinkedHashMap<>();
+
+    for (Map.Entry<K, V> entry : previous.entrySet()) {
+      V currentValue = current.get(entry.getKey());
+
+      if (currentValue == null) {
+        removed.put(entry.getKey(), entry.getValue());
+      } else if (currentValue != entry.getValue() && !currentValue.equals(entry.getValue())) {
+        changed.put(entry.getKey(), currentValue);
+      }
+    }
+
+    for (Map.Entry<K, V> entry : current.entrySet()) {
+      if (!previous.containsKey(entry.getKey())) {
+        added.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    if (added.isEmpty() && removed.isEmpty() && changed.isEmpty()) {
+      return null;
+    }
+
+    return MapDiff.create(added, removed, changed);
+  }
+}
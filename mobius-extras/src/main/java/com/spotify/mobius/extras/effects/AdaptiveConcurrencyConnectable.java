@@ -0,0 +1,346 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkArgument;
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.functions.Producer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that limits the number of effects handled concurrently by a function-style
+ * effect handler, and adjusts that limit based on the observed latency of the handler.
+ *
+ * <p>The limit is adjusted using an additive-increase/multiplicative-decrease (AIMD) algorithm:
+ * when the handler returns within the latency threshold while at least half of the permits are in
+ * use, the limit is increased by one; when it takes longer than the threshold or throws an
+ * exception, the limit is multiplied by the backoff ratio. The limit is decreased at most once per
+ * window: slow or failed effects that got their permit before the last decrease are part of the
+ * overload that was already reacted to, and don't decrease it again. The limit always stays between
+ * the configured minimum and maximum.
+ *
+ * <p>Effects that arrive when all permits are in use are queued, and are handled in the order they
+ * arrived as permits become available. The limit and queue are shared between all connections to
+ * the same instance, so that the total load on the downstream resource is limited. Queued effects
+ * are dropped when their connection is disposed, and no events are emitted after dispose.
+ *
+ * <p>The current state of the limiter can be inspected using {@link #limit()}, {@link #inFlight()}
+ * and {@link #queueLength()}.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class AdaptiveConcurrencyConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(AdaptiveConcurrencyConnectable.class);
+
+  private final Function<F, E> handler;
+  private final Executor executor;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final Producer<Long> ticker;
+
+  // concurrency note: guarded by 'this'
+  private final Queue<Task> queue = new ArrayDeque<>();
+  private int limit;
+  private int inFlight;
+  // incremented whenever the limit is decreased, and captured by tasks when they get a permit.
+  private long decreaseGeneration;
+
+  /**
+   * Create a {@link Builder} for a concurrency limiter around the supplied handler.
+   *
+   * @param handler the function that handles an effect and returns the resulting event
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Builder<F, E> builder(Function<F, E> handler) {
+    return new Builder<>(checkNotNull(handler));
+  }
+
+  private AdaptiveConcurrencyConnectable(Builder<F, E> builder, Executor executor) {
+    checkArgument(builder.minLimit <= builder.initialLimit);
+    checkArgument(builder.initialLimit <= builder.maxLimit);
+
+    this.handler = builder.handler;
+    this.executor = executor;
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.latencyThresholdNanos = builder.latencyThresholdNanos;
+    this.backoffRatio = builder.backoffRatio;
+    this.ticker = builder.ticker;
+    this.limit = builder.initialLimit;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(final Consumer<E> output) {
+    checkNotNull(output);
+
+    return new LimitedConnection(output);
+  }
+
+  /** Returns the current concurrency limit. */
+  public synchronized int limit() {
+    return limit;
+  }
+
+  /** Returns the number of effects that are currently being handled. */
+  public synchronized int inFlight() {
+    return inFlight;
+  }
+
+  /** Returns the number of effects that are waiting for a permit. */
+  public synchronized int queueLength() {
+    return queue.size();
+  }
+
+  private void submit(Task task) {
+    synchronized (this) {
+      if (inFlight >= limit) {
+        queue.add(task);
+        return;
+      }
+
+      acquirePermit(task);
+    }
+
+    execute(task);
+  }
+
+  private void onCompleted(Task task, long latencyNanos, boolean successful) {
+    List<Task> toStart = new ArrayList<>();
+
+    synchronized (this) {
+      if (!successful || latencyNanos > latencyThresholdNanos) {
+        if (task.generation == decreaseGeneration) {
+          limit = Math.max(minLimit, (int) (limit * backoffRatio));
+          decreaseGeneration++;
+        }
+      } else if (inFlight * 2 >= limit) {
+        limit = Math.min(maxLimit, limit + 1);
+      }
+
+      inFlight--;
+
+      while (inFlight < limit && !queue.isEmpty()) {
+        Task next = queue.remove();
+        acquirePermit(next);
+        toStart.add(next);
+      }
+    }
+
+    for (Task next : toStart) {
+      try {
+        execute(next);
+      } catch (RuntimeException e) {
+        LOGGER.error("error starting effect {}", next.effect, e);
+      }
+    }
+  }
+
+  // must be called while holding the lock on 'this'
+  private void acquirePermit(Task task) {
+    inFlight++;
+    task.generation = decreaseGeneration;
+  }
+
+  private void execute(Task task) {
+    try {
+      executor.execute(task);
+    } catch (RuntimeException e) {
+      // the task will never complete, so give its permit back
+      synchronized (this) {
+        inFlight--;
+      }
+      throw e;
+    }
+  }
+
+  private synchronized void removeQueued(LimitedConnection connection) {
+    for (Iterator<Task> iterator = queue.iterator(); iterator.hasNext(); ) {
+      if (iterator.next().connection == connection) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private class LimitedConnection implements Connection<F> {
+    private final Consumer<E> output;
+    private volatile boolean disposed;
+
+    private LimitedConnection(Consumer<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(F effect) {
+      if (!disposed) {
+        submit(new Task(this, effect));
+      }
+    }
+
+    @Override
+    public void dispose() {
+      disposed = true;
+      removeQueued(this);
+    }
+
+    private synchronized void emit(E event) {
+      if (!disposed) {
+        output.accept(event);
+      }
+    }
+  }
+
+  private class Task implements Runnable {
+    private final LimitedConnection connection;
+    private final F effect;
+    // concurrency note: set while holding the limiter lock, before the task is passed to the
+    // executor.
+    private long generation;
+
+    private Task(LimitedConnection connection, F effect) {
+      this.connection = connection;
+      this.effect = effect;
+    }
+
+    @Override
+    public void run() {
+      long start = ticker.get();
+      E event = null;
+      boolean successful = false;
+
+      try {
+        event = handler.apply(effect);
+        successful = true;
+      } catch (Throwable t) {
+        // exceptions would otherwise be silently swallowed by the executor
+        LOGGER.error("error handling effect {}", effect, t);
+      } finally {
+        onCompleted(this, ticker.get() - start, successful);
+      }
+
+      if (successful) {
+        connection.emit(event);
+      }
+    }
+  }
+
+  /**
+   * A builder for {@link AdaptiveConcurrencyConnectable}s.
+   *
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static final class Builder<F, E> {
+    private final Function<F, E> handler;
+    private int initialLimit = 4;
+    private int minLimit = 1;
+    private int maxLimit = 256;
+    private long latencyThresholdNanos = TimeUnit.SECONDS.toNanos(1);
+    private double backoffRatio = 0.5;
+    private Producer<Long> ticker =
+        new Producer<Long>() {
+          @Nonnull
+          @Override
+          public Long get() {
+            return System.nanoTime();
+          }
+        };
+
+    private Builder(Function<F, E> handler) {
+      this.handler = handler;
+    }
+
+    /** Set the limit to start with. The default is 4. */
+    public Builder<F, E> initialLimit(int initialLimit) {
+      checkArgument(initialLimit > 0);
+      this.initialLimit = initialLimit;
+      return this;
+    }
+
+    /** Set the lowest value the limit may be decreased to. The default is 1. */
+    public Builder<F, E> minLimit(int minLimit) {
+      checkArgument(minLimit > 0);
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    /** Set the highest value the limit may be increased to. The default is 256. */
+    public Builder<F, E> maxLimit(int maxLimit) {
+      checkArgument(maxLimit > 0);
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /** Set the handler latency above which the limit is decreased. The default is one second. */
+    public Builder<F, E> latencyThreshold(long duration, TimeUnit unit) {
+      checkArgument(duration > 0);
+      this.latencyThresholdNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /**
+     * Set the factor that the limit is multiplied by when it is decreased. It must be between 0 and
+     * 1 (exclusive); the default is 0.5.
+     */
+    public Builder<F, E> backoffRatio(double backoffRatio) {
+      checkArgument(backoffRatio > 0 && backoffRatio < 1);
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    // visible for testing
+    Builder<F, E> ticker(Producer<Long> ticker) {
+      this.ticker = checkNotNull(ticker);
+      return this;
+    }
+
+    /**
+     * Build the concurrency limiter.
+     *
+     * @param executor the executor that the handler function is invoked on; it should be able to
+     *     run at least as many tasks concurrently as the maximum limit
+     * @throws IllegalArgumentException if the initial limit isn't between the minimum and maximum
+     *     limits
+     */
+    public AdaptiveConcurrencyConnectable<F, E> build(Executor executor) {
+      return new AdaptiveConcurrencyConnectable<>(this, checkNotNull(executor));
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkArgument;
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that collects effects into batches and hands each batch to a batch handler
+ * in one go.
+ *
+ * <p>A batch is closed when it contains {@code maxBatchSize} effects, or when {@code maxDelay} has
+ * passed since the first effect was added to it, whichever happens first. The batch handler is then
+ * invoked on the supplied executor with the effects of the batch, in the order they were received,
+ * and must return a list containing the event for each effect in the same order.
+ *
+ * <p>Effects that are waiting to be batched when the connection is disposed are dropped, and no
+ * events are emitted after dispose.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class BatchingConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchingConnectable.class);
+
+  private final Function<List<F>, List<E>> batchHandler;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Create a batching effect handler.
+   *
+   * @param batchHandler the function that handles a batch of effects and returns the events for
+   *     each of them, in the same order as the effects
+   * @param maxBatchSize the maximum number of effects in a batch
+   * @param maxDelay the maximum time an effect waits for its batch to be closed
+   * @param unit the unit of {@code maxDelay}
+   * @param executor the executor used to wait for the delay and to invoke the batch handler; it is
+   *     not shut down when connections are disposed
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Connectable<F, E> create(
+      Function<List<F>, List<E>> batchHandler,
+      int maxBatchSize,
+      long maxDelay,
+      TimeUnit unit,
+      ScheduledExecutorService executor) {
+    checkArgument(maxBatchSize > 0);
+    checkArgument(maxDelay >= 0);
+
+    return new BatchingConnectable<>(
+        checkNotNull(batchHandler), maxBatchSize, unit.toNanos(maxDelay), checkNotNull(executor));
+  }
+
+  private BatchingConnectable(
+      Function<List<F>, List<E>> batchHandler,
+      int maxBatchSize,
+      long maxDelayNanos,
+      ScheduledExecutorService executor) {
+    this.batchHandler = batchHandler;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelayNanos;
+    this.executor = executor;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) {
+    return new BatchingConnection(checkNotNull(output));
+  }
+
+  private class BatchingConnection implements Connection<F> {
+    private final Consumer<E> output;
+
+    // concurrency note: the below fields are guarded by 'this'
+    private List<F> pending = new ArrayList<>();
+    @Nullable private ScheduledFuture<?> scheduledFlush;
+    private boolean disposed;
+
+    // incremented every time the pending batch is taken, so that a timer that was already running
+    // when it was cancelled can tell that the batch it was scheduled for is gone.
+    private long batchGeneration;
+
+    private BatchingConnection(Consumer<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(F effect) {
+      final List<F> batch;
+
+      synchronized (this) {
+        if (disposed) {
+          return;
+        }
+
+        pending.add(effect);
+
+        if (pending.size() < maxBatchSize) {
+          if (scheduledFlush == null) {
+            scheduledFlush =
+                executor.schedule(
+                    new FlushOnTimeout(batchGeneration), maxDelayNanos, TimeUnit.NANOSECONDS);
+          }
+          return;
+        }
+
+        if (scheduledFlush != null) {
+          scheduledFlush.cancel(false);
+          scheduledFlush = null;
+        }
+        batch = takePending();
+      }
+
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              handleSafely(batch);
+            }
+          });
+    }
+
+    @Override
+    public void dispose() {
+      synchronized (this) {
+        disposed = true;
+        takePending();
+
+        if (scheduledFlush != null) {
+          scheduledFlush.cancel(false);
+          scheduledFlush = null;
+        }
+      }
+    }
+
+    private List<F> takePending() {
+      List<F> batch = pending;
+      pending = new ArrayList<>();
+      batchGeneration++;
+      return batch;
+    }
+
+    private void handleSafely(List<F> batch) {
+      // exceptions would otherwise be silently swallowed by the executor
+      try {
+        handle(batch);
+      } catch (Throwable throwable) {
+        LOGGER.error("Batch handler threw an exception when handling batch: {}", batch, throwable);
+      }
+    }
+
+    private class FlushOnTimeout implements Runnable {
+      private final long generation;
+
+      private FlushOnTimeout(long generation) {
+        this.generation = generation;
+      }
+
+      @Override
+      public void run() {
+        List<F> batch;
+
+        synchronized (BatchingConnection.this) {
+          if (generation != batchGeneration) {
+            // the batch this timer was scheduled for filled up and was handled after the timer had
+            // started running, so cancelling it had no effect; the current batch has its own timer.
+            return;
+          }
+          scheduledFlush = null;
+          batch = takePending();
+        }
+
+        if (!batch.isEmpty()) {
+          handleSafely(batch);
+        }
+      }
+    }
+
+    private void handle(List<F> batch) {
+      synchronized (this) {
+        if (disposed) {
+          return;
+        }
+      }
+
+      List<E> events = checkNotNull(batchHandler.apply(batch));
+
+      if (events.size() != batch.size()) {
+        throw new IllegalStateException(
+            "batch handler returned "
+                + events.size()
+                + " events for a batch of "
+                + batch.size()
+                + " effects");
+      }
+
+      for (E event : events) {
+        synchronized (this) {
+          if (disposed) {
+            return;
+          }
+          output.accept(event);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import com.google.auto.value.AutoValue;
+
+/** Statistics about the performance of a {@link CachingConnectable}. */
+@AutoValue
+public abstract class CacheStats {
+
+  /** @return the number of effects that were served from the cache */
+  public abstract long hitCount();
+
+  /** @return the number of effects that had to be passed on to the effect handler */
+  public abstract long missCount();
+
+  /** @return the number of entries that were removed because of size limits or expiry */
+  public abstract long evictionCount();
+
+  /** @return the ratio of effects served from the cache, or 1.0 if there have been no requests */
+  public double hitRate() {
+    long requestCount = hitCount() + missCount();
+    return requestCount == 0 ? 1.0 : (double) hitCount() / requestCount;
+  }
+
+  static CacheStats create(long hitCount, long missCount, long evictionCount) {
+    return new AutoValue_CacheStats(hitCount, missCount, evictionCount);
+  }
+}
@@ -0,0 +1,446 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkArgument;
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.Update;
+import com.spotify.mobius.extras.NullValuedFunction;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.functions.Producer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that memoizes the events produced by a pure, function-style effect handler.
+ *
+ * <p>For each effect, a key is computed (by default the effect itself). If an unexpired event is
+ * cached for that key, it is emitted immediately without invoking the handler; otherwise the
+ * handler is invoked and its result is stored. The cache is shared between all connections to the
+ * same instance, so repeated reads of the same resource from different loops are served from
+ * memory.
+ *
+ * <p>When the cache is full, the least recently used entry is evicted. Entries can also be expired
+ * after a fixed time; expired entries are dropped when they are next looked up, or when they are
+ * evicted to make room for new ones. Finally, entries can be removed explicitly using {@link
+ * #invalidate(Object)} or {@link #invalidateAll()}.
+ *
+ * <p>To have events invalidate entries automatically, configure {@link Builder#invalidateOn} and
+ * wrap the loop's update function using {@link #invalidating(Update)}; every event the loop
+ * processes is then passed to {@link #invalidate(Object)} before it reaches the update function. A
+ * result whose computation was in flight when its entry was invalidated is still emitted, but it
+ * isn't stored, since it may have been computed from stale data.
+ *
+ * <p>Concurrent misses for the same key will each invoke the handler; use a {@link
+ * SingleFlightConnectable} instead if effects are rarely repeated after their execution completes.
+ *
+ * <p>Note that a {@link com.spotify.mobius.MobiusLoop} posts effects to its effect runner before
+ * they reach any {@link Connectable}, so by default even cache hits go through the effect runner;
+ * what a hit saves is the handler invocation, not the thread hop. To serve hits without touching
+ * the effect runner, configure an executor for misses using {@link Builder#handleMissesOn} and mark
+ * the cached effect classes as inline using {@link
+ * com.spotify.mobius.MobiusLoop.TunableBuilder#inlineEffects}: hits are then emitted synchronously
+ * on the event thread, while misses are handed off to the executor so that they don't block it.
+ * Exceptions thrown by the handler on the executor are logged, and no event is emitted for the
+ * effect.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class CachingConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CachingConnectable.class);
+
+  private final Function<F, E> handler;
+  private final Function<F, ?> keyFunction;
+  @Nullable private final NullValuedFunction<E, ?> invalidationKeyFunction;
+  private final long expireAfterWriteNanos;
+  private final int maximumSize;
+  private final Producer<Long> ticker;
+  @Nullable private final Executor missExecutor;
+
+  // concurrency note: the cache and the counters are only accessed while holding the cache lock.
+  private final LinkedHashMap<Object, CacheEntry<E>> cache;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  private final Map<Object, InFlight> inFlight = new HashMap<>();
+
+  /**
+   * Create a {@link Builder} for a cache around the supplied handler.
+   *
+   * @param handler the function that handles an effect and returns the resulting event; it must be
+   *     pure, meaning that it must return equal events for effects with equal keys
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Builder<F, E> builder(Function<F, E> handler) {
+    return new Builder<>(checkNotNull(handler));
+  }
+
+  private CachingConnectable(Builder<F, E> builder) {
+    this.handler = builder.handler;
+    this.keyFunction = builder.keyFunction;
+    this.invalidationKeyFunction = builder.invalidationKeyFunction;
+    this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+    this.maximumSize = builder.maximumSize;
+    this.ticker = builder.ticker;
+    this.missExecutor = builder.missExecutor;
+
+    this.cache =
+        new LinkedHashMap<Object, CacheEntry<E>>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry<E>> eldest) {
+            if (size() > maximumSize) {
+              evictionCount++;
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(final Consumer<E> output) {
+    checkNotNull(output);
+
+    return new Connection<F>() {
+      private volatile boolean disposed;
+
+      @Override
+      public void accept(final F effect) {
+        if (disposed) {
+          return;
+        }
+
+        final Lookup lookup = lookup(effect);
+
+        if (lookup.event != null) {
+          emit(lookup.event);
+          return;
+        }
+
+        if (missExecutor == null) {
+          emit(compute(effect, lookup));
+          return;
+        }
+
+        try {
+          missExecutor.execute(
+              new Runnable() {
+                @Override
+                public void run() {
+                  E event;
+                  try {
+                    event = compute(effect, lookup);
+                  } catch (Throwable t) {
+                    // exceptions would otherwise be silently swallowed by the executor
+                    LOGGER.error("error handling effect {}", effect, t);
+                    return;
+                  }
+                  emit(event);
+                }
+              });
+        } catch (RuntimeException e) {
+          complete(lookup, null);
+          throw e;
+        }
+      }
+
+      private void emit(E event) {
+        if (!disposed) {
+          output.accept(event);
+        }
+      }
+
+      @Override
+      public void dispose() {
+        disposed = true;
+      }
+    };
+  }
+
+  /**
+   * Remove the entry that the configured invalidation function maps the supplied event to, if any.
+   * This is a no-op if no invalidation function has been configured, or if it returns null for the
+   * event.
+   *
+   * @param event an event that might make a cached entry stale
+   */
+  public void invalidate(E event) {
+    if (invalidationKeyFunction == null) {
+      return;
+    }
+
+    Object key = invalidationKeyFunction.apply(checkNotNull(event));
+    if (key == null) {
+      return;
+    }
+
+    synchronized (cache) {
+      cache.remove(key);
+
+      InFlight computations = inFlight.get(key);
+      if (computations != null) {
+        computations.generation++;
+      }
+    }
+  }
+
+  /** Remove all entries from the cache. */
+  public void invalidateAll() {
+    synchronized (cache) {
+      cache.clear();
+
+      for (InFlight computations : inFlight.values()) {
+        computations.generation++;
+      }
+    }
+  }
+
+  /**
+   * Wrap an update function so that every event it receives is first passed to {@link
+   * #invalidate(Object)}. Use the returned function when creating the loop to keep the cache
+   * consistent with the events that flow through it.
+   *
+   * @param update the update function to wrap
+   * @param <M> the model type
+   * @param <G> the effect type of the loop
+   */
+  @Nonnull
+  public <M, G> Update<M, E, G> invalidating(final Update<M, E, G> update) {
+    checkNotNull(update);
+
+    return new Update<M, E, G>() {
+      @Nonnull
+      @Override
+      public Next<M, G> update(M model, E event) {
+        invalidate(event);
+        return update.update(model, event);
+      }
+    };
+  }
+
+  /** @return a snapshot of the hit, miss and eviction counts of this cache */
+  @Nonnull
+  public CacheStats stats() {
+    synchronized (cache) {
+      return CacheStats.create(hitCount, missCount, evictionCount);
+    }
+  }
+
+  /**
+   * Returns a hit if an unexpired event is cached for the effect, and otherwise registers a
+   * computation for its key, which must be completed using {@link #compute} or {@link #complete}.
+   */
+  private Lookup lookup(F effect) {
+    Object key = checkNotNull(keyFunction.apply(effect));
+
+    synchronized (cache) {
+      CacheEntry<E> entry = cache.get(key);
+
+      if (entry != null) {
+        if (!isExpired(entry)) {
+          hitCount++;
+          return new Lookup(key, entry.event, null, 0);
+        }
+
+        cache.remove(key);
+        evictionCount++;
+      }
+
+      missCount++;
+
+      InFlight computations = inFlight.get(key);
+      if (computations == null) {
+        computations = new InFlight();
+        inFlight.put(key, computations);
+      }
+      computations.count++;
+      return new Lookup(key, null, computations, computations.generation);
+    }
+  }
+
+  private E compute(F effect, Lookup miss) {
+    E event = null;
+    try {
+      event = checkNotNull(handler.apply(effect));
+      return event;
+
+    } finally {
+      complete(miss, event);
+    }
+  }
+
+  private void complete(Lookup miss, @Nullable E event) {
+    InFlight computations = checkNotNull(miss.computations);
+
+    synchronized (cache) {
+      if (--computations.count == 0) {
+        inFlight.remove(miss.key);
+      }
+
+      // an entry invalidated while the handler was running may have been computed from stale
+      // data, so don't store it
+      if (event != null && computations.generation == miss.generation) {
+        cache.put(miss.key, new CacheEntry<>(event, ticker.get()));
+      }
+    }
+  }
+
+  private boolean isExpired(CacheEntry<E> entry) {
+    return expireAfterWriteNanos > 0
+        && ticker.get() - entry.writeTimeNanos >= expireAfterWriteNanos;
+  }
+
+  /** The result of looking up an effect: either a cached event, or a registered computation. */
+  private class Lookup {
+    private final Object key;
+    @Nullable private final E event;
+    @Nullable private final InFlight computations;
+    private final long generation;
+
+    private Lookup(
+        Object key, @Nullable E event, @Nullable InFlight computations, long generation) {
+      this.key = key;
+      this.event = event;
+      this.computations = computations;
+      this.generation = generation;
+    }
+  }
+
+  /** Book-keeping for the handler invocations that are computing an entry for a given key. */
+  private static class InFlight {
+    private int count;
+    private long generation;
+  }
+
+  private static class CacheEntry<E> {
+    private final E event;
+    private final long writeTimeNanos;
+
+    private CacheEntry(E event, long writeTimeNanos) {
+      this.event = event;
+      this.writeTimeNanos = writeTimeNanos;
+    }
+  }
+
+  /**
+   * Builder for {@link CachingConnectable} instances. Note that instances of the builder are
+   * mutable and not thread-safe.
+   *
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static final class Builder<F, E> {
+    private final Function<F, E> handler;
+    private Function<F, ?> keyFunction =
+        new Function<F, F>() {
+          @Nonnull
+          @Override
+          public F apply(F effect) {
+            return effect;
+          }
+        };
+    @Nullable private NullValuedFunction<E, ?> invalidationKeyFunction;
+    private long expireAfterWriteNanos;
+    private int maximumSize = Integer.MAX_VALUE;
+    @Nullable private Executor missExecutor;
+    private Producer<Long> ticker =
+        new Producer<Long>() {
+          @Nonnull
+          @Override
+          public Long get() {
+            return System.nanoTime();
+          }
+        };
+
+    private Builder(Function<F, E> handler) {
+      this.handler = handler;
+    }
+
+    /**
+     * Set the function used to compute cache keys from effects. The default is to use the effect
+     * itself as the key.
+     */
+    public Builder<F, E> keyFunction(Function<F, ?> keyFunction) {
+      this.keyFunction = checkNotNull(keyFunction);
+      return this;
+    }
+
+    /**
+     * Set the function used by {@link CachingConnectable#invalidate(Object)} to find the cache key
+     * that an event invalidates. The function may return null for events that don't invalidate any
+     * entry. See {@link CachingConnectable#invalidating(Update)} for how to apply it to every event
+     * in a loop.
+     */
+    public Builder<F, E> invalidateOn(NullValuedFunction<E, ?> invalidationKeyFunction) {
+      this.invalidationKeyFunction = checkNotNull(invalidationKeyFunction);
+      return this;
+    }
+
+    /** Expire entries once the given duration has passed since they were stored. */
+    public Builder<F, E> expireAfterWrite(long duration, TimeUnit unit) {
+      checkArgument(duration > 0);
+      this.expireAfterWriteNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /** Limit the number of entries; the least recently used entry is evicted when it is full. */
+    public Builder<F, E> maximumSize(int maximumSize) {
+      checkArgument(maximumSize > 0);
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Invoke the handler for cache misses on the given executor, rather than on the thread that
+     * delivers the effect. Hits are still emitted on the delivering thread. See the class
+     * documentation for how to use this to keep cache hits off the effect runner.
+     */
+    public Builder<F, E> handleMissesOn(Executor executor) {
+      this.missExecutor = checkNotNull(executor);
+      return this;
+    }
+
+    // visible for testing
+    Builder<F, E> ticker(Producer<Long> ticker) {
+      this.ticker = checkNotNull(ticker);
+      return this;
+    }
+
+    public CachingConnectable<F, E> build() {
+      return new CachingConnectable<>(this);
+    }
+  }
+}
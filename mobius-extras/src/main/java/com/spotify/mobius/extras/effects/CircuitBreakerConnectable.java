@@ -0,0 +1,433 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkArgument;
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionException;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.functions.Producer;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Connectable} that stops invoking a function-style effect handler for effect classes that
+ * are failing, and emits a fallback event for their effects instead.
+ *
+ * <p>A separate circuit breaker is kept for each effect class. Each breaker records the outcome of
+ * the most recent calls in a sliding window. A call is considered failed if the handler throws an
+ * exception, if it returns an event that the configured failure predicate matches, or if it takes
+ * longer than the slow-call threshold. Once the window contains at least the minimum number of
+ * calls and the rate of failed calls reaches the failure-rate threshold, the breaker opens.
+ *
+ * <p>While a breaker is open, effects of its class are answered immediately with the fallback
+ * event, without invoking the handler. After the open duration has passed, the breaker becomes
+ * half-open and lets a single probe call through; while the probe is running, other effects still
+ * get the fallback event. If the probe succeeds the breaker closes again, and otherwise it is
+ * re-opened. A probe that hasn't completed within the open duration counts as failed, so that a
+ * handler that never returns can't keep the breaker half-open forever. Calls that were started
+ * before the breaker last changed state don't affect it when they complete, so a slow call let
+ * through while the breaker was closed can't be mistaken for the probe.
+ *
+ * <p>The handler is invoked synchronously on the thread that delivers the effect, which in a {@link
+ * com.spotify.mobius.MobiusLoop} is the effect runner. Exceptions thrown by the handler are
+ * rethrown after they've been recorded, so they are still reported as a {@link ConnectionException}
+ * by the loop; handlers that follow Mobius conventions instead emit a failure event, which should
+ * be matched by the failure predicate. Breaker state is shared between all connections to the same
+ * instance.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class CircuitBreakerConnectable<F, E> implements Connectable<F, E> {
+
+  /** The states of a circuit breaker. */
+  public enum State {
+    /** The handler is invoked for all effects. */
+    CLOSED,
+
+    /** The handler is not invoked, and all effects are answered with the fallback event. */
+    OPEN,
+
+    /** A single probe effect is handled to find out if the breaker can be closed. */
+    HALF_OPEN
+  }
+
+  private final Function<F, E> handler;
+  private final Function<F, E> fallback;
+  @Nullable private final Function<E, Boolean> failurePredicate;
+  private final double failureRateThreshold;
+  private final long slowCallThresholdNanos;
+  private final int windowSize;
+  private final int minimumCalls;
+  private final long openDurationNanos;
+  private final Producer<Long> ticker;
+
+  // concurrency note: guarded by 'breakers'
+  private final Map<Class<?>, Breaker> breakers = new HashMap<>();
+
+  /**
+   * Create a {@link Builder} for a circuit breaker around the supplied handler.
+   *
+   * @param handler the function that handles an effect and returns the resulting event
+   * @param fallback the function returning the event to emit for an effect when its breaker is open
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Builder<F, E> builder(Function<F, E> handler, Function<F, E> fallback) {
+    return new Builder<>(checkNotNull(handler), checkNotNull(fallback));
+  }
+
+  private CircuitBreakerConnectable(Builder<F, E> builder) {
+    checkArgument(builder.minimumCalls <= builder.windowSize);
+
+    this.handler = builder.handler;
+    this.fallback = builder.fallback;
+    this.failurePredicate = builder.failurePredicate;
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowCallThresholdNanos = builder.slowCallThresholdNanos;
+    this.windowSize = builder.windowSize;
+    this.minimumCalls = builder.minimumCalls;
+    this.openDurationNanos = builder.openDurationNanos;
+    this.ticker = builder.ticker;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(final Consumer<E> output) {
+    checkNotNull(output);
+
+    return new Connection<F>() {
+      private volatile boolean disposed;
+
+      @Override
+      public void accept(F effect) {
+        if (disposed) {
+          return;
+        }
+
+        E event = handle(effect);
+
+        if (!disposed) {
+          output.accept(event);
+        }
+      }
+
+      @Override
+      public void dispose() {
+        disposed = true;
+      }
+    };
+  }
+
+  /**
+   * Returns the current state of the breaker for the given effect class. An open breaker whose open
+   * duration has passed is reported as half-open, since the next effect will be let through, and a
+   * half-open breaker whose probe has timed out is reported as open.
+   *
+   * <p>Breakers are kept per concrete effect class, as returned by {@link Object#getClass()}, so
+   * the class passed here must be the exact runtime class of the effects; supertypes don't
+   * aggregate the breakers of their subclasses.
+   *
+   * @throws IllegalArgumentException if the class is an interface or abstract, since no effect can
+   *     have it as its runtime class
+   */
+  public State state(Class<? extends F> effectClass) {
+    if (effectClass.isInterface() || Modifier.isAbstract(effectClass.getModifiers())) {
+      throw new IllegalArgumentException(
+          "breakers are kept per concrete effect class, but got: " + effectClass.getName());
+    }
+
+    synchronized (breakers) {
+      Breaker breaker = breakers.get(effectClass);
+
+      if (breaker == null) {
+        return State.CLOSED;
+      }
+
+      if (breaker.state == State.OPEN && ticker.get() - breaker.openedAt >= openDurationNanos) {
+        return State.HALF_OPEN;
+      }
+
+      if (breaker.state == State.HALF_OPEN && breaker.probeTimedOut()) {
+        return State.OPEN;
+      }
+
+      return breaker.state;
+    }
+  }
+
+  private E handle(F effect) {
+    Breaker breaker;
+    long permit;
+
+    synchronized (breakers) {
+      breaker = breakers.get(effect.getClass());
+      if (breaker == null) {
+        breaker = new Breaker();
+        breakers.put(effect.getClass(), breaker);
+      }
+
+      permit = breaker.tryAcquire();
+    }
+
+    if (permit == NOT_PERMITTED) {
+      return fallback.apply(effect);
+    }
+
+    long start = ticker.get();
+    E event;
+
+    try {
+      event = handler.apply(effect);
+    } catch (RuntimeException | Error e) {
+      synchronized (breakers) {
+        breaker.record(permit, false);
+      }
+      throw e;
+    }
+
+    boolean successful =
+        ticker.get() - start <= slowCallThresholdNanos
+            && (failurePredicate == null || !failurePredicate.apply(event));
+
+    synchronized (breakers) {
+      breaker.record(permit, successful);
+    }
+
+    return event;
+  }
+
+  private static final long NOT_PERMITTED = -1;
+
+  // concurrency note: all access is guarded by 'breakers'
+  private class Breaker {
+    private final boolean[] outcomes = new boolean[windowSize];
+    private int calls;
+    private int failures;
+    private int next;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+    private long probeStartedAt;
+
+    // incremented on every state change, and handed out as the permit for calls that are let
+    // through, so that outcomes of calls started in an earlier state can be ignored
+    private long generation;
+
+    /** Returns the permit to pass to {@link #record}, or {@link #NOT_PERMITTED}. */
+    long tryAcquire() {
+      switch (state) {
+        case CLOSED:
+          return generation;
+
+        case OPEN:
+          if (ticker.get() - openedAt < openDurationNanos) {
+            return NOT_PERMITTED;
+          }
+          transitionTo(State.HALF_OPEN);
+          return startProbe();
+
+        case HALF_OPEN:
+          if (probeTimedOut()) {
+            // give up on the probe; re-opening the breaker also means that its outcome is ignored
+            // if it does complete.
+            open();
+            return NOT_PERMITTED;
+          }
+          if (probing) {
+            return NOT_PERMITTED;
+          }
+          return startProbe();
+
+        default:
+          throw new AssertionError("unknown state: " + state);
+      }
+    }
+
+    void record(long permit, boolean successful) {
+      if (permit != generation) {
+        // a call that was started before the last state change; its outcome is no longer relevant
+        return;
+      }
+
+      if (state == State.HALF_OPEN) {
+        probing = false;
+
+        if (successful) {
+          transitionTo(State.CLOSED);
+        } else {
+          open();
+        }
+        return;
+      }
+
+      if (calls == windowSize) {
+        if (!outcomes[next]) {
+          failures--;
+        }
+      } else {
+        calls++;
+      }
+
+      outcomes[next] = successful;
+      next = (next + 1) % windowSize;
+
+      if (!successful) {
+        failures++;
+      }
+
+      if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+        open();
+      }
+    }
+
+    boolean probeTimedOut() {
+      return probing && ticker.get() - probeStartedAt >= openDurationNanos;
+    }
+
+    private long startProbe() {
+      probing = true;
+      probeStartedAt = ticker.get();
+      return generation;
+    }
+
+    private void open() {
+      transitionTo(State.OPEN);
+      openedAt = ticker.get();
+    }
+
+    private void transitionTo(State newState) {
+      state = newState;
+      probing = false;
+      generation++;
+      calls = 0;
+      failures = 0;
+      next = 0;
+    }
+  }
+
+  /**
+   * A builder for {@link CircuitBreakerConnectable}s.
+   *
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static final class Builder<F, E> {
+    private final Function<F, E> handler;
+    private final Function<F, E> fallback;
+    @Nullable private Function<E, Boolean> failurePredicate;
+    private double failureRateThreshold = 0.5;
+    private long slowCallThresholdNanos = Long.MAX_VALUE;
+    private int windowSize = 20;
+    private int minimumCalls = 10;
+    private long openDurationNanos = TimeUnit.SECONDS.toNanos(30);
+    private Producer<Long> ticker =
+        new Producer<Long>() {
+          @Nonnull
+          @Override
+          public Long get() {
+            return System.nanoTime();
+          }
+        };
+
+    private Builder(Function<F, E> handler, Function<F, E> fallback) {
+      this.handler = handler;
+      this.fallback = fallback;
+    }
+
+    /**
+     * Set a predicate that identifies events signalling that handling an effect failed, for
+     * handlers that report failures through events rather than exceptions.
+     */
+    public Builder<F, E> failureEvents(Function<E, Boolean> failurePredicate) {
+      this.failurePredicate = checkNotNull(failurePredicate);
+      return this;
+    }
+
+    /**
+     * Set the rate of failed calls, between 0 (exclusive) and 1 (inclusive), at which the breaker
+     * opens. The default is 0.5.
+     */
+    public Builder<F, E> failureRateThreshold(double failureRateThreshold) {
+      checkArgument(failureRateThreshold > 0 && failureRateThreshold <= 1);
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    /** Count calls that take longer than the given duration as failed. This is off by default. */
+    public Builder<F, E> slowCallThreshold(long duration, TimeUnit unit) {
+      checkArgument(duration > 0);
+      this.slowCallThresholdNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /** Set the number of most recent calls to compute the failure rate from. The default is 20. */
+    public Builder<F, E> windowSize(int windowSize) {
+      checkArgument(windowSize > 0);
+      this.windowSize = windowSize;
+      return this;
+    }
+
+    /**
+     * Set the number of calls that need to be recorded before the breaker can open. The default is
+     * 10.
+     */
+    public Builder<F, E> minimumCalls(int minimumCalls) {
+      checkArgument(minimumCalls > 0);
+      this.minimumCalls = minimumCalls;
+      return this;
+    }
+
+    /**
+     * Set how long the breaker stays open before a probe call is let through. The default is 30
+     * seconds.
+     */
+    public Builder<F, E> openDuration(long duration, TimeUnit unit) {
+      checkArgument(duration > 0);
+      this.openDurationNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    // visible for testing
+    Builder<F, E> ticker(Producer<Long> ticker) {
+      this.ticker = checkNotNull(ticker);
+      return this;
+    }
+
+    /**
+     * Build the circuit breaker.
+     *
+     * @throws IllegalArgumentException if the minimum number of calls is larger than the window
+     */
+    public CircuitBreakerConnectable<F, E> build() {
+      return new CircuitBreakerConnectable<>(this);
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that delivers effects to the wrapped connectable on an executor, such that
+ * effects with the same key are delivered strictly in order, one at a time, while effects with
+ * different keys are delivered in parallel.
+ *
+ * <p>This makes it possible to use a shared thread pool for effect handling without reordering, for
+ * instance, writes to the same entity. Since ordering is only preserved for effects that reach this
+ * connectable in order, the loop should be configured with an immediate effect runner when using
+ * it:
+ *
+ * <pre>
+ * Mobius.loop(update, KeyedSerialConnectable.create(handler, keyFunction, executor))
+ *     .effectRunner(WorkRunners::immediate)
+ * </pre>
+ *
+ * <p>Note that the wrapped connection's {@code accept} method will be called concurrently for
+ * effects with different keys, so it must be thread-safe. Effects that haven't been delivered when
+ * the connection is disposed are dropped.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class KeyedSerialConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KeyedSerialConnectable.class);
+
+  private final Connectable<F, E> actual;
+  private final Function<F, ?> keyFunction;
+  private final Executor executor;
+
+  /**
+   * Create a keyed serial effect handler.
+   *
+   * @param actual the effect handler to deliver effects to
+   * @param keyFunction a function returning the key that determines which effects are ordered with
+   *     respect to each other
+   * @param executor the executor used to deliver effects; it is not shut down when connections are
+   *     disposed
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Connectable<F, E> create(
+      Connectable<F, E> actual, Function<F, ?> keyFunction, Executor executor) {
+    return new KeyedSerialConnectable<>(
+        checkNotNull(actual), checkNotNull(keyFunction), checkNotNull(executor));
+  }
+
+  private KeyedSerialConnectable(
+      Connectable<F, E> actual, Function<F, ?> keyFunction, Executor executor) {
+    this.actual = actual;
+    this.keyFunction = keyFunction;
+    this.executor = executor;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) {
+    return new KeyedSerialConnection(actual.connect(checkNotNull(output)));
+  }
+
+  private class KeyedSerialConnection implements Connection<F> {
+    private final Connection<F> delegate;
+
+    // concurrency note: guarded by 'this'. A key is present in the map exactly when a drain task
+    // for it has been submitted and hasn't finished yet.
+    private final Map<Object, Queue<F>> queues = new HashMap<>();
+    private boolean disposed;
+
+    private KeyedSerialConnection(Connection<F> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void accept(F effect) {
+      final Object key = checkNotNull(keyFunction.apply(effect));
+      final Queue<F> queue;
+
+      synchronized (this) {
+        if (disposed) {
+          return;
+        }
+
+        Queue<F> existing = queues.get(key);
+        if (existing != null) {
+          existing.add(effect);
+          return;
+        }
+
+        queue = new ArrayDeque<>();
+        queue.add(effect);
+        queues.put(key, queue);
+      }
+
+      try {
+        executor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                drain(key);
+              }
+            });
+      } catch (RuntimeException e) {
+        // no drain task will ever remove the queue, and later effects with the same key would be
+        // added to it without being delivered
+        synchronized (this) {
+          if (queues.get(key) == queue) {
+            queues.remove(key);
+          }
+        }
+        throw e;
+      }
+    }
+
+    @Override
+    public void dispose() {
+      synchronized (this) {
+        disposed = true;
+        queues.clear();
+      }
+
+      delegate.dispose();
+    }
+
+    private void drain(Object key) {
+      while (true) {
+        F effect;
+
+        synchronized (this) {
+          Queue<F> queue = queues.get(key);
+          if (disposed || queue == null) {
+            return;
+          }
+
+          effect = queue.poll();
+          if (effect == null) {
+            queues.remove(key);
+            return;
+          }
+        }
+
+        try {
+          delegate.accept(effect);
+        } catch (Throwable t) {
+          // exceptions would otherwise be silently swallowed by the executor, and would stop
+          // later effects with the same key from being delivered
+          LOGGER.error("error handling effect {}", effect, t);
+        }
+      }
+    }
+  }
+}
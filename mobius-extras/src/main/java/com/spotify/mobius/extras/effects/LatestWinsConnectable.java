@@ -0,0 +1,255 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link Connectable} that gives effects "latest wins" semantics: when a new effect arrives, the
+ * execution of the previous effect with the same key is cancelled and any events it produces from
+ * then on are dropped.
+ *
+ * <p>Each effect is handled by a new connection to the wrapped {@link Connectable}, and cancelling
+ * an execution means disposing of that connection. The wrapped connectable therefore needs to
+ * support multiple concurrent connections, and should stop any ongoing work when a connection is
+ * disposed. Even if it doesn't, no events from a superseded execution will be emitted.
+ *
+ * <p>Connections have no way of signalling that they are done, so an execution is considered
+ * complete once it has emitted its final event. By default every event is final, which suits effect
+ * handlers that emit a single result per effect; a function deciding which events are final can be
+ * supplied for handlers that emit several. Completed executions are disposed of and forgotten, so
+ * only executions that are still running are held on to, no matter how many different keys have
+ * been seen. Executions that never complete are kept until they are superseded or until the
+ * connection to this connectable is disposed.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class LatestWinsConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Object SINGLE_KEY = new Object();
+
+  private final Connectable<F, E> actual;
+  private final Function<F, ?> keyFunction;
+  private final Function<E, Boolean> isFinalEvent;
+
+  /**
+   * Create a latest-wins effect handler where every effect supersedes the previous one.
+   *
+   * @param actual the effect handler to delegate to
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Connectable<F, E> create(Connectable<F, E> actual) {
+    return create(
+        actual,
+        new Function<F, Object>() {
+          @Nonnull
+          @Override
+          public Object apply(F effect) {
+            return SINGLE_KEY;
+          }
+        });
+  }
+
+  /**
+   * Create a latest-wins effect handler where an effect only supersedes previous effects that have
+   * the same key, and where the execution of an effect completes when it emits an event.
+   *
+   * @param actual the effect handler to delegate to
+   * @param keyFunction a function returning the key that effects are grouped by
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Connectable<F, E> create(
+      Connectable<F, E> actual, Function<F, ?> keyFunction) {
+    return create(
+        actual,
+        keyFunction,
+        new Function<E, Boolean>() {
+          @Nonnull
+          @Override
+          public Boolean apply(E event) {
+            return true;
+          }
+        });
+  }
+
+  /**
+   * Create a latest-wins effect handler where an effect only supersedes previous effects that have
+   * the same key, and where the execution of an effect completes when it emits a final event.
+   *
+   * @param actual the effect handler to delegate to
+   * @param keyFunction a function returning the key that effects are grouped by
+   * @param isFinalEvent a function returning true for the last event an execution emits
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Connectable<F, E> create(
+      Connectable<F, E> actual, Function<F, ?> keyFunction, Function<E, Boolean> isFinalEvent) {
+    return new LatestWinsConnectable<>(
+        checkNotNull(actual), checkNotNull(keyFunction), checkNotNull(isFinalEvent));
+  }
+
+  private LatestWinsConnectable(
+      Connectable<F, E> actual, Function<F, ?> keyFunction, Function<E, Boolean> isFinalEvent) {
+    this.actual = actual;
+    this.keyFunction = keyFunction;
+    this.isFinalEvent = isFinalEvent;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(final Consumer<E> output) {
+    return new LatestWinsConnection(checkNotNull(output));
+  }
+
+  private class LatestWinsConnection implements Connection<F> {
+    private final Consumer<E> output;
+
+    // concurrency note: guarded by 'this'
+    private final Map<Object, Execution> executions = new HashMap<>();
+    private boolean disposed;
+
+    private LatestWinsConnection(Consumer<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(F effect) {
+      Object key = checkNotNull(keyFunction.apply(effect));
+      Execution execution = new Execution(key);
+      Execution previous;
+
+      synchronized (this) {
+        if (disposed) {
+          return;
+        }
+        previous = executions.put(key, execution);
+      }
+
+      if (previous != null) {
+        previous.cancel();
+      }
+
+      execution.start(effect);
+    }
+
+    @Override
+    public void dispose() {
+      List<Execution> toCancel;
+
+      synchronized (this) {
+        disposed = true;
+        toCancel = new ArrayList<>(executions.values());
+        executions.clear();
+      }
+
+      for (Execution execution : toCancel) {
+        execution.cancel();
+      }
+    }
+
+    private synchronized void completed(Execution execution) {
+      // only remove the entry if it hasn't been replaced by a newer execution
+      if (executions.get(execution.key) == execution) {
+        executions.remove(execution.key);
+      }
+    }
+
+    private class Execution implements Consumer<E> {
+      private final Object key;
+
+      // concurrency note: guarded by 'this'
+      private Connection<F> connection;
+      private boolean cancelled;
+
+      private Execution(Object key) {
+        this.key = key;
+      }
+
+      void start(F effect) {
+        Connection<F> newConnection = actual.connect(this);
+
+        synchronized (this) {
+          if (cancelled) {
+            newConnection.dispose();
+            return;
+          }
+          connection = newConnection;
+        }
+
+        newConnection.accept(effect);
+      }
+
+      @Override
+      public void accept(E event) {
+        Connection<?> toDispose;
+
+        synchronized (this) {
+          if (cancelled) {
+            return;
+          }
+          output.accept(event);
+
+          if (!checkNotNull(isFinalEvent.apply(event))) {
+            return;
+          }
+          cancelled = true;
+          toDispose = connection;
+        }
+
+        completed(this);
+        if (toDispose != null) {
+          toDispose.dispose();
+        }
+      }
+
+      void cancel() {
+        Connection<?> toDispose;
+
+        // once this block has been executed, no more events will be emitted, since emitting also
+        // requires holding the lock. The connection is disposed of outside the lock so that a
+        // connection that waits for its emitting threads when disposed can't deadlock.
+        synchronized (this) {
+          if (cancelled) {
+            return;
+          }
+          cancelled = true;
+          toDispose = connection;
+        }
+
+        if (toDispose != null) {
+          toDispose.dispose();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Connectable} that postpones connecting to the wrapped connectable until the first effect
+ * is received. Use it to wrap effect handlers that are expensive to connect and may not be used at
+ * all, so that they don't add to the time it takes to start a loop:
+ *
+ * <pre>
+ * Mobius.loop(update, LazyConnectable.create(expensiveHandler))
+ * </pre>
+ *
+ * <p>The wrapped connectable is connected on the thread that delivers the first effect, and if the
+ * connection is disposed before any effect has been received, it is never connected at all.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class LazyConnectable<F, E> implements Connectable<F, E> {
+
+  private final Connectable<F, E> actual;
+
+  /**
+   * Create a lazily connecting effect handler.
+   *
+   * @param actual the effect handler to connect on the first effect
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Connectable<F, E> create(Connectable<F, E> actual) {
+    return new LazyConnectable<>(checkNotNull(actual));
+  }
+
+  private LazyConnectable(Connectable<F, E> actual) {
+    this.actual = actual;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) {
+    return new LazyConnection(checkNotNull(output));
+  }
+
+  private class LazyConnection implements Connection<F> {
+    private final Consumer<E> output;
+
+    // concurrency note: guarded by 'this'
+    @Nullable private Connection<F> delegate;
+    private boolean disposed;
+
+    private LazyConnection(Consumer<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(F effect) {
+      final Connection<F> connection;
+
+      synchronized (this) {
+        if (disposed) {
+          return;
+        }
+
+        if (delegate == null) {
+          delegate = actual.connect(output);
+        }
+
+        connection = delegate;
+      }
+
+      connection.accept(effect);
+    }
+
+    @Override
+    public void dispose() {
+      final Connection<F> connection;
+
+      synchronized (this) {
+        disposed = true;
+        connection = delegate;
+        delegate = null;
+      }
+
+      if (connection != null) {
+        connection.dispose();
+      }
+    }
+  }
+}
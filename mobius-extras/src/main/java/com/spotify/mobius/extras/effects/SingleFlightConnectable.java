@@ -0,0 +1,310 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that coalesces identical in-flight effects.
+ *
+ * <p>Effects are handled by a function-style effect handler that produces exactly one event per
+ * effect. If an effect arrives while another effect with the same key is still being handled, no
+ * new execution is started; instead, the effect is attached to the one that is already in flight,
+ * and the resulting event is fanned out according to the configured {@link FanOut} once the
+ * execution completes.
+ *
+ * <p>In-flight executions are shared between all connections to the same instance, so connecting
+ * one instance from several loops will also coalesce effects across those loops.
+ *
+ * <p>If the handler throws and an error event has been configured using {@link
+ * Builder#withErrorEvent(Function)}, the exception is logged and the failure is fanned out like a
+ * result: the error event for each attached effect is emitted in place of the resulting event.
+ * Without an error event, the exception propagates to the caller that started the execution, and
+ * the effects that were attached to it get no event.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class SingleFlightConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SingleFlightConnectable.class);
+
+  /** Defines how the result of a coalesced execution is delivered. */
+  public enum FanOut {
+    /** Emit the resulting event once for every effect that was attached to the execution. */
+    PER_EFFECT,
+
+    /** Emit the resulting event once to every connection that had an effect attached to it. */
+    PER_CONNECTION
+  }
+
+  private final Function<F, E> handler;
+  private final Function<F, ?> keyFunction;
+  private final FanOut fanOut;
+  @Nullable private final Function<F, E> errorEventFunction;
+
+  private final Map<Object, Flight> flights = new HashMap<>();
+
+  /**
+   * Create a single-flight effect handler where effects are considered identical if they are equal,
+   * and where the resulting event is emitted once per effect.
+   *
+   * @param handler the function that handles an effect and returns the resulting event
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Connectable<F, E> create(Function<F, E> handler) {
+    return builder(handler).build();
+  }
+
+  /**
+   * Create a single-flight effect handler where effects are considered identical if their keys are
+   * equal.
+   *
+   * @param handler the function that handles an effect and returns the resulting event
+   * @param keyFunction a function that returns the key to coalesce effects by
+   * @param fanOut how to deliver the resulting event to the coalesced effects
+   * @param <F> the effect type
+   * @param <E> the event type
+   * @param <K> the key type
+   */
+  public static <F, E, K> Connectable<F, E> create(
+      Function<F, E> handler, Function<F, K> keyFunction, FanOut fanOut) {
+    return builder(handler).keyFunction(keyFunction).fanOut(fanOut).build();
+  }
+
+  /**
+   * Create a {@link Builder} for a single-flight effect handler around the supplied handler.
+   *
+   * @param handler the function that handles an effect and returns the resulting event
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Builder<F, E> builder(Function<F, E> handler) {
+    return new Builder<>(checkNotNull(handler));
+  }
+
+  private SingleFlightConnectable(Builder<F, E> builder) {
+    this.handler = builder.handler;
+    this.keyFunction = builder.keyFunction;
+    this.fanOut = builder.fanOut;
+    this.errorEventFunction = builder.errorEventFunction;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) {
+    return new SingleFlightConnection(checkNotNull(output));
+  }
+
+  private static <F> Function<F, F> identity() {
+    return new Function<F, F>() {
+      @Nonnull
+      @Override
+      public F apply(F value) {
+        return value;
+      }
+    };
+  }
+
+  private class SingleFlightConnection implements Connection<F> {
+    private final Consumer<E> output;
+    private volatile boolean disposed;
+
+    private SingleFlightConnection(Consumer<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(F effect) {
+      if (disposed) {
+        return;
+      }
+
+      final Object key = checkNotNull(keyFunction.apply(effect));
+      final Flight flight;
+
+      synchronized (flights) {
+        Flight existing = flights.get(key);
+
+        if (existing != null) {
+          existing.attach(this, effect);
+          return;
+        }
+
+        flight = new Flight();
+        flight.attach(this, effect);
+        flights.put(key, flight);
+      }
+
+      final E event;
+      try {
+        event = handleAndRemove(key, effect);
+      } catch (Throwable t) {
+        if (errorEventFunction == null) {
+          throw t;
+        }
+
+        LOGGER.error("error handling effect {}", effect, t);
+        for (Attachment attachment : flight.attachments) {
+          attachment.emitErrorEvent();
+        }
+        return;
+      }
+
+      // no more effects can be attached to the flight once it has been removed from the map.
+      for (Attachment attachment : flight.attachments) {
+        attachment.connection.emit(event);
+      }
+    }
+
+    @Override
+    public void dispose() {
+      disposed = true;
+    }
+
+    private void emit(E event) {
+      if (!disposed) {
+        output.accept(event);
+      }
+    }
+  }
+
+  private E handleAndRemove(Object key, F effect) {
+    try {
+      return handler.apply(effect);
+    } finally {
+      synchronized (flights) {
+        flights.remove(key);
+      }
+    }
+  }
+
+  private class Flight {
+    // concurrency note: only modified while holding the lock of the flights map, and only read
+    // after the flight has been removed from that map.
+    private final List<Attachment> attachments = new ArrayList<>();
+
+    void attach(SingleFlightConnection connection, F effect) {
+      if (fanOut == FanOut.PER_CONNECTION) {
+        for (Attachment attachment : attachments) {
+          if (attachment.connection == connection) {
+            return;
+          }
+        }
+      }
+      attachments.add(new Attachment(connection, effect));
+    }
+  }
+
+  /** An effect that is waiting for the result of a flight, and the connection it arrived on. */
+  private class Attachment {
+    private final SingleFlightConnection connection;
+    private final F effect;
+
+    private Attachment(SingleFlightConnection connection, F effect) {
+      this.connection = connection;
+      this.effect = effect;
+    }
+
+    void emitErrorEvent() {
+      E event;
+      try {
+        event = checkNotNull(errorEventFunction).apply(effect);
+      } catch (Throwable t) {
+        LOGGER.error("error creating error event for effect {}", effect, t);
+        return;
+      }
+      connection.emit(event);
+    }
+  }
+
+  /**
+   * A builder for {@link SingleFlightConnectable}s. Note that instances of the builder are mutable
+   * and not thread-safe.
+   *
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static final class Builder<F, E> {
+    private final Function<F, E> handler;
+    private Function<F, ?> keyFunction = SingleFlightConnectable.<F>identity();
+    private FanOut fanOut = FanOut.PER_EFFECT;
+    @Nullable private Function<F, E> errorEventFunction;
+
+    private Builder(Function<F, E> handler) {
+      this.handler = handler;
+    }
+
+    /**
+     * Set the function used to compute the keys that effects are coalesced by. The default is to
+     * use the effect itself as the key, so that equal effects are coalesced.
+     *
+     * @return this builder
+     */
+    public Builder<F, E> keyFunction(Function<F, ?> keyFunction) {
+      this.keyFunction = checkNotNull(keyFunction);
+      return this;
+    }
+
+    /**
+     * Set how the result of a coalesced execution is delivered. The default is {@link
+     * FanOut#PER_EFFECT}.
+     *
+     * @return this builder
+     */
+    public Builder<F, E> fanOut(FanOut fanOut) {
+      this.fanOut = checkNotNull(fanOut);
+      return this;
+    }
+
+    /**
+     * Set the function returning the event to emit for an effect when the handler throws an
+     * exception. It is invoked once for each effect that was attached to the failed execution, or
+     * once per connection with {@link FanOut#PER_CONNECTION}. If this isn't set, the exception
+     * propagates to the caller that started the execution instead.
+     *
+     * @param errorEventFunction a function returning the event to emit when handling an effect
+     *     fails
+     * @return this builder
+     */
+    public Builder<F, E> withErrorEvent(Function<F, E> errorEventFunction) {
+      this.errorEventFunction = checkNotNull(errorEventFunction);
+      return this;
+    }
+
+    public Connectable<F, E> build() {
+      return new SingleFlightConnectable<>(this);
+    }
+  }
+}
@@ -0,0 +1,394 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkArgument;
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that runs an effect handler function on an executor, and gives up on
+ * effects that take too long to handle.
+ *
+ * <p>Timeouts are configured per effect class. If the handler hasn't returned within the timeout
+ * configured for an effect, its execution is cancelled by interrupting the thread running it, and
+ * the timeout event for the effect is emitted instead. Handlers should therefore use interruptible
+ * I/O, or check the interrupted status of their thread, so that the thread is freed when the
+ * deadline has passed. Effects whose class has no timeout configured are handled without a
+ * deadline.
+ *
+ * <p>Exactly one event is emitted per effect: either the one returned by the handler or the timeout
+ * event, whichever comes first. If the handler throws, the exception is logged and the error event
+ * configured using {@link Builder#withErrorEvent(Function)} is emitted; without an error event, the
+ * timeout event is emitted early instead. Only effects that have neither an error event nor a
+ * timeout get no event when the handler throws. Disposing the connection cancels all ongoing
+ * executions, and no events are emitted after dispose.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class TimeoutConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TimeoutConnectable.class);
+
+  private final Function<F, E> handler;
+  private final Map<Class<?>, Deadline<?, E>> deadlines;
+  @Nullable private final Function<F, E> errorEventFunction;
+  private final ExecutorService executor;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Create a builder for a timeout effect handler.
+   *
+   * @param handler the function that handles effects
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static <F, E> Builder<F, E> builder(Function<F, E> handler) {
+    return new Builder<>(checkNotNull(handler));
+  }
+
+  private TimeoutConnectable(
+      Function<F, E> handler,
+      Map<Class<?>, Deadline<?, E>> deadlines,
+      @Nullable Function<F, E> errorEventFunction,
+      ExecutorService executor,
+      ScheduledExecutorService scheduler) {
+    this.handler = handler;
+    this.deadlines = deadlines;
+    this.errorEventFunction = errorEventFunction;
+    this.executor = executor;
+    this.scheduler = scheduler;
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(final Consumer<E> output) {
+    checkNotNull(output);
+
+    return new TimeoutConnection(output);
+  }
+
+  @Nullable
+  private Deadline<?, E> deadlineFor(F effect) {
+    for (Map.Entry<Class<?>, Deadline<?, E>> entry : deadlines.entrySet()) {
+      if (entry.getKey().isInstance(effect)) {
+        return entry.getValue();
+      }
+    }
+
+    return null;
+  }
+
+  private class TimeoutConnection implements Connection<F> {
+    private final Consumer<E> output;
+
+    // concurrency note: guarded by 'this'
+    private final Set<Execution> executions = new HashSet<>();
+    private boolean disposed;
+
+    private TimeoutConnection(Consumer<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(F effect) {
+      Execution execution = new Execution(effect, deadlineFor(effect));
+
+      synchronized (this) {
+        if (disposed) {
+          return;
+        }
+        executions.add(execution);
+      }
+
+      execution.start();
+    }
+
+    @Override
+    public void dispose() {
+      List<Execution> toCancel;
+
+      synchronized (this) {
+        disposed = true;
+        toCancel = new ArrayList<>(executions);
+        executions.clear();
+      }
+
+      for (Execution execution : toCancel) {
+        execution.cancel();
+      }
+    }
+
+    private synchronized void emit(E event) {
+      if (!disposed) {
+        output.accept(event);
+      }
+    }
+
+    private synchronized void remove(Execution execution) {
+      executions.remove(execution);
+    }
+
+    private class Execution {
+      private final F effect;
+      @Nullable private final Deadline<?, E> deadline;
+      private final AtomicBoolean completed = new AtomicBoolean();
+
+      private volatile Future<?> work;
+      private volatile Future<?> timer;
+
+      private Execution(F effect, @Nullable Deadline<?, E> deadline) {
+        this.effect = effect;
+        this.deadline = deadline;
+      }
+
+      void start() {
+        if (completed.get()) {
+          // cancelled before it was started
+          return;
+        }
+
+        work =
+            executor.submit(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    runHandler();
+                  }
+                });
+
+        if (deadline == null) {
+          return;
+        }
+
+        timer =
+            scheduler.schedule(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    timeOut();
+                  }
+                },
+                deadline.timeoutNanos,
+                TimeUnit.NANOSECONDS);
+
+        // the handler may have completed before the timer was assigned
+        if (completed.get()) {
+          timer.cancel(false);
+        }
+      }
+
+      private void runHandler() {
+        E event;
+
+        try {
+          event = handler.apply(effect);
+        } catch (Throwable t) {
+          if (complete()) {
+            // exceptions would otherwise be silently swallowed by the executor
+            LOGGER.error("error handling effect {}", effect, t);
+            emitErrorEvent();
+          }
+          return;
+        }
+
+        if (complete()) {
+          emit(event);
+        }
+      }
+
+      private void timeOut() {
+        if (!completed.compareAndSet(false, true)) {
+          return;
+        }
+
+        remove(this);
+        work.cancel(true);
+
+        try {
+          emit(deadline.timeoutEvent(effect));
+        } catch (Throwable t) {
+          LOGGER.error("error creating timeout event for effect {}", effect, t);
+        }
+      }
+
+      private void emitErrorEvent() {
+        try {
+          if (errorEventFunction != null) {
+            emit(errorEventFunction.apply(effect));
+          } else if (deadline != null) {
+            emit(deadline.timeoutEvent(effect));
+          }
+        } catch (Throwable t) {
+          LOGGER.error("error creating error event for effect {}", effect, t);
+        }
+      }
+
+      private boolean complete() {
+        if (!completed.compareAndSet(false, true)) {
+          return false;
+        }
+
+        remove(this);
+
+        Future<?> currentTimer = timer;
+        if (currentTimer != null) {
+          currentTimer.cancel(false);
+        }
+
+        return true;
+      }
+
+      void cancel() {
+        completed.set(true);
+
+        Future<?> currentTimer = timer;
+        if (currentTimer != null) {
+          currentTimer.cancel(false);
+        }
+
+        Future<?> currentWork = work;
+        if (currentWork != null) {
+          currentWork.cancel(true);
+        }
+      }
+    }
+  }
+
+  private static class Deadline<G, E> {
+    private final Class<G> effectClass;
+    private final long timeoutNanos;
+    private final Function<G, E> timeoutEventFunction;
+
+    private Deadline(Class<G> effectClass, long timeoutNanos, Function<G, E> timeoutEventFunction) {
+      this.effectClass = effectClass;
+      this.timeoutNanos = timeoutNanos;
+      this.timeoutEventFunction = timeoutEventFunction;
+    }
+
+    E timeoutEvent(Object effect) {
+      return timeoutEventFunction.apply(effectClass.cast(effect));
+    }
+  }
+
+  /**
+   * A builder for {@link TimeoutConnectable}s.
+   *
+   * @param <F> the effect type
+   * @param <E> the event type
+   */
+  public static final class Builder<F, E> {
+    private final Function<F, E> handler;
+    private final Map<Class<?>, Deadline<?, E>> deadlines = new LinkedHashMap<>();
+    @Nullable private Function<F, E> errorEventFunction;
+
+    private Builder(Function<F, E> handler) {
+      this.handler = handler;
+    }
+
+    /**
+     * Set the function returning the event to emit for an effect when the handler throws an
+     * exception. If this isn't set, the timeout event for the effect is emitted instead, if it has
+     * a timeout.
+     *
+     * @param errorEventFunction a function returning the event to emit when handling an effect
+     *     fails
+     * @return this builder
+     */
+    public Builder<F, E> withErrorEvent(Function<F, E> errorEventFunction) {
+      this.errorEventFunction = checkNotNull(errorEventFunction);
+      return this;
+    }
+
+    /**
+     * Set a timeout for effects of a given type. Adding a timeout for two effect classes where one
+     * is a super-class of the other is considered a collision and is not allowed. Registering the
+     * same class twice is also considered a collision.
+     *
+     * @param effectClass the class of effects that the timeout applies to
+     * @param timeout the maximum time the handler may take to handle such an effect
+     * @param unit the unit of {@code timeout}
+     * @param timeoutEventFunction a function returning the event to emit when handling an effect
+     *     times out
+     * @param <G> the effect class as a type parameter
+     * @return this builder
+     * @throws IllegalArgumentException if there is a collision
+     */
+    public <G extends F> Builder<F, E> withTimeout(
+        Class<G> effectClass, long timeout, TimeUnit unit, Function<G, E> timeoutEventFunction) {
+      checkNotNull(effectClass);
+      checkNotNull(unit);
+      checkNotNull(timeoutEventFunction);
+      checkArgument(timeout > 0);
+
+      for (Class<?> cls : deadlines.keySet()) {
+        if (cls.isAssignableFrom(effectClass) || effectClass.isAssignableFrom(cls)) {
+          throw new IllegalArgumentException(
+              "Effect classes may not be assignable to each other, collision found: "
+                  + effectClass.getSimpleName()
+                  + " <-> "
+                  + cls.getSimpleName());
+        }
+      }
+
+      deadlines.put(
+          effectClass, new Deadline<>(effectClass, unit.toNanos(timeout), timeoutEventFunction));
+      return this;
+    }
+
+    /**
+     * Build the timeout effect handler.
+     *
+     * @param executor the executor that the handler function is invoked on; it should be able to
+     *     interrupt running tasks when they are cancelled, and it is not shut down when connections
+     *     are disposed
+     * @param scheduler the executor used to wait for deadlines; it is not shut down when
+     *     connections are disposed
+     */
+    public Connectable<F, E> build(ExecutorService executor, ScheduledExecutorService scheduler) {
+      return new TimeoutConnectable<>(
+          handler,
+          new LinkedHashMap<>(deadlines),
+          errorEventFunction,
+          checkNotNull(executor),
+          checkNotNull(scheduler));
+    }
+  }
+}
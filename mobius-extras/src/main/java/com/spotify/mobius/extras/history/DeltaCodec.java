@@ -0,0 +1,56 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.history;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes models as deltas against a base model, and decodes them again. Used by {@link
+ * ModelHistory} to store most models as small deltas against a few full keyframes.
+ *
+ * <p>Deltas should share unchanged parts with the models they were computed from rather than copy
+ * them, or storing them saves little memory.
+ *
+ * @param <M> the model type
+ * @param <D> the delta type
+ */
+public interface DeltaCodec<M, D> {
+
+  /**
+   * Compute a delta that turns the base model into another model.
+   *
+   * @param base the model to compute the delta against
+   * @param model the model to encode
+   * @return the delta, or null if the models are equal
+   */
+  @Nullable
+  D encode(M base, M model);
+
+  /**
+   * Apply a delta to the base model that it was computed against.
+   *
+   * @param base the model that the delta was computed against
+   * @param delta a delta returned by {@link #encode(Object, Object)}
+   * @return a model equal to the one that was encoded
+   */
+  @Nonnull
+  M decode(M base, D delta);
+}
@@ -0,0 +1,67 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.history;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.extras.diff.ListDiff;
+import com.spotify.mobius.extras.diff.ListDiffer;
+import com.spotify.mobius.functions.Function;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link DeltaCodec} for lists, storing them as the {@link ListDiff} from the base list as
+ * computed by a {@link ListDiffer}. Use it for models that are lists, or as a building block in a
+ * codec for models with a large list in them.
+ *
+ * @param <T> the type of items in the list
+ */
+public final class ListDeltaCodec<T> implements DeltaCodec<List<T>, ListDiff<T>> {
+
+  private final ListDiffer<T> differ;
+
+  private ListDeltaCodec(ListDiffer<T> differ) {
+    this.differ = differ;
+  }
+
+  /**
+   * Create a codec that identifies items using the supplied key extractor.
+   *
+   * @param keyExtractor returns the identity of an item; see {@link ListDiffer#create(Function)}
+   * @param <T> the type of items in the list
+   */
+  public static <T> ListDeltaCodec<T> create(Function<? super T, ?> keyExtractor) {
+    return new ListDeltaCodec<>(ListDiffer.<T>create(checkNotNull(keyExtractor)));
+  }
+
+  @Nullable
+  @Override
+  public ListDiff<T> encode(List<T> base, List<T> model) {
+    return differ.diff(base, model);
+  }
+
+  @Nonnull
+  @Override
+  public List<T> decode(List<T> base, ListDiff<T> delta) {
+    return delta.applyTo(base);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.history;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkArgument;
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A model observer that records the most recent models of a loop, for undo or debugging, in a fixed
+ * amount of memory.
+ *
+ * <p>The history holds up to a fixed number of models in a ring buffer, dropping the oldest model
+ * when it is full. To avoid holding many full models, only one in every {@code keyframeInterval}
+ * models is stored as is, as a keyframe; the models in between are stored as deltas against the
+ * latest keyframe, computed by a {@link DeltaCodec}. Any recorded model can be reconstructed from
+ * its keyframe and delta in a single decoding step. A delta keeps its keyframe reachable even after
+ * the keyframe itself has been dropped from the history, so at most {@code capacity /
+ * keyframeInterval + 2} full models are held at any time.
+ *
+ * <pre>
+ * ModelHistory&lt;List&lt;Item&gt;, ?&gt; history =
+ *     ModelHistory.create(ListDeltaCodec.create(Item::id), 100, 20);
+ * loop.observe(history);
+ * ...
+ * List&lt;Item&gt; previous = history.get(history.size() - 2);
+ * </pre>
+ *
+ * <p>Deltas are encoded on the thread that posts models to observers, so the codec should be fast
+ * compared to the rate of model changes. Since deltas are always computed against the latest
+ * keyframe, they grow as models drift away from it; a shorter interval keeps deltas small at the
+ * cost of storing more full models. This class is thread-safe.
+ *
+ * @param <M> the model type
+ * @param <D> the delta type
+ */
+public final class ModelHistory<M, D> implements Consumer<M> {
+
+  private final DeltaCodec<M, D> codec;
+  private final int keyframeInterval;
+
+  // concurrency note: the fields below are only accessed while holding the lock on this instance.
+  // a ring buffer of 'capacity' slots; a list rather than an array since arrays of a generic type
+  // can't be created without an unchecked cast.
+  private final List<Entry<M, D>> entries;
+  private int start;
+  private int size;
+
+  @Nullable private M keyframe;
+  private int modelsSinceKeyframe;
+
+  private ModelHistory(DeltaCodec<M, D> codec, int capacity, int keyframeInterval) {
+    this.codec = codec;
+    this.keyframeInterval = keyframeInterval;
+
+    this.entries = new ArrayList<>(Collections.<Entry<M, D>>nCopies(capacity, null));
+  }
+
+  /**
+   * Create a history of models.
+   *
+   * @param codec the codec used to store models as deltas against keyframes
+   * @param capacity the maximum number of models to hold
+   * @param keyframeInterval the number of models between keyframes; 1 stores every model as is
+   * @param <M> the model type
+   * @param <D> the delta type
+   */
+  public static <M, D> ModelHistory<M, D> create(
+      DeltaCodec<M, D> codec, int capacity, int keyframeInterval) {
+    checkArgument(capacity > 0);
+    checkArgument(keyframeInterval > 0);
+    return new ModelHistory<>(checkNotNull(codec), capacity, keyframeInterval);
+  }
+
+  /** Record a model, dropping the oldest model if the history is full. */
+  @Override
+  public synchronized void accept(M model) {
+    checkNotNull(model);
+
+    final Entry<M, D> entry;
+    if (keyframe == null || modelsSinceKeyframe == keyframeInterval) {
+      keyframe = model;
+      modelsSinceKeyframe = 1;
+      entry = new Entry<>(model, null);
+    } else {
+      modelsSinceKeyframe++;
+      entry = new Entry<>(keyframe, codec.encode(keyframe, model));
+    }
+
+    entries.set((start + size) % entries.size(), entry);
+    if (size < entries.size()) {
+      size++;
+    } else {
+      start = (start + 1) % entries.size();
+    }
+  }
+
+  /** @return the number of models currently in the history */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Reconstruct a recorded model.
+   *
+   * @param index the index of the model, from 0 for the oldest to {@code size() - 1} for the most
+   *     recent one
+   * @return a model equal to the one that was recorded
+   * @throws IndexOutOfBoundsException if there is no model with that index
+   */
+  @Nonnull
+  public M get(int index) {
+    final Entry<M, D> entry;
+
+    synchronized (this) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+      }
+      entry = entries.get((start + index) % entries.size());
+    }
+
+    if (entry.delta == null) {
+      return entry.keyframe;
+    }
+
+    return checkNotNull(codec.decode(entry.keyframe, entry.delta));
+  }
+
+  /** Drop all recorded models. The next model to be recorded will be a keyframe. */
+  public synchronized void clear() {
+    Collections.fill(entries, null);
+    start = 0;
+    size = 0;
+    keyframe = null;
+    modelsSinceKeyframe = 0;
+  }
+
+  private static class Entry<M, D> {
+    private final M keyframe;
+    @Nullable private final D delta;
+
+    private Entry(M keyframe, @Nullable D delta) {
+      this.keyframe = keyframe;
+      this.delta = delta;
+    }
+  }
+}
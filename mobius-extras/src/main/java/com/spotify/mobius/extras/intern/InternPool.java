@@ -0,0 +1,182 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.intern;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Function;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A thread-safe pool of canonical instances of immutable values. Interning a value returns the
+ * first instance of an equal value that was interned and is still reachable, so that equal values
+ * share a single instance. This saves memory when many models contain equal parts, and turns
+ * equality checks between canonical instances into reference checks.
+ *
+ * <p>The pool only holds weak references to its canonical instances, so a value stays in the pool
+ * for as long as something else refers to it. Values are only considered equal if they are of the
+ * same class, so interning never changes the type of a value.
+ *
+ * <p>Values must be immutable and have {@link Object#equals(Object)} and {@link Object#hashCode()}
+ * implementations that agree with each other, like models and their parts should. Use {@link
+ * Interning} to apply a pool to the models of a loop.
+ */
+public final class InternPool {
+
+  private final ConcurrentMap<WeakKey, WeakKey> table = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> clearedKeys = new ReferenceQueue<>();
+
+  @Nullable private final Function<Object, Long> sizeEstimator;
+
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong estimatedBytesSaved = new AtomicLong();
+
+  private InternPool(@Nullable Function<Object, Long> sizeEstimator) {
+    this.sizeEstimator = sizeEstimator;
+  }
+
+  /** Create a pool that doesn't estimate the memory it saves. */
+  public static InternPool create() {
+    return new InternPool(null);
+  }
+
+  /**
+   * Create a pool that estimates the memory it saves. Every time a value is replaced by an equal
+   * canonical instance, the size of the value, as estimated by the supplied function, is added to
+   * {@link InternStats#estimatedBytesSaved()}.
+   *
+   * @param sizeEstimator a function returning the approximate size in bytes of a value
+   */
+  public static InternPool create(Function<Object, Long> sizeEstimator) {
+    return new InternPool(checkNotNull(sizeEstimator));
+  }
+
+  /**
+   * Return the canonical instance of a value, adding the value to the pool if it doesn't contain an
+   * equal value yet.
+   *
+   * @param value the value to intern
+   * @param <T> the type of the value
+   * @return a value equal to and of the same class as the supplied value
+   */
+  @Nonnull
+  public <T> T intern(T value) {
+    checkNotNull(value);
+    purgeClearedKeys();
+    requestCount.incrementAndGet();
+
+    WeakKey key = new WeakKey(value, clearedKeys);
+
+    while (true) {
+      WeakKey existing = table.putIfAbsent(key, key);
+      if (existing == null) {
+        return value;
+      }
+
+      Object canonical = existing.get();
+      if (canonical != null) {
+        // interning the canonical instance itself again saves nothing, so it isn't a hit
+        if (canonical != value) {
+          hitCount.incrementAndGet();
+          if (sizeEstimator != null) {
+            estimatedBytesSaved.addAndGet(checkNotNull(sizeEstimator.apply(value)));
+          }
+        }
+
+        @SuppressWarnings("unchecked")
+        T result = (T) canonical;
+        return result;
+      }
+
+      // the canonical instance was collected after the lookup found it; drop its key and retry.
+      table.remove(existing, existing);
+    }
+  }
+
+  /** @return the number of canonical instances currently held by the pool */
+  public int size() {
+    purgeClearedKeys();
+    return table.size();
+  }
+
+  /** @return a snapshot of the request and hit counts and the estimated memory saved */
+  @Nonnull
+  public InternStats stats() {
+    return InternStats.create(
+        requestCount.get(), hitCount.get(), estimatedBytesSaved.get(), size());
+  }
+
+  private void purgeClearedKeys() {
+    Reference<?> cleared;
+    while ((cleared = clearedKeys.poll()) != null) {
+      // keys of values that were found in the pool are never added to the table, so this is a no-op
+      // for them.
+      table.remove(cleared, cleared);
+    }
+  }
+
+  /**
+   * A weak reference that compares equal to another key if their referents are of the same class
+   * and equal. Cleared keys are only equal to themselves, so they can still be removed.
+   */
+  private static final class WeakKey extends WeakReference<Object> {
+    private final int hash;
+
+    WeakKey(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.hash = referent.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof WeakKey)) {
+        return false;
+      }
+
+      WeakKey other = (WeakKey) o;
+      if (hash != other.hash) {
+        return false;
+      }
+
+      Object referent = get();
+      Object otherReferent = other.get();
+      return referent != null
+          && otherReferent != null
+          && referent.getClass() == otherReferent.getClass()
+          && referent.equals(otherReferent);
+    }
+  }
+}
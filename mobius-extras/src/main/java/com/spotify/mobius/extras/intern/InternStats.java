@@ -0,0 +1,57 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.intern;
+
+import com.google.auto.value.AutoValue;
+
+/** Statistics about the effectiveness of an {@link InternPool}. */
+@AutoValue
+public abstract class InternStats {
+
+  /** @return the number of values that have been interned */
+  public abstract long requestCount();
+
+  /**
+   * @return the number of interned values that were replaced by an equal canonical instance that
+   *     was already in the pool; interning a canonical instance itself doesn't count as a hit
+   */
+  public abstract long hitCount();
+
+  /**
+   * @return the estimated number of bytes made collectable by replacing values with their canonical
+   *     instances, or 0 if the pool has no size estimator
+   */
+  public abstract long estimatedBytesSaved();
+
+  /** @return the number of canonical instances currently held by the pool */
+  public abstract int size();
+
+  /**
+   * @return the ratio of interned values that were replaced by a canonical instance, or 0.0 if
+   *     there were none
+   */
+  public double hitRate() {
+    return requestCount() == 0 ? 0.0 : (double) hitCount() / requestCount();
+  }
+
+  static InternStats create(long requestCount, long hitCount, long estimatedBytesSaved, int size) {
+    return new AutoValue_InternStats(requestCount, hitCount, estimatedBytesSaved, size);
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.intern;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.First;
+import com.spotify.mobius.Init;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.Update;
+import com.spotify.mobius.functions.Function;
+import javax.annotation.Nonnull;
+
+/**
+ * Applies interning to the models of a loop, by wrapping its {@link Update} and {@link Init} so
+ * that every model they return is passed through a canonicalizer before the loop sees it.
+ *
+ * <p>The canonicalizer decides which parts of a model to intern, typically by rebuilding the model
+ * out of canonical instances from an {@link InternPool}, and finally interning the model itself:
+ *
+ * <pre>
+ * InternPool pool = InternPool.create();
+ * Function&lt;Model, Model&gt; canonicalizer =
+ *     model -&gt; pool.intern(model.withConfig(pool.intern(model.config())));
+ *
+ * Mobius.tunableLoop(Interning.update(update, canonicalizer), effectHandler)
+ *     .init(Interning.init(init, canonicalizer))
+ *     .distinctUntilChanged(MobiusLoop.ModelComparison.IDENTITY)
+ * </pre>
+ *
+ * <p>When whole models are interned, equal models are the same instance, so {@link
+ * com.spotify.mobius.MobiusLoop.ModelComparison#IDENTITY} suppresses all equal models without
+ * calling {@code equals}, and so does comparing parts of consecutive models by reference in
+ * observers. The canonicalizer runs on the event runner, as part of every update that returns a
+ * model.
+ */
+public final class Interning {
+
+  private Interning() {
+    // prevent instantiation
+  }
+
+  /**
+   * Wrap an update function so that the models it returns are canonicalized.
+   *
+   * @param update the update function to wrap
+   * @param canonicalizer a function returning a model equal to its input, built from interned parts
+   * @param <M> the model type
+   * @param <E> the event type
+   * @param <F> the effect type
+   */
+  public static <M, E, F> Update<M, E, F> update(
+      final Update<M, E, F> update, final Function<M, M> canonicalizer) {
+    checkNotNull(update);
+    checkNotNull(canonicalizer);
+
+    return new Update<M, E, F>() {
+      @Nonnull
+      @Override
+      public Next<M, F> update(M model, E event) {
+        Next<M, F> next = update.update(model, event);
+
+        if (!next.hasModel()) {
+          return next;
+        }
+
+        return Next.next(
+            checkNotNull(canonicalizer.apply(next.modelUnsafe())),
+            next.effects(),
+            next.lazyEffects());
+      }
+    };
+  }
+
+  /**
+   * Wrap an init function so that the models it returns are canonicalized.
+   *
+   * @param init the init function to wrap
+   * @param canonicalizer a function returning a model equal to its input, built from interned parts
+   * @param <M> the model type
+   * @param <F> the effect type
+   */
+  public static <M, F> Init<M, F> init(final Init<M, F> init, final Function<M, M> canonicalizer) {
+    checkNotNull(init);
+    checkNotNull(canonicalizer);
+
+    return new Init<M, F>() {
+      @Nonnull
+      @Override
+      public First<M, F> init(M model) {
+        First<M, F> first = init.init(model);
+
+        return First.first(
+            checkNotNull(canonicalizer.apply(first.model())), first.effects(), first.lazyEffects());
+      }
+    };
+  }
+}
@@ -26,6 +26,9 @@ import com.spotify.mobius.Next;
 import com.spotify.mobius.Update;
 import com.spotify.mobius.functions.BiFunction;
 import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.functions.Producer;
+import java.util.HashSet;
+import java.util.Set;
 import javax.annotation.Nonnull;
 
 /**
@@ -39,6 +42,10 @@ import javax.annotation.Nonnull;
  * <p>The outer update function must still make the decision if the inner update function should be
  * called or not, this class only helps with converting the types of the inner update function
  *
+ * <p>Since the {@link InnerEffectHandler} works with inner effects rather than producers of them,
+ * any {@link Next#lazyEffects() lazy effects} returned by the inner update function are evaluated
+ * as part of the outer update, and passed to the handler together with the eager effects.
+ *
  * @param <M> the outer model type
  * @param <E> the outer event type
  * @param <F> the outer effect type
@@ -74,7 +81,19 @@ public abstract class InnerUpdate<M, E, F, MI, EI, FI> implements Update<M, E, F
     }
 
     return checkNotNull(
-        innerEffectHandler().handleInnerEffects(newModel, modelUpdated, innerNext.effects()));
+        innerEffectHandler().handleInnerEffects(newModel, modelUpdated, allEffects(innerNext)));
+  }
+
+  private static <FI> Set<FI> allEffects(Next<?, FI> innerNext) {
+    if (innerNext.lazyEffects().isEmpty()) {
+      return innerNext.effects();
+    }
+
+    Set<FI> effects = new HashSet<>(innerNext.effects());
+    for (Producer<? extends FI> lazyEffect : innerNext.lazyEffects()) {
+      effects.add(checkNotNull(lazyEffect.get()));
+    }
+    return effects;
   }
 
   public static <M, E, F, MI, EI, FI> Builder<M, E, F, MI, EI, FI> builder() {
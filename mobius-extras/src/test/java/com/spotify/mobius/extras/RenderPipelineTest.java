@@ -0,0 +1,159 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RenderPipelineTest {
+
+  private QueueingWorkRunner mappingRunner;
+  private QueueingWorkRunner renderRunner;
+  private List<Integer> mapped;
+  private List<String> rendered;
+  private boolean viewDisposed;
+  private Connection<Integer> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    mappingRunner = new QueueingWorkRunner();
+    renderRunner = new QueueingWorkRunner();
+    mapped = new ArrayList<>();
+    rendered = new ArrayList<>();
+
+    connection =
+        RenderPipeline.<Integer, String, String>create(
+                model -> {
+                  if (model < 0) {
+                    throw new IllegalArgumentException("negative");
+                  }
+                  mapped.add(model);
+                  return "view state " + model;
+                },
+                output ->
+                    new Connection<String>() {
+                      @Override
+                      public void accept(String viewState) {
+                        rendered.add(viewState);
+                      }
+
+                      @Override
+                      public void dispose() {
+                        viewDisposed = true;
+                      }
+                    },
+                mappingRunner,
+                renderRunner)
+            .connect(new RecordingConsumer<>());
+  }
+
+  @Test
+  public void mapsOnlyLatestModel() throws Exception {
+    connection.accept(1);
+    connection.accept(2);
+    connection.accept(3);
+
+    assertThat(mappingRunner.tasks).hasSize(1);
+    mappingRunner.runAll();
+    renderRunner.runAll();
+
+    assertThat(mapped).containsExactly(3);
+    assertThat(rendered).containsExactly("view state 3");
+  }
+
+  @Test
+  public void keepsAtMostOneRenderPending() throws Exception {
+    connection.accept(1);
+    mappingRunner.runAll();
+    connection.accept(2);
+    mappingRunner.runAll();
+
+    assertThat(renderRunner.tasks).hasSize(1);
+    renderRunner.runAll();
+
+    assertThat(mapped).containsExactly(1, 2);
+    assertThat(rendered).containsExactly("view state 2");
+  }
+
+  @Test
+  public void rendersAgainAfterPendingRenderHasRun() throws Exception {
+    connection.accept(1);
+    mappingRunner.runAll();
+    renderRunner.runAll();
+    connection.accept(2);
+    mappingRunner.runAll();
+    renderRunner.runAll();
+
+    assertThat(rendered).containsExactly("view state 1", "view state 2");
+  }
+
+  @Test
+  public void continuesAfterMappingFails() throws Exception {
+    connection.accept(-1);
+    mappingRunner.runAll();
+    connection.accept(1);
+    mappingRunner.runAll();
+    renderRunner.runAll();
+
+    assertThat(rendered).containsExactly("view state 1");
+  }
+
+  @Test
+  public void rendersNothingAfterDisposal() throws Exception {
+    connection.accept(1);
+    mappingRunner.runAll();
+    connection.accept(2);
+    connection.dispose();
+    mappingRunner.runAll();
+    renderRunner.runAll();
+
+    assertThat(viewDisposed).isTrue();
+    assertThat(mapped).containsExactly(1);
+    assertThat(rendered).isEmpty();
+  }
+
+  private static class QueueingWorkRunner implements WorkRunner {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void post(Runnable runnable) {
+      tasks.add(runnable);
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+
+    @Override
+    public void dispose() {}
+  }
+}
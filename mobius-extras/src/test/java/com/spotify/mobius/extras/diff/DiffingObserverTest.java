@@ -0,0 +1,160 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DiffingObserverTest {
+
+  private QueueingWorkRunner diffRunner;
+  private QueueingWorkRunner renderRunner;
+  private List<ListDiff<String>> diffs;
+  private DiffingObserver<List<String>, List<String>, ListDiff<String>> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    diffRunner = new QueueingWorkRunner();
+    renderRunner = new QueueingWorkRunner();
+    diffs = new ArrayList<>();
+
+    underTest =
+        DiffingObserver.create(
+            model -> {
+              if (model.contains("boom")) {
+                throw new IllegalArgumentException("boom");
+              }
+              return model;
+            },
+            ListDiffer.<String>create(item -> item),
+            diffs::add,
+            diffRunner,
+            renderRunner);
+  }
+
+  @Test
+  public void firstDiffContainsTheWholePart() throws Exception {
+    underTest.accept(asList("a", "b"));
+    runAll();
+
+    assertThat(diffs).hasSize(1);
+    assertThat(diffs.get(0).applyTo(Collections.emptyList())).containsExactly("a", "b");
+  }
+
+  @Test
+  public void diffsOnlyLatestModelAgainstLastDiffedOne() throws Exception {
+    underTest.accept(asList("a"));
+    runAll();
+
+    underTest.accept(asList("a", "b"));
+    underTest.accept(asList("a", "b", "c"));
+    runAll();
+
+    assertThat(diffs).hasSize(2);
+    assertThat(diffs.get(1).changes())
+        .containsExactly(ListChange.insert(1, "b"), ListChange.insert(2, "c"));
+  }
+
+  @Test
+  public void passesOnEveryDiffInOrder() throws Exception {
+    underTest.accept(asList("a"));
+    diffRunner.runAll();
+    underTest.accept(asList("a", "b"));
+    diffRunner.runAll();
+
+    renderRunner.runAll();
+
+    assertThat(diffs).hasSize(2);
+    assertThat(diffs.get(1).applyTo(diffs.get(0).applyTo(Collections.emptyList())))
+        .containsExactly("a", "b");
+  }
+
+  @Test
+  public void skipsUnchangedParts() throws Exception {
+    List<String> model = asList("a");
+
+    underTest.accept(model);
+    runAll();
+    underTest.accept(model);
+    underTest.accept(new ArrayList<>(model));
+    runAll();
+
+    assertThat(diffs).hasSize(1);
+  }
+
+  @Test
+  public void keepsDiffingAfterErrors() throws Exception {
+    underTest.accept(asList("a"));
+    runAll();
+    underTest.accept(asList("boom"));
+    runAll();
+    underTest.accept(asList("b"));
+    runAll();
+
+    assertThat(diffs).hasSize(2);
+    assertThat(diffs.get(1).changes())
+        .containsExactly(ListChange.remove(0, "a"), ListChange.insert(0, "b"));
+  }
+
+  @Test
+  public void passesOnNoDiffsAfterDispose() throws Exception {
+    underTest.accept(asList("a"));
+    diffRunner.runAll();
+
+    underTest.dispose();
+    underTest.accept(asList("b"));
+    runAll();
+
+    assertThat(diffs).isEmpty();
+  }
+
+  private void runAll() {
+    diffRunner.runAll();
+    renderRunner.runAll();
+  }
+
+  private static class QueueingWorkRunner implements WorkRunner {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void post(Runnable runnable) {
+      tasks.add(runnable);
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+
+    @Override
+    public void dispose() {}
+  }
+}
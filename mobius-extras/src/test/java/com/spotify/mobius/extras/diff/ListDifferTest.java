@@ -0,0 +1,156 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class ListDifferTest {
+
+  private final ListDiffer<String> underTest = ListDiffer.create(item -> item.substring(0, 1));
+
+  @Test
+  public void reportsNothingForEqualLists() throws Exception {
+    assertThat(underTest.diff(asList("a", "b"), asList("a", "b"))).isNull();
+  }
+
+  @Test
+  public void reportsEverythingAsInsertedWithoutPreviousList() throws Exception {
+    ListDiff<String> diff = underTest.diff(null, asList("a", "b"));
+
+    assertThat(diff.changes())
+        .containsExactly(ListChange.insert(0, "a"), ListChange.insert(1, "b"));
+  }
+
+  @Test
+  public void reportsInsertsAndRemoves() throws Exception {
+    ListDiff<String> diff = underTest.diff(asList("a", "b", "c"), asList("a", "x", "c", "y"));
+
+    assertThat(diff.changes())
+        .containsExactly(
+            ListChange.remove(1, "b"), ListChange.insert(1, "x"), ListChange.insert(3, "y"));
+  }
+
+  @Test
+  public void reportsItemsWithMatchingKeysAsMoved() throws Exception {
+    ListDiff<String> diff = underTest.diff(asList("a", "b", "c"), asList("c", "a", "b"));
+
+    assertThat(diff.changes()).containsExactly(ListChange.move(2, 0, "c"));
+  }
+
+  @Test
+  public void reportsItemsWithMatchingKeysButDifferentValuesAsChanged() throws Exception {
+    ListDiff<String> diff = underTest.diff(asList("a1", "b1"), asList("a1", "b2"));
+
+    assertThat(diff.changes()).containsExactly(ListChange.change(1, 1, "b2"));
+  }
+
+  @Test
+  public void movedItemsCarryTheirNewValue() throws Exception {
+    ListDiff<String> diff = underTest.diff(asList("a1", "b1", "c1"), asList("c2", "a1", "b1"));
+
+    assertThat(diff.changes()).containsExactly(ListChange.move(2, 0, "c2"));
+  }
+
+  @Test
+  public void keepsAsManyItemsAsPossibleInPlace() throws Exception {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 500; round++) {
+      List<String> previous = randomList(random);
+      List<String> current = randomList(random);
+
+      ListDiff<String> diff = ListDiffer.<String>create(item -> item).diff(previous, current);
+
+      int edits = 0;
+      if (diff != null) {
+        for (ListChange<String> change : diff.changes()) {
+          edits += change.type() == ListChange.Type.MOVE ? 2 : 1;
+        }
+      }
+      int longestCommonSubsequence = lcsLength(previous, current);
+      assertThat(edits)
+          .as("edits from %s to %s", previous, current)
+          .isEqualTo(previous.size() + current.size() - 2 * longestCommonSubsequence);
+    }
+  }
+
+  @Test
+  public void diffsCanBeAppliedToPreviousList() throws Exception {
+    Random random = new Random(4711);
+
+    for (int round = 0; round < 500; round++) {
+      List<String> previous = randomList(random);
+      List<String> current = randomList(random);
+
+      ListDiff<String> diff = underTest.diff(previous, current);
+
+      List<String> applied = diff == null ? previous : diff.applyTo(previous);
+      assertThat(applied).as("applying diff from %s", previous).isEqualTo(current);
+    }
+  }
+
+  @Test
+  public void diffsLargeListsWithFewChanges() throws Exception {
+    List<Integer> previous = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      previous.add(i);
+    }
+    List<Integer> current = new ArrayList<>(previous);
+    current.remove(50_000);
+    current.add(10, -1);
+    Collections.swap(current, 0, 99_998);
+
+    ListDiff<Integer> diff = ListDiffer.<Integer>create(item -> item).diff(previous, current);
+
+    assertThat(diff.changes()).hasSize(4);
+    assertThat(diff.applyTo(previous)).isEqualTo(current);
+  }
+
+  private static List<String> randomList(Random random) {
+    // a few distinct keys with a few distinct values each, so that keys repeat within and across
+    // lists.
+    List<String> list = new ArrayList<>();
+    int size = random.nextInt(12);
+    for (int i = 0; i < size; i++) {
+      list.add(String.valueOf((char) ('a' + random.nextInt(6))) + random.nextInt(2));
+    }
+    return list;
+  }
+
+  private static int lcsLength(List<String> a, List<String> b) {
+    int[][] lengths = new int[a.size() + 1][b.size() + 1];
+    for (int i = a.size() - 1; i >= 0; i--) {
+      for (int j = b.size() - 1; j >= 0; j--) {
+        lengths[i][j] =
+            a.get(i).equals(b.get(j))
+                ? lengths[i + 1][j + 1] + 1
+                : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+      }
+    }
+    return lengths[0][0];
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.diff;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+public class MapDifferTest {
+
+  private final MapDiffer<String, Integer> underTest = MapDiffer.create();
+
+  @Test
+  public void reportsNothingForEqualMaps() throws Exception {
+    assertThat(underTest.diff(ImmutableMap.of("a", 1), ImmutableMap.of("a", 1))).isNull();
+  }
+
+  @Test
+  public void reportsEverythingAsAddedWithoutPreviousMap() throws Exception {
+    MapDiff<String, Integer> diff = underTest.diff(null, ImmutableMap.of("a", 1));
+
+    assertThat(diff.added()).isEqualTo(ImmutableMap.of("a", 1));
+    assertThat(diff.removed()).isEmpty();
+    assertThat(diff.changed()).isEmpty();
+  }
+
+  @Test
+  public void reportsAddedRemovedAndChangedEntries() throws Exception {
+    MapDiff<String, Integer> diff =
+        underTest.diff(
+            ImmutableMap.of("kept", 1, "removed", 2, "changed", 3),
+            ImmutableMap.of("kept", 1, "changed", 4, "added", 5));
+
+    assertThat(diff.added()).isEqualTo(ImmutableMap.of("added", 5));
+    assertThat(diff.removed()).isEqualTo(ImmutableMap.of("removed", 2));
+    assertThat(diff.changed()).isEqualTo(ImmutableMap.of("changed", 4));
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveConcurrencyConnectableTest {
+
+  private Queue<Runnable> tasks;
+  private AtomicLong time;
+  private RecordingConsumer<String> consumer;
+  private AdaptiveConcurrencyConnectable<Integer, String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    tasks = new ArrayDeque<>();
+    time = new AtomicLong();
+    consumer = new RecordingConsumer<>();
+
+    underTest = builder().initialLimit(2).maxLimit(3).build(tasks::add);
+  }
+
+  private AdaptiveConcurrencyConnectable.Builder<Integer, String> builder() {
+    // effects are the number of milliseconds the handler takes; negative values throw
+    return AdaptiveConcurrencyConnectable.<Integer, String>builder(
+            millis -> {
+              if (millis < 0) {
+                throw new RuntimeException("expected");
+              }
+              time.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+              return "handled " + millis;
+            })
+        .minLimit(1)
+        .latencyThreshold(100, TimeUnit.MILLISECONDS)
+        .backoffRatio(0.5)
+        .ticker(time::get);
+  }
+
+  @Test
+  public void queuesEffectsBeyondTheLimit() throws Exception {
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    connection.accept(10);
+    connection.accept(20);
+    connection.accept(30);
+
+    assertThat(underTest.limit()).isEqualTo(2);
+    assertThat(underTest.inFlight()).isEqualTo(2);
+    assertThat(underTest.queueLength()).isEqualTo(1);
+    assertThat(tasks).hasSize(2);
+  }
+
+  @Test
+  public void increasesLimitWhenHandlerIsFast() throws Exception {
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    connection.accept(10);
+    connection.accept(20);
+    connection.accept(30);
+    connection.accept(40);
+    tasks.remove().run();
+
+    assertThat(underTest.limit()).isEqualTo(3);
+    assertThat(underTest.inFlight()).isEqualTo(3);
+    assertThat(underTest.queueLength()).isEqualTo(0);
+    consumer.assertValues("handled 10");
+  }
+
+  @Test
+  public void doesNotIncreaseLimitBeyondMaximum() throws Exception {
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    for (int i = 0; i < 10; i++) {
+      connection.accept(10);
+    }
+    while (!tasks.isEmpty()) {
+      tasks.remove().run();
+    }
+
+    assertThat(underTest.limit()).isEqualTo(3);
+    assertThat(consumer.valueCount()).isEqualTo(10);
+  }
+
+  @Test
+  public void decreasesLimitWhenHandlerIsSlow() throws Exception {
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    connection.accept(200);
+    connection.accept(10);
+    connection.accept(10);
+    tasks.remove().run();
+
+    assertThat(underTest.limit()).isEqualTo(1);
+    assertThat(underTest.inFlight()).isEqualTo(1);
+    assertThat(underTest.queueLength()).isEqualTo(1);
+    consumer.assertValues("handled 200");
+  }
+
+  @Test
+  public void decreasesLimitWhenHandlerFails() throws Exception {
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    connection.accept(-1);
+    tasks.remove().run();
+
+    assertThat(underTest.limit()).isEqualTo(1);
+    assertThat(underTest.inFlight()).isEqualTo(0);
+    consumer.assertValues();
+  }
+
+  @Test
+  public void decreasesLimitOnlyOncePerWindow() throws Exception {
+    underTest = builder().initialLimit(8).maxLimit(8).build(tasks::add);
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    connection.accept(200);
+    connection.accept(200);
+    connection.accept(-1);
+    tasks.remove().run();
+    tasks.remove().run();
+    tasks.remove().run();
+
+    // the second and third effects started before the first one decreased the limit
+    assertThat(underTest.limit()).isEqualTo(4);
+
+    connection.accept(200);
+    tasks.remove().run();
+
+    assertThat(underTest.limit()).isEqualTo(2);
+  }
+
+  @Test
+  public void releasesPermitWhenExecutorRejectsEffect() throws Exception {
+    underTest =
+        builder()
+            .build(
+                task -> {
+                  throw new RejectedExecutionException("shutting down");
+                });
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    assertThatThrownBy(() -> connection.accept(10)).isInstanceOf(RejectedExecutionException.class);
+
+    assertThat(underTest.inFlight()).isEqualTo(0);
+  }
+
+  @Test
+  public void releasesPermitWhenExecutorRejectsQueuedEffect() throws Exception {
+    AtomicBoolean rejecting = new AtomicBoolean();
+    underTest =
+        builder()
+            .initialLimit(1)
+            .build(
+                task -> {
+                  if (rejecting.get()) {
+                    throw new RejectedExecutionException("shutting down");
+                  }
+                  tasks.add(task);
+                });
+    Connection<Integer> connection = underTest.connect(consumer);
+
+    connection.accept(10);
+    connection.accept(10);
+    rejecting.set(true);
+    tasks.remove().run();
+
+    assertThat(underTest.inFlight()).isEqualTo(0);
+    assertThat(underTest.queueLength()).isEqualTo(0);
+    consumer.assertValues("handled 10");
+  }
+
+  @Test
+  public void dropsQueuedEffectsAndEventsOnDispose() throws Exception {
+    Connection<Integer> connection = underTest.connect(consumer);
+    Connection<Integer> other = underTest.connect(new RecordingConsumer<>());
+
+    connection.accept(10);
+    connection.accept(10);
+    connection.accept(10);
+    other.accept(10);
+    connection.dispose();
+
+    assertThat(underTest.queueLength()).isEqualTo(1);
+
+    tasks.remove().run();
+    consumer.assertValues();
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchingConnectableTest {
+
+  private ScheduledExecutorService executor;
+  private List<List<Integer>> batches;
+  private Function<List<Integer>, List<String>> batchHandler;
+  private RecordingConsumer<String> consumer;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    batches = new CopyOnWriteArrayList<>();
+    batchHandler =
+        new Function<List<Integer>, List<String>>() {
+          @Nonnull
+          @Override
+          public List<String> apply(List<Integer> batch) {
+            batches.add(batch);
+            List<String> events = new ArrayList<>();
+            for (Integer effect : batch) {
+              events.add("saved " + effect);
+            }
+            return events;
+          }
+        };
+    consumer = new RecordingConsumer<>();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void handlesBatchWhenMaxSizeIsReached() throws Exception {
+    Connection<Integer> connection =
+        BatchingConnectable.create(batchHandler, 3, 1, TimeUnit.HOURS, executor).connect(consumer);
+
+    connection.accept(1);
+    connection.accept(2);
+    connection.accept(3);
+    connection.accept(4);
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> consumer.valueCount() == 3);
+    consumer.assertValues("saved 1", "saved 2", "saved 3");
+    assertThat(batches).containsExactly(Arrays.asList(1, 2, 3));
+  }
+
+  @Test
+  public void handlesBatchWhenMaxDelayHasPassed() throws Exception {
+    Connection<Integer> connection =
+        BatchingConnectable.create(batchHandler, 10, 50, TimeUnit.MILLISECONDS, executor)
+            .connect(consumer);
+
+    connection.accept(1);
+    connection.accept(2);
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> consumer.valueCount() == 2);
+    consumer.assertValues("saved 1", "saved 2");
+    assertThat(batches).containsExactly(Arrays.asList(1, 2));
+  }
+
+  @Test
+  public void startsNewBatchAfterPreviousBatchWasHandled() throws Exception {
+    Connection<Integer> connection =
+        BatchingConnectable.create(batchHandler, 2, 50, TimeUnit.MILLISECONDS, executor)
+            .connect(consumer);
+
+    connection.accept(1);
+    connection.accept(2);
+    connection.accept(3);
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> consumer.valueCount() == 3);
+    assertThat(batches).containsExactly(Arrays.asList(1, 2), Collections.singletonList(3));
+  }
+
+  @Test
+  public void ignoresTimerThatWasRunningWhenBatchFilledUp() throws Exception {
+    CapturingScheduler scheduler = new CapturingScheduler();
+    Connection<Integer> connection =
+        BatchingConnectable.create(batchHandler, 2, 1, TimeUnit.HOURS, scheduler).connect(consumer);
+
+    try {
+      connection.accept(1);
+      connection.accept(2);
+      connection.accept(3);
+
+      // the timer of the first batch, which was already running when the batch filled up
+      scheduler.timers.get(0).run();
+      connection.accept(4);
+
+      await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 2);
+      assertThat(batches).containsExactly(Arrays.asList(1, 2), Arrays.asList(3, 4));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void dropsPendingEffectsOnDispose() throws Exception {
+    Connection<Integer> connection =
+        BatchingConnectable.create(batchHandler, 10, 50, TimeUnit.MILLISECONDS, executor)
+            .connect(consumer);
+
+    connection.accept(1);
+    connection.dispose();
+    connection.accept(2);
+
+    Thread.sleep(150);
+    assertThat(batches).isEmpty();
+    consumer.assertValues();
+  }
+
+  @Test
+  public void emitsNothingIfBatchHandlerReturnsWrongNumberOfEvents() throws Exception {
+    Connection<Integer> connection =
+        BatchingConnectable.<Integer, String>create(
+                batch -> {
+                  batches.add(batch);
+                  return Collections.singletonList("saved all");
+                },
+                2,
+                1,
+                TimeUnit.HOURS,
+                executor)
+            .connect(consumer);
+
+    connection.accept(1);
+    connection.accept(2);
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 1);
+    executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+    consumer.assertValues();
+  }
+
+  /** Records scheduled timers instead of running them, so that tests can decide when they run. */
+  private static class CapturingScheduler extends ScheduledThreadPoolExecutor {
+    private final List<Runnable> timers = new CopyOnWriteArrayList<>();
+
+    CapturingScheduler() {
+      super(1);
+    }
+
+    @Nonnull
+    @Override
+    public ScheduledFuture<?> schedule(
+        @Nonnull Runnable command, long delay, @Nonnull TimeUnit unit) {
+      if (delay == 0) {
+        // execute() schedules its tasks without delay
+        return super.schedule(command, delay, unit);
+      }
+      timers.add(command);
+      return super.schedule(() -> {}, 1, TimeUnit.HOURS);
+    }
+  }
+}
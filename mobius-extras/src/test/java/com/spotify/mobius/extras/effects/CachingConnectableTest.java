@@ -0,0 +1,285 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.Update;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingConnectableTest {
+
+  private AtomicInteger invocations;
+  private AtomicLong time;
+  private RecordingConsumer<String> consumer;
+  private CachingConnectable.Builder<String, String> builder;
+
+  @Before
+  public void setUp() throws Exception {
+    invocations = new AtomicInteger();
+    time = new AtomicLong();
+    consumer = new RecordingConsumer<>();
+    builder =
+        CachingConnectable.<String, String>builder(
+                effect -> {
+                  invocations.incrementAndGet();
+                  return "result: " + effect;
+                })
+            .ticker(time::get);
+  }
+
+  @Test
+  public void servesRepeatedEffectsFromCache() throws Exception {
+    CachingConnectable<String, String> underTest = builder.build();
+    Connection<String> connection = underTest.connect(consumer);
+
+    connection.accept("a");
+    connection.accept("a");
+    connection.accept("b");
+
+    consumer.assertValues("result: a", "result: a", "result: b");
+    assertThat(invocations.get()).isEqualTo(2);
+    assertThat(underTest.stats()).isEqualTo(CacheStats.create(1, 2, 0));
+  }
+
+  @Test
+  public void handlesMissesOnExecutorAndEmitsHitsSynchronously() throws Exception {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    Connection<String> connection = builder.handleMissesOn(tasks::add).build().connect(consumer);
+
+    connection.accept("a");
+    consumer.assertValues();
+    assertThat(tasks).hasSize(1);
+
+    tasks.remove().run();
+    consumer.assertValues("result: a");
+
+    connection.accept("a");
+    consumer.assertValues("result: a", "result: a");
+    assertThat(tasks).isEmpty();
+    assertThat(invocations.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void sharesCacheBetweenConnections() throws Exception {
+    CachingConnectable<String, String> underTest = builder.build();
+    RecordingConsumer<String> otherConsumer = new RecordingConsumer<>();
+
+    underTest.connect(consumer).accept("a");
+    underTest.connect(otherConsumer).accept("a");
+
+    otherConsumer.assertValues("result: a");
+    assertThat(invocations.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void usesKeyFunction() throws Exception {
+    Connection<String> connection =
+        builder.keyFunction(effect -> effect.charAt(0)).build().connect(consumer);
+
+    connection.accept("abc");
+    connection.accept("axe");
+
+    consumer.assertValues("result: abc", "result: abc");
+  }
+
+  @Test
+  public void expiresEntriesAfterWrite() throws Exception {
+    CachingConnectable<String, String> underTest =
+        builder.expireAfterWrite(10, TimeUnit.NANOSECONDS).build();
+    Connection<String> connection = underTest.connect(consumer);
+
+    connection.accept("a");
+    time.set(9);
+    connection.accept("a");
+    time.set(10);
+    connection.accept("a");
+
+    assertThat(invocations.get()).isEqualTo(2);
+    assertThat(underTest.stats()).isEqualTo(CacheStats.create(1, 2, 1));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedEntryWhenFull() throws Exception {
+    CachingConnectable<String, String> underTest = builder.maximumSize(2).build();
+    Connection<String> connection = underTest.connect(consumer);
+
+    connection.accept("a");
+    connection.accept("b");
+    connection.accept("a");
+    connection.accept("c"); // evicts b
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(invocations.get()).isEqualTo(4);
+    assertThat(underTest.stats()).isEqualTo(CacheStats.create(2, 4, 2));
+  }
+
+  @Test
+  public void invalidatesEntryForEvent() throws Exception {
+    CachingConnectable<String, String> underTest =
+        builder
+            .invalidateOn(event -> event.startsWith("saved ") ? event.substring(6) : null)
+            .build();
+    Connection<String> connection = underTest.connect(consumer);
+
+    connection.accept("a");
+    connection.accept("b");
+    underTest.invalidate("unrelated");
+    underTest.invalidate("saved a");
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(invocations.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void invalidatesEntriesForEventsSeenByWrappedUpdate() throws Exception {
+    CachingConnectable<String, String> underTest =
+        builder
+            .invalidateOn(event -> event.startsWith("saved ") ? event.substring(6) : null)
+            .build();
+    Connection<String> connection = underTest.connect(consumer);
+    Update<String, String, String> update =
+        underTest.invalidating((model, event) -> Next.next(model + event));
+
+    connection.accept("a");
+    Next<String, String> next = update.update("model ", "saved a");
+    connection.accept("a");
+
+    assertThat(next.modelUnsafe()).isEqualTo("model saved a");
+    assertThat(invocations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void doesNotStoreResultThatWasInFlightWhenInvalidated() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch proceed = new CountDownLatch(1);
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.<String, String>builder(
+                effect -> {
+                  if (invocations.incrementAndGet() == 1) {
+                    started.countDown();
+                    await(proceed);
+                  }
+                  return "result " + invocations.get() + ": " + effect;
+                })
+            .invalidateOn(event -> event.startsWith("saved ") ? event.substring(6) : null)
+            .build();
+    Connection<String> connection = underTest.connect(consumer);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      Future<?> stale = executor.submit(() -> connection.accept("a"));
+      started.await(5, TimeUnit.SECONDS);
+      underTest.invalidate("saved a");
+      proceed.countDown();
+      stale.get(5, TimeUnit.SECONDS);
+
+      connection.accept("a");
+      connection.accept("a");
+    } finally {
+      executor.shutdownNow();
+    }
+
+    consumer.assertValues("result 1: a", "result 2: a", "result 2: a");
+  }
+
+  @Test
+  public void doesNotStoreResultThatWasInFlightWhenCacheWasCleared() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch proceed = new CountDownLatch(1);
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.<String, String>builder(
+                effect -> {
+                  if (invocations.incrementAndGet() == 1) {
+                    started.countDown();
+                    await(proceed);
+                  }
+                  return "result " + invocations.get() + ": " + effect;
+                })
+            .build();
+    Connection<String> connection = underTest.connect(consumer);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      Future<?> stale = executor.submit(() -> connection.accept("a"));
+      started.await(5, TimeUnit.SECONDS);
+      underTest.invalidateAll();
+      proceed.countDown();
+      stale.get(5, TimeUnit.SECONDS);
+
+      connection.accept("a");
+    } finally {
+      executor.shutdownNow();
+    }
+
+    consumer.assertValues("result 1: a", "result 2: a");
+  }
+
+  @Test
+  public void invalidateAllClearsCache() throws Exception {
+    CachingConnectable<String, String> underTest = builder.build();
+    Connection<String> connection = underTest.connect(consumer);
+
+    connection.accept("a");
+    underTest.invalidateAll();
+    connection.accept("a");
+
+    assertThat(invocations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void doesNotEmitAfterDispose() throws Exception {
+    Connection<String> connection = builder.build().connect(consumer);
+
+    connection.dispose();
+    connection.accept("a");
+
+    consumer.assertValues();
+  }
+
+  @Test
+  public void hitRateIsRatioOfHitsToRequests() throws Exception {
+    assertThat(CacheStats.create(0, 0, 0).hitRate()).isEqualTo(1.0);
+    assertThat(CacheStats.create(1, 3, 0).hitRate()).isEqualTo(0.25);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.extras.effects.CircuitBreakerConnectable.State;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CircuitBreakerConnectableTest {
+
+  private AtomicLong time;
+  private AtomicInteger invocations;
+  private RecordingConsumer<String> consumer;
+  private CircuitBreakerConnectable<Effect, String> underTest;
+  private Connection<Effect> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    time = new AtomicLong();
+    invocations = new AtomicInteger();
+    consumer = new RecordingConsumer<>();
+
+    underTest =
+        CircuitBreakerConnectable.<Effect, String>builder(
+                effect -> {
+                  invocations.incrementAndGet();
+                  effect.block();
+                  time.addAndGet(TimeUnit.MILLISECONDS.toNanos(effect.millis));
+                  if (effect.outcome.equals("throw")) {
+                    throw new RuntimeException("expected");
+                  }
+                  return effect.outcome;
+                },
+                effect -> "fallback")
+            .failureEvents(event -> event.equals("failed"))
+            .failureRateThreshold(0.5)
+            .slowCallThreshold(100, TimeUnit.MILLISECONDS)
+            .windowSize(4)
+            .minimumCalls(2)
+            .openDuration(1, TimeUnit.SECONDS)
+            .ticker(time::get)
+            .build();
+
+    connection = underTest.connect(consumer);
+  }
+
+  @Test
+  public void staysClosedWhileCallsSucceed() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      connection.accept(new Load("ok"));
+    }
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.CLOSED);
+    assertThat(invocations.get()).isEqualTo(10);
+  }
+
+  @Test
+  public void opensOnFailureEventsAndEmitsFallback() throws Exception {
+    connection.accept(new Load("ok"));
+    connection.accept(new Load("failed"));
+    connection.accept(new Load("ok"));
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+    assertThat(invocations.get()).isEqualTo(2);
+    consumer.assertValues("ok", "failed", "fallback");
+  }
+
+  @Test
+  public void opensOnSlowCalls() throws Exception {
+    connection.accept(new Load("ok", 200));
+    connection.accept(new Load("ok", 200));
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void recordsAndRethrowsExceptions() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      try {
+        connection.accept(new Load("throw"));
+        fail("expected exception");
+      } catch (RuntimeException e) {
+        assertThat(e).hasMessage("expected");
+      }
+    }
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void keepsSeparateBreakersPerEffectClass() throws Exception {
+    connection.accept(new Load("failed"));
+    connection.accept(new Load("failed"));
+    connection.accept(new Save("ok"));
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+    assertThat(underTest.state(Save.class)).isEqualTo(State.CLOSED);
+    consumer.assertValues("failed", "failed", "ok");
+  }
+
+  @Test
+  public void closesAfterSuccessfulProbe() throws Exception {
+    connection.accept(new Load("failed"));
+    connection.accept(new Load("failed"));
+
+    time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertThat(underTest.state(Load.class)).isEqualTo(State.HALF_OPEN);
+
+    connection.accept(new Load("ok"));
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.CLOSED);
+    consumer.assertValues("failed", "failed", "ok");
+  }
+
+  @Test
+  public void reopensAfterFailedProbe() throws Exception {
+    connection.accept(new Load("failed"));
+    connection.accept(new Load("failed"));
+
+    time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    connection.accept(new Load("failed"));
+    connection.accept(new Load("ok"));
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+    assertThat(invocations.get()).isEqualTo(3);
+    consumer.assertValues("failed", "failed", "failed", "fallback");
+  }
+
+  @Test
+  public void ignoresCallsStartedBeforeHalfOpenWhenProbing() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      // started while closed, and completes as a (slow) failure after the breaker is half-open
+      Load early = new Load("ok").blocking();
+      Future<?> earlyCall = executor.submit(() -> connection.accept(early));
+      early.started.await(5, TimeUnit.SECONDS);
+
+      connection.accept(new Load("failed"));
+      connection.accept(new Load("failed"));
+      time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+      Load probe = new Load("ok").blocking();
+      Future<?> probeCall = executor.submit(() -> connection.accept(probe));
+      probe.started.await(5, TimeUnit.SECONDS);
+
+      early.release.countDown();
+      earlyCall.get(5, TimeUnit.SECONDS);
+      assertThat(underTest.state(Load.class)).isEqualTo(State.HALF_OPEN);
+
+      probe.release.countDown();
+      probeCall.get(5, TimeUnit.SECONDS);
+      assertThat(underTest.state(Load.class)).isEqualTo(State.CLOSED);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void reopensWhenProbeDoesNotCompleteWithinOpenDuration() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      connection.accept(new Load("failed"));
+      connection.accept(new Load("failed"));
+      time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+      Load probe = new Load("ok").blocking();
+      Future<?> probeCall = executor.submit(() -> connection.accept(probe));
+      probe.started.await(5, TimeUnit.SECONDS);
+
+      time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+      assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+
+      connection.accept(new Load("ok"));
+      assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+
+      // the hung probe doesn't close the breaker when it eventually completes
+      probe.release.countDown();
+      probeCall.get(5, TimeUnit.SECONDS);
+      assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+
+      // and a new probe is let through once the breaker has been open for the open duration
+      time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+      connection.accept(new Load("ok"));
+      assertThat(underTest.state(Load.class)).isEqualTo(State.CLOSED);
+      assertThat(invocations.get()).isEqualTo(4);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void stateIsReportedForConcreteEffectClasses() throws Exception {
+    connection.accept(new Load("failed"));
+    connection.accept(new Load("failed"));
+
+    assertThat(underTest.state(Load.class)).isEqualTo(State.OPEN);
+    assertThat(underTest.state(Effect.class)).isEqualTo(State.CLOSED);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void stateRejectsAbstractEffectClasses() throws Exception {
+    CircuitBreakerConnectable.<Runnable, String>builder(effect -> "ok", effect -> "fallback")
+        .build()
+        .state(Runnable.class);
+  }
+
+  @Test
+  public void emitsNothingAfterDispose() throws Exception {
+    connection.dispose();
+
+    connection.accept(new Load("ok"));
+
+    assertThat(invocations.get()).isEqualTo(0);
+    consumer.assertValues();
+  }
+
+  private static class Effect {
+    final String outcome;
+    final long millis;
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    volatile boolean blocking;
+
+    Effect(String outcome, long millis) {
+      this.outcome = outcome;
+      this.millis = millis;
+    }
+
+    void block() {
+      started.countDown();
+      if (!blocking) {
+        return;
+      }
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  private static class Load extends Effect {
+    Load(String outcome) {
+      this(outcome, 0);
+    }
+
+    Load(String outcome, long millis) {
+      super(outcome, millis);
+    }
+
+    Load blocking() {
+      blocking = true;
+      return this;
+    }
+  }
+
+  private static class Save extends Effect {
+    Save(String outcome) {
+      super(outcome, 0);
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyedSerialConnectableTest {
+
+  private Queue<Runnable> tasks;
+  private List<String> handled;
+  private RecordingConsumer<String> consumer;
+  private Connection<String> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    tasks = new ArrayDeque<>();
+    handled = Collections.synchronizedList(new ArrayList<>());
+    consumer = new RecordingConsumer<>();
+
+    connection =
+        KeyedSerialConnectable.create(
+                new RecordingConnectable(), effect -> effect.charAt(0), tasks::add)
+            .connect(consumer);
+  }
+
+  @Test
+  public void deliversEffectsWithSameKeyInOrderFromOneTask() throws Exception {
+    connection.accept("a1");
+    connection.accept("a2");
+    connection.accept("a3");
+
+    assertThat(tasks).hasSize(1);
+
+    tasks.remove().run();
+
+    assertThat(handled).containsExactly("a1", "a2", "a3");
+    consumer.assertValues("handled a1", "handled a2", "handled a3");
+  }
+
+  @Test
+  public void deliversEffectsWithDifferentKeysFromSeparateTasks() throws Exception {
+    connection.accept("a1");
+    connection.accept("b1");
+    connection.accept("a2");
+
+    assertThat(tasks).hasSize(2);
+
+    tasks.remove().run();
+    assertThat(handled).containsExactly("a1", "a2");
+
+    tasks.remove().run();
+    assertThat(handled).containsExactly("a1", "a2", "b1");
+  }
+
+  @Test
+  public void forgetsKeyWhenExecutorRejectsDrainTask() throws Exception {
+    AtomicBoolean rejecting = new AtomicBoolean(true);
+    connection =
+        KeyedSerialConnectable.create(
+                new RecordingConnectable(),
+                effect -> effect.charAt(0),
+                task -> {
+                  if (rejecting.get()) {
+                    throw new RejectedExecutionException("shutting down");
+                  }
+                  tasks.add(task);
+                })
+            .connect(consumer);
+
+    assertThatThrownBy(() -> connection.accept("a1"))
+        .isInstanceOf(RejectedExecutionException.class);
+
+    rejecting.set(false);
+    connection.accept("a2");
+
+    assertThat(tasks).hasSize(1);
+    tasks.remove().run();
+    assertThat(handled).containsExactly("a2");
+  }
+
+  @Test
+  public void submitsNewTaskAfterKeyHasBeenDrained() throws Exception {
+    connection.accept("a1");
+    tasks.remove().run();
+
+    connection.accept("a2");
+
+    assertThat(tasks).hasSize(1);
+    tasks.remove().run();
+    assertThat(handled).containsExactly("a1", "a2");
+  }
+
+  @Test
+  public void continuesAfterHandlerThrows() throws Exception {
+    connection.accept("a!");
+    connection.accept("a2");
+
+    tasks.remove().run();
+
+    assertThat(handled).containsExactly("a!", "a2");
+  }
+
+  @Test
+  public void dropsUndeliveredEffectsOnDispose() throws Exception {
+    connection.accept("a1");
+    connection.dispose();
+    connection.accept("a2");
+
+    while (!tasks.isEmpty()) {
+      tasks.remove().run();
+    }
+
+    assertThat(handled).isEmpty();
+  }
+
+  @Test
+  public void preservesPerKeyOrderOnThreadPool() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      connection =
+          KeyedSerialConnectable.create(
+                  new RecordingConnectable(), effect -> effect.charAt(0), executor)
+              .connect(consumer);
+
+      for (int i = 0; i < 100; i++) {
+        for (char key = 'a'; key <= 'd'; key++) {
+          connection.accept(key + String.valueOf(i));
+        }
+      }
+
+      await().atMost(5, TimeUnit.SECONDS).until(() -> handled.size() == 400);
+
+      for (char key = 'a'; key <= 'd'; key++) {
+        List<String> forKey = new ArrayList<>();
+        for (String effect : new ArrayList<>(handled)) {
+          if (effect.charAt(0) == key) {
+            forKey.add(effect);
+          }
+        }
+        for (int i = 0; i < 100; i++) {
+          assertThat(forKey.get(i)).isEqualTo(key + String.valueOf(i));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private class RecordingConnectable implements Connectable<String, String> {
+    @Nonnull
+    @Override
+    public Connection<String> connect(final Consumer<String> output) {
+      return new Connection<String>() {
+        @Override
+        public void accept(String effect) {
+          handled.add(effect);
+          if (effect.endsWith("!")) {
+            throw new RuntimeException("expected");
+          }
+          output.accept("handled " + effect);
+        }
+
+        @Override
+        public void dispose() {}
+      };
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatestWinsConnectableTest {
+
+  private DeferredConnectable actual;
+  private RecordingConsumer<String> consumer;
+
+  @Before
+  public void setUp() throws Exception {
+    actual = new DeferredConnectable();
+    consumer = new RecordingConsumer<>();
+  }
+
+  @Test
+  public void emitsResultOfLatestEffect() throws Exception {
+    Connection<String> connection = LatestWinsConnectable.create(actual).connect(consumer);
+
+    connection.accept("a");
+    actual.complete(0);
+
+    consumer.assertValues("result: a");
+  }
+
+  @Test
+  public void cancelsPreviousExecutionWhenNewEffectArrives() throws Exception {
+    Connection<String> connection = LatestWinsConnectable.create(actual).connect(consumer);
+
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(actual.executions.get(0).disposed).isTrue();
+    assertThat(actual.executions.get(1).disposed).isFalse();
+  }
+
+  @Test
+  public void dropsResultOfSupersededExecution() throws Exception {
+    Connection<String> connection = LatestWinsConnectable.create(actual).connect(consumer);
+
+    connection.accept("a");
+    connection.accept("b");
+    actual.complete(0);
+    actual.complete(1);
+
+    consumer.assertValues("result: b");
+  }
+
+  @Test
+  public void onlyCancelsExecutionsWithTheSameKey() throws Exception {
+    Connection<String> connection =
+        LatestWinsConnectable.create(actual, (String effect) -> effect.charAt(0)).connect(consumer);
+
+    connection.accept("a1");
+    connection.accept("b1");
+    connection.accept("a2");
+    actual.complete(0);
+    actual.complete(1);
+    actual.complete(2);
+
+    consumer.assertValues("result: b1", "result: a2");
+  }
+
+  @Test
+  public void cancelsAllExecutionsOnDispose() throws Exception {
+    Connection<String> connection =
+        LatestWinsConnectable.create(actual, (String effect) -> effect).connect(consumer);
+
+    connection.accept("a");
+    connection.accept("b");
+    connection.dispose();
+    actual.complete(0);
+    actual.complete(1);
+
+    assertThat(actual.executions.get(0).disposed).isTrue();
+    assertThat(actual.executions.get(1).disposed).isTrue();
+    consumer.assertValues();
+  }
+
+  @Test
+  public void disposesExecutionsWhenTheyComplete() throws Exception {
+    Connection<String> connection =
+        LatestWinsConnectable.create(actual, (String effect) -> effect).connect(consumer);
+
+    for (int i = 0; i < 100; i++) {
+      connection.accept("effect" + i);
+      actual.complete(i);
+    }
+
+    assertThat(actual.executions).allMatch(execution -> execution.disposed);
+    assertThat(consumer.valueCount()).isEqualTo(100);
+  }
+
+  @Test
+  public void keepsExecutionsRunningUntilTheyEmitTheirFinalEvent() throws Exception {
+    Connection<String> connection =
+        LatestWinsConnectable.create(
+                actual, (String effect) -> effect, (String event) -> event.equals("done"))
+            .connect(consumer);
+
+    connection.accept("a");
+    actual.emit(0, "progress");
+
+    assertThat(actual.executions.get(0).disposed).isFalse();
+
+    actual.emit(0, "done");
+    actual.emit(0, "late");
+
+    assertThat(actual.executions.get(0).disposed).isTrue();
+    consumer.assertValues("progress", "done");
+  }
+
+  @Test
+  public void ignoresEffectsAfterDispose() throws Exception {
+    Connection<String> connection = LatestWinsConnectable.create(actual).connect(consumer);
+
+    connection.dispose();
+    connection.accept("a");
+
+    assertThat(actual.executions).isEmpty();
+  }
+
+  /** Connectable that only emits the result for an effect when asked to. */
+  private static class DeferredConnectable implements Connectable<String, String> {
+    private final List<Execution> executions = new ArrayList<>();
+
+    void complete(int index) {
+      Execution execution = executions.get(index);
+      execution.output.accept("result: " + execution.effect);
+    }
+
+    void emit(int index, String event) {
+      executions.get(index).output.accept(event);
+    }
+
+    @Nonnull
+    @Override
+    public Connection<String> connect(Consumer<String> output) {
+      return new Execution(output);
+    }
+
+    private class Execution implements Connection<String> {
+      private final Consumer<String> output;
+      private String effect;
+      private boolean disposed;
+
+      private Execution(Consumer<String> output) {
+        this.output = output;
+      }
+
+      @Override
+      public void accept(String value) {
+        effect = value;
+        executions.add(this);
+      }
+
+      @Override
+      public void dispose() {
+        disposed = true;
+      }
+    }
+  }
+}
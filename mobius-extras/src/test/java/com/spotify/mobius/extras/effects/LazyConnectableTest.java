@@ -0,0 +1,98 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.test.RecordingConsumer;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LazyConnectableTest {
+
+  private CountingConnectable actual;
+  private RecordingConsumer<String> consumer;
+  private Connection<String> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    actual = new CountingConnectable();
+    consumer = new RecordingConsumer<>();
+    connection = LazyConnectable.create(actual).connect(consumer);
+  }
+
+  @Test
+  public void doesNotConnectBeforeFirstEffect() throws Exception {
+    assertThat(actual.connections).isEqualTo(0);
+  }
+
+  @Test
+  public void connectsOnceOnFirstEffect() throws Exception {
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(actual.connections).isEqualTo(1);
+    consumer.assertValues("handled a", "handled b");
+  }
+
+  @Test
+  public void disposesConnectedDelegate() throws Exception {
+    connection.accept("a");
+    connection.dispose();
+
+    assertThat(actual.disposals).isEqualTo(1);
+  }
+
+  @Test
+  public void neverConnectsIfDisposedBeforeFirstEffect() throws Exception {
+    connection.dispose();
+    connection.accept("a");
+
+    assertThat(actual.connections).isEqualTo(0);
+    assertThat(actual.disposals).isEqualTo(0);
+    consumer.assertValues();
+  }
+
+  private static class CountingConnectable implements Connectable<String, String> {
+    private int connections;
+    private int disposals;
+
+    @Nonnull
+    @Override
+    public Connection<String> connect(Consumer<String> output) {
+      connections++;
+      return new Connection<String>() {
+        @Override
+        public void accept(String value) {
+          output.accept("handled " + value);
+        }
+
+        @Override
+        public void dispose() {
+          disposals++;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.extras.effects.SingleFlightConnectable.FanOut;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SingleFlightConnectableTest {
+
+  private ExecutorService executor;
+  private BlockingHandler handler;
+  private RecordingConsumer<String> consumer;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newCachedThreadPool();
+    handler = new BlockingHandler();
+    consumer = new RecordingConsumer<>();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    handler.release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void invokesHandlerForEachEffectWhenNothingIsInFlight() throws Exception {
+    handler.release.countDown();
+    Connection<String> connection = SingleFlightConnectable.create(handler).connect(consumer);
+
+    connection.accept("a");
+    connection.accept("a");
+
+    assertThat(handler.invocations.get()).isEqualTo(2);
+    consumer.assertValues("result: a", "result: a");
+  }
+
+  @Test
+  public void attachesEqualEffectsToInFlightExecution() throws Exception {
+    Connection<String> connection = SingleFlightConnectable.create(handler).connect(consumer);
+
+    Future<?> first = acceptAsync(connection, "a");
+    handler.started.await(5, TimeUnit.SECONDS);
+
+    connection.accept("a");
+    connection.accept("a");
+
+    handler.release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThat(handler.invocations.get()).isEqualTo(1);
+    consumer.assertValues("result: a", "result: a", "result: a");
+  }
+
+  @Test
+  public void doesNotCoalesceDifferentEffects() throws Exception {
+    Connection<String> connection = SingleFlightConnectable.create(handler).connect(consumer);
+
+    Future<?> first = acceptAsync(connection, "a");
+    handler.started.await(5, TimeUnit.SECONDS);
+    Future<?> second = acceptAsync(connection, "b");
+
+    handler.release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+
+    assertThat(handler.invocations.get()).isEqualTo(2);
+    consumer.assertValuesInAnyOrder("result: a", "result: b");
+  }
+
+  @Test
+  public void coalescesEffectsByKey() throws Exception {
+    Connection<String> connection =
+        SingleFlightConnectable.create(handler, firstLetter(), FanOut.PER_EFFECT).connect(consumer);
+
+    Future<?> first = acceptAsync(connection, "abc");
+    handler.started.await(5, TimeUnit.SECONDS);
+    connection.accept("axe");
+
+    handler.release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThat(handler.invocations.get()).isEqualTo(1);
+    consumer.assertValues("result: abc", "result: abc");
+  }
+
+  @Test
+  public void perConnectionFanOutEmitsOncePerConnection() throws Exception {
+    Connectable<String, String> underTest =
+        SingleFlightConnectable.create(handler, firstLetter(), FanOut.PER_CONNECTION);
+    RecordingConsumer<String> otherConsumer = new RecordingConsumer<>();
+    Connection<String> connection = underTest.connect(consumer);
+    Connection<String> otherConnection = underTest.connect(otherConsumer);
+
+    Future<?> first = acceptAsync(connection, "a");
+    handler.started.await(5, TimeUnit.SECONDS);
+    connection.accept("a");
+    otherConnection.accept("a");
+    otherConnection.accept("a");
+
+    handler.release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThat(handler.invocations.get()).isEqualTo(1);
+    consumer.assertValues("result: a");
+    otherConsumer.assertValues("result: a");
+  }
+
+  @Test
+  public void doesNotEmitToDisposedConnections() throws Exception {
+    Connectable<String, String> underTest = SingleFlightConnectable.create(handler);
+    RecordingConsumer<String> otherConsumer = new RecordingConsumer<>();
+    Connection<String> connection = underTest.connect(consumer);
+    Connection<String> otherConnection = underTest.connect(otherConsumer);
+
+    Future<?> first = acceptAsync(connection, "a");
+    handler.started.await(5, TimeUnit.SECONDS);
+    otherConnection.accept("a");
+    otherConnection.dispose();
+
+    handler.release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    consumer.assertValues("result: a");
+    otherConsumer.assertValues();
+  }
+
+  @Test
+  public void startsNewFlightAfterHandlerThrows() throws Exception {
+    Connection<String> connection =
+        SingleFlightConnectable.create(
+                new Function<String, String>() {
+                  private boolean thrown;
+
+                  @Nonnull
+                  @Override
+                  public String apply(String value) {
+                    if (!thrown) {
+                      thrown = true;
+                      throw new RuntimeException("expected");
+                    }
+                    return "result: " + value;
+                  }
+                })
+            .connect(consumer);
+
+    assertThatThrownBy(() -> connection.accept("a")).hasMessage("expected");
+
+    connection.accept("a");
+    consumer.assertValues("result: a");
+  }
+
+  @Test
+  public void emitsErrorEventForEveryAttachedEffectWhenHandlerThrows() throws Exception {
+    handler.fail = true;
+    Connection<String> connection =
+        SingleFlightConnectable.builder(handler)
+            .keyFunction(firstLetter())
+            .withErrorEvent(effect -> "failed: " + effect)
+            .build()
+            .connect(consumer);
+
+    Future<?> first = acceptAsync(connection, "abc");
+    handler.started.await(5, TimeUnit.SECONDS);
+    connection.accept("axe");
+
+    handler.release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThat(handler.invocations.get()).isEqualTo(1);
+    consumer.assertValues("failed: abc", "failed: axe");
+  }
+
+  @Test
+  public void emitsErrorEventOncePerConnectionWithPerConnectionFanOut() throws Exception {
+    handler.fail = true;
+    Connectable<String, String> underTest =
+        SingleFlightConnectable.builder(handler)
+            .fanOut(FanOut.PER_CONNECTION)
+            .withErrorEvent(effect -> "failed: " + effect)
+            .build();
+    RecordingConsumer<String> otherConsumer = new RecordingConsumer<>();
+    Connection<String> connection = underTest.connect(consumer);
+    Connection<String> otherConnection = underTest.connect(otherConsumer);
+
+    Future<?> first = acceptAsync(connection, "a");
+    handler.started.await(5, TimeUnit.SECONDS);
+    connection.accept("a");
+    otherConnection.accept("a");
+
+    handler.release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    consumer.assertValues("failed: a");
+    otherConsumer.assertValues("failed: a");
+  }
+
+  private Future<?> acceptAsync(Connection<String> connection, String effect) {
+    return executor.submit(() -> connection.accept(effect));
+  }
+
+  private static Function<String, Character> firstLetter() {
+    return value -> value.charAt(0);
+  }
+
+  private static class BlockingHandler implements Function<String, String> {
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean fail;
+
+    @Nonnull
+    @Override
+    public String apply(String value) {
+      invocations.incrementAndGet();
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      if (fail) {
+        throw new RuntimeException("expected");
+      }
+      return "result: " + value;
+    }
+  }
+}
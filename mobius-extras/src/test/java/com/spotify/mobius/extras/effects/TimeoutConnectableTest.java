@@ -0,0 +1,230 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimeoutConnectableTest {
+
+  private ExecutorService executor;
+  private ScheduledExecutorService scheduler;
+  private CountDownLatch hanging;
+  private CountDownLatch interrupted;
+  private RecordingConsumer<String> consumer;
+  private Connectable<Effect, String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newCachedThreadPool();
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    hanging = new CountDownLatch(1);
+    interrupted = new CountDownLatch(1);
+    consumer = new RecordingConsumer<>();
+
+    underTest =
+        TimeoutConnectable.builder(
+                new Function<Effect, String>() {
+                  @Nonnull
+                  @Override
+                  public String apply(Effect effect) {
+                    if (effect.name.equals("fail")) {
+                      throw new RuntimeException("expected");
+                    }
+                    if (effect instanceof Hang) {
+                      hanging.countDown();
+                      try {
+                        new CountDownLatch(1).await();
+                      } catch (InterruptedException e) {
+                        interrupted.countDown();
+                      }
+                    }
+                    return "done " + effect.name;
+                  }
+                })
+            .withTimeout(
+                Hang.class,
+                50,
+                TimeUnit.MILLISECONDS,
+                new Function<Hang, String>() {
+                  @Nonnull
+                  @Override
+                  public String apply(Hang effect) {
+                    return "timed out " + effect.name;
+                  }
+                })
+            .withTimeout(
+                Quick.class,
+                1,
+                TimeUnit.HOURS,
+                new Function<Quick, String>() {
+                  @Nonnull
+                  @Override
+                  public String apply(Quick effect) {
+                    return "timed out " + effect.name;
+                  }
+                })
+            .build(executor, scheduler);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void emitsHandlerEventIfHandlerCompletesInTime() throws Exception {
+    Connection<Effect> connection = underTest.connect(consumer);
+
+    connection.accept(new Quick("a"));
+
+    consumer.waitForChange(1000);
+    consumer.assertValues("done a");
+  }
+
+  @Test
+  public void emitsTimeoutEventAndInterruptsHandlerIfDeadlinePasses() throws Exception {
+    Connection<Effect> connection = underTest.connect(consumer);
+
+    connection.accept(new Hang("b"));
+
+    consumer.waitForChange(1000);
+    assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    consumer.assertValues("timed out b");
+  }
+
+  @Test
+  public void handlesEffectsWithoutConfiguredTimeoutWithoutDeadline() throws Exception {
+    Connection<Effect> connection = underTest.connect(consumer);
+
+    connection.accept(new Other("c"));
+
+    consumer.waitForChange(1000);
+    consumer.assertValues("done c");
+  }
+
+  @Test
+  public void cancelsExecutionsOnDispose() throws Exception {
+    Connection<Effect> connection = underTest.connect(consumer);
+
+    connection.accept(new Hang("d"));
+    assertThat(hanging.await(1, TimeUnit.SECONDS)).isTrue();
+    connection.dispose();
+
+    assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    Thread.sleep(100);
+    consumer.assertValues();
+  }
+
+  @Test
+  public void emitsTimeoutEventEarlyIfHandlerThrows() throws Exception {
+    Connection<Effect> connection = underTest.connect(consumer);
+
+    connection.accept(new Quick("fail"));
+
+    consumer.waitForChange(1000);
+    consumer.assertValues("timed out fail");
+  }
+
+  @Test
+  public void emitsErrorEventIfHandlerThrows() throws Exception {
+    underTest =
+        TimeoutConnectable.<Effect, String>builder(
+                effect -> {
+                  throw new RuntimeException("expected");
+                })
+            .withTimeout(Quick.class, 1, TimeUnit.HOURS, effect -> "timed out " + effect.name)
+            .withErrorEvent(effect -> "failed " + effect.name)
+            .build(executor, scheduler);
+    Connection<Effect> connection = underTest.connect(consumer);
+
+    connection.accept(new Quick("g"));
+    connection.accept(new Other("h"));
+
+    await().atMost(1, TimeUnit.SECONDS).until(() -> consumer.valueCount() == 2);
+    consumer.assertValuesInAnyOrder("failed g", "failed h");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void disallowsTimeoutsForOverlappingClasses() throws Exception {
+    TimeoutConnectable.builder(
+            new Function<Effect, String>() {
+              @Nonnull
+              @Override
+              public String apply(Effect effect) {
+                return "";
+              }
+            })
+        .withTimeout(Effect.class, 1, TimeUnit.SECONDS, effect -> "")
+        .withTimeout(Hang.class, 1, TimeUnit.SECONDS, effect -> "");
+  }
+
+  @Test
+  public void appliesDeadlinesPerEffect() throws Exception {
+    Connection<Effect> connection = underTest.connect(consumer);
+
+    connection.accept(new Hang("e"));
+    connection.accept(new Quick("f"));
+
+    await().atMost(1, TimeUnit.SECONDS).until(() -> consumer.valueCount() == 2);
+    consumer.assertValuesInAnyOrder("timed out e", "done f");
+  }
+
+  private static class Effect {
+    final String name;
+
+    Effect(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Hang extends Effect {
+    Hang(String name) {
+      super(name);
+    }
+  }
+
+  private static class Quick extends Effect {
+    Quick(String name) {
+      super(name);
+    }
+  }
+
+  private static class Other extends Effect {
+    Other(String name) {
+      super(name);
+    }
+  }
+}
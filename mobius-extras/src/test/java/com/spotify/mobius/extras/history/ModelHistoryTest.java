@@ -0,0 +1,136 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.mobius.extras.diff.ListDiff;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelHistoryTest {
+
+  private CountingCodec codec;
+
+  @Before
+  public void setUp() throws Exception {
+    codec = new CountingCodec();
+  }
+
+  @Test
+  public void reconstructsRecordedModels() throws Exception {
+    ModelHistory<List<Integer>, ListDiff<Integer>> underTest = ModelHistory.create(codec, 10, 3);
+    List<List<Integer>> models = models(7);
+
+    models.forEach(underTest::accept);
+
+    assertThat(underTest.size()).isEqualTo(7);
+    for (int i = 0; i < 7; i++) {
+      assertThat(underTest.get(i)).isEqualTo(models.get(i));
+    }
+  }
+
+  @Test
+  public void onlyEncodesModelsBetweenKeyframes() throws Exception {
+    ModelHistory<List<Integer>, ListDiff<Integer>> underTest = ModelHistory.create(codec, 10, 3);
+    List<List<Integer>> models = models(7);
+
+    models.forEach(underTest::accept);
+
+    // models 0, 3 and 6 are keyframes
+    assertThat(codec.encodeCount).isEqualTo(4);
+    assertThat(underTest.get(3)).isSameAs(models.get(3));
+  }
+
+  @Test
+  public void dropsOldestModelsWhenFull() throws Exception {
+    ModelHistory<List<Integer>, ListDiff<Integer>> underTest = ModelHistory.create(codec, 4, 3);
+    List<List<Integer>> models = models(10);
+
+    models.forEach(underTest::accept);
+
+    assertThat(underTest.size()).isEqualTo(4);
+    for (int i = 0; i < 4; i++) {
+      assertThat(underTest.get(i)).isEqualTo(models.get(6 + i));
+    }
+  }
+
+  @Test
+  public void rejectsIndicesOutsideHistory() throws Exception {
+    ModelHistory<List<Integer>, ListDiff<Integer>> underTest = ModelHistory.create(codec, 4, 3);
+    underTest.accept(ImmutableList.of(1));
+
+    assertThatThrownBy(() -> underTest.get(1)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> underTest.get(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void startsWithKeyframeAfterClear() throws Exception {
+    ModelHistory<List<Integer>, ListDiff<Integer>> underTest = ModelHistory.create(codec, 4, 3);
+    underTest.accept(ImmutableList.of(1));
+
+    underTest.clear();
+    List<Integer> model = ImmutableList.of(2);
+    underTest.accept(model);
+
+    assertThat(underTest.size()).isEqualTo(1);
+    assertThat(underTest.get(0)).isSameAs(model);
+    assertThat(codec.encodeCount).isZero();
+  }
+
+  private static List<List<Integer>> models(int count) {
+    List<List<Integer>> models = new ArrayList<>();
+    List<Integer> model = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      model.add(i);
+      if (i % 3 == 2) {
+        model.remove(0);
+      }
+      models.add(ImmutableList.copyOf(model));
+    }
+
+    return models;
+  }
+
+  private static class CountingCodec implements DeltaCodec<List<Integer>, ListDiff<Integer>> {
+    private final ListDeltaCodec<Integer> delegate = ListDeltaCodec.create(item -> item);
+    private int encodeCount;
+
+    @Nullable
+    @Override
+    public ListDiff<Integer> encode(List<Integer> base, List<Integer> model) {
+      encodeCount++;
+      return delegate.encode(base, model);
+    }
+
+    @Nonnull
+    @Override
+    public List<Integer> decode(List<Integer> base, ListDiff<Integer> delta) {
+      return delegate.decode(base, delta);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.intern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class InternPoolTest {
+
+  @Test
+  public void returnsFirstInternedInstanceForEqualValues() throws Exception {
+    InternPool pool = InternPool.create();
+    String first = new String("config");
+    String second = new String("config");
+
+    assertThat(pool.intern(first)).isSameAs(first);
+    assertThat(pool.intern(second)).isSameAs(first);
+    assertThat(pool.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void doesNotMergeEqualValuesOfDifferentClasses() throws Exception {
+    InternPool pool = InternPool.create();
+    List<String> arrayList = new ArrayList<>(ImmutableList.of("a"));
+    List<String> immutableList = ImmutableList.of("a");
+
+    assertThat(pool.intern(arrayList)).isSameAs(arrayList);
+    assertThat(pool.intern(immutableList)).isSameAs(immutableList);
+    assertThat(pool.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void reportsHitsAndEstimatedBytesSaved() throws Exception {
+    InternPool pool = InternPool.create(value -> 10L * ((String) value).length());
+    String canonical = new String("abc");
+
+    pool.intern(canonical);
+    pool.intern(new String("abc"));
+    pool.intern(canonical);
+    pool.intern(new String("other"));
+
+    InternStats stats = pool.stats();
+    assertThat(stats.requestCount()).isEqualTo(4);
+    // interning the canonical instance again isn't a hit
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.hitRate()).isEqualTo(0.25);
+    assertThat(stats.estimatedBytesSaved()).isEqualTo(30);
+    assertThat(stats.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void releasesValuesThatAreNoLongerReferenced() throws Exception {
+    InternPool pool = InternPool.create();
+    pool.intern(new String("garbage"));
+
+    await()
+        .atMost(5, TimeUnit.SECONDS)
+        .until(
+            () -> {
+              System.gc();
+              return pool.size() == 0;
+            });
+
+    String replacement = new String("garbage");
+    assertThat(pool.intern(replacement)).isSameAs(replacement);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.intern;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.First;
+import com.spotify.mobius.Init;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.Update;
+import com.spotify.mobius.functions.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InterningTest {
+
+  private InternPool pool;
+  private Function<String, String> canonicalizer;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = InternPool.create();
+    canonicalizer = pool::intern;
+  }
+
+  @Test
+  public void updateReturnsCanonicalModels() throws Exception {
+    Update<String, String, Integer> underTest =
+        Interning.update((model, event) -> Next.next(model + event, effects(1)), canonicalizer);
+
+    Next<String, Integer> first = underTest.update("a", "b");
+    Next<String, Integer> second = underTest.update("a", "b");
+
+    assertThat(second.modelUnsafe()).isSameAs(first.modelUnsafe());
+    assertThat(second.effects()).containsExactly(1);
+  }
+
+  @Test
+  public void updatePassesOnNextsWithoutModels() throws Exception {
+    Update<String, String, Integer> underTest =
+        Interning.update((model, event) -> Next.dispatch(effects(2)), canonicalizer);
+
+    Next<String, Integer> next = underTest.update("a", "b");
+
+    assertThat(next.hasModel()).isFalse();
+    assertThat(next.effects()).containsExactly(2);
+    assertThat(pool.stats().requestCount()).isZero();
+  }
+
+  @Test
+  public void initReturnsCanonicalModels() throws Exception {
+    String canonical = pool.intern(new String("model"));
+    Init<String, Integer> underTest =
+        Interning.init(model -> First.first(new String(model), effects(3)), canonicalizer);
+
+    First<String, Integer> first = underTest.init("model");
+
+    assertThat(first.model()).isSameAs(canonical);
+    assertThat(first.effects()).containsExactly(3);
+  }
+}
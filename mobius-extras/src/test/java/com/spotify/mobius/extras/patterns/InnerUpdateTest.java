@@ -26,6 +26,7 @@ import static com.spotify.mobius.extras.patterns.InnerEffectHandlers.ignoreEffec
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import com.spotify.mobius.Effects;
 import com.spotify.mobius.Next;
 import com.spotify.mobius.test.NextMatchers;
 import org.junit.Test;
@@ -185,6 +186,23 @@ public class InnerUpdateTest {
     assertThat(next, NextMatchers.<String, String>hasModel("effect_handler"));
   }
 
+  @Test
+  public void lazyEffectsAreEvaluatedAndPassedToInnerEffectHandler() throws Exception {
+    InnerUpdate<String, String, String, String, String, String> innerUpdate =
+        InnerUpdate.<String, String, String, String, String, String>builder()
+            .modelExtractor(m -> m)
+            .eventExtractor(e -> e)
+            .innerUpdate(
+                (model, event) -> dispatch(effects("1"), Effects.<String>lazyEffects(() -> "2")))
+            .modelUpdater((m, mi) -> mi)
+            .innerEffectHandler((model, updated, effects) -> dispatch(effects))
+            .build();
+
+    Next<String, String> next = innerUpdate.update("model", "event");
+
+    assertThat(next, NextMatchers.<String, String>hasEffects("1", "2"));
+  }
+
   @Test
   public void noEffectsStillCallsInnerEffectHandler() throws Exception {
     InnerUpdate<String, String, String, String, String, String> innerUpdate =
@@ -33,7 +33,9 @@ import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
 import io.reactivex.plugins.RxJavaPlugins;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /** Factory methods for wrapping Mobius core classes in observable tranformers. */
 public final class RxMobius {
@@ -105,6 +107,8 @@ public final class RxMobius {
   public static class SubtypeEffectHandlerBuilder<F, E> {
 
     private final Map<Class<?>, ObservableTransformer<F, E>> effectPerformerMap = new HashMap<>();
+    private final Map<Class<?>, ObservableTransformer<F, E>> lazyEffectPerformerMap =
+        new HashMap<>();
     private OnErrorFunction<ObservableTransformer<? extends F, E>, Consumer<Throwable>>
         onErrorFunction =
             new OnErrorFunction<ObservableTransformer<? extends F, E>, Consumer<Throwable>>() {
@@ -114,6 +118,7 @@ public final class RxMobius {
                 return defaultOnError(effectHandler);
               }
             };
+    private boolean connectLazily;
 
     private SubtypeEffectHandlerBuilder() {}
 
@@ -170,20 +175,30 @@ public final class RxMobius {
       }
 
       effectPerformerMap.put(
+          effectClass, subtypeTransformer(effectClass, effectHandler, effectHandler));
+      lazyEffectPerformerMap.put(
           effectClass,
-          new ObservableTransformer<F, E>() {
-            @Override
-            public Observable<E> apply(Observable<F> effects) {
-              return effects
-                  .ofType(effectClass)
-                  .compose(effectHandler)
-                  .doOnError(onErrorFunction.apply(effectHandler));
-            }
-          });
+          subtypeTransformer(
+              effectClass, effectHandler, Transformers.connectOnFirstEffect(effectHandler)));
 
       return this;
     }
 
+    private <G extends F> ObservableTransformer<F, E> subtypeTransformer(
+        final Class<G> effectClass,
+        final ObservableTransformer<G, E> effectHandler,
+        final ObservableTransformer<G, E> connectedHandler) {
+      return new ObservableTransformer<F, E>() {
+        @Override
+        public Observable<E> apply(Observable<F> effects) {
+          return effects
+              .ofType(effectClass)
+              .compose(connectedHandler)
+              .doOnError(onErrorFunction.apply(effectHandler));
+        }
+      };
+    }
+
     /**
      * Add an {@link Action} for handling effects of a given type. The action will be invoked once
      * for every received effect object that extends the given class.
@@ -321,6 +336,284 @@ public final class RxMobius {
       return addTransformer(effectClass, Transformers.fromFunction(function, scheduler));
     }
 
+    /**
+     * Add a {@link Function} for handling effects of a given type, coalescing identical in-flight
+     * effects. If an effect arrives while an equal effect is still being handled, the function
+     * won't be invoked again; instead, the event returned by the in-flight invocation will be
+     * forwarded to the Mobius loop once for each of the coalesced effects.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param function the function that should be invoked for the effect
+     * @param scheduler the scheduler that should be used when invoking the function
+     * @param <G> the effect class as a type parameter
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F> SubtypeEffectHandlerBuilder<F, E> addSingleFlightFunction(
+        final Class<G> effectClass, final Function<G, E> function, Scheduler scheduler) {
+      return addSingleFlightFunction(
+          effectClass,
+          new Function<G, G>() {
+            @Override
+            public G apply(G effect) {
+              return effect;
+            }
+          },
+          function,
+          scheduler);
+    }
+
+    /**
+     * Add a {@link Function} for handling effects of a given type, coalescing in-flight effects
+     * that have the same key. If an effect arrives while another effect with an equal key is still
+     * being handled, the function won't be invoked again; instead, the event returned by the
+     * in-flight invocation will be forwarded to the Mobius loop once for each of the coalesced
+     * effects.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param keyFunction the function that returns the key to coalesce effects by
+     * @param function the function that should be invoked for the effect
+     * @param scheduler the scheduler that should be used when invoking the function
+     * @param <G> the effect class as a type parameter
+     * @param <K> the key type
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F, K> SubtypeEffectHandlerBuilder<F, E> addSingleFlightFunction(
+        final Class<G> effectClass,
+        final Function<G, K> keyFunction,
+        final Function<G, E> function,
+        Scheduler scheduler) {
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectClass);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(keyFunction);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(function);
+
+      return addTransformer(
+          effectClass, Transformers.singleFlight(keyFunction, function, scheduler));
+    }
+
+    /**
+     * Add an {@link ObservableTransformer} for handling effects of a given type with "latest wins"
+     * semantics. The transformer is applied to each effect separately, and when a new effect of the
+     * given type is received, the handling of the previous one is disposed of and any events it
+     * hasn't emitted yet are dropped.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param effectHandler the effect handler for the given effect class
+     * @param <G> the effect class as a type parameter
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F> SubtypeEffectHandlerBuilder<F, E> addLatestWinsTransformer(
+        final Class<G> effectClass, final ObservableTransformer<G, E> effectHandler) {
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectClass);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectHandler);
+
+      return addTransformer(effectClass, Transformers.latestWins(effectHandler));
+    }
+
+    /**
+     * Add an {@link ObservableTransformer} for handling effects of a given type with "latest wins"
+     * semantics per key. The transformer is applied to each effect separately, and when a new
+     * effect of the given type is received, the handling of the previous effect with an equal key
+     * is disposed of and any events it hasn't emitted yet are dropped.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param keyFunction the function that returns the key that effects are grouped by
+     * @param effectHandler the effect handler for the given effect class
+     * @param <G> the effect class as a type parameter
+     * @param <K> the key type
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F, K> SubtypeEffectHandlerBuilder<F, E> addLatestWinsTransformer(
+        final Class<G> effectClass,
+        final Function<G, K> keyFunction,
+        final ObservableTransformer<G, E> effectHandler) {
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectClass);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(keyFunction);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectHandler);
+
+      return addTransformer(effectClass, Transformers.latestWins(keyFunction, effectHandler));
+    }
+
+    /**
+     * Add a {@link Function} for handling effects of a given type with "latest wins" semantics.
+     * When a new effect of the given type is received, the invocation for the previous one is
+     * disposed of and its result is dropped.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param function the function that should be invoked for the effect
+     * @param scheduler the scheduler that should be used when invoking the function
+     * @param <G> the effect class as a type parameter
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F> SubtypeEffectHandlerBuilder<F, E> addLatestWinsFunction(
+        final Class<G> effectClass, final Function<G, E> function, Scheduler scheduler) {
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectClass);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(function);
+
+      return addLatestWinsTransformer(effectClass, Transformers.fromFunction(function, scheduler));
+    }
+
+    /**
+     * Add an {@link ObservableTransformer} for handling effects of a given type, with a deadline on
+     * each effect. Every effect is handled separately by the transformer, and if it hasn't emitted
+     * an event within the timeout, its handling is disposed of and the event returned by {@code
+     * timeoutFunction} is forwarded to the Mobius loop instead.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param effectHandler the effect handler for the given effect class
+     * @param timeout the maximum time to wait for the first event for an effect
+     * @param unit the unit of {@code timeout}
+     * @param scheduler the scheduler used to wait for deadlines
+     * @param timeoutFunction the function returning the event to emit when an effect times out
+     * @param <G> the effect class as a type parameter
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F> SubtypeEffectHandlerBuilder<F, E> addTimeoutTransformer(
+        final Class<G> effectClass,
+        final ObservableTransformer<G, E> effectHandler,
+        long timeout,
+        TimeUnit unit,
+        Scheduler scheduler,
+        final Function<G, E> timeoutFunction) {
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectClass);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectHandler);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(unit);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(scheduler);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(timeoutFunction);
+
+      return addTransformer(
+          effectClass,
+          Transformers.timeout(effectHandler, timeout, unit, scheduler, timeoutFunction));
+    }
+
+    /**
+     * Add a {@link Function} for handling effects of a given type, with a deadline on each effect.
+     * The function will be invoked on the given scheduler once for every received effect object
+     * that extends the given class. If it hasn't returned within the timeout, its invocation is
+     * disposed of, interrupting the thread it runs on, and the event returned by {@code
+     * timeoutFunction} is forwarded to the Mobius loop instead.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param function the function that should be invoked for the effect
+     * @param scheduler the scheduler that should be used to invoke the function and to wait for its
+     *     deadline
+     * @param timeout the maximum time to wait for the function to return
+     * @param unit the unit of {@code timeout}
+     * @param timeoutFunction the function returning the event to emit when an effect times out
+     * @param <G> the effect class as a type parameter
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F> SubtypeEffectHandlerBuilder<F, E> addTimeoutFunction(
+        final Class<G> effectClass,
+        final Function<G, E> function,
+        Scheduler scheduler,
+        long timeout,
+        TimeUnit unit,
+        final Function<G, E> timeoutFunction) {
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(function);
+
+      return addTimeoutTransformer(
+          effectClass,
+          Transformers.fromFunction(function, scheduler),
+          timeout,
+          unit,
+          scheduler,
+          timeoutFunction);
+    }
+
+    /**
+     * Add a {@link Function} for handling batches of effects of a given type. Effects are collected
+     * for up to {@code maxBatchSize} items or {@code maxDelay}, whichever comes first, and the
+     * function is then invoked once with the whole batch. The function must return a list with the
+     * event for each effect, in the same order as the effects; the events will be forwarded to the
+     * Mobius loop.
+     *
+     * <p>Adding handlers for two effect classes where one is a super-class of the other is
+     * considered a collision and is not allowed. Registering the same class twice is also
+     * considered a collision.
+     *
+     * @param effectClass the class to handle
+     * @param batchFunction the function that should be invoked for each batch of effects
+     * @param maxBatchSize the maximum number of effects in a batch
+     * @param maxDelay the maximum time to wait for a batch to fill up
+     * @param unit the unit of {@code maxDelay}
+     * @param scheduler the scheduler that should be used for timing batches and invoking the
+     *     function
+     * @param <G> the effect class as a type parameter
+     * @return this builder
+     * @throws IllegalArgumentException if there is a handler collision
+     */
+    public <G extends F> SubtypeEffectHandlerBuilder<F, E> addBatchFunction(
+        final Class<G> effectClass,
+        final Function<List<G>, List<E>> batchFunction,
+        int maxBatchSize,
+        long maxDelay,
+        TimeUnit unit,
+        Scheduler scheduler) {
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(effectClass);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(batchFunction);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(unit);
+      //noinspection ResultOfMethodCallIgnored
+      checkNotNull(scheduler);
+
+      return addTransformer(
+          effectClass,
+          Transformers.batching(batchFunction, maxBatchSize, maxDelay, unit, scheduler));
+    }
+
     /**
      * Add an {@link Action} for handling effects of a given type. The action will be invoked once
      * for every received effect object that extends the given class.
@@ -451,8 +744,28 @@ public final class RxMobius {
       return this;
     }
 
+    /**
+     * Connect each sub-transformer on the first effect of its class, rather than when the effect
+     * handler is connected. This reduces the time it takes to start a loop whose effect handler has
+     * many sub-transformers, or sub-transformers that are expensive to set up, since only those
+     * that are actually used will be connected.
+     *
+     * <p>Note that sub-transformers that emit events without receiving effects will not emit any
+     * events until they have received their first effect.
+     *
+     * @return this builder
+     */
+    public SubtypeEffectHandlerBuilder<F, E> withLazyConnection() {
+      this.connectLazily = true;
+      return this;
+    }
+
     public ObservableTransformer<F, E> build() {
-      return new MobiusEffectRouter<>(effectPerformerMap.keySet(), effectPerformerMap.values());
+      // pick the performers once, so that calling withLazyConnection() on the builder later
+      // doesn't change how an already built effect handler connects
+      final Map<Class<?>, ObservableTransformer<F, E>> performers =
+          connectLazily ? lazyEffectPerformerMap : effectPerformerMap;
+      return new MobiusEffectRouter<>(performers.keySet(), performers.values());
     }
 
     private static <F, E> Consumer<Throwable> defaultOnError(
@@ -29,7 +29,12 @@ import io.reactivex.Scheduler;
 import io.reactivex.functions.Action;
 import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -202,4 +207,301 @@ class Transformers {
   static <F, E> ObservableTransformer<F, E> fromFunction(final Function<F, E> function) {
     return fromFunction(function, null);
   }
+
+  /**
+   * Creates an {@link ObservableTransformer} that invokes the provided {@link Function} for each
+   * effect it receives, but coalesces effects whose keys are equal to the key of an effect that is
+   * still being handled. Instead of invoking the function again, such effects are attached to the
+   * in-flight invocation, and the event it returns is emitted once for every attached effect.
+   *
+   * <p>In-flight invocations are shared between all subscriptions to the returned transformer.
+   *
+   * @param keyFunction {@link Function} returning the key to coalesce effects by
+   * @param function the {@link Function} to be invoked every time a new flight is started
+   * @param scheduler the {@link Scheduler} to be used when invoking the function
+   * @param <F> the type of Effect this transformer handles
+   * @param <E> the type of Event this transformer emits
+   * @param <K> the type of the key
+   * @return an {@link ObservableTransformer} that can be used with a {@link
+   *     SubtypeEffectHandlerBuilder}.
+   */
+  static <F, E, K> ObservableTransformer<F, E> singleFlight(
+      final Function<F, K> keyFunction,
+      final Function<F, E> function,
+      @Nullable final Scheduler scheduler) {
+    final Map<K, Observable<E>> flights = new HashMap<>();
+
+    return new ObservableTransformer<F, E>() {
+      @Override
+      public ObservableSource<E> apply(Observable<F> effectStream) {
+        return effectStream.flatMap(
+            new Function<F, ObservableSource<E>>() {
+              @Override
+              public ObservableSource<E> apply(final F f) throws Exception {
+                final K key = keyFunction.apply(f);
+
+                synchronized (flights) {
+                  Observable<E> flight = flights.get(key);
+                  if (flight != null) {
+                    return flight;
+                  }
+
+                  Observable<E> eventObservable =
+                      Observable.fromCallable(
+                          new Callable<E>() {
+                            @Override
+                            public E call() throws Exception {
+                              try {
+                                return function.apply(f);
+                              } finally {
+                                synchronized (flights) {
+                                  flights.remove(key);
+                                }
+                              }
+                            }
+                          });
+
+                  // cache() ensures that effects attached to the flight after it has completed
+                  // still get the result, rather than triggering a new invocation.
+                  flight =
+                      (scheduler == null ? eventObservable : eventObservable.subscribeOn(scheduler))
+                          .cache();
+                  flights.put(key, flight);
+                  return flight;
+                }
+              }
+            });
+      }
+    };
+  }
+
+  /**
+   * Creates an {@link ObservableTransformer} that gives "latest wins" semantics to the provided
+   * transformer: every effect is handled separately by the provided transformer, and when a new
+   * effect is received, the handling of the previous one is disposed of and any events it hasn't
+   * emitted yet are dropped.
+   *
+   * @param transformer the {@link ObservableTransformer} that should handle each effect
+   * @param <F> the type of Effect this transformer handles
+   * @param <E> the type of Event this transformer emits
+   * @return an {@link ObservableTransformer} that can be used with a {@link
+   *     SubtypeEffectHandlerBuilder}.
+   */
+  static <F, E> ObservableTransformer<F, E> latestWins(
+      final ObservableTransformer<F, E> transformer) {
+    return new ObservableTransformer<F, E>() {
+      @Override
+      public ObservableSource<E> apply(Observable<F> effectStream) {
+        return effectStream.switchMap(
+            new Function<F, ObservableSource<E>>() {
+              @Override
+              public ObservableSource<E> apply(F f) {
+                return Observable.just(f).compose(transformer);
+              }
+            });
+      }
+    };
+  }
+
+  /**
+   * Creates an {@link ObservableTransformer} that gives "latest wins" semantics to the provided
+   * transformer for effects that have the same key: when a new effect is received, the handling of
+   * the previous effect with an equal key is disposed of and any events it hasn't emitted yet are
+   * dropped. Effects with different keys are handled independently of each other.
+   *
+   * @param keyFunction {@link Function} returning the key that effects are grouped by
+   * @param transformer the {@link ObservableTransformer} that should handle each effect
+   * @param <F> the type of Effect this transformer handles
+   * @param <E> the type of Event this transformer emits
+   * @param <K> the type of the key
+   * @return an {@link ObservableTransformer} that can be used with a {@link
+   *     SubtypeEffectHandlerBuilder}.
+   */
+  static <F, E, K> ObservableTransformer<F, E> latestWins(
+      final Function<F, K> keyFunction, final ObservableTransformer<F, E> transformer) {
+    return new ObservableTransformer<F, E>() {
+      @Override
+      public ObservableSource<E> apply(Observable<F> effectStream) {
+        return effectStream.publish(
+            new Function<Observable<F>, ObservableSource<E>>() {
+              @Override
+              public ObservableSource<E> apply(final Observable<F> effects) {
+                return effects.flatMap(
+                    new Function<F, ObservableSource<E>>() {
+                      @Override
+                      public ObservableSource<E> apply(F effect) throws Exception {
+                        final K key = keyFunction.apply(effect);
+
+                        // the handling of an effect lasts until it completes or a newer effect
+                        // with the same key arrives, so nothing is kept for keys that are idle.
+                        // Upstream completion doesn't cut it short, hence the never().
+                        return Observable.just(effect)
+                            .compose(transformer)
+                            .takeUntil(
+                                effects
+                                    .filter(
+                                        new Predicate<F>() {
+                                          @Override
+                                          public boolean test(F other) throws Exception {
+                                            return key.equals(keyFunction.apply(other));
+                                          }
+                                        })
+                                    .concatWith(Observable.<F>never()));
+                      }
+                    });
+              }
+            });
+      }
+    };
+  }
+
+  /**
+   * Creates an {@link ObservableTransformer} that collects the effects it receives into batches,
+   * and invokes the provided {@link Function} once per batch. A batch is closed when it contains
+   * {@code maxBatchSize} effects, or when {@code maxDelay} has passed since it was opened,
+   * whichever happens first. The function must return the event for each effect in the batch, in
+   * the same order as the effects, and those events are then emitted one by one.
+   *
+   * <p>Batches that are closed because they are full are closed on the thread that delivered the
+   * last effect, so all batches are handed over to the scheduler before the function is invoked.
+   *
+   * @param batchFunction the {@link Function} to be invoked for every batch of effects
+   * @param maxBatchSize the maximum number of effects in a batch
+   * @param maxDelay the maximum time a batch is kept open
+   * @param unit the unit of {@code maxDelay}
+   * @param scheduler the {@link Scheduler} used for timing batches and invoking the function
+   * @param <F> the type of Effect this transformer handles
+   * @param <E> the type of Event this transformer emits
+   * @return an {@link ObservableTransformer} that can be used with a {@link
+   *     SubtypeEffectHandlerBuilder}.
+   */
+  static <F, E> ObservableTransformer<F, E> batching(
+      final Function<List<F>, List<E>> batchFunction,
+      final int maxBatchSize,
+      final long maxDelay,
+      final TimeUnit unit,
+      final Scheduler scheduler) {
+    return new ObservableTransformer<F, E>() {
+      @Override
+      public ObservableSource<E> apply(Observable<F> effectStream) {
+        return effectStream
+            .buffer(maxDelay, unit, scheduler, maxBatchSize)
+            .filter(
+                new Predicate<List<F>>() {
+                  @Override
+                  public boolean test(List<F> batch) {
+                    return !batch.isEmpty();
+                  }
+                })
+            .observeOn(scheduler)
+            .concatMapIterable(
+                new Function<List<F>, Iterable<E>>() {
+                  @Override
+                  public Iterable<E> apply(List<F> batch) throws Exception {
+                    List<E> events = batchFunction.apply(batch);
+
+                    if (events.size() != batch.size()) {
+                      throw new IllegalStateException(
+                          "batch function returned "
+                              + events.size()
+                              + " events for a batch of "
+                              + batch.size()
+                              + " effects");
+                    }
+
+                    return events;
+                  }
+                });
+      }
+    };
+  }
+
+  /**
+   * Creates an {@link ObservableTransformer} that puts a deadline on the handling of each effect by
+   * the provided transformer. Every effect is handled separately by the provided transformer, and
+   * if that hasn't emitted its first event within the timeout, its handling is disposed of and the
+   * event returned by {@code timeoutFunction} is emitted instead. Once the first event has been
+   * emitted, the handling of the effect is no longer subject to a deadline.
+   *
+   * @param transformer the {@link ObservableTransformer} that should handle each effect
+   * @param timeout the maximum time to wait for the first event for an effect
+   * @param unit the unit of {@code timeout}
+   * @param timeoutScheduler the {@link Scheduler} used for timing the deadline
+   * @param timeoutFunction the {@link Function} returning the event to emit on timeout
+   * @param <F> the type of Effect this transformer handles
+   * @param <E> the type of Event this transformer emits
+   * @return an {@link ObservableTransformer} that can be used with a {@link
+   *     SubtypeEffectHandlerBuilder}.
+   */
+  static <F, E> ObservableTransformer<F, E> timeout(
+      final ObservableTransformer<F, E> transformer,
+      final long timeout,
+      final TimeUnit unit,
+      final Scheduler timeoutScheduler,
+      final Function<F, E> timeoutFunction) {
+    return new ObservableTransformer<F, E>() {
+      @Override
+      public ObservableSource<E> apply(Observable<F> effectStream) {
+        return effectStream.flatMap(
+            new Function<F, ObservableSource<E>>() {
+              @Override
+              public ObservableSource<E> apply(final F f) {
+                return Observable.just(f)
+                    .compose(transformer)
+                    .timeout(
+                        Observable.timer(timeout, unit, timeoutScheduler),
+                        new Function<E, ObservableSource<Long>>() {
+                          @Override
+                          public ObservableSource<Long> apply(E e) {
+                            return Observable.never();
+                          }
+                        },
+                        Observable.fromCallable(
+                            new Callable<E>() {
+                              @Override
+                              public E call() throws Exception {
+                                return timeoutFunction.apply(f);
+                              }
+                            }));
+              }
+            });
+      }
+    };
+  }
+
+  /**
+   * Creates an {@link ObservableTransformer} that defers applying the given transformer until the
+   * first effect arrives. Any setup done by the transformer when it is composed or subscribed to is
+   * therefore only paid for if it is actually used. The first effect and all subsequent ones are
+   * forwarded to the transformer once it is connected.
+   *
+   * @param transformer the transformer to connect lazily
+   * @param <F> the type of Effect this transformer handles
+   * @param <E> the type of Event this transformer emits
+   * @return an {@link ObservableTransformer} that can be used with a {@link
+   *     SubtypeEffectHandlerBuilder}.
+   */
+  static <F, E> ObservableTransformer<F, E> connectOnFirstEffect(
+      final ObservableTransformer<F, E> transformer) {
+    return new ObservableTransformer<F, E>() {
+      @Override
+      public ObservableSource<E> apply(Observable<F> effects) {
+        return effects.publish(
+            new Function<Observable<F>, ObservableSource<E>>() {
+              @Override
+              public ObservableSource<E> apply(final Observable<F> sharedEffects) {
+                return sharedEffects
+                    .take(1)
+                    .flatMap(
+                        new Function<F, ObservableSource<E>>() {
+                          @Override
+                          public ObservableSource<E> apply(F firstEffect) {
+                            return sharedEffects.startWith(firstEffect).compose(transformer);
+                          }
+                        });
+              }
+            });
+      }
+    };
+  }
 }
@@ -0,0 +1,147 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.rx2;
+
+import static com.spotify.mobius.Next.noChange;
+
+import com.spotify.mobius.EventSource;
+import com.spotify.mobius.MergedEventSource;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+/**
+ * Measures how long it takes to start a loop whose effect handler and event sources are slow to
+ * connect, with and without lazy effect handler connection and parallel event source subscription.
+ *
+ * <p>This is not a unit test; run it manually using its main method.
+ */
+public class LoopStartupBenchmark {
+
+  private static final int ITERATIONS = 50;
+  private static final long SUB_HANDLER_SETUP_MILLIS = 2;
+  private static final long EVENT_SOURCE_SETUP_MILLIS = 5;
+
+  public static void main(String[] args) throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+
+    try {
+      report("eager handlers, sequential sources", false, null);
+      report("lazy handlers, sequential sources", true, null);
+      report("eager handlers, parallel sources", false, executor);
+      report("lazy handlers, parallel sources", true, executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void report(String name, boolean lazy, ExecutorService subscribeExecutor) {
+    long[] nanos = new long[ITERATIONS];
+
+    for (int i = 0; i < ITERATIONS; i++) {
+      MobiusLoop.Builder<String, String, Effect> builder =
+          RxMobius.<String, String, Effect>loop((model, event) -> noChange(), effectHandler(lazy))
+              .eventSource(eventSource(subscribeExecutor));
+
+      long start = System.nanoTime();
+      MobiusLoop<String, String, Effect> loop = builder.startFrom("init");
+      nanos[i] = System.nanoTime() - start;
+
+      loop.dispose();
+    }
+
+    Arrays.sort(nanos);
+    System.out.printf(
+        "%-40s median: %6.2f ms, p90: %6.2f ms%n",
+        name, nanos[ITERATIONS / 2] / 1_000_000.0, nanos[ITERATIONS * 9 / 10] / 1_000_000.0);
+  }
+
+  private static ObservableTransformer<Effect, String> effectHandler(boolean lazy) {
+    RxMobius.SubtypeEffectHandlerBuilder<Effect, String> builder =
+        RxMobius.<Effect, String>subtypeEffectHandler()
+            .addTransformer(Effect1.class, slowToConnect())
+            .addTransformer(Effect2.class, slowToConnect())
+            .addTransformer(Effect3.class, slowToConnect())
+            .addTransformer(Effect4.class, slowToConnect())
+            .addTransformer(Effect5.class, slowToConnect())
+            .addTransformer(Effect6.class, slowToConnect());
+
+    if (lazy) {
+      builder.withLazyConnection();
+    }
+
+    return builder.build();
+  }
+
+  private static <G extends Effect> ObservableTransformer<G, String> slowToConnect() {
+    return (Observable<G> effects) -> {
+      sleep(SUB_HANDLER_SETUP_MILLIS);
+      return effects.map(Object::toString);
+    };
+  }
+
+  private static EventSource<String> eventSource(ExecutorService subscribeExecutor) {
+    if (subscribeExecutor == null) {
+      return MergedEventSource.from(
+          new SlowEventSource(), new SlowEventSource(), new SlowEventSource());
+    }
+
+    return MergedEventSource.fromParallel(
+        subscribeExecutor, new SlowEventSource(), new SlowEventSource(), new SlowEventSource());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class SlowEventSource implements EventSource<String> {
+    @Nonnull
+    @Override
+    public Disposable subscribe(Consumer<String> eventConsumer) {
+      sleep(EVENT_SOURCE_SETUP_MILLIS);
+      return () -> {};
+    }
+  }
+
+  private interface Effect {}
+
+  private static class Effect1 implements Effect {}
+
+  private static class Effect2 implements Effect {}
+
+  private static class Effect3 implements Effect {}
+
+  private static class Effect4 implements Effect {}
+
+  private static class Effect5 implements Effect {}
+
+  private static class Effect6 implements Effect {}
+}
@@ -30,8 +30,11 @@ import io.reactivex.ObservableTransformer;
 import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import io.reactivex.subjects.PublishSubject;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -211,6 +214,97 @@ public class MobiusEffectRouterTest {
     testSubscriber.assertError(expectedException);
   }
 
+  @Test
+  public void shouldConnectSubTransformersOnFirstEffectWhenLazy() throws Exception {
+    publishSubject = PublishSubject.create();
+    testSubscriber = TestObserver.create();
+
+    final AtomicInteger aConnections = new AtomicInteger();
+    final AtomicInteger bConnections = new AtomicInteger();
+
+    ObservableTransformer<TestEffect, TestEvent> router =
+        RxMobius.<TestEffect, TestEvent>subtypeEffectHandler()
+            .addTransformer(
+                A.class,
+                (Observable<A> as) -> {
+                  aConnections.incrementAndGet();
+                  return as.map(a -> AEvent.create(a.id()));
+                })
+            .addTransformer(
+                B.class,
+                (Observable<B> bs) -> {
+                  bConnections.incrementAndGet();
+                  return bs.map(b -> BEvent.create(b.id()));
+                })
+            .withLazyConnection()
+            .build();
+
+    publishSubject.compose(router).subscribe(testSubscriber);
+
+    assertThat(aConnections.get(), is(0));
+    assertThat(bConnections.get(), is(0));
+
+    publishSubject.onNext(A.create(1));
+    publishSubject.onNext(A.create(2));
+    publishSubject.onComplete();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber.assertValues(AEvent.create(1), AEvent.create(2));
+    assertThat(aConnections.get(), is(1));
+    assertThat(bConnections.get(), is(0));
+  }
+
+  @Test
+  public void enablingLazyConnectionAfterBuildDoesNotAffectBuiltHandler() throws Exception {
+    publishSubject = PublishSubject.create();
+    testSubscriber = TestObserver.create();
+
+    final AtomicInteger aConnections = new AtomicInteger();
+
+    RxMobius.SubtypeEffectHandlerBuilder<TestEffect, TestEvent> builder =
+        RxMobius.<TestEffect, TestEvent>subtypeEffectHandler()
+            .addTransformer(
+                A.class,
+                (Observable<A> as) -> {
+                  aConnections.incrementAndGet();
+                  return as.map(a -> AEvent.create(a.id()));
+                });
+
+    ObservableTransformer<TestEffect, TestEvent> router = builder.build();
+    builder.withLazyConnection();
+
+    publishSubject.compose(router).subscribe(testSubscriber);
+
+    assertThat(aConnections.get(), is(1));
+  }
+
+  @Test
+  public void shouldTimeOutEffectsOnGivenScheduler() throws Exception {
+    publishSubject = PublishSubject.create();
+    testSubscriber = TestObserver.create();
+    TestScheduler scheduler = new TestScheduler();
+
+    ObservableTransformer<TestEffect, TestEvent> router =
+        RxMobius.<TestEffect, TestEvent>subtypeEffectHandler()
+            .addTimeoutTransformer(
+                A.class,
+                (Observable<A> as) -> as.flatMap(a -> Observable.<TestEvent>never()),
+                1,
+                TimeUnit.SECONDS,
+                scheduler,
+                a -> BEvent.create(a.id()))
+            .build();
+
+    publishSubject.compose(router).subscribe(testSubscriber);
+
+    publishSubject.onNext(A.create(1));
+    scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+    testSubscriber.assertNoValues();
+
+    scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+    testSubscriber.assertValue(BEvent.create(1));
+  }
+
   private interface TestEffect {}
 
   @AutoValue
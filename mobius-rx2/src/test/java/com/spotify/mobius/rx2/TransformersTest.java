@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.awaitility.Duration;
 import org.junit.Test;
 
@@ -145,6 +146,247 @@ public class TransformersTest {
     await().atMost(durationForEffects(effects)).until(() -> results.equals(expected(effects)));
   }
 
+  @Test
+  public void singleFlightCoalescesEqualEffectsWhileInFlight() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    AtomicInteger invocations = new AtomicInteger();
+    Function<String, Integer> function =
+        s -> {
+          invocations.incrementAndGet();
+          return s.length();
+        };
+    TestObserver<Integer> observer =
+        upstream.compose(Transformers.singleFlight(s -> s, function, scheduler)).test();
+
+    upstream.onNext("Hello");
+    upstream.onNext("Hello");
+    upstream.onNext("Rx2");
+    scheduler.triggerActions();
+
+    observer.assertValues(5, 5, 3);
+    assertThat(invocations.get(), is(2));
+
+    upstream.onNext("Hello");
+    scheduler.triggerActions();
+
+    observer.assertValues(5, 5, 3, 5);
+    assertThat(invocations.get(), is(3));
+  }
+
+  @Test
+  public void singleFlightCoalescesEffectsByKey() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    TestObserver<String> observer =
+        upstream
+            .compose(
+                Transformers.<String, String, Integer>singleFlight(
+                    String::length, s -> s + "!", scheduler))
+            .test();
+
+    upstream.onNext("abc");
+    upstream.onNext("def");
+    scheduler.triggerActions();
+
+    observer.assertValues("abc!", "abc!");
+  }
+
+  @Test
+  public void latestWinsDropsResultsOfSupersededEffects() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    TestObserver<String> observer =
+        upstream
+            .compose(
+                Transformers.latestWins(
+                    (Observable<String> effects) ->
+                        effects.flatMap(
+                            s ->
+                                Observable.just("result: " + s)
+                                    .delay(1, TimeUnit.SECONDS, scheduler))))
+            .test();
+
+    upstream.onNext("a");
+    upstream.onNext("b");
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    upstream.onNext("c");
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    observer.assertValues("result: b", "result: c");
+  }
+
+  @Test
+  public void latestWinsOnlySupersedesEffectsWithTheSameKey() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    TestObserver<String> observer =
+        upstream
+            .compose(
+                Transformers.latestWins(
+                    (String s) -> s.charAt(0),
+                    (Observable<String> effects) ->
+                        effects.flatMap(
+                            s ->
+                                Observable.just("result: " + s)
+                                    .delay(1, TimeUnit.SECONDS, scheduler))))
+            .test();
+
+    upstream.onNext("a1");
+    upstream.onNext("b1");
+    upstream.onNext("a2");
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    observer.assertValues("result: b1", "result: a2");
+  }
+
+  @Test
+  public void latestWinsForgetsKeysWhoseEffectsHaveCompleted() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    AtomicInteger keyLookups = new AtomicInteger();
+    TestObserver<String> observer =
+        upstream
+            .compose(
+                Transformers.latestWins(
+                    (String s) -> {
+                      keyLookups.incrementAndGet();
+                      return s;
+                    },
+                    (Observable<String> effects) -> effects.map(s -> "result: " + s)))
+            .test();
+
+    for (int i = 0; i < 100; i++) {
+      upstream.onNext("key" + i);
+    }
+
+    observer.assertValueCount(100);
+    // every lookup beyond the one for the effect itself would come from a lingering watcher for an
+    // earlier key
+    assertThat(keyLookups.get(), is(100));
+  }
+
+  @Test
+  public void latestWinsLetsRunningEffectsFinishWhenUpstreamCompletes() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    TestObserver<String> observer =
+        upstream
+            .compose(
+                Transformers.latestWins(
+                    (String s) -> s.charAt(0),
+                    (Observable<String> effects) ->
+                        effects.flatMap(
+                            s ->
+                                Observable.just("result: " + s)
+                                    .delay(1, TimeUnit.SECONDS, scheduler))))
+            .test();
+
+    upstream.onNext("a1");
+    upstream.onComplete();
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    observer.assertValues("result: a1");
+    observer.assertComplete();
+  }
+
+  @Test
+  public void batchingInvokesFunctionOncePerBatch() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    List<List<String>> batches = new ArrayList<>();
+    TestObserver<Integer> observer =
+        upstream
+            .compose(
+                Transformers.<String, Integer>batching(
+                    batch -> {
+                      batches.add(batch);
+                      return new ArrayList<>(transform(batch, String::length));
+                    },
+                    2,
+                    1,
+                    TimeUnit.SECONDS,
+                    scheduler))
+            .test();
+
+    upstream.onNext("a");
+    upstream.onNext("bb");
+    upstream.onNext("ccc");
+    assertThat(batches.isEmpty(), is(true));
+
+    scheduler.triggerActions();
+    observer.assertValues(1, 2);
+
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    observer.assertValues(1, 2, 3);
+    assertThat(batches, is(Arrays.asList(Arrays.asList("a", "bb"), Arrays.asList("ccc"))));
+  }
+
+  @Test
+  public void batchingErrorsIfFunctionReturnsWrongNumberOfEvents() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    TestObserver<Integer> observer =
+        upstream
+            .compose(
+                Transformers.<String, Integer>batching(
+                    batch -> Arrays.asList(1), 2, 1, TimeUnit.SECONDS, scheduler))
+            .test();
+
+    upstream.onNext("a");
+    upstream.onNext("b");
+    scheduler.triggerActions();
+
+    observer.assertError(IllegalStateException.class);
+  }
+
+  @Test
+  public void timeoutEmitsTimeoutEventIfNoEventArrivesInTime() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    PublishSubject<Integer> results = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    TestObserver<Integer> observer =
+        upstream
+            .compose(
+                Transformers.<String, Integer>timeout(
+                    effects -> effects.flatMap(effect -> results),
+                    1,
+                    TimeUnit.SECONDS,
+                    scheduler,
+                    effect -> -1))
+            .test();
+
+    upstream.onNext("a");
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    results.onNext(1);
+
+    observer.assertValues(-1);
+    assertThat(results.hasObservers(), is(false));
+  }
+
+  @Test
+  public void timeoutDoesNotApplyAfterFirstEvent() {
+    PublishSubject<String> upstream = PublishSubject.create();
+    PublishSubject<Integer> results = PublishSubject.create();
+    TestScheduler scheduler = new TestScheduler();
+    TestObserver<Integer> observer =
+        upstream
+            .compose(
+                Transformers.<String, Integer>timeout(
+                    effects -> effects.flatMap(effect -> results),
+                    1,
+                    TimeUnit.SECONDS,
+                    scheduler,
+                    effect -> -1))
+            .test();
+
+    upstream.onNext("a");
+    results.onNext(1);
+    scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+    results.onNext(2);
+
+    observer.assertValues(1, 2);
+  }
+
   private Duration durationForEffects(List<String> effects) {
     int maxDuration = -1;
     for (String f : effects) {
@@ -0,0 +1,47 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.test;
+
+import com.spotify.mobius.functions.Producer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/** Helper for matching the eager and lazy effects of {@code Next} and {@code First} together. */
+final class EvaluatedEffects {
+  private EvaluatedEffects() {
+    // prevent instantiation
+  }
+
+  /**
+   * Returns the eager effects together with the values of the lazy effects. The lazy effects are
+   * evaluated each time this is called.
+   */
+  static <F> Set<F> of(Set<F> effects, Set<Producer<? extends F>> lazyEffects) {
+    if (lazyEffects.isEmpty()) {
+      return effects;
+    }
+
+    Set<F> result = new LinkedHashSet<>(effects);
+    for (Producer<? extends F> lazyEffect : lazyEffects) {
+      result.add(lazyEffect.get());
+    }
+    return result;
+  }
+}
@@ -23,6 +23,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
 
 import com.spotify.mobius.First;
+import java.util.Set;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
@@ -105,7 +106,7 @@ public final class FirstMatchers {
 
   /**
    * Returns a matcher that matches {@link First} instances whose effects match the supplied effect
-   * matcher.
+   * matcher. Lazy effects are evaluated and matched together with the other effects.
    *
    * @param matcher the matcher to apply to the effects
    * @param <M> the model type
@@ -118,15 +119,17 @@ public final class FirstMatchers {
         if (!item.hasEffects()) {
           mismatchDescription.appendText("no effects");
           return false;
+        }
 
-        } else if (!matcher.matches(item.effects())) {
+        Set<F> effects = EvaluatedEffects.of(item.effects(), item.lazyEffects());
+        if (!matcher.matches(effects)) {
           mismatchDescription.appendText("bad effects: ");
-          matcher.describeMismatch(item.effects(), mismatchDescription);
+          matcher.describeMismatch(effects, mismatchDescription);
           return false;
 
         } else {
           mismatchDescription.appendText("has effects: ");
-          matcher.describeMismatch(item.effects(), mismatchDescription);
+          matcher.describeMismatch(effects, mismatchDescription);
           return true;
         }
       }
@@ -24,6 +24,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
 
 import com.spotify.mobius.Next;
+import java.util.Set;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
@@ -131,7 +132,7 @@ public final class NextMatchers {
   }
 
   /**
-   * Returns a matcher that matches {@link Next} instances with no effects.
+   * Returns a matcher that matches {@link Next} instances with no effects or lazy effects.
    *
    * @param <M> the model type
    * @param <F> the effect type
@@ -141,7 +142,8 @@ public final class NextMatchers {
       @Override
       protected boolean matchesSafely(Next<M, F> item, Description mismatchDescription) {
         if (item.hasEffects()) {
-          mismatchDescription.appendText("it had effects: " + item.effects());
+          mismatchDescription.appendText(
+              "it had effects: " + EvaluatedEffects.of(item.effects(), item.lazyEffects()));
           return false;
         } else {
           return true;
@@ -157,7 +159,7 @@ public final class NextMatchers {
 
   /**
    * Returns a matcher that matches {@link Next} instances whose effects match the supplied effect
-   * matcher.
+   * matcher. Lazy effects are evaluated and matched together with the other effects.
    *
    * @param matcher the matcher to apply to the effects
    * @param <M> the model type
@@ -170,10 +172,12 @@ public final class NextMatchers {
         if (!item.hasEffects()) {
           mismatchDescription.appendText("it had no effects");
           return false;
+        }
 
-        } else if (!matcher.matches(item.effects())) {
+        Set<F> effects = EvaluatedEffects.of(item.effects(), item.lazyEffects());
+        if (!matcher.matches(effects)) {
           mismatchDescription.appendText("the effects were ");
-          matcher.describeMismatch(item.effects(), mismatchDescription);
+          matcher.describeMismatch(effects, mismatchDescription);
           return false;
         }
         return true;
@@ -20,6 +20,7 @@
 package com.spotify.mobius.test;
 
 import static com.spotify.mobius.Effects.effects;
+import static com.spotify.mobius.Effects.lazyEffects;
 import static com.spotify.mobius.First.first;
 import static com.spotify.mobius.test.FirstMatchers.hasEffects;
 import static com.spotify.mobius.test.FirstMatchers.hasModel;
@@ -120,6 +121,14 @@ public class FirstMatchersTest {
     assertEquals("has effects: ", desc.toString());
   }
 
+  @Test
+  public void testHasEffectsMatchesLazyEffects() throws Exception {
+    first = first("a", effects(1), lazyEffects(() -> 2));
+    matcher = hasEffects(hasItems(1, 2));
+
+    assertTrue(matcher.matches(first));
+  }
+
   @Test
   public void testHasEffectsSpecificButWrong() throws Exception {
     first = first("a", effects(1));
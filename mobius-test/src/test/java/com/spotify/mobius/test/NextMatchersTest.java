@@ -20,6 +20,7 @@
 package com.spotify.mobius.test;
 
 import static com.spotify.mobius.Effects.effects;
+import static com.spotify.mobius.Effects.lazyEffects;
 import static com.spotify.mobius.Next.dispatch;
 import static com.spotify.mobius.Next.next;
 import static com.spotify.mobius.Next.noChange;
@@ -167,6 +168,38 @@ public class NextMatchersTest {
     assertEquals("it had effects: [1, 2, 3]", desc.toString());
   }
 
+  @Test
+  public void testHasNoEffectsMismatchWithLazyEffects() throws Exception {
+    next = dispatch(effects(1), lazyEffects(() -> 2));
+    matcher = hasNoEffects();
+
+    assertFalse(matcher.matches(next));
+
+    matcher.describeMismatch(next, desc);
+
+    assertEquals("it had effects: [1, 2]", desc.toString());
+  }
+
+  @Test
+  public void testHasEffectsMatchesLazyEffects() throws Exception {
+    next = dispatch(effects(1), lazyEffects(() -> 2));
+    matcher = hasEffects(hasItems(1, 2));
+
+    assertTrue(matcher.matches(next));
+  }
+
+  @Test
+  public void testHasEffectsSpecificButWrongWithLazyEffects() throws Exception {
+    next = dispatch(effects(), lazyEffects(() -> 1));
+    matcher = hasEffects(hasItems(2));
+
+    assertFalse(matcher.matches(next));
+
+    matcher.describeMismatch(next, desc);
+
+    assertEquals("the effects were a collection containing <2> was <1>", desc.toString());
+  }
+
   @Test
   public void testHasEffectsSpecific() throws Exception {
     next = dispatch(effects(1, 3, 2));